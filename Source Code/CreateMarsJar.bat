@@ -1 +1,38 @@
-jar cmf mainclass.txt Mars.jar PseudoOps.txt Config.properties Syscall.properties Settings.properties MARSlicense.txt mainclass.txt MipsXRayOpcode.xml registerDatapath.xml controlDatapath.xml ALUcontrolDatapath.xml CreateMarsJar.bat Mars.java Mars.class docs help images mars 
\ No newline at end of file
+rem Builds Mars.jar from the compiled classes in this folder.
+rem
+rem The JAR includes an index of the syscalls, dump formats and tools, written by
+rem mars.util.PluginIndex, so that MARS need not search the JAR for them at startup.
+rem Tools are named in the index, which needs a display to create them.  The index is
+rem deleted from this folder afterward, so MARS run from here still finds new classes.
+rem
+rem "CreateMarsJar cds" also writes Mars.jsa, a class data sharing archive of the
+rem classes loaded to assemble, run and dump a small program (Java 13 or later).
+rem Start MARS with it from the folder holding both files:
+rem    java -XX:SharedArchiveFile=Mars.jsa -jar Mars.jar
+rem To archive the classes of the GUI as well, instead start MARS once by
+rem    java -XX:ArchiveClassesAtExit=Mars.jsa -jar Mars.jar
+rem and exit it after assembling and running a program.
+
+java -cp . mars.util.PluginIndex .
+jar cmf mainclass.txt Mars.jar PseudoOps.txt Config.properties Syscall.properties Settings.properties MARSlicense.txt mainclass.txt MipsXRayOpcode.xml registerDatapath.xml controlDatapath.xml ALUcontrolDatapath.xml CreateMarsJar.bat Mars.java Mars.class docs help images mars META-INF/services
+rmdir /s /q META-INF\services
+if /i not "%1"=="cds" goto :eof
+
+>cdstrain.asm echo .data
+>>cdstrain.asm echo msg: .asciiz "sum "
+>>cdstrain.asm echo .text
+>>cdstrain.asm echo main: li $t0, 10
+>>cdstrain.asm echo       li $t1, 0
+>>cdstrain.asm echo loop: add $t1, $t1, $t0
+>>cdstrain.asm echo       addi $t0, $t0, -1
+>>cdstrain.asm echo       bgtz $t0, loop
+>>cdstrain.asm echo       la $a0, msg
+>>cdstrain.asm echo       li $v0, 4
+>>cdstrain.asm echo       syscall
+>>cdstrain.asm echo       move $a0, $t1
+>>cdstrain.asm echo       li $v0, 1
+>>cdstrain.asm echo       syscall
+>>cdstrain.asm echo       li $v0, 10
+>>cdstrain.asm echo       syscall
+java -XX:ArchiveClassesAtExit=Mars.jsa -jar Mars.jar nc cdstrain.asm dump .text HexText cdstrain.txt
+del cdstrain.asm cdstrain.txt
@@ -4,6 +4,18 @@
    import mars.mips.dump.*;
    import mars.mips.hardware.*;
    import mars.simulator.*;
+   import mars.tools.BHTableModel;
+   import mars.tools.BranchPredictor;
+   import mars.tools.BranchPredictorComparison;
+   import mars.tools.CacheHierarchy;
+   import mars.tools.CacheSweep;
+   import mars.tools.ExecutionProfile;
+   import mars.tools.PipelineModel;
+   import mars.tools.TraceListener;
+   import mars.tools.TraceObserver;
+   import mars.tools.TraceReader;
+   import mars.tools.TraceRecorder;
+   import mars.tools.TraceWriter;
    import java.io.*;
    import java.util.*;
    import java.awt.*;
@@ -65,6 +77,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   an address range (see <i>m-n</i> below).  Current supported <br>
                   segments are <tt>.text</tt> and <tt>.data</tt>.  Current supported dump formats <br>
                   are <tt>Binary</tt>, <tt>HexText</tt>, <tt>BinaryText</tt>.<br>
+         load  -- load memory contents from file instead of assembling.  Option has 3<br>
+                  arguments, e.g. <tt>load &lt;segment&gt; &lt;format&gt; &lt;file&gt;</tt>, same as dump.<br>
+                  Supported formats are <tt>Binary</tt>, <tt>HexText</tt>, <tt>IntelHex</tt>, <tt>MIF</tt>.<br>
             h  -- display help.  Use by itself and with no filename</br>
           hex  -- display memory or register contents in hexadecimal (default)<br>
            ic  -- display count of MIPS basic instructions 'executed'");
@@ -122,9 +137,28 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private int instructionCount;
       private PrintStream out; // stream for display of command line output
       private ArrayList dumpTriples = null; // each element holds 3 arguments for dump option
+      private ArrayList<String[]> loadTriples = null; // each element holds 3 arguments for load option
       private ArrayList programArgumentList; // optional program args for MIPS program (becomes argc, argv)
       private int assembleErrorExitCode;  // MARS command exit code to return if assemble error occurs
       private int simulateErrorExitCode;// MARS command exit code to return if simulation error occurs
+   	// Cache and branch prediction models, run without GUI on the simulation or a trace file.
+   	// See cache, cachesweep, bht, bp, trace, replay and report options.
+      private CacheHierarchy.Level instructionCache, dataCache, unifiedCache;
+      private int memoryCycles = CacheHierarchy.DEFAULT_MEMORY_CYCLES;
+      private CacheHierarchy cacheHierarchy;
+      private CacheSweep cacheSweep;
+      private BHTableModel branchHistoryTable;
+      private ArrayList<BranchPredictor> branchPredictors = new ArrayList<BranchPredictor>();
+      private BranchPredictorComparison branchPredictorComparison;
+      private TraceObserver traceObserver;
+      private TraceWriter traceWriter;
+      private TraceRecorder traceRecorder;
+      private String traceFileName, recordFileName, replayFileName, reportFileName;
+   	// Execution profile, see profile and annotate options.
+      private ExecutionProfile executionProfile;
+      private String profileFileName, annotateFileName;
+   	// Pipeline timing model, see pipeline option.
+      private PipelineModel pipelineModel;
    		
       public MarsLaunch(String[] args) {
          boolean gui = (args.length == 0);
@@ -163,6 +197,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   displayMemoryPostMortem();
                }
                dumpSegments();
+               reportTraceModels();
             }
             System.exit(Globals.exitCode);
          }
@@ -208,7 +243,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                continue;
             }
             try {
-               int highAddress = Globals.memory.getAddressOfFirstNull(segInfo[0].intValue(), segInfo[1].intValue())- Memory.WORD_LENGTH_BYTES;
+               int highAddress = Globals.memory.getAddressOfLastNonNull(segInfo[0].intValue(), segInfo[1].intValue());
                if (highAddress < segInfo[0].intValue()) {
                   out.println("This segment has not been written to, there is nothing to dump.");
                   continue;
@@ -311,6 +346,18 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                }
                continue;
             } 
+            if (args[i].toLowerCase().equals("load")) {
+               if (args.length <= (i+3)) {
+                  out.println("Load command line argument requires a segment, format and file name.");
+                  argsOK = false;
+               } 
+               else {
+                  if (loadTriples == null) 
+                     loadTriples = new ArrayList<String[]>();
+                  loadTriples.add(new String[] {args[++i], args[++i], args[++i]});
+               }
+               continue;
+            } 
             if (args[i].toLowerCase().equals("mc")) {
                String configName = args[++i];
                MemoryConfiguration config = MemoryConfigurations.getConfigurationByName(configName);
@@ -403,6 +450,79 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                countInstructions = true;
                continue;
             }
+            if (args[i].toLowerCase().equals("cache")) {
+               String error = (args.length <= (i+1)) ? "Cache command line argument requires a cache specification." 
+                                                      : parseCacheLevel(args[++i]);
+               if (error != null) {
+                  out.println(error);
+                  argsOK = false;
+               }
+               continue;
+            }
+            if (args[i].toLowerCase().equals("cachesweep")) {
+               // Optional <blocks>:<words> maximums; anything else following is a later argument.
+               String error = (args.length > (i+1) && args[i+1].matches("\\d+:\\d+")) 
+                                 ? parseCacheSweep(args[++i]) : parseCacheSweep("2048:2048");
+               if (error != null) {
+                  out.println(error);
+                  argsOK = false;
+               }
+               continue;
+            }
+            if (args[i].toLowerCase().equals("bht")) {
+               String error = (args.length <= (i+1)) ? "BHT command line argument requires a BHT specification." 
+                                                      : parseBranchHistoryTable(args[++i]);
+               if (error != null) {
+                  out.println(error);
+                  argsOK = false;
+               }
+               continue;
+            }
+            if (args[i].toLowerCase().equals("bp")) {
+               String error = (args.length <= (i+1)) ? "BP command line argument requires a predictor specification." 
+                                                      : parseBranchPredictor(args[++i]);
+               if (error != null) {
+                  out.println(error);
+                  argsOK = false;
+               }
+               continue;
+            }
+            if (args[i].toLowerCase().equals("pipeline")) {
+               String error = (args.length <= (i+1)) ? "Pipeline command line argument requires a pipeline specification." 
+                                                      : parsePipeline(args[++i]);
+               if (error != null) {
+                  out.println(error);
+                  argsOK = false;
+               }
+               continue;
+            }
+            if (args[i].toLowerCase().equals("trace") || args[i].toLowerCase().equals("record") 
+                || args[i].toLowerCase().equals("replay") || args[i].toLowerCase().equals("report")
+                || args[i].toLowerCase().equals("profile") || args[i].toLowerCase().equals("annotate")) {
+               if (args.length <= (i+1)) {
+                  out.println(args[i] + " command line argument requires a file name.");
+                  argsOK = false;
+               } 
+               else if (args[i].toLowerCase().equals("trace")) {
+                  traceFileName = args[++i];
+               } 
+               else if (args[i].toLowerCase().equals("record")) {
+                  recordFileName = args[++i];
+               } 
+               else if (args[i].toLowerCase().equals("replay")) {
+                  replayFileName = args[++i];
+               } 
+               else if (args[i].toLowerCase().equals("profile")) {
+                  profileFileName = args[++i];
+               } 
+               else if (args[i].toLowerCase().equals("annotate")) {
+                  annotateFileName = args[++i];
+               } 
+               else {
+                  reportFileName = args[++i];
+               }
+               continue;
+            }
          
          
             if (args[i].indexOf("$") == 0) {
@@ -451,6 +571,26 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             out.println("Invalid Command Argument: "+args[i]);
             argsOK = false;
          }
+         if (instructionCache != null || unifiedCache != null) {
+            if (dataCache == null) {
+               out.println("Cache specification requires a D (data) cache if other levels are given.");
+               argsOK = false;
+            }
+         }
+         if (dataCache != null && argsOK) {
+            cacheHierarchy = new CacheHierarchy(instructionCache, dataCache, unifiedCache, memoryCycles);
+         }
+         if (pipelineModel != null && replayFileName != null) {
+            out.println("Pipeline model requires a program to simulate; it cannot be run on a trace.");
+            argsOK = false;
+         }
+         if (pipelineModel != null && argsOK) {
+            pipelineModel.setCacheHierarchy(cacheHierarchy);
+         }
+         if (branchPredictors.size() > 0 && argsOK) {
+            branchPredictorComparison = new BranchPredictorComparison(
+                 branchPredictors.toArray(new BranchPredictor[branchPredictors.size()]));
+         }
          return argsOK;
       }
       
@@ -461,49 +601,26 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       	
       private boolean runCommand() {
          boolean programRan = false;
-         if (filenameList.size()==0) {
+         if (replayFileName != null) {
+            replayTrace();
+            return programRan;
+         }
+         if (filenameList.size()==0 && loadTriples==null) {
             return programRan;
          }
          try {
             Globals.getSettings().setBooleanSettingNonPersistent(Settings.DELAYED_BRANCHING_ENABLED, delayedBranching);
             Globals.getSettings().setBooleanSettingNonPersistent(Settings.SELF_MODIFYING_CODE_ENABLED, selfModifyingCode);
-            File mainFile = new File((String) filenameList.get(0)).getAbsoluteFile();// First file is "main" file
-            ArrayList filesToAssemble;
-            if (assembleProject) { 
-               filesToAssemble = FilenameFinder.getFilenameList(mainFile.getParent(), Globals.fileExtensions);
-               if (filenameList.size() > 1) {
-                  // Using "p" project option PLUS listing more than one filename on command line.
-                  // Add the additional files, avoiding duplicates.
-                  filenameList.remove(0); // first one has already been processed
-                  ArrayList moreFilesToAssemble = FilenameFinder.getFilenameList(filenameList, FilenameFinder.MATCH_ALL_EXTENSIONS);
-                  // Remove any duplicates then merge the two lists.
-                  for (int index2 = 0; index2<moreFilesToAssemble.size(); index2++) {
-                     for (int index1 = 0; index1<filesToAssemble.size(); index1++) {
-                        if (filesToAssemble.get(index1).equals(moreFilesToAssemble.get(index2))) {
-                           moreFilesToAssemble.remove(index2);
-                           index2--; // adjust for left shift in moreFilesToAssemble...
-                           break;    // break out of inner loop...
-                        }
-                     }
-                  }
-                  filesToAssemble.addAll(moreFilesToAssemble);
-               }
+            if (filenameList.size()==0) {
+               // "load and go": memory images only, nothing to assemble.
+               Globals.symbolTable.clear();
+               Globals.memory.clear();
             } 
             else {
-               filesToAssemble = FilenameFinder.getFilenameList(filenameList, FilenameFinder.MATCH_ALL_EXTENSIONS);
-            }
-            if (Globals.debug) {
-               out.println("--------  TOKENIZING BEGINS  -----------");
+               assembleFiles();
             }
-            ArrayList MIPSprogramsToAssemble = 
-                      code.prepareFilesForAssembly(filesToAssemble, mainFile.getAbsolutePath(), null);		
-            if (Globals.debug) {
-               out.println("--------  ASSEMBLY BEGINS  -----------");
-            }
-         	// Added logic to check for warnings and print if any. DPS 11/28/06
-            ErrorList warnings = code.assemble(MIPSprogramsToAssemble, pseudo, warningsAreErrors);
-            if (warnings != null && warnings.warningsOccurred()) {
-               out.println(warnings.generateWarningReport());
+            if (loadTriples != null && !loadSegments()) {
+               return programRan;
             }
             RegisterFile.initializeProgramCounter(startAtMain); // DPS 3/9/09
             if (simulate) {
@@ -529,9 +646,106 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                out.println(e.errors().generateErrorAndWarningReport());
                out.println("Processing terminated due to errors.");
             } 
+         finishTrace();
          return programRan;
       }
    
+   	//////////////////////////////////////////////////////////////////////
+   	// Read, tokenize and assemble the files named on the command line.
+   	
+      private void assembleFiles() throws ProcessingException {
+         File mainFile = new File((String) filenameList.get(0)).getAbsoluteFile();// First file is "main" file
+         ArrayList filesToAssemble;
+         if (assembleProject) { 
+            filesToAssemble = FilenameFinder.getFilenameList(mainFile.getParent(), Globals.fileExtensions);
+            if (filenameList.size() > 1) {
+               // Using "p" project option PLUS listing more than one filename on command line.
+               // Add the additional files, avoiding duplicates.
+               filenameList.remove(0); // first one has already been processed
+               ArrayList moreFilesToAssemble = FilenameFinder.getFilenameList(filenameList, FilenameFinder.MATCH_ALL_EXTENSIONS);
+               // Remove any duplicates then merge the two lists.
+               for (int index2 = 0; index2<moreFilesToAssemble.size(); index2++) {
+                  for (int index1 = 0; index1<filesToAssemble.size(); index1++) {
+                     if (filesToAssemble.get(index1).equals(moreFilesToAssemble.get(index2))) {
+                        moreFilesToAssemble.remove(index2);
+                        index2--; // adjust for left shift in moreFilesToAssemble...
+                        break;    // break out of inner loop...
+                     }
+                  }
+               }
+               filesToAssemble.addAll(moreFilesToAssemble);
+            }
+         } 
+         else {
+            filesToAssemble = FilenameFinder.getFilenameList(filenameList, FilenameFinder.MATCH_ALL_EXTENSIONS);
+         }
+         if (Globals.debug) {
+            out.println("--------  TOKENIZING BEGINS  -----------");
+         }
+         ArrayList MIPSprogramsToAssemble = 
+                   code.prepareFilesForAssembly(filesToAssemble, mainFile.getAbsolutePath(), null);		
+         if (Globals.debug) {
+            out.println("--------  ASSEMBLY BEGINS  -----------");
+         }
+      	// Added logic to check for warnings and print if any. DPS 11/28/06
+         ErrorList warnings = code.assemble(MIPSprogramsToAssemble, pseudo, warningsAreErrors);
+         if (warnings != null && warnings.warningsOccurred()) {
+            out.println(warnings.generateWarningReport());
+         }
+      }
+   
+      /////////////////////////////////////////////////////////////
+   	// Perform any specified load operations.  See "load" option.
+   	// Returns false if any of them fails, true otherwise.
+   
+      private boolean loadSegments() {
+         DumpFormatLoader loader = new DumpFormatLoader();
+         for (int i=0; i<loadTriples.size(); i++) {
+            String[] triple = loadTriples.get(i);
+            File file = new File(triple[2]);
+            Integer[] segInfo = MemoryDump.getSegmentBounds(triple[0]);
+            if (segInfo == null) {
+               try {
+                  String[] memoryRange = checkMemoryAddressRange(triple[0]);
+                  segInfo = new Integer[2];
+                  segInfo[0] = new Integer(Binary.stringToInt(memoryRange[0])); // low end of range
+                  segInfo[1] = new Integer(Binary.stringToInt(memoryRange[1])); // high end of range
+               }    
+                  catch (NumberFormatException nfe) {
+                     segInfo = null;
+                  }
+                  catch (NullPointerException npe) {
+                     segInfo = null;
+                  }
+            }
+            if (segInfo == null) {
+               out.println("Error while attempting to load, segment/address-range " + triple[0] + " is invalid!");
+               return false;
+            }
+            DumpFormat format = DumpFormatLoader.findDumpFormatGivenCommandDescriptor(loader.loadDumpFormats(), triple[1]);
+            if (!(format instanceof LoadableDumpFormat)) {
+               out.println("Error while attempting to load, format " + triple[1] + " was not found or cannot be loaded!");
+               return false;
+            }
+            try {
+               ((LoadableDumpFormat) format).loadMemoryRange(file, segInfo[0].intValue(), segInfo[1].intValue());
+            } 
+               catch (FileNotFoundException e) {
+                  out.println("Error while attempting to load, file " + file + " was not found!");
+                  return false;
+               } 
+               catch (AddressErrorException e) {
+                  out.println("Error while attempting to load, file " + file + "!  Could not access address: " + e.getAddress() + "!");
+                  return false;
+               } 
+               catch (IOException e) {
+                  out.println("Error while attempting to load, file " + file + "!  " + e.getMessage());
+                  return false;
+               }
+         }
+         return true;
+      }
+   
    
    	//////////////////////////////////////////////////////////////////////
       // Check for memory address subrange.  Has to be two integers separated
@@ -589,6 +803,319 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   out.println("Internal error: MarsLaunch uses incorrect text segment address for instruction observer");
                }
          }		
+         if (traceFileName != null) {
+            try {
+               traceWriter = new TraceWriter(new File(traceFileName));
+            } 
+               catch (IOException e) {
+                  out.println("Error while attempting to trace, file " + traceFileName + " could not be created!");
+               }
+         }
+         if (recordFileName != null) {
+            try {
+               traceRecorder = new TraceRecorder(new File(recordFileName));
+            } 
+               catch (IOException e) {
+                  out.println("Error while attempting to record, file " + recordFileName + " could not be created!");
+               }
+         }
+         if (profileFileName != null || annotateFileName != null) {
+            executionProfile = new ExecutionProfile();
+            Simulator.getInstance().addInstructionListener(executionProfile);
+         }
+         if (pipelineModel != null) {
+            Simulator.getInstance().addInstructionListener(pipelineModel);
+         }
+         TraceListener[] listeners = getTraceListeners();
+         if (listeners.length > 0 || traceRecorder != null) {
+            traceObserver = new TraceObserver(listeners, traceWriter != null || branchHistoryTable != null 
+                                               || branchPredictorComparison != null);
+            traceObserver.setRecorder(traceRecorder);
+            try {
+               traceObserver.addAsObserver();
+            } 
+               catch (AddressErrorException aee) {
+                  out.println("Internal error: MarsLaunch uses incorrect segment address for trace observer");
+               }
+         }
+      }
+   
+      /////////////////////////////////////////////////////////////////
+   	// Parse "cache" option argument, which specifies one cache level, and create it.
+   	// Format is <level>:<blocks>:<block size in words>:<set size in blocks> followed by
+   	// any of wb, wt, wa, nwa and <n>, where <n> is the hit time in cycles.  <level> is I, D
+   	// or L2.  Alternatively, M:<n> gives the main memory access time in cycles.
+   	// Returns error message, or null if OK.
+      private String parseCacheLevel(String spec) {
+         String[] parts = spec.split(":");
+         String level = parts[0].toUpperCase();
+         try {
+            if (level.equals("M") && parts.length == 2) {
+               memoryCycles = Integer.parseInt(parts[1]);
+               return null;
+            }
+            if (!(level.equals("I") || level.equals("D") || level.equals("L2")) || parts.length < 4) {
+               return "Invalid cache specification: " + spec;
+            }
+            boolean writeBack = true, writeAllocate = true;
+            int hitCycles = level.equals("L2") ? CacheHierarchy.DEFAULT_L2_HIT_CYCLES : CacheHierarchy.DEFAULT_L1_HIT_CYCLES;
+            for (int i=4; i<parts.length; i++) {
+               String option = parts[i].toLowerCase();
+               if (option.equals("wb") || option.equals("wt")) {
+                  writeBack = option.equals("wb");
+               } 
+               else if (option.equals("wa") || option.equals("nwa")) {
+                  writeAllocate = option.equals("wa");
+               } 
+               else {
+                  hitCycles = Integer.parseInt(option);
+               }
+            }
+            CacheHierarchy.Level cache = new CacheHierarchy.Level(
+                 level.equals("I") ? "L1 instruction" : level.equals("D") ? "L1 data" : "L2",
+                 Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]), 
+                 writeBack, writeAllocate, hitCycles, CacheHierarchy.DEFAULT_WRITE_BUFFER_ENTRIES);
+            if (level.equals("I")) {
+               instructionCache = cache;
+            } 
+            else if (level.equals("D")) {
+               dataCache = cache;
+            } 
+            else {
+               unifiedCache = cache;
+            }
+         } 
+            catch (NumberFormatException e) {
+               return "Invalid cache specification: " + spec;
+            }
+            catch (IllegalArgumentException e) {
+               return "Invalid cache specification: " + e.getMessage();
+            }
+         return null;
+      }
+   
+      /////////////////////////////////////////////////////////////////
+   	// Parse "cachesweep" option argument, <blocks>:<words> giving the largest number of
+   	// blocks and block size in words to evaluate, and create the sweep.
+   	// Returns error message, or null if OK.
+      private String parseCacheSweep(String spec) {
+         String[] parts = spec.split(":");
+         try {
+            if (parts.length != 2) {
+               return "Invalid cache sweep specification: " + spec;
+            }
+            int blocks = Integer.parseInt(parts[0]);
+            int words = Integer.parseInt(parts[1]);
+            if (blocks <= 0 || (blocks & (blocks - 1)) != 0 || words <= 0 || (words & (words - 1)) != 0) {
+               return "Invalid cache sweep specification: " + spec + " (both must be powers of 2)";
+            }
+            cacheSweep = new CacheSweep(powersOfTwo(words), powersOfTwo(blocks), false);
+         } 
+            catch (NumberFormatException e) {
+               return "Invalid cache sweep specification: " + spec;
+            }
+         return null;
+      }
+   
+      /////////////////////////////////////////////////////////////////
+   	// Parse "bht" option argument, <entries>:<history> optionally followed by :T or :N
+   	// for the initial prediction, and create the branch history table.
+   	// Returns error message, or null if OK.
+      private String parseBranchHistoryTable(String spec) {
+         String[] parts = spec.split(":");
+         try {
+            if (parts.length < 2 || parts.length > 3 || 
+                (parts.length == 3 && !parts[2].equalsIgnoreCase("T") && !parts[2].equalsIgnoreCase("N"))) {
+               return "Invalid BHT specification: " + spec;
+            }
+            branchHistoryTable = new BHTableModel(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), 
+                                                  parts.length == 3 && parts[2].equalsIgnoreCase("T"));
+         } 
+            catch (NumberFormatException e) {
+               return "Invalid BHT specification: " + spec;
+            }
+            catch (IllegalArgumentException e) {
+               return "Invalid BHT specification: " + e.getMessage();
+            }
+         return null;
+      }
+   	
+   	/////////////////////////////////////////////////////////////////
+   	// Parse "bp" option argument, a branch predictor specification or "all" for the
+   	// standard set, and add the predictors to those to be compared.
+   	// Returns error message, or null if OK.
+      private String parseBranchPredictor(String spec) {
+         try {
+            if (spec.equalsIgnoreCase("all")) {
+               branchPredictors.addAll(Arrays.asList(BranchPredictor.createStandardSet()));
+            } 
+            else {
+               branchPredictors.add(BranchPredictor.create(spec));
+            }
+         } 
+            catch (IllegalArgumentException e) {
+               return "Invalid branch predictor specification: " + e.getMessage();
+            }
+         return null;
+      }
+   	
+   	/////////////////////////////////////////////////////////////////
+   	// Parse "pipeline" option argument: ID or EX for the stage that resolves branches,
+   	// optionally followed by :nofwd for no forwarding and by the multiply and divide
+   	// cycles, and create the pipeline model.
+   	// Returns error message, or null if OK.
+      private String parsePipeline(String spec) {
+         String[] parts = spec.split(":");
+         try {
+            if (!parts[0].equalsIgnoreCase("ID") && !parts[0].equalsIgnoreCase("EX")) {
+               return "Invalid pipeline specification: " + spec;
+            }
+            int next = 1;
+            boolean forwarding = true;
+            if (parts.length > next && (parts[next].equalsIgnoreCase("fwd") || parts[next].equalsIgnoreCase("nofwd"))) {
+               forwarding = parts[next++].equalsIgnoreCase("fwd");
+            }
+            int multiplyCycles = (parts.length > next) ? Integer.parseInt(parts[next++]) : PipelineModel.DEFAULT_MULTIPLY_CYCLES;
+            int divideCycles = (parts.length > next) ? Integer.parseInt(parts[next++]) : PipelineModel.DEFAULT_DIVIDE_CYCLES;
+            if (parts.length > next) {
+               return "Invalid pipeline specification: " + spec;
+            }
+            pipelineModel = new PipelineModel(parts[0].equalsIgnoreCase("EX"), forwarding, multiplyCycles, divideCycles);
+         } 
+            catch (NumberFormatException e) {
+               return "Invalid pipeline specification: " + spec;
+            }
+            catch (IllegalArgumentException e) {
+               return "Invalid pipeline specification: " + e.getMessage();
+            }
+         return null;
+      }
+   	
+   	// 1, 2, 4, ... through the given power of 2
+      private int[] powersOfTwo(int maximum) {
+         int[] powers = new int[Integer.numberOfTrailingZeros(maximum) + 1];
+         for (int i=0; i<powers.length; i++) {
+            powers[i] = 1 << i;
+         }
+         return powers;
+      }
+   
+   	// Trace writer and models that will receive trace events, in that order.  When
+   	// simulating with the pipeline model, the model drives the cache hierarchy itself.
+      private TraceListener[] getTraceListeners() {
+         ArrayList<TraceListener> listeners = new ArrayList<TraceListener>();
+         if (traceWriter != null) 
+            listeners.add(traceWriter);
+         if (cacheHierarchy != null && (pipelineModel == null || replayFileName != null)) 
+            listeners.add(cacheHierarchy);
+         if (cacheSweep != null) 
+            listeners.add(cacheSweep);
+         if (branchHistoryTable != null) 
+            listeners.add(branchHistoryTable);
+         if (branchPredictorComparison != null) 
+            listeners.add(branchPredictorComparison);
+         return listeners.toArray(new TraceListener[listeners.size()]);
+      }
+   	
+   	// Run the models on a trace file instead of a simulation.
+      private void replayTrace() {
+         try {
+            long events = TraceReader.replay(new File(replayFileName), getTraceListeners());
+            if (Globals.debug) {
+               out.println("Replayed " + events + " trace events.");
+            }
+         } 
+            catch (IOException e) {
+               out.println("Error while attempting to replay trace " + replayFileName + ": " + e.getMessage());
+            }
+      }
+   	
+   	// Stop tracing the simulation and finish the trace file, if any.
+      private void finishTrace() {
+         if (traceObserver != null) {
+            traceObserver.deleteAsObserver();
+         }
+         if (executionProfile != null) {
+            Simulator.getInstance().removeInstructionListener(executionProfile);
+         }
+         if (pipelineModel != null) {
+            Simulator.getInstance().removeInstructionListener(pipelineModel);
+         }
+         if (traceWriter != null) {
+            try {
+               traceWriter.close();
+            } 
+               catch (IOException e) {
+                  out.println("Error while attempting to trace, file " + traceFileName + ": " + e.getMessage());
+               }
+         }
+         if (traceRecorder != null) {
+            try {
+               traceRecorder.close();
+            } 
+               catch (IOException e) {
+                  out.println("Error while attempting to record, file " + recordFileName + ": " + e.getMessage());
+               }
+         }
+      }
+   	
+   	//////////////////////////////////////////////////////////////////////
+   	// Displays reports of the cache and branch prediction models, if any, to
+   	// the report file if specified, otherwise with other output. 
+      private void reportTraceModels() {
+         writeProfile();
+         if (cacheHierarchy == null && cacheSweep == null && branchHistoryTable == null 
+             && branchPredictorComparison == null && executionProfile == null && pipelineModel == null) {
+            return;
+         }
+         PrintStream report = out;
+         if (reportFileName != null) {
+            try {
+               report = new PrintStream(new FileOutputStream(reportFileName));
+            } 
+               catch (IOException e) {
+                  out.println("Error while attempting to report, file " + reportFileName + " could not be created!");
+               }
+         }
+         if (report == out) 
+            report.println();
+         if (cacheHierarchy != null) 
+            report.print(cacheHierarchy.getReport());
+         if (cacheSweep != null) 
+            report.print(cacheSweep.getReport());
+         if (branchHistoryTable != null) 
+            report.print(branchHistoryTable.getReport());
+         if (branchPredictorComparison != null) 
+            report.print(branchPredictorComparison.getReport());
+         if (executionProfile != null) 
+            report.print(executionProfile.getReport());
+         if (pipelineModel != null) 
+            report.print(pipelineModel.getReport());
+         if (report != out) {
+            report.close();
+         }
+      }
+   	     		   	
+   	// Write the folded stacks and annotated source files of the execution profile, if any.
+      private void writeProfile() {
+         String[] fileNames = { profileFileName, annotateFileName };
+         for (int i=0; i<fileNames.length; i++) {
+            if (executionProfile == null || fileNames[i] == null) 
+               continue;
+            try {
+               PrintStream file = new PrintStream(new FileOutputStream(fileNames[i]));
+               if (i == 0) {
+                  executionProfile.writeFoldedStacks(file);
+               } 
+               else {
+                  executionProfile.writeAnnotatedSource(file);
+               }
+               file.close();
+            } 
+               catch (IOException e) {
+                  out.println("Error while attempting to profile, file " + fileNames[i] + " could not be created!");
+               }
+         }
       }
    	     		   	
    	//////////////////////////////////////////////////////////////////////
@@ -786,6 +1313,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                formats += ", ";
             }
          }
+         String loadableFormats = "";
+         for (int i=0; i<dumpFormats.size(); i++) {
+            if (dumpFormats.get(i) instanceof LoadableDumpFormat) {
+               if (loadableFormats.length() > 0) {
+                  loadableFormats += ", ";
+               }
+               loadableFormats += ((DumpFormat) dumpFormats.get(i)).getCommandDescriptor();
+            }
+         }
          out.println("Usage:  Mars  [options] filename [additional filenames]");
          out.println("  Valid options (not case sensitive, separate by spaces) are:");
          out.println("      a  -- assemble only, do not simulate");
@@ -802,8 +1338,47 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          out.println("            <segment> = "+segments);
          out.println("            <format> = "+formats);
          out.println("      h  -- display this help.  Use by itself with no filename.");
+         out.println("   load <segment> <format> <file> -- load specified memory segment from file");
+         out.println("            in specified format, as written by dump.  Option may be repeated.");
+         out.println("            If no source filename is given the loaded program is simulated");
+         out.println("            without assembling.  Possible formats are those of dump that can");
+         out.println("            be read back: "+loadableFormats);
          out.println("    hex  -- display memory or register contents in hexadecimal (default)");
          out.println("     ic  -- display count of MIPS basic instructions 'executed'");
+         out.println("  cache <level>:<blocks>:<words>:<set size>[:wb|wt][:wa|nwa][:<n>]  -- simulate");
+         out.println("            a cache level during the run and report its performance at the end.");
+         out.println("            <level> is I (L1 instruction), D (L1 data) or L2.  Number of blocks,");
+         out.println("            block size in words and blocks per set must be powers of 2.  Default");
+         out.println("            is write-back (wb), write-allocate (wa), hit time of <n> cycles 1 for");
+         out.println("            L1 or 10 for L2.  cache M:<n> sets memory time to <n> cycles (100).");
+         out.println("            Option may be repeated, once per level.  D is required.");
+         out.println(" cachesweep [<blocks>:<words>]  -- report the hit rate of every LRU data cache");
+         out.println("            configuration of 1 to <blocks> blocks of 1 to <words> words, both powers");
+         out.println("            of 2 (default 2048:2048).");
+         out.println("    bht <entries>:<history>[:T|N]  -- simulate a branch history table of");
+         out.println("            <entries> (a power of 2) entries having history of 1 or 2 branches,");
+         out.println("            initially predicting taken (T) or not taken (N, default).");
+         out.println("     bp <predictor>  -- compare branch predictors, giving accuracy and CPI with");
+         out.println("            a 512 entry BTB.  <predictor> is bimodal[:<entries>], global[:<history>],");
+         out.println("            gshare[:<entries>[:<history>]], local[:<entries>[:<history>]],");
+         out.println("            tournament[:<entries>] or tage[:<entries>]; all for the standard set.");
+         out.println("            Option may be repeated.");
+         out.println("pipeline <stage>[:nofwd][:<mult>[:<div>]]  -- time the run on a 5-stage pipeline");
+         out.println("            resolving branches in <stage>, ID or EX, with forwarding unless nofwd,");
+         out.println("            and report CPI and stall cycles.  Multiply and divide take <mult> (4)");
+         out.println("            and <div> (32) cycles.  Cache options add cache miss stalls.");
+         out.println("  trace <file>  -- write trace of memory accesses and branches to text file.");
+         out.println(" record <file>  -- write trace of memory accesses and branches, including");
+         out.println("            program counter, size and value, to compact binary file.");
+         out.println(" replay <file>  -- instead of simulating a program, run the cache and branch");
+         out.println("            prediction models on the trace file, as written by trace or record.");
+         out.println(" report <file>  -- write cache, branch prediction, profile and pipeline reports to file");
+         out.println("            instead of output.");
+         out.println("profile <file>  -- profile the program, reporting instructions executed by function,");
+         out.println("            loop and source line, and write calling contexts to file as folded");
+         out.println("            stacks for flame graph tools.");
+         out.println("annotate <file>  -- profile the program, and write source to file with the");
+         out.println("            number of instructions executed for each line.");
          out.println("     mc <config>  -- set memory configuration.  Argument <config> is");
          out.println("            case-sensitive and possible values are: Default for the default");
          out.println("            32-bit address space, CompactDataAtZero for a 32KB memory with");
@@ -130,16 +130,18 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   int k0 = 31 - fmt.lastIndexOf(code);
                   int k1 = 31 - j;
                   int opand = (binaryStatement >> k0) & ((1 << (k1 - k0 + 1)) - 1);
-                  if (instrFormat.equals(BasicInstructionFormat.I_BRANCH_FORMAT) && numOps == 2) {
-                     opand = opand << 16 >> 16;
-                  } 
-                  else if (instrFormat.equals(BasicInstructionFormat.J_FORMAT) && numOps == 0) {
+                  if (instrFormat.equals(BasicInstructionFormat.J_FORMAT) && numOps == 0) {
                      opand |= (textAddress >> 2) & 0x3C000000;
                   }
                   this.operands[numOps] = opand;
                   numOps++;
                }
             }
+            // Branch offset is the last operand whether there are one, two or three,
+            // e.g. "bgtz $t0,label" or "bc1t label", and is signed.
+            if (instrFormat.equals(BasicInstructionFormat.I_BRANCH_FORMAT) && numOps > 0) {
+               this.operands[numOps - 1] = this.operands[numOps - 1] << 16 >> 16;
+            }
             this.numOperands = numOps;
          }
          this.altered = false;
@@ -3,6 +3,7 @@
    import java.util.ArrayList;
    import java.util.Collections;
    import java.util.Comparator;
+   import java.util.HashMap;
 
    import mars.ErrorList;
    import mars.ErrorMessage;
@@ -71,6 +72,7 @@
       private UserKernelAddressSpace dataAddress;
       private DataSegmentForwardReferences currentFileDataSegmentForwardReferences,
       	accumulatedDataSegmentForwardReferences;
+      private DataSegmentBuilder dataSegmentBuilder;
    
    /**
     * Parse and generate machine code for the given MIPS program. It must have
@@ -191,6 +193,7 @@
          externAddress = Memory.externBaseAddress;
          currentFileDataSegmentForwardReferences = new DataSegmentForwardReferences();
          accumulatedDataSegmentForwardReferences = new DataSegmentForwardReferences();
+         dataSegmentBuilder = new DataSegmentBuilder();
          Globals.symbolTable.clear();
          Globals.memory.clear();
          this.machineList = new ArrayList();
@@ -253,6 +256,9 @@
             }
          // move ".globl" symbols from local symtab to global
             this.transferGlobals();
+         // Data directive values have been accumulated a page at a time; store them in memory
+         // now so the forward reference patches below are applied on top of them.
+            dataSegmentBuilder.commit();
          // Attempt to resolve forward label references that were discovered in operand fields
          // of data segment directives in current file. Those that are not resolved after this
          // call are either references to global labels not seen yet, or are undefined.
@@ -516,15 +522,9 @@
             //                      ret.addAll(statements);
             //                }
                for (int i = macro.getFromLine() + 1; i < macro.getToLine(); i++) {
-                 
-                  String substituted = macro.getSubstitutedLine(i, tokens, counter, errors);
-                  TokenList tokenList2 = fileCurrentlyBeingAssembled.getTokenizer().tokenizeLine(
-                     i, substituted, errors);
-               
-                  // If token list getProcessedLine() is not empty, then .eqv was performed and it contains the modified source.
-               	// Put it into the line to be parsed, so it will be displayed properly in text segment display. DPS 23 Jan 2013
-                  if (tokenList2.getProcessedLine().length() > 0)
-                     substituted = tokenList2.getProcessedLine();
+                  TokenList tokenList2 = macro.getSubstitutedTokens(i, tokens, counter, 
+                     fileCurrentlyBeingAssembled.getTokenizer(), errors);
+                  String substituted = tokenList2.getProcessedLine();
                
                   // recursively parse lines of expanded macro
                   ArrayList<ProgramStatement> statements = parseLine(tokenList2, "<" + (i-macro.getFromLine()+macro.getOriginalFromLine()) + "> "
@@ -1242,7 +1242,7 @@
                      }
                   }
                   try {
-                     Globals.memory.set(this.dataAddress.get(), (int) theChar,
+                     dataSegmentBuilder.set(this.dataAddress.get(), (int) theChar,
                         DataTypes.CHAR_SIZE);
                   } 
                      catch (AddressErrorException e) {
@@ -1254,7 +1254,7 @@
                }
                if (direct == Directives.ASCIIZ) {
                   try {
-                     Globals.memory.set(this.dataAddress.get(), 0, DataTypes.CHAR_SIZE);
+                     dataSegmentBuilder.set(this.dataAddress.get(), 0, DataTypes.CHAR_SIZE);
                   } 
                      catch (AddressErrorException e) {
                         errors.add(new ErrorMessage(token.getSourceMIPSprogram(), token
@@ -1290,7 +1290,7 @@
             this.dataAddress.set(this.alignToBoundary(this.dataAddress.get(), lengthInBytes));
          }
          try {
-            Globals.memory.set(this.dataAddress.get(), value, lengthInBytes);
+            dataSegmentBuilder.set(this.dataAddress.get(), value, lengthInBytes);
          } 
             catch (AddressErrorException e) {
                errors.add(new ErrorMessage(token.getSourceMIPSprogram(), token.getSourceLine(), token
@@ -1314,7 +1314,7 @@
             this.dataAddress.set(this.alignToBoundary(this.dataAddress.get(), lengthInBytes));
          }
          try {
-            Globals.memory.setDouble(this.dataAddress.get(), value);
+            dataSegmentBuilder.setDouble(this.dataAddress.get(), value);
          } 
             catch (AddressErrorException e) {
                errors.add(new ErrorMessage(token.getSourceMIPSprogram(), token.getSourceLine(), token
@@ -1410,6 +1410,111 @@
          }
       }
    
+   // //////////////////////////////////////////////////////////////////////////
+   // Handy class to accumulate data directive values before storing them in
+   // memory. Storing through Memory.set() costs a segment lookup, a byte-at-a-time
+   // store and an observer notification for every .byte, .word or string character,
+   // which adds up for large data segments. Here values are instead merged into
+   // page-sized arrays of words (with a mask of the bytes actually written), and
+   // each page is stored with one bulk write when commit() is called. Byte placement
+   // within the word follows the same rules as Memory.set(), little or big endian.
+   // Values outside the data and kernel data segments are passed directly to
+   // Memory.set() so its usual error handling applies.
+      private class DataSegmentBuilder {
+         private static final int PAGE_SHIFT = 12; // 4K byte pages
+         private static final int PAGE_LENGTH_WORDS = 1 << (PAGE_SHIFT - 2);
+         private HashMap<Integer, DataSegmentPage> pages;
+         private DataSegmentPage lastPage;
+      
+         private DataSegmentBuilder() {
+            pages = new HashMap<Integer, DataSegmentPage>();
+            lastPage = null;
+         }
+      
+      // Store the low order length bytes of value starting at address, as Memory.set() would.
+         private void set(int address, int value, int length) throws AddressErrorException {
+            int lastAddress = address + length - 1;
+            if (!(Memory.inDataSegment(address) && Memory.inDataSegment(lastAddress))
+               && !(Memory.inKernelDataSegment(address) && Memory.inKernelDataSegment(lastAddress))) {
+               Globals.memory.set(address, value, length);
+               return;
+            }
+            boolean littleEndian = Globals.memory.getByteOrder() == Memory.LITTLE_ENDIAN;
+            for (int i = 0; i < length; i++) {
+               int byteAddress = address + i;
+               DataSegmentPage page = getPage(byteAddress >>> PAGE_SHIFT);
+               int word = (byteAddress >>> 2) & (PAGE_LENGTH_WORDS - 1);
+               int position = byteAddress & 3;
+               if (littleEndian) {
+                  position = 3 - position;
+               }
+               int shift = 24 - (position << 3);
+               page.values[word] = (page.values[word] & ~(0xFF << shift)) | (((value >> (i << 3)) & 0xFF) << shift);
+               page.masks[word] |= 0xFF << shift;
+               if (word < page.firstWord) {
+                  page.firstWord = word;
+               }
+               if (word > page.lastWord) {
+                  page.lastWord = word;
+               }
+            }
+         }
+      
+      // Store double as Memory.setDouble() would: high order word follows low order word.
+         private void setDouble(int address, double value) throws AddressErrorException {
+            long longValue = Double.doubleToLongBits(value);
+            set(address + 4, Binary.highOrderLongToInt(longValue), 4);
+            set(address, Binary.lowOrderLongToInt(longValue), 4);
+         }
+      
+      // Store all accumulated values into memory, then start over.
+         private void commit() {
+            for (DataSegmentPage page : pages.values()) {
+               if (page.firstWord > page.lastWord) {
+                  continue;
+               }
+               try {
+                  Globals.memory.setRawWords((page.number << PAGE_SHIFT) + (page.firstWord << 2),
+                     page.values, page.masks, page.firstWord, page.lastWord - page.firstWord + 1);
+               } 
+                  catch (AddressErrorException aee) {
+                  // cannot happen: every byte was checked to be in a data segment when set.
+                  }
+            }
+            pages.clear();
+            lastPage = null;
+         }
+      
+         private DataSegmentPage getPage(int number) {
+            if (lastPage != null && lastPage.number == number) {
+               return lastPage;
+            }
+            DataSegmentPage page = pages.get(number);
+            if (page == null) {
+               page = new DataSegmentPage(number);
+               pages.put(number, page);
+            }
+            lastPage = page;
+            return page;
+         }
+      
+      // inner-inner class to hold the words of one page and which of their bytes have been set.
+         private class DataSegmentPage {
+            int number;
+            int[] values;
+            int[] masks;
+            int firstWord, lastWord;
+         
+            DataSegmentPage(int number) {
+               this.number = number;
+               this.values = new int[PAGE_LENGTH_WORDS];
+               this.masks = new int[PAGE_LENGTH_WORDS];
+               this.firstWord = PAGE_LENGTH_WORDS;
+               this.lastWord = -1;
+            }
+         }
+      }
+   
    // //////////////////////////////////////////////////////////////////////////
    // Handy class to handle forward label references appearing as data
    // segment operands. This is needed because the data segment is comletely
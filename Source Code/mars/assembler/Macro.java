@@ -56,6 +56,12 @@ public class Macro {
  * arguments like <code>%arg</code> will be substituted by macro expansion
  */
    private ArrayList<String> args;
+/**
+ * for each line of the macro body, true if expanding it by substitution into its
+ * token list could give a different result than re-tokenizing the substituted text.
+ * Set by {@link #readyForCommit()}.
+ */
+   private boolean[] textualLines;
 
    public Macro() {
       name = "";
@@ -187,6 +193,88 @@ public class Macro {
    }
 
 
+/**
+ * Substitutes macro arguments in a line inside macro definition and gives its tokens,
+ * the same tokens as tokenizing the result of
+ * {@link #getSubstitutedLine(int, TokenList, long, ErrorList)}.  Where that is known to
+ * hold the arguments are substituted into the pre-tokenized body line without
+ * scanning and classifying the text again; lines where it does not, such as a signed
+ * number next to an identifier or a substitution that is subject to <code>.eqv</code>,
+ * are tokenized from the substituted text. <br>
+ * The substituted source line, to be displayed in the Text Segment, is the token list's
+ * processed line.  It is built from the same substitutions as the tokens.
+ * 
+ * @param line
+ *            source line number in macro definition to be substituted
+ * @param args
+ * @param counter
+ *            unique macro expansion id
+ * @param tokenizer
+ *            tokenizer of the program, which holds its <code>.eqv</code> definitions
+ * @param errors
+ * @return token list for the substituted <code>line</code>-th line
+ */
+   public TokenList getSubstitutedTokens(int line, TokenList args, long counter, Tokenizer tokenizer, ErrorList errors) {
+      TokenList result = (textualLines == null || textualLines[line - fromLine]) 
+         ? null : substituteTokens(line, args, counter, tokenizer);
+      if (result == null) {
+         String substituted = getSubstitutedLine(line, args, counter, errors);
+         result = tokenizer.tokenizeLine(line, substituted, errors);
+         // If token list getProcessedLine() is not empty, then .eqv was performed and it contains the modified source.
+         if (result.getProcessedLine().length() == 0)
+            result.setProcessedLine(substituted);
+      }
+      return result;
+   }
+
+   // Token list for the substituted line built from the body line's tokens, with the
+   // substituted text as its processed line, or null if it might differ from tokenizing
+   // the substituted text.  Unknown parameters are left to getSubstitutedLine to report.
+   private TokenList substituteTokens(int line, TokenList args, long counter, Tokenizer tokenizer) {
+      TokenList tokens = (TokenList) program.getTokenList().get(line - 1);
+      String source = program.getSourceLine(line);
+      StringBuffer text = new StringBuffer(source);
+      TokenList result = new TokenList();
+      int shift = 0; // change in line length due to substitutions so far
+      for (int i = 0; i < tokens.size(); i++) {
+         Token token = tokens.get(i);
+         String value = token.getValue();
+         TokenTypes type = token.getType();
+         boolean replaced = true;
+         if (tokenIsMacroParameter(value, true)) {
+            int repl = this.args.indexOf(value);
+            if (repl == -1)
+               return null;
+            Token arg = args.get(repl + 1);
+            value = arg.getValue();
+            type = arg.getType();
+            // The tokenizer splits the sign from a number that follows an identifier.
+            if (startsWithSign(value) && !result.isEmpty() 
+               && result.get(result.size() - 1).getType() == TokenTypes.IDENTIFIER)
+               return null;
+         } 
+         else if (tokenIsMacroLabel(value)) {
+            value = value + "_M" + counter;
+            type = TokenTypes.IDENTIFIER;
+         } 
+         else {
+            replaced = false;
+         }
+         if (type == TokenTypes.IDENTIFIER && tokenizer.isEquivalent(value))
+            return null;
+         if (replaced) {
+            int pos = token.getStartPos() - 1;
+            if (!source.startsWith(token.getValue(), pos))
+               return null;
+            text.replace(pos + shift, pos + shift + token.getValue().length(), value);
+         }
+         result.add(new Token(type, value, program, line, token.getStartPos() + shift));
+         shift += value.length() - token.getValue().length();
+      }
+      result.setProcessedLine(text.toString());
+      return result;
+   }
+
 /**
  * returns true if <code>value</code> is name of a label defined in this macro's body.
  * @param value
@@ -208,9 +296,14 @@ public class Macro {
 // token list has already had .eqv equivalences applied whereas the source may not.  This is because
 // the source comes from a macro definition?  That has proven to be a tough question to answer. 
 // DPS 12-feb-2013
+// The token position is used when the source holds the token there, since the first occurrence
+// may be another token, such as a label's definition or a parameter whose name has this one as
+// a prefix.  Tokens are replaced from right to left, so positions before the token still hold.
    private String replaceToken(String source, Token tokenToBeReplaced, String substitute) {
       String stringToBeReplaced = tokenToBeReplaced.getValue();
-      int pos = source.indexOf(stringToBeReplaced);
+      int pos = tokenToBeReplaced.getStartPos() - 1;
+      if (!source.startsWith(stringToBeReplaced, pos))
+         pos = source.indexOf(stringToBeReplaced);
       return (pos < 0) ? source : source.substring(0, pos) + substitute + source.substring(pos+stringToBeReplaced.length());
    }  
 	
@@ -247,6 +340,29 @@ public class Macro {
  */
    public void readyForCommit() {
       Collections.sort(labels);
+      // A leading + or - is part of a number only when not preceded by an identifier,
+      // so a substitution next to one may change how the line tokenizes.
+      textualLines = new boolean[toLine - fromLine + 1];
+      ArrayList tokenLists = program.getTokenList();
+      for (int line = fromLine + 1; line < toLine; line++) {
+         TokenList tokens = (TokenList) tokenLists.get(line - 1);
+         for (int i = 0; i < tokens.size(); i++) {
+            String value = tokens.get(i).getValue();
+            if ((tokenIsMacroParameter(value, true) || tokenIsMacroLabel(value))
+               && (startsWithSign(tokens, i - 1) || startsWithSign(tokens, i + 1))) {
+               textualLines[line - fromLine] = true;
+               break;
+            }
+         }
+      }
+   }
+
+   private static boolean startsWithSign(TokenList tokens, int pos) {
+      return pos >= 0 && pos < tokens.size() && startsWithSign(tokens.get(pos).getValue());
+   }
+
+   private static boolean startsWithSign(String value) {
+      return value.length() > 0 && (value.charAt(0) == '+' || value.charAt(0) == '-');
    }
 
 
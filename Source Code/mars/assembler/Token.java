@@ -41,6 +41,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    
       private TokenTypes type;
       private String value;
+   // when value is null, it is materialized on demand from this region of the source line
+      private String sourceText;
+      private int valueBegin, valueEnd;
       private MIPSprogram sourceMIPSprogram;
       private int sourceLine, sourcePos;
    // original program and line will differ from the above if token was defined in an included file
@@ -67,7 +70,43 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          this.originalSourceLine = line;
       }
 
+   /**
+    * Constructor for Token whose source value is a region of the source line.  The value
+    * String is not created until first requested by getValue().  Used by the Tokenizer for
+    * comments and quoted strings, which are frequently long and seldom examined.
+    *
+    * @param type The token type that this token has. (e.g. COMMENT)
+    * @param sourceText The source line containing this token's value
+    * @param begin Index within sourceText of the first character of the value
+    * @param end Index within sourceText one beyond the last character of the value
+    * @param sourceMIPSprogram The MIPSprogram object containing this token
+    * @param line The line number in source program in which this token appears.
+    * @param start The starting position in that line number of this token's source value.
+    **/
+       Token(TokenTypes type, String sourceText, int begin, int end, MIPSprogram sourceMIPSprogram, int line, int start) {
+         this(type, (String) null, sourceMIPSprogram, line, start);
+         this.sourceText = sourceText;
+         this.valueBegin = begin;
+         this.valueEnd = end;
+      }
+
    
+   /**
+    * Produces a copy of this token as it appears at a different line of a program.
+    * Type, value and position within the line are retained.
+    *
+    * @param program The MIPSprogram object to contain the copy
+    * @param line The line number in that program at which the copy appears.
+    * @return the new Token
+    **/
+       Token copy(MIPSprogram program, int line) {
+         Token t = new Token(type, value, program, line, sourcePos);
+         t.sourceText = sourceText;
+         t.valueBegin = valueBegin;
+         t.valueEnd = valueEnd;
+         return t;
+      }
+
    /**
     * Set original program and line number for this token.
 	 * Line number or both may change during pre-assembly as a result
@@ -128,6 +167,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     **/
     
        public String getValue() {
+         if (value == null && sourceText != null) {
+            value = sourceText.substring(valueBegin, valueEnd);
+            sourceText = null;
+         }
          return value;
       }
    
@@ -139,7 +182,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     */   
     
        public String toString() {
-         return value;
+         return getValue();
       }
    
    /**
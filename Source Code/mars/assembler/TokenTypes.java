@@ -150,6 +150,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        // Classify based on # bits needed to represent in binary
        // This is needed because most immediate operands limited to 16 bits
        // others limited to 5 bits unsigned (shift amounts) others 32 bits.
+       // Most tokens are operators and identifiers, which cannot be numbers; skip
+       // the number parsing attempts for those since each failure throws an exception.
+         if (mayBeNumber(value)) {
          try {
 
             int i = Binary.stringToInt(value);   // KENV 1/6/05
@@ -220,6 +223,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             {
             // NO ACTION -- exception suppressed
             }
+         }
       	 
        // See if it is an instruction operator
          if (Globals.instructionSet.matchOperator(value) != null)
@@ -270,6 +274,16 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       }	
    
    
+   // Quick test of whether the given token could possibly be parsed as an integer
+   // (Integer.decode) or real (Double.parseDouble) value, based on its first character.
+   // Returns false only for values that would certainly fail both parses.
+       private static boolean mayBeNumber(String value) {
+         char first = value.charAt(0);
+         return (first >= '0' && first <= '9') || first == '+' || first == '-' || first == '.' 
+                || first == 'N' || first == 'I';  // NaN, Infinity
+      }
+   
+   
        // COD2, A-51:  "Identifiers are a sequence of alphanumeric characters,
        //               underbars (_), and dots (.) that do not begin with a number."
    	 // Ideally this would be in a separate Identifier class but I did not see an immediate
@@ -52,10 +52,33 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private ErrorList errors;
       private MIPSprogram sourceMIPSprogram;
       private HashMap<String,String> equivalents; // DPS 11-July-2012
+      // Included files of the program currently being tokenized, by the MIPSprogram
+      // object representing each one.  Identity map because each .include reads a new one.
+      private IdentityHashMap<MIPSprogram,IncludedFile> includedFiles;
+      // Working storage for tokenizeLine, reused from line to line.
+      private char[] lineBuffer = new char[0];
+      private char[] tokenBuffer = new char[0];
    	// The 8 escaped characters are: single quote, double quote, backslash, newline (linefeed),
    	// tab, backspace, return, form feed.  The characters and their corresponding decimal codes:
       private static final String escapedCharacters = "'\"\\ntbrf0";
       private static final String[] escapedCharactersValues = {"39","34","92","10","9","8","13","12","0"};
+      // Single-character tokens whose type is known without further classification.
+      private static final String singleCharacterTokens = "():+-";
+      private static final String[] singleCharacterTokenValues = {"(", ")", ":", "+", "-"};
+      private static final TokenTypes[] singleCharacterTokenTypes = {TokenTypes.LEFT_PAREN, 
+             TokenTypes.RIGHT_PAREN, TokenTypes.COLON, TokenTypes.PLUS, TokenTypes.MINUS};
+      // Token lists of previously included files, shared by all Tokenizers so that a file
+      // included by every source file of a project is tokenized once rather than once per
+      // source file and assembly.  Keyed by file name; an entry is used only if the file's
+      // modification time and content are unchanged.  Only the most recently included
+      // files are kept.
+      private static final int INCLUDE_CACHE_SIZE = 16;
+      private static final LinkedHashMap<String,IncludedFile> includeCache = 
+         new LinkedHashMap<String,IncludedFile>(INCLUDE_CACHE_SIZE*4/3+1, 0.75f, true) {
+             protected boolean removeEldestEntry(Map.Entry<String,IncludedFile> eldest) {
+               return size() > INCLUDE_CACHE_SIZE;
+            }
+         };
    
    /**
     *  Simple constructor. Initializes empty error list.
@@ -86,6 +109,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        public ArrayList tokenize(MIPSprogram p) throws ProcessingException {
          sourceMIPSprogram = p;
          equivalents = new HashMap<String,String>(); // DPS 11-July-2012
+         includedFiles = new IdentityHashMap<MIPSprogram,IncludedFile>();
          ArrayList tokenList = new ArrayList();
          //ArrayList source = p.getSourceList();
          ArrayList<SourceLine> source = processIncludes(p, new HashMap<String,String>()); // DPS 9-Jan-2013
@@ -94,7 +118,23 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          String sourceLine;
          for (int i=0; i<source.size(); i++) {
             sourceLine = source.get(i).getSource(); 
-            currentLineTokens = this.tokenizeLine(i+1, sourceLine);
+            IncludedFile included = includedFiles.get(source.get(i).getMIPSprogram());
+            if (included == null) {
+               currentLineTokens = this.tokenizeLine(i+1, sourceLine);
+            } 
+            else { 
+               // Line from an included file: tokenize it (before .eqv substitution) only
+               // if not already done by an earlier assembly.
+               currentLineTokens = included.getTokens(source.get(i).getLineNumber(), p, i+1);
+               if (currentLineTokens == null) {
+                  int errorCount = errors.errorCount();
+                  currentLineTokens = this.tokenizeLine(p, i+1, sourceLine, false);
+                  if (errors.errorCount() == errorCount) {
+                     included.setTokens(source.get(i).getLineNumber(), currentLineTokens);
+                  }
+               }
+               currentLineTokens = processEqv(p, i+1, sourceLine, currentLineTokens);
+            }
             tokenList.add(currentLineTokens); 
             // DPS 03-Jan-2013. Related to 11-July-2012. If source code substitution was made
          	// based on .eqv directive during tokenizing, the processed line, a String, is 
@@ -125,6 +165,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          ArrayList<SourceLine> result = new ArrayList<SourceLine>(source.size());
          for (int i=0; i<source.size(); i++) {
             String line = (String) source.get(i);
+            // Only lines that mention the directive need to be tokenized here; all
+            // others are tokenized just once, by tokenize().
+            if (!mentionsInclude(line)) {
+               result.add(new SourceLine(line, program, i+1));
+               continue;
+            }
             TokenList tl = tokenizeLine(program, i+1, line, false);
             boolean hasInclude = false;
             for (int ii=0; ii<tl.size(); ii++) {
@@ -146,6 +192,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   }
                   inclFiles.put(filename, filename);
                   MIPSprogram incl = new MIPSprogram();
+                  long lastModified = new File(filename).lastModified();
                   try {
                      incl.readSource(filename);
                   }
@@ -155,6 +202,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                            "Error reading include file "+filename));	
                         throw new ProcessingException(errors);
                      }
+                  includedFiles.put(incl, getIncludedFile(filename, lastModified, incl.getSourceList()));
                   ArrayList<SourceLine> allLines = processIncludes(incl, inclFiles);
                   result.addAll(allLines);
                   hasInclude = true;
@@ -168,6 +216,32 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return result;
       }
    	
+   // Returns the include cache entry for the given file, replacing the existing one
+   // if the file has been modified since it was created.
+       private static IncludedFile getIncludedFile(String filename, long lastModified, ArrayList source) {
+         synchronized (includeCache) {
+            IncludedFile included = includeCache.get(filename);
+            if (included == null || included.lastModified != lastModified || !included.source.equals(source)) {
+               included = new IncludedFile(lastModified, source);
+               includeCache.put(filename, included);
+            }
+            return included;
+         }
+      }
+   
+   // Case-insensitive search of the line for ".include".  Cheap pre-screen so that
+   // processIncludes() need not tokenize every line of the program.
+       private static boolean mentionsInclude(String line) {
+         String directive = Directives.INCLUDE.getName();
+         int last = line.length() - directive.length();
+         for (int pos = line.indexOf('.'); pos >= 0 && pos <= last; pos = line.indexOf('.', pos+1)) {
+            if (line.regionMatches(true, pos, directive, 0, directive.length())) {
+               return true;
+            }
+         }
+         return false;
+      }
+   	
    /**
     * Used only to create a token list for the example provided with each instruction
     * specification.
@@ -280,18 +354,25 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          TokenList result = new TokenList();
          if (theLine.length() == 0)
             return result;
-      // will be faster to work with char arrays instead of strings
+      // will be faster to work with char arrays instead of strings.  The arrays are
+      // retained between calls and grown as needed, so most lines allocate nothing here.
          char c;
-         char[] line = theLine.toCharArray();
+         int lineLength = theLine.length();
+         if (lineBuffer.length < lineLength) {
+            lineBuffer = new char[Math.max(lineLength, 2*lineBuffer.length)];
+            tokenBuffer = new char[lineBuffer.length];
+         }
+         char[] line = lineBuffer;
+         theLine.getChars(0, lineLength, line, 0);
          int linePos = 0;
-         char[] token = new char[line.length];
+         char[] token = tokenBuffer;
          int tokenPos = 0;
          int tokenStartPos = 1;
          boolean insideQuotedString = false;  
          if (Globals.debug) 
             System.out.println("source line --->"+theLine+"<---");
       // Each iteration of this loop processes one character in the source line.
-         while (linePos < line.length) {
+         while (linePos < lineLength) {
             c = line[linePos];
             if (insideQuotedString) { // everything goes into token
                token[tokenPos++] = c;
@@ -309,10 +390,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                         tokenPos = 0;
                      }
                      tokenStartPos = linePos+1;
-                     tokenPos = line.length-linePos;
+                     tokenPos = lineLength-linePos;
                      System.arraycopy(line, linePos, token, 0, tokenPos);
                      this.processCandidateToken(token, program, lineNum, theLine, tokenPos, tokenStartPos, result);
-                     linePos = line.length;
+                     linePos = lineLength;
                      tokenPos = 0;
                      break;
                   case ' ' :
@@ -331,7 +412,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   case '-' :
                       // Here's the REAL hack: recognizing signed exponent in E-notation floating point!
                   	 // (e.g. 1.2e-5) Add the + or - to the token and keep going.  DPS 17 Aug 2005
-                     if (tokenPos > 0 && line.length >= linePos+2 && Character.isDigit(line[linePos+1]) &&
+                     if (tokenPos > 0 && lineLength >= linePos+2 && Character.isDigit(line[linePos+1]) &&
                                                        (line[linePos-1]=='e' || line[linePos-1]=='E')) {
                         token[tokenPos++] = c;
                         break;
@@ -344,7 +425,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      tokenStartPos = linePos+1;
                      token[tokenPos++] = c;
                      if ( !((result.isEmpty() || ((Token)result.get(result.size()-1)).getType() != TokenTypes.IDENTIFIER) &&
-                           (line.length >= linePos+2 && Character.isDigit(line[linePos+1]))) ) {
+                           (lineLength >= linePos+2 && Character.isDigit(line[linePos+1]))) ) {
                            // treat it as binary.....
                         this.processCandidateToken(token, program, lineNum, theLine, tokenPos, tokenStartPos, result);
                         tokenPos = 0;
@@ -380,7 +461,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   	// Our strategy is to process the whole thing right now...
                      tokenStartPos = linePos+1;
                      token[tokenPos++] = c; // Put the quote in token[0]
-                     int lookaheadChars = line.length - linePos - 1;
+                     int lookaheadChars = lineLength - linePos - 1;
                   	// need minimum 2 more characters, 1 for char and 1 for ending quote
                      if (lookaheadChars < 2) 
                         break;  // gonna be an error
@@ -518,6 +599,17 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	
 	
    
+   /**
+    * Tells whether the given symbol has been defined by a .eqv directive in the program
+    * most recently tokenized.
+    *
+    * @param symbol the symbol of interest
+    * @return true if a .eqv directive defines symbol, false otherwise
+    */
+       public boolean isEquivalent(String symbol) {
+         return equivalents != null && equivalents.containsKey(symbol);
+      }
+   
    /** 
     * Fetch this Tokenizer's error list.
     *
@@ -531,6 +623,21 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    // Given candidate token and its position, will classify and record it.
        private void processCandidateToken(char[] token, MIPSprogram program, int line, String theLine, 
        int tokenPos, int tokenStartPos, TokenList tokenList) {
+         // Comments and quoted strings are classified by their first character alone, and
+         // their values are left in the source line until somebody asks for them.
+         if (token[0] == '#' || token[0] == '"') {
+            TokenTypes type = (token[0] == '#') ? TokenTypes.COMMENT : TokenTypes.QUOTED_STRING;
+            tokenList.add(new Token(type, theLine, tokenStartPos-1, tokenStartPos-1+tokenPos, program, line, tokenStartPos));
+            return;
+         }
+         // Single-character delimiters share constant values.
+         if (tokenPos == 1) {
+            int index = singleCharacterTokens.indexOf(token[0]);
+            if (index >= 0) {
+               tokenList.add(new Token(singleCharacterTokenTypes[index], singleCharacterTokenValues[index], program, line, tokenStartPos));
+               return;
+            }
+         }
          String value = new String(token, 0, tokenPos);
          if (value.length() > 0 && value.charAt(0)=='\'') value = preprocessCharacterLiteral(value);
          TokenTypes type = TokenTypes.matchTokenType(value);
@@ -574,4 +681,39 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          }	
          return value;
       }
+   
+   // Modification time and source of an included file together with the token list of each of its lines
+   // as produced before .eqv substitution, filled in as lines are tokenized.  Token lists
+   // are copied on the way out since the assembler modifies the lists it is given.
+       private static class IncludedFile {
+         private final long lastModified;
+         private final ArrayList source;
+         private final TokenList[] tokens;
+      
+          private IncludedFile(long lastModified, ArrayList source) {
+            this.lastModified = lastModified;
+            this.source = source;
+            this.tokens = new TokenList[source.size()];
+         }
+      
+          private synchronized TokenList getTokens(int lineNumber, MIPSprogram program, int line) {
+            TokenList cached = tokens[lineNumber-1];
+            if (cached == null) {
+               return null;
+            }
+            TokenList result = new TokenList();
+            for (int i=0; i<cached.size(); i++) {
+               result.add(cached.get(i).copy(program, line));
+            }
+            return result;
+         }
+      
+          private synchronized void setTokens(int lineNumber, TokenList lineTokens) {
+            TokenList cached = new TokenList();
+            for (int i=0; i<lineTokens.size(); i++) {
+               cached.add(lineTokens.get(i).copy(null, lineNumber));
+            }
+            tokens[lineNumber-1] = cached;
+         }
+      }
    }
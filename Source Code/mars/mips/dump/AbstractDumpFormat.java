@@ -1,5 +1,7 @@
    package mars.mips.dump;
 
+   import mars.Globals;
+   import mars.ProgramStatement;
    import mars.mips.hardware.*;
    import java.io.*;
 /*
@@ -42,6 +44,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     public abstract class AbstractDumpFormat implements DumpFormat {
    
       private String name, commandDescriptor, description,  extension;
+      private static final Integer ZERO = Integer.valueOf(0);
    	
    	/**
    	 *  Typical constructor.  Note you cannot creates objects from this
@@ -114,5 +117,38 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    */
        public abstract void dumpMemoryRange(File file, int firstAddress, int lastAddress)
 		    throws AddressErrorException, IOException;
+
+   /**
+   *  Fetch one word to be written by dumpMemoryRange().  Words in blocks the
+   *  program has never referenced, such as those skipped by a large .space
+   *  directive, read as zero so the dump continues past them.
+   *
+   *  @param address memory address of the word.  Must be on word boundary.
+   *  @return the word at that address, or zero if it has not been allocated.
+   *  @throws AddressErrorException if address is invalid or not on a word boundary.
+   */
+       protected Integer getWordForDump(int address) throws AddressErrorException {
+         Integer temp = Globals.memory.getRawWordOrNull(address);
+         return (temp == null) ? ZERO : temp;
+      }
+   
+   /**
+   *  Store one word read from a dump file into MIPS memory.  For use by formats
+   *  that implement LoadableDumpFormat.  Words destined for the text segments
+   *  are decoded into program statements so they can be simulated; others are
+   *  stored as is.
+   *
+   *  @param address memory address at which to store the word.  Must be on word boundary.
+   *  @param word the 32 bit value to store.
+   *  @throws AddressErrorException if address is invalid or not on a word boundary.
+   */
+       protected void storeWord(int address, int word) throws AddressErrorException {
+         if (Memory.inTextSegment(address) || Memory.inKernelTextSegment(address)) {
+            Globals.memory.setStatement(address, new ProgramStatement(word, address));
+         } 
+         else {
+            Globals.memory.setRawWord(address, word);
+         }
+      }
    
    }
\ No newline at end of file
@@ -1,7 +1,6 @@
    package mars.mips.dump;
 
    import mars.util.Binary;
-   import mars.Globals;
    import mars.mips.hardware.*;
    import java.io.*;
 /*
@@ -78,9 +77,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          String string = null;
          try {
             for (int address = firstAddress; address <= lastAddress; address += Memory.WORD_LENGTH_BYTES) {
-               Integer temp = Globals.memory.getRawWordOrNull(address);
-               if (temp == null) 
-                  break;
+               Integer temp = getWordForDump(address);
                out.println(Binary.intToAscii(temp.intValue()));
             }
          } 
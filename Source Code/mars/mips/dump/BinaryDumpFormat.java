@@ -1,6 +1,5 @@
    package mars.mips.dump;
 
-   import mars.Globals;
    import mars.mips.hardware.*;
    import java.io.*;
 /*
@@ -40,7 +39,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 
 
-    public class BinaryDumpFormat extends AbstractDumpFormat {
+    public class BinaryDumpFormat extends AbstractDumpFormat implements LoadableDumpFormat {
    
    /**
    *  Constructor.  There is no standard file extension for this format.
@@ -68,9 +67,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          PrintStream out = new PrintStream(new FileOutputStream(file));
          try {
             for (int address = firstAddress; address <= lastAddress; address += Memory.WORD_LENGTH_BYTES) {
-               Integer temp = Globals.memory.getRawWordOrNull(address);
-               if (temp == null) 
-                  break;
+               Integer temp = getWordForDump(address);
                int word = temp.intValue();
                for (int i = 0; i < 4; i++) 
                   out.write((word >>> (i << 3)) & 0xFF);
@@ -81,4 +78,46 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          }
       }
    
-   }
\ No newline at end of file
+   
+   /**
+   *  Read MIPS memory contents in pure binary format, as written by
+   *  dumpMemoryRange().  Each group of four bytes is one word, low order
+   *  byte first.  Any trailing partial word is ignored.
+   *
+   *  @param  file  File from which to read MIPS memory contents.  
+   *  @param firstAddress first (lowest) memory address to load.  In bytes but
+   *  must be on word boundary.
+   *  @param lastAddress last (highest) memory address to load.  In bytes but
+   *  must be on word boundary.
+   *  @return number of words loaded.
+   *  @throws AddressErrorException if firstAddress is invalid or not on a word boundary.
+   *  @throws IOException if error occurs during file input.
+   */
+       public int loadMemoryRange(File file, int firstAddress, int lastAddress) 
+        throws AddressErrorException, IOException {
+         InputStream in = new BufferedInputStream(new FileInputStream(file));
+         int count = 0;
+         try {
+            byte[] bytes = new byte[Memory.WORD_LENGTH_BYTES];
+            for (int address = firstAddress; address <= lastAddress; address += Memory.WORD_LENGTH_BYTES) {
+               int length = 0;
+               int read = 0;
+               while (length < bytes.length && (read = in.read(bytes, length, bytes.length - length)) > 0) {
+                  length += read;
+               }
+               if (length < bytes.length) 
+                  break;
+               int word = 0;
+               for (int i = 0; i < 4; i++) 
+                  word |= (bytes[i] & 0xFF) << (i << 3);
+               storeWord(address, word);
+               count++;
+            }
+         } 
+         finally { 
+            in.close(); 
+         }
+         return count;
+      }
+   
+   }
@@ -2,7 +2,6 @@
    import mars.*;
    import mars.util.*;
    import java.util.*;
-   import java.lang.reflect.*;
 
 /*
 Copyright (c) 2003-2008,  Pete Sanderson and Kenneth Vollmar
@@ -41,10 +40,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     
     public class DumpFormatLoader {
       
-      private static final String CLASS_PREFIX = "mars.mips.dump.";
       private static final String DUMP_DIRECTORY_PATH = "mars/mips/dump";
-      private static final String SYSCALL_INTERFACE = "DumpFormat.class";
-      private static final String CLASS_EXTENSION = "class";
       
       private static ArrayList formatList = null;
    	
@@ -53,29 +49,23 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       *  the loadGameControllers() method in Bret Barker's GameServer class.
       *  Barker (bret@hypefiend.com) is co-author of the book "Developing Games
       *  in Java".  Also see the ToolLoader and SyscallLoader classes elsewhere in MARS.
+      *  The DumpFormat classes are taken from the index built into the MARS JAR file,
+      *  or if there is none, found among the class files in the dump directory.
       */
    	
        public ArrayList loadDumpFormats() {
          // The list will be populated only the first time this method is called.
          if (formatList == null) {
             formatList = new ArrayList();
-         // grab all class files in the dump directory
-            ArrayList candidates = FilenameFinder.getFilenameList(this.getClass( ).getClassLoader(),
-                                              DUMP_DIRECTORY_PATH, CLASS_EXTENSION);
-            for( int i = 0; i < candidates.size(); i++) {
-               String file = (String) candidates.get(i);
+            ArrayList<String> classNames = PluginIndex.getClassNames(this.getClass( ).getClassLoader(),
+                                              DUMP_DIRECTORY_PATH, DumpFormat.class);
+            for( int i = 0; i < classNames.size(); i++) {
+               String formatClassName = classNames.get(i);
                try {
-                  // grab the class, make sure it implements DumpFormat, instantiate, add to list
-                  String formatClassName = CLASS_PREFIX+file.substring(0, file.indexOf(CLASS_EXTENSION)-1);
-                  Class clas = Class.forName(formatClassName);
-                  if (DumpFormat.class.isAssignableFrom(clas) && 
-                      !Modifier.isAbstract(clas.getModifiers()) &&
-                  	 !Modifier.isInterface(clas.getModifiers())   ) {
-                     formatList.add(clas.newInstance());
-                  }
+                  formatList.add(Class.forName(formatClassName).newInstance());
                } 
                    catch (Exception e) {
-                     System.out.println("Error instantiating DumpFormat from file " + file + ": "+e);
+                     System.out.println("Error instantiating DumpFormat " + formatClassName + ": "+e);
                   }
             }
          }
@@ -1,6 +1,5 @@
    package mars.mips.dump;
 
-   import mars.Globals;
    import mars.mips.hardware.*;
    import java.io.*;
 /*
@@ -40,7 +39,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 
 
-    public class HexTextDumpFormat extends AbstractDumpFormat {
+    public class HexTextDumpFormat extends AbstractDumpFormat implements LoadableDumpFormat {
    
    /**
    *  Constructor.  There is no standard file extension for this format.
@@ -70,9 +69,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          String string = null;
          try {
             for (int address = firstAddress; address <= lastAddress; address += Memory.WORD_LENGTH_BYTES) {
-               Integer temp = Globals.memory.getRawWordOrNull(address);
-               if (temp == null) 
-                  break;
+               Integer temp = getWordForDump(address);
                string = Integer.toHexString(temp.intValue());
                while (string.length() < 8) {
                   string = '0' + string;
@@ -85,4 +82,52 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          }
       }
    
-   }
\ No newline at end of file
+   
+   /**
+   *  Read MIPS memory contents in hexadecimal text format, as written by
+   *  dumpMemoryRange().  Each non-blank line of text contains one memory word
+   *  written in hexadecimal characters.
+   *
+   *  @param  file  File from which to read MIPS memory contents.  
+   *  @param firstAddress first (lowest) memory address to load.  In bytes but
+   *  must be on word boundary.
+   *  @param lastAddress last (highest) memory address to load.  In bytes but
+   *  must be on word boundary.
+   *  @return number of words loaded.
+   *  @throws AddressErrorException if firstAddress is invalid or not on a word boundary.
+   *  @throws IOException if error occurs during file input or a line is not a hexadecimal word.
+   */
+       public int loadMemoryRange(File file, int firstAddress, int lastAddress) 
+        throws AddressErrorException, IOException {
+         BufferedReader in = new BufferedReader(new FileReader(file));
+         int count = 0;
+         try {
+            int address = firstAddress;
+            String line;
+            while (address <= lastAddress && (line = in.readLine()) != null) {
+               line = line.trim();
+               if (line.length() == 0) 
+                  continue;
+               // 1 to 8 hex digits; parseLong alone would accept a sign and more digits than fit.
+               if (line.length() > 8 || Character.digit(line.charAt(0), 16) < 0) {
+                  throw new IOException("\"" + line + "\" is not a hexadecimal word");
+               }
+               int word;
+               try {
+                  word = (int) Long.parseLong(line, 16);
+               } 
+                  catch (NumberFormatException e) {
+                     throw new IOException("\"" + line + "\" is not a hexadecimal word");
+                  }
+               storeWord(address, word);
+               address += Memory.WORD_LENGTH_BYTES;
+               count++;
+            }
+         } 
+         finally { 
+            in.close(); 
+         }
+         return count;
+      }
+   
+   }
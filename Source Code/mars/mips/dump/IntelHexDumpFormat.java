@@ -10,7 +10,7 @@
  * @version July 2011
  */
 
-    public class IntelHexDumpFormat extends AbstractDumpFormat {
+    public class IntelHexDumpFormat extends AbstractDumpFormat implements LoadableDumpFormat {
    
    /**
    * Constructor.  File extention is "hex".
@@ -20,8 +20,10 @@
       }
    
    /**
-   *  Write MIPS memory contents according to the Memory Initialization File
-   *  (MIF) specification. 
+   *  Write MIPS memory contents in Intel hex format, one word per data record.
+   *  Record addresses are byte offsets from firstAddress; an extended linear
+   *  address record precedes the first data record of each 64K region.
+   *  Unallocated words are skipped.
    *
    *  @param  file  File in which to store MIPS memory contents.  
    *  @param firstAddress first (lowest) memory address to dump.  In bytes but
@@ -34,35 +36,18 @@
        public void dumpMemoryRange(File file, int firstAddress, int lastAddress)
           throws AddressErrorException, IOException {
             PrintStream out = new PrintStream(new FileOutputStream(file));
-            String string = null;
             try {
+               int upper = 0; // upper 16 bits of offset, as of last extended linear address record
                for (int address = firstAddress; address <= lastAddress; address += Memory.WORD_LENGTH_BYTES) {
                   Integer temp = Globals.memory.getRawWordOrNull(address);
                   if (temp == null) 
-                     break;
-                  string = Integer.toHexString(temp.intValue());
-                  while (string.length() < 8) {
-                     string = '0' + string;
+                     continue; // unallocated block; later records carry their own addresses
+                  int offset = address - firstAddress;
+                  if ((offset >>> 16) != upper) {
+                     upper = offset >>> 16;
+                     out.println(record(4, 0, upper, 2));
                   }
-                  String addr = Integer.toHexString(address-firstAddress);
-                  while (addr.length() < 4) {
-                     addr = '0' + addr;
-                  }
-                  String chksum;
-                  int tmp_chksum = 0;
-                  tmp_chksum += 4;
-                  tmp_chksum += 0xFF & (address-firstAddress);
-                  tmp_chksum += 0xFF & ((address-firstAddress)>>8);
-                  tmp_chksum += 0xFF & temp.intValue();
-                  tmp_chksum += 0xFF & (temp.intValue()>>8);
-                  tmp_chksum += 0xFF & (temp.intValue()>>16);
-                  tmp_chksum += 0xFF & (temp.intValue()>>24);
-                  tmp_chksum = tmp_chksum % 256;
-                  tmp_chksum = ~tmp_chksum + 1;
-                  chksum = Integer.toHexString(0xFF & tmp_chksum);
-                  if(chksum.length()==1) chksum = '0' + chksum;
-                  String finalstr = ":04"+addr+"00"+string+chksum;
-                  out.println(finalstr.toUpperCase());
+                  out.println(record(0, offset & 0xFFFF, temp.intValue(), 4));
                }
                out.println(":00000001FF");
             } 
@@ -71,4 +56,118 @@
             }
             
       }
+   
+   // Build one Intel hex record holding dataLength bytes of data, most significant
+   // byte first.  The 16 bit address is always written as exactly four hex digits.
+       private String record(int type, int address, int data, int dataLength) {
+         StringBuffer buf = new StringBuffer(":");
+         int checksum = dataLength + (address >> 8) + (address & 0xFF) + type;
+         appendByte(buf, dataLength);
+         appendByte(buf, address >> 8);
+         appendByte(buf, address);
+         appendByte(buf, type);
+         for (int i = dataLength - 1; i >= 0; i--) {
+            int value = (data >> (i << 3)) & 0xFF;
+            appendByte(buf, value);
+            checksum += value;
+         }
+         appendByte(buf, -checksum);
+         return buf.toString();
+      }
+   
+       private void appendByte(StringBuffer buf, int value) {
+         String hex = Integer.toHexString(value & 0xFF).toUpperCase();
+         if (hex.length() == 1) 
+            buf.append('0');
+         buf.append(hex);
+      }
+   
+   
+   /**
+   *  Read MIPS memory contents in Intel hex format, as written by dumpMemoryRange().
+   *  Data record addresses are offsets from firstAddress.  Extended segment and
+   *  extended linear address records are honored.  Each data record must hold
+   *  whole words, most significant byte first.
+   *
+   *  @param  file  File from which to read MIPS memory contents.  
+   *  @param firstAddress first (lowest) memory address to load.  In bytes but
+   *  must be on word boundary.
+   *  @param lastAddress last (highest) memory address to load.  In bytes but
+   *  must be on word boundary.
+   *  @return number of words loaded.
+   *  @throws AddressErrorException if firstAddress is invalid or not on a word boundary.
+   *  @throws IOException if error occurs during file input or a record is invalid.
+   */
+       public int loadMemoryRange(File file, int firstAddress, int lastAddress) 
+        throws AddressErrorException, IOException {
+         BufferedReader in = new BufferedReader(new FileReader(file));
+         int count = 0;
+         try {
+            int base = 0; // from extended address records
+            String line;
+            while ((line = in.readLine()) != null) {
+               line = line.trim();
+               if (line.length() == 0) 
+                  continue;
+               byte[] record = parseRecord(line);
+               int length = record[0] & 0xFF;
+               int offset = ((record[1] & 0xFF) << 8) | (record[2] & 0xFF);
+               int type = record[3] & 0xFF;
+               if (type == 1) { // end of file
+                  break;
+               }
+               if (type == 2 || type == 4) { // extended segment or linear address
+                  if (length != 2) {
+                     throw new IOException("Intel hex record \"" + line + "\" is invalid");
+                  }
+                  int value = ((record[4] & 0xFF) << 8) | (record[5] & 0xFF);
+                  base = (type == 2) ? value << 4 : value << 16;
+                  continue;
+               }
+               if (type != 0) { // start address records
+                  continue;
+               }
+               if (length % Memory.WORD_LENGTH_BYTES != 0) {
+                  throw new IOException("Intel hex record \"" + line + "\" does not contain whole words");
+               }
+               for (int i = 0; i < length; i += Memory.WORD_LENGTH_BYTES) {
+                  int address = firstAddress + base + offset + i;
+                  if (address < firstAddress || address > lastAddress) 
+                     continue;
+                  int word = ((record[4 + i] & 0xFF) << 24) | ((record[5 + i] & 0xFF) << 16)
+                     | ((record[6 + i] & 0xFF) << 8) | (record[7 + i] & 0xFF);
+                  storeWord(address, word);
+                  count++;
+               }
+            }
+         } 
+         finally { 
+            in.close(); 
+         }
+         return count;
+      }
+   
+   // Convert one ":llaaaatt<data>cc" record to bytes, verifying length and checksum.
+   // Returned array holds length, address (2 bytes), type, data then checksum.
+       private byte[] parseRecord(String line) throws IOException {
+         if (line.charAt(0) != ':' || line.length() % 2 != 1 || line.length() < 11) {
+            throw new IOException("\"" + line + "\" is not an Intel hex record");
+         }
+         byte[] record = new byte[(line.length() - 1) / 2];
+         int checksum = 0;
+         for (int i = 0; i < record.length; i++) {
+            int high = Character.digit(line.charAt(2 * i + 1), 16);
+            int low = Character.digit(line.charAt(2 * i + 2), 16);
+            if (high < 0 || low < 0) {
+               throw new IOException("\"" + line + "\" is not an Intel hex record");
+            }
+            record[i] = (byte) ((high << 4) | low);
+            checksum += record[i];
+         }
+         if ((record[0] & 0xFF) != record.length - 5 || (checksum & 0xFF) != 0) {
+            throw new IOException("Intel hex record \"" + line + "\" has incorrect length or checksum");
+         }
+         return record;
+      }
+   
    }
@@ -0,0 +1,65 @@
+   package mars.mips.dump;
+
+   import mars.mips.hardware.*;
+   import java.io.*;
+/*
+Copyright (c) 2003-2008,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Interface for memory dump file formats that can also be read back into
+ * memory.  This allows a program that was assembled elsewhere (or by MARS
+ * in an earlier session) and saved in that format to be simulated without
+ * assembling it again.  Text segment words are decoded into program
+ * statements as they are loaded.
+ * 
+ * @version October 2026
+ */
+
+
+    public interface LoadableDumpFormat extends DumpFormat {
+   
+   /**
+   *  Read MIPS memory contents from a file written according to the
+   *  specification for this format, storing them into memory.  Words
+   *  are stored beginning at the given address, in the same layout as
+   *  dumpMemoryRange() would have read them.
+	*
+   *  @param  file  File from which to read MIPS memory contents.  
+   *  @param firstAddress first (lowest) memory address to load.  In bytes but
+   *  must be on word boundary.
+   *  @param lastAddress last (highest) memory address to load.  In bytes but
+   *  must be on word boundary.  Words in the file beyond this address are ignored.
+   *  @return number of words loaded.
+   *  @throws AddressErrorException if firstAddress is invalid or not on a word boundary.
+   *  @throws IOException if error occurs during file input or the file contents are
+   *  not in this format.
+   */
+       public int loadMemoryRange(File file, int firstAddress, int lastAddress)
+		    throws AddressErrorException, IOException;
+   
+   }
@@ -1,8 +1,8 @@
    package mars.mips.dump;
 
-   import mars.Globals;
    import mars.mips.hardware.*;
    import java.io.*;
+   import java.util.ArrayList;
 /*
 Copyright (c) 2003-2008,  Pete Sanderson and Kenneth Vollmar
 
@@ -40,21 +40,19 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  * @version December 2007
  */
 
-// NOT READY FOR PRIME TIME.  WHEN IT IS, UNCOMMENT THE "extends" CLAUSE
-// AND THE SUPERCLASS CONSTRUCTOR CALL SO THE FORMAT LOADER WILL ACCEPT IT 
-// AND IT WILL BE ADDED TO THE LIST.
-    public class MIFDumpFormat { //extends AbstractDumpFormat {
+    public class MIFDumpFormat extends AbstractDumpFormat implements LoadableDumpFormat {
    
    /**
    * Constructor.  File extention is "mif".
    */   
        public MIFDumpFormat() {
-      //   super("MIF", "MIF", "Written as Memory Initialization File (Altera)", "mif");
+         super("MIF", "MIF", "Written as Memory Initialization File (Altera)", "mif");
       }
    
    /**
    *  Write MIPS memory contents according to the Memory Initialization File
-   *  (MIF) specification. 
+   *  (MIF) specification.  Memory is 32 bits wide, addressed by word starting
+   *  at 0 for firstAddress.  Addresses and data are written in hexadecimal.
    *
    *  @param  file  File in which to store MIPS memory contents.  
    *  @param firstAddress first (lowest) memory address to dump.  In bytes but
@@ -66,6 +64,182 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    */
        public void dumpMemoryRange(File file, int firstAddress, int lastAddress)
           throws AddressErrorException, IOException {
-      	 
+         // DEPTH precedes the content, so collect the words first.
+         ArrayList words = new ArrayList();
+         for (int address = firstAddress; address <= lastAddress; address += Memory.WORD_LENGTH_BYTES) {
+            Integer temp = getWordForDump(address);
+            words.add(temp);
+         }
+         PrintStream out = new PrintStream(new FileOutputStream(file));
+         try {
+            out.println("DEPTH = " + words.size() + ";");
+            out.println("WIDTH = 32;");
+            out.println("ADDRESS_RADIX = HEX;");
+            out.println("DATA_RADIX = HEX;");
+            out.println("CONTENT");
+            out.println("BEGIN");
+            for (int i = 0; i < words.size(); i++) {
+               String string = Integer.toHexString(((Integer) words.get(i)).intValue());
+               while (string.length() < 8) {
+                  string = '0' + string;
+               }
+               out.println(Integer.toHexString(i) + " : " + string + ";");
+            }
+            out.println("END;");
+         } 
+         finally { 
+            out.close(); 
+         }
       }
-   }
\ No newline at end of file
+   
+   /**
+   *  Read MIPS memory contents from a Memory Initialization File.  Addresses
+   *  are word offsets from firstAddress.  Supports the HEX, DEC, UNS, OCT and BIN
+   *  radixes, "--" and "%" comments, address ranges written as [a..b], and
+   *  several data values following one address.  WIDTH must be 32.
+   *
+   *  @param  file  File from which to read MIPS memory contents.  
+   *  @param firstAddress first (lowest) memory address to load.  In bytes but
+   *  must be on word boundary.
+   *  @param lastAddress last (highest) memory address to load.  In bytes but
+   *  must be on word boundary.
+   *  @return number of words loaded.
+   *  @throws AddressErrorException if firstAddress is invalid or not on a word boundary.
+   *  @throws IOException if error occurs during file input or the file is not valid MIF.
+   */
+       public int loadMemoryRange(File file, int firstAddress, int lastAddress)
+          throws AddressErrorException, IOException {
+         String[] statements = readStatements(file);
+         int addressRadix = 16;
+         int dataRadix = 16;
+         int count = 0;
+         boolean inContent = false;
+         for (int i = 0; i < statements.length; i++) {
+            String statement = statements[i].trim();
+            if (!inContent) {
+               if (statement.toUpperCase().startsWith("CONTENT")) {
+                  statement = statement.substring("CONTENT".length()).trim();
+                  if (!statement.toUpperCase().startsWith("BEGIN")) {
+                     throw new IOException("MIF file " + file + " has no CONTENT BEGIN");
+                  }
+                  statement = statement.substring("BEGIN".length()).trim();
+                  inContent = true;
+               } 
+               else {
+                  int equals = statement.indexOf('=');
+                  if (equals < 0) {
+                     continue;
+                  }
+                  String key = statement.substring(0, equals).trim().toUpperCase();
+                  String value = statement.substring(equals + 1).trim();
+                  if (key.equals("ADDRESS_RADIX")) {
+                     addressRadix = radix(value);
+                  } 
+                  else if (key.equals("DATA_RADIX")) {
+                     dataRadix = radix(value);
+                  } 
+                  else if (key.equals("WIDTH") && !value.equals("32")) {
+                     throw new IOException("MIF file " + file + " must have WIDTH = 32");
+                  }
+                  continue;
+               }
+            }
+            if (statement.length() == 0) {
+               continue;
+            }
+            if (statement.toUpperCase().equals("END")) {
+               break;
+            }
+            int colon = statement.indexOf(':');
+            if (colon < 0) {
+               throw new IOException("\"" + statement + "\" is not a valid MIF content entry");
+            }
+            String location = statement.substring(0, colon).trim();
+            String[] data = statement.substring(colon + 1).trim().split("\\s+");
+            long low, high;
+            try {
+               if (location.startsWith("[") && location.endsWith("]") && location.indexOf("..") > 0) {
+                  int dots = location.indexOf("..");
+                  low = Long.parseLong(location.substring(1, dots).trim(), addressRadix);
+                  high = Long.parseLong(location.substring(dots + 2, location.length() - 1).trim(), addressRadix);
+               } 
+               else {
+                  low = Long.parseLong(location, addressRadix);
+                  high = low + data.length - 1;
+               }
+               for (long offset = low; offset <= high; offset++) {
+                  long address = (firstAddress & 0xFFFFFFFFL) + offset * Memory.WORD_LENGTH_BYTES;
+                  if (address > (lastAddress & 0xFFFFFFFFL)) {
+                     break;
+                  }
+                  String value = data[(int) ((offset - low) % data.length)];
+                  storeWord((int) address, parseWord(value, dataRadix));
+                  count++;
+               }
+            } 
+               catch (NumberFormatException e) {
+                  throw new IOException("\"" + statement + "\" is not a valid MIF content entry");
+               }
+         }
+         return count;
+      }
+   
+   // Read the file, remove comments, and split it into ";"-terminated statements.
+       private String[] readStatements(File file) throws IOException {
+         StringBuffer text = new StringBuffer();
+         BufferedReader in = new BufferedReader(new FileReader(file));
+         try {
+            boolean inBlockComment = false;
+            String line;
+            while ((line = in.readLine()) != null) {
+               for (int i = 0; i < line.length(); i++) {
+                  char c = line.charAt(i);
+                  if (c == '%') {
+                     inBlockComment = !inBlockComment;
+                  } 
+                  else if (inBlockComment) {
+                     continue;
+                  } 
+                  else if (c == '-' && i + 1 < line.length() && line.charAt(i + 1) == '-') {
+                     break;
+                  } 
+                  else {
+                     text.append(c);
+                  }
+               }
+               text.append(' ');
+            }
+         } 
+         finally { 
+            in.close(); 
+         }
+         return text.toString().split(";");
+      }
+   
+   // Convert MIF radix name to number base.
+   // Parse a data value as a 32 bit word.  Only decimal values may be negative, and
+   // values that do not fit in 32 bits are rejected rather than truncated.
+       private int parseWord(String value, int radix) throws NumberFormatException {
+         if (value.length() == 0 || value.charAt(0) == '+' || (value.charAt(0) == '-' && radix != 10)) {
+            throw new NumberFormatException(value);
+         }
+         long word = Long.parseLong(value, radix);
+         if (word < Integer.MIN_VALUE || word > 0xFFFFFFFFL) {
+            throw new NumberFormatException(value);
+         }
+         return (int) word;
+      }
+   
+       private int radix(String name) throws IOException {
+         name = name.toUpperCase();
+         if (name.equals("HEX")) 
+            return 16;
+         if (name.equals("DEC") || name.equals("UNS")) 
+            return 10;
+         if (name.equals("OCT")) 
+            return 8;
+         if (name.equals("BIN")) 
+            return 2;
+         throw new IOException("Unsupported MIF radix " + name);
+      }
+   }
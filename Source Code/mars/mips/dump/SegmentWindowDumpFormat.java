@@ -95,9 +95,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      string = ((hexAddresses) ? Binary.intToHexString(address) : Binary.unsignedIntToIntString(address))  + "    ";
                   }
                   offset++;
-                  Integer temp = Globals.memory.getRawWordOrNull(address);
-                  if (temp == null) 
-                     break;
+                  Integer temp = getWordForDump(address);
                   string += ((hexValues) 
                              ? Binary.intToHexString(temp.intValue()) 
                      		  : ("           "+temp).substring(temp.toString().length()) 
@@ -128,7 +126,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                string = ((hexAddresses) ? Binary.intToHexString(address) : Binary.unsignedIntToIntString(address))  + "  ";
                Integer temp = Globals.memory.getRawWordOrNull(address);
                if (temp == null) 
-                  break;
+                  continue; // no instruction here; the address column shows the gap
                string += Binary.intToHexString(temp.intValue()) + "  ";
                try {
                   ProgramStatement ps = Globals.memory.getStatement(address);
@@ -174,6 +174,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private static final int TEXT_BLOCK_TABLE_LENGTH = 1024; // Each entry of table points to a block.
       private ProgramStatement[][] textBlockTable;
       private ProgramStatement[][] kernelTextBlockTable;
+   
+    // Every write bumps a write generation counter, and the block (4K byte page) written
+    // records the counter's new value.  A display can remember the generation of each page
+    // it shows and re-read only pages whose generation has since changed; see
+    // getPageGeneration().  Each block table has a parallel array of page generations.
+   
+      private int writeGeneration = 0;
+      private int[] dataPageGenerations, kernelDataPageGenerations, stackPageGenerations,
+                    memoryMapPageGenerations, textPageGenerations, kernelTextPageGenerations;
     
     // Set "top" address boundary to go with each "base" address.  This determines permissable
     // address range for user program.  Currently limit is 4MB, or 1024 * 1024 * 4 bytes based
@@ -292,9 +301,22 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          kernelDataBlockTable  = new int[BLOCK_TABLE_LENGTH][];      
          stackBlockTable = new int[BLOCK_TABLE_LENGTH][];
          memoryMapBlockTable = new int[MMIO_TABLE_LENGTH][];
+         dataPageGenerations = newPageGenerations(BLOCK_TABLE_LENGTH);
+         kernelDataPageGenerations = newPageGenerations(BLOCK_TABLE_LENGTH);
+         stackPageGenerations = newPageGenerations(BLOCK_TABLE_LENGTH);
+         memoryMapPageGenerations = newPageGenerations(MMIO_TABLE_LENGTH);
+         textPageGenerations = newPageGenerations(TEXT_BLOCK_TABLE_LENGTH);
+         kernelTextPageGenerations = newPageGenerations(TEXT_BLOCK_TABLE_LENGTH);
          System.gc(); // call garbage collector on any Table memory just deallocated. 	  
       }  
      
+   	// Every page of cleared memory gets a generation no display has seen before.
+       private synchronized int[] newPageGenerations(int pages) {
+         int[] generations = new int[pages];
+         Arrays.fill(generations, ++writeGeneration);
+         return generations;
+      }
+   
    	/**
    	 * Returns the next available word-aligned heap address.  There is no recycling and
    	 * no heap management!  There is however nearly 4MB of heap space available in Mars.
@@ -485,8 +507,53 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       }
    	
     ///////////////////////////////////////////////////////////////////////////////////////
-    /** 
-     *  Starting at the given word address, write the given value over 4 bytes (a word).  
+    /**
+     *  Starting at the given word address, write a sequence of words "raw", as in
+     *  setRawWord(), into the data or kernel data segment.  Within each word only the bytes
+     *  selected by the corresponding mask (0xFF in each byte position to be written, in the
+     *  same layout as the word) are replaced.  This is for bulk initialization of memory, as done
+     *  by the assembler for data directives, so it is not recorded for backstepping.
+     *
+     * @param address Starting address of Memory address to be set.  Must be word-aligned.
+     * @param values Array containing the words to be stored.
+     * @param masks Array containing the byte mask for each word.
+     * @param offset Index in the arrays of the first word to be stored.
+     * @param count Number of words to be stored.
+     * @throws AddressErrorException If address is not on word boundary or the words do not
+     * all fall within the same data segment.
+    **/
+       public void setRawWords(int address, int[] values, int[] masks, int offset, int count) throws AddressErrorException {
+         if (address % WORD_LENGTH_BYTES != 0) {
+            throw new AddressErrorException("store address not aligned on word boundary ",
+               Exceptions.ADDRESS_EXCEPTION_STORE, address);
+         }
+         int lastAddress = address + (count-1) * WORD_LENGTH_BYTES;
+         int[][] blockTable;
+         int relative;
+         if (inDataSegment(address) && inDataSegment(lastAddress)) {
+            blockTable = dataBlockTable;
+            relative = (address - dataSegmentBaseAddress) >> 2; // convert byte address to words
+         }
+         else if (inKernelDataSegment(address) && inKernelDataSegment(lastAddress)) {
+            blockTable = kernelDataBlockTable;
+            relative = (address - kernelDataBaseAddress) >> 2; // convert byte address to words
+         }
+         else {
+            throw new AddressErrorException("store address range not in data segment ",
+               Exceptions.ADDRESS_EXCEPTION_STORE, address);
+         }
+         storeWordsInTable(blockTable, relative, values, masks, offset, count);
+         if (this.observables.size() > 0) {
+            for (int i = 0; i < count; i++) {
+               notifyAnyObservers(AccessNotice.WRITE, address + i * WORD_LENGTH_BYTES,
+                  WORD_LENGTH_BYTES, fetchWordFromTable(blockTable, relative + i));
+            }
+         }
+      }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    /**
+     *  Starting at the given word address, write the given value over 4 bytes (a word).
      *  The address must be word-aligned.
      * 
      * @param address Starting address of Memory address to be set.
@@ -809,6 +876,36 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return address;
       }
    
+     /**
+      *  Look for last non-"null" memory value in an address range.  Unlike getAddressOfFirstNull(),
+   	*  this does not stop at a block that has not been referenced, so data following a large
+   	*  .space directive is found.  The search ends early at an address outside the MARS
+   	*  addressing range.  Use this to find the end of the memory to be dumped.
+   	*
+   	*  @param baseAddress lowest MIPS address to be searched; the starting point
+   	*  @param limitAddress highest MIPS address to be searched
+   	*  @return highest address within specified range that contains a non-null value, or
+   	*  baseAddress minus one word if there is none.
+   	*  @throws AddressErrorException if the base address is not on a word boundary
+   	*/
+       public int getAddressOfLastNonNull(int baseAddress, int limitAddress) throws AddressErrorException {
+         int last = baseAddress - WORD_LENGTH_BYTES;
+         for (int address = baseAddress; address < limitAddress; address += Memory.WORD_LENGTH_BYTES) {
+            try {
+               if (getRawWordOrNull(address) != null) {
+                  last = address;
+               }
+            } 
+                catch (AddressErrorException aee) {
+                  if (address == baseAddress) {
+                     throw aee;
+                  }
+                  break;
+               }
+         }
+         return last;
+      }
+   
    
     ///////////////////////////////////////////////////////////////////////////////////////
     /** 
@@ -987,6 +1084,38 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return address;
       }
    
+   /**
+    * Returns the write generation of the 4K byte page containing the given address.  It
+    * changes whenever anything on that page is written (including by the assembler, by
+    * backstepping, and by clearing memory) and is otherwise stable, so it can be compared
+    * with a previously returned value to tell whether the page needs to be read again.
+    * Generations only increase.  Addresses outside the MARS address space are never
+    * written, and always return 0.
+    * @param address integer memory address, need not be aligned
+    * @return current write generation of the page containing the address
+    */
+       public synchronized int getPageGeneration(int address) {
+         if (inDataSegment(address)) {
+            return dataPageGenerations[((address - dataSegmentBaseAddress) >> 2) / BLOCK_LENGTH_WORDS];
+         } 
+         else if (address > stackLimitAddress && address <= stackBaseAddress) {
+            return stackPageGenerations[((stackBaseAddress - address) >> 2) / BLOCK_LENGTH_WORDS];
+         } 
+         else if (inTextSegment(address)) {
+            return textPageGenerations[((address - textBaseAddress) >> 2) / TEXT_BLOCK_LENGTH_WORDS];
+         } 
+         else if (address >= memoryMapBaseAddress && address < memoryMapLimitAddress) {
+            return memoryMapPageGenerations[((address - memoryMapBaseAddress) >> 2) / BLOCK_LENGTH_WORDS];
+         } 
+         else if (inKernelDataSegment(address)) {
+            return kernelDataPageGenerations[((address - kernelDataBaseAddress) >> 2) / BLOCK_LENGTH_WORDS];
+         } 
+         else if (inKernelTextSegment(address)) {
+            return kernelTextPageGenerations[((address - kernelTextBaseAddress) >> 2) / TEXT_BLOCK_LENGTH_WORDS];
+         }
+         return 0;
+      }
+   
    /**
     * Handy little utility to find out if given address is in MARS text 
     * segment (starts at Memory.textBaseAddress).
@@ -1300,6 +1429,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             }
             if (byteOrder == LITTLE_ENDIAN) bytePositionInMemory = 3 - bytePositionInMemory;
             if (op == STORE) {
+               getPageGenerations(blockTable)[block] = ++writeGeneration;
                oldValue = replaceByte(blockTable[block][offset], bytePositionInMemory,
                   								oldValue, bytePositionInValue);
                blockTable[block][offset] = replaceByte(value, bytePositionInValue, 
@@ -1332,9 +1462,52 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          }
          oldValue = blockTable[block][offset];
          blockTable[block][offset] = value;
+         getPageGenerations(blockTable)[block] = ++writeGeneration;
          return oldValue;
       }
+   
+   // Helper method to find the page generations that go with a block table.
       
+       private int[] getPageGenerations(int[][] blockTable) {
+         if (blockTable == dataBlockTable) {
+            return dataPageGenerations;
+         } 
+         else if (blockTable == stackBlockTable) {
+            return stackPageGenerations;
+         } 
+         else if (blockTable == kernelDataBlockTable) {
+            return kernelDataPageGenerations;
+         } 
+         else {
+            return memoryMapPageGenerations;
+         }
+      }
+      
+   ////////////////////////////////////////////////////////////////////////////////
+   //
+   // Helper method to store a sequence of 4 byte values in table that represents MIPS
+   // memory, replacing only the bytes selected by each value's mask.  Used for bulk
+   // writes to data segment.  Assumes word alignment, no endian processing.
+
+       private synchronized void storeWordsInTable(int[][] blockTable, int relative,
+                                   int[] values, int[] masks, int offset, int count) {
+         int block, wordOffset, mask;
+         for (int i = 0; i < count; i++) {
+            block = (relative + i) / BLOCK_LENGTH_WORDS;
+            wordOffset = (relative + i) % BLOCK_LENGTH_WORDS;
+            mask = masks[offset + i];
+            if (mask == 0) {
+               continue;
+            }
+            if (blockTable[block] == null) {
+               // First time writing to this block, so allocate the space.
+               blockTable[block] = new int[BLOCK_LENGTH_WORDS];
+            }
+            blockTable[block][wordOffset] = (blockTable[block][wordOffset] & ~mask) | (values[offset + i] & mask);
+            getPageGenerations(blockTable)[block] = ++writeGeneration;
+         }
+      }
+
    ////////////////////////////////////////////////////////////////////////////////
    //
    // Helper method to fetch 4 byte value from table that represents MIPS memory.
@@ -1342,7 +1515,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    // Both use different tables but same storage method and same table size
    // and block size.  Assumes word alignment, no endian processing.
    //
-   
+
        private synchronized int fetchWordFromTable(int[][] blockTable, int relative) {
          int value = 0;
          int block, offset;
@@ -1424,6 +1597,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                blockTable[block] = new ProgramStatement[BLOCK_LENGTH_WORDS];
             }
             blockTable[block][offset] = statement;
+            int[] generations = (blockTable == textBlockTable) ? textPageGenerations : kernelTextPageGenerations;
+            synchronized (this) {
+               generations[block] = ++writeGeneration;
+            }
          }
       }
    
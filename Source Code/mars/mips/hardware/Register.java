@@ -46,6 +46,9 @@ public class Register extends Observable {
    // are the only methods here used by the register collection
    // (RegisterFile, Coprocessor0, Coprocessor1) methods.
    private volatile int value;
+   // Incremented whenever value is changed, so displays can tell whether
+   // they need to show it again.
+   private volatile int writeGeneration;
 
    /**
     * Creates a new register with specified name, number, and value.
@@ -126,6 +129,7 @@ public class Register extends Observable {
    public synchronized int setValue(int val) {
       int old = value;
       value = val;
+      writeGeneration++;
       notifyAnyObservers(AccessNotice.WRITE);
       return old;
    }
@@ -137,6 +141,19 @@ public class Register extends Observable {
 
    public synchronized void resetValue() {
       value = resetValue;
+      writeGeneration++;
+   }
+
+   /**
+    * Returns a count that changes every time the register is set or reset,
+    * whether or not its value changes. A display that remembers the count
+    * when it shows the value need not show it again until the count differs.
+    * 
+    * @return the register's current write generation.
+    */
+
+   public int getWriteGeneration() {
+      return writeGeneration;
    }
 
    /**
@@ -153,6 +153,23 @@ public class RegisterFile {
          return regFile[num].getValue();
    }
 
+   /**
+    * Returns the value of the register who's number is num without notifying
+    * observers of the read, for tools that model the program rather than take part in it.
+    * 
+    * @param num The register number.
+    * @return The value of the given register.
+    **/
+
+   public static int getValueNoNotify(int num) {
+      if (num == 33) {
+         return hi.getValueNoNotify();
+      } else if (num == 34) {
+         return lo.getValueNoNotify();
+      } else
+         return regFile[num].getValueNoNotify();
+   }
+
    public static String getName(int num) {
       if (num == 33) {
          return hi.getName();
@@ -201,13 +218,19 @@ public class RegisterFile {
    public static Register getUserRegister(String Rname) {
       Register reg = null;
       if (Rname.charAt(0) == '$') {
-         try {
-            // check for register number 0-31.
-            reg = regFile[Binary.stringToInt(Rname.substring(1))]; // KENV 1/6/05
-         } catch (Exception e) {
-            // handles both NumberFormat and ArrayIndexOutOfBounds
+         // Only a digit can start a register number; go straight to the mnemonic
+         // search otherwise rather than failing a number parse.
+         if (Rname.length() > 1 && Character.isDigit(Rname.charAt(1))) {
+            try {
+               // check for register number 0-31.
+               reg = regFile[Binary.stringToInt(Rname.substring(1))]; // KENV 1/6/05
+            } catch (Exception e) {
+               // handles both NumberFormat and ArrayIndexOutOfBounds
+               reg = null; // just to be sure
+            }
+         }
+         if (reg == null) {
             // check for register mnemonic $zero thru $ra
-            reg = null; // just to be sure
             // just do linear search; there aren't that many registers
             for (int i = 0; i < regFile.length; i++) {
                if (Rname.equals(regFile[i].getName())) {
@@ -293,6 +316,24 @@ public class RegisterFile {
       return programCounter;
    }
 
+   /**
+    * Returns Register object for the hi register (number 33).
+    * 
+    * @return hi register's Register object.
+    */
+   public static Register getHiRegister() {
+      return hi;
+   }
+
+   /**
+    * Returns Register object for the lo register (number 34).
+    * 
+    * @return lo register's Register object.
+    */
+   public static Register getLoRegister() {
+      return lo;
+   }
+
    /**
     * For returning the program counter's initial (reset) value.
     * 
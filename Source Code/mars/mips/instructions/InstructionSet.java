@@ -48,6 +48,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    {
       private ArrayList instructionList;
 	  private ArrayList opcodeMatchMaps;
+	  private DecodeTable decodeTable;
+      private HashMap<String,ArrayList<Instruction>> operatorMap; // lower-case mnemonic -> Instructions
       private SyscallLoader syscallLoader;
     /**
      * Creates a new InstructionSet object.
@@ -3061,6 +3063,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       			
         ////////////// READ PSEUDO-INSTRUCTION SPECS FROM DATA FILE AND ADD //////////////////////
          addPseudoInstructions();
+      
+        ////////////// INDEX INSTRUCTIONS BY MNEMONIC FOR matchOperator ////////////////////
+         buildOperatorMap();
       	
         ////////////// GET AND CREATE LIST OF SYSCALL FUNCTION OBJECTS ////////////////////
          syscallLoader = new SyscallLoader();
@@ -3093,16 +3098,18 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 		 }
 		 Collections.sort(matchMaps);
 		 this.opcodeMatchMaps = matchMaps;
+		 this.decodeTable = new DecodeTable(matchMaps);
       }
 
+	/**
+	 * Find the basic instruction whose binary encoding matches the given machine code.
+	 * Where more than one matches, the one with the most specific mask is chosen.
+	 *
+	 * @param binaryInstr 32-bit machine code
+	 * @return matching BasicInstruction, or null if none matches.
+	 */
 	public BasicInstruction findByBinaryCode(int binaryInstr) {
-		ArrayList matchMaps = this.opcodeMatchMaps;
-		for (int i = 0; i < matchMaps.size(); i++) {
-			MatchMap map = (MatchMap) matchMaps.get(i);
-			BasicInstruction ret = map.find(binaryInstr);
-			if (ret != null) return ret;
-		}
-		return null;
+		return this.decodeTable.find(binaryInstr);
 	}
    	
     /*  METHOD TO ADD PSEUDO-INSTRUCTIONS
@@ -3180,23 +3187,50 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       
       }
    	
+    /*  Build the mnemonic index used by matchOperator.  Keys are lower case since
+     *  operator matching is case-insensitive.  Lists retain instruction set order.
+     */
+       private void buildOperatorMap()
+      {
+         HashMap<String,ArrayList<Instruction>> map = new HashMap<String,ArrayList<Instruction>>();
+         for (int i = 0; i < instructionList.size(); i++)
+         {
+            Instruction inst = (Instruction) instructionList.get(i);
+            String key = inst.getName().toLowerCase(Locale.ENGLISH);
+            ArrayList<Instruction> matches = map.get(key);
+            if (matches == null)
+            {
+               matches = new ArrayList<Instruction>();
+               map.put(key, matches);
+            }
+            matches.add(inst);
+         }
+         operatorMap = map;
+      }
+   	
     /**
      *  Given an operator mnemonic, will return the corresponding Instruction object(s)
-     *  from the instruction set.  Uses straight linear search technique.
+     *  from the instruction set.  Uses the mnemonic index once the set is populated.
+     *  The returned list is the caller's own copy.
      *  @param name operator mnemonic (e.g. addi, sw,...)
      *  @return list of corresponding Instruction object(s), or null if not found.
      */
-       public ArrayList matchOperator(String name)
+       public ArrayList<Instruction> matchOperator(String name)
       {
-         ArrayList matchingInstructions = null;
+         if (operatorMap != null)
+         {
+            ArrayList<Instruction> matches = operatorMap.get(name.toLowerCase(Locale.ENGLISH));
+            return (matches == null) ? null : new ArrayList<Instruction>(matches);
+         }
+         ArrayList<Instruction> matchingInstructions = null;
         // Linear search for now....
          for (int i = 0; i < instructionList.size(); i++)
          {
             if (((Instruction) instructionList.get(i)).getName().equalsIgnoreCase(name))
             {
                if (matchingInstructions == null) 
-                  matchingInstructions = new ArrayList();
-               matchingInstructions.add(instructionList.get(i));
+                  matchingInstructions = new ArrayList<Instruction>();
+               matchingInstructions.add((Instruction) instructionList.get(i));
             }
          }
          return matchingInstructions;
@@ -3346,5 +3380,129 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 			return (BasicInstruction) matchMap.get(match);
 		}
 	}
+
+	/*
+	 * Two-level table for decoding machine code, built from the MatchMaps.  The first level
+	 * is indexed by the 6-bit primary opcode.  For each opcode, the second level is indexed by
+	 * whichever one or two of the other instruction fields (funct, rt, rs/fmt, ...) best separate
+	 * the instructions having that opcode, e.g. funct for SPECIAL and fmt plus funct for COP1.
+	 * Each second level entry lists every instruction whose mask and match are consistent
+	 * with those field values, in MatchMap priority order, so the first one that matches
+	 * is the same instruction a search through the MatchMaps would find.  Usually the list
+	 * has one element.
+	 */
+	  private static class DecodeTable {
+		// Candidate fields for second level index, as {shift, width} pairs.
+		private static final int[][] FIELDS = {
+			{0, 6},  // funct
+			{16, 5}, // rt
+			{21, 5}, // rs, or fmt for coprocessor instructions
+			{6, 5},  // shamt
+			{11, 5}  // rd
+		};
+		private static final int MAX_INDEX_BITS = 11;
+		private static final BasicInstruction[] NONE = new BasicInstruction[0];
+
+		private int[] highShift = new int[64];
+		private int[] highMask = new int[64];
+		private int[] lowShift = new int[64];
+		private int[] lowMask = new int[64];
+		private int[] lowWidth = new int[64];
+		private BasicInstruction[][][] table = new BasicInstruction[64][][];
+
+		public DecodeTable(ArrayList matchMaps) {
+			ArrayList ordered = new ArrayList();
+			for (int i = 0; i < matchMaps.size(); i++) {
+				ordered.addAll(((MatchMap) matchMaps.get(i)).matchMap.values());
+			}
+			for (int opcode = 0; opcode < 64; opcode++) {
+				ArrayList candidates = new ArrayList();
+				for (int i = 0; i < ordered.size(); i++) {
+					BasicInstruction basic = (BasicInstruction) ordered.get(i);
+					if (consistent(basic, opcode << 26, 0xFC000000)) {
+						candidates.add(basic);
+					}
+				}
+				buildSecondLevel(opcode, candidates);
+			}
+		}
+
+		public BasicInstruction find(int instr) {
+			int opcode = instr >>> 26;
+			int index = (((instr >>> highShift[opcode]) & highMask[opcode]) << lowWidth[opcode])
+				| ((instr >>> lowShift[opcode]) & lowMask[opcode]);
+			BasicInstruction[] candidates = table[opcode][index];
+			for (int i = 0; i < candidates.length; i++) {
+				if ((instr & candidates[i].getOpcodeMask()) == candidates[i].getOpcodeMatch()) {
+					return candidates[i];
+				}
+			}
+			return null;
+		}
+
+		// True if the instruction's fixed bits agree with the given value wherever both
+		// its mask and fieldMask are set.
+		private static boolean consistent(BasicInstruction basic, int value, int fieldMask) {
+			return ((basic.getOpcodeMatch() ^ value) & basic.getOpcodeMask() & fieldMask) == 0;
+		}
+
+		// Try every field and pair of fields fixed by some instruction as second level index
+		// for this opcode, keeping the one giving the shortest candidate lists, then the
+		// smallest table.  With no field (index -1) the table has a single entry.
+		private void buildSecondLevel(int opcode, ArrayList candidates) {
+			boolean[] used = new boolean[FIELDS.length];
+			for (int i = 0; i < candidates.size(); i++) {
+				int mask = ((BasicInstruction) candidates.get(i)).getOpcodeMask();
+				for (int f = 0; f < FIELDS.length; f++) {
+					used[f] |= (mask & (((1 << FIELDS[f][1]) - 1) << FIELDS[f][0])) != 0;
+				}
+			}
+			BasicInstruction[][] best = null;
+			int bestLongest = Integer.MAX_VALUE;
+			for (int high = -1; high < FIELDS.length; high++) {
+				for (int low = high; low < FIELDS.length; low++) {
+					if ((high >= 0 && (!used[high] || low == high)) || (low >= 0 && !used[low])) {
+						continue;
+					}
+					int hShift = (high < 0) ? 0 : FIELDS[high][0];
+					int hWidth = (high < 0) ? 0 : FIELDS[high][1];
+					int lShift = (low < 0) ? 0 : FIELDS[low][0];
+					int lWidth = (low < 0) ? 0 : FIELDS[low][1];
+					if (hWidth + lWidth > MAX_INDEX_BITS || bestLongest <= 1 && (1 << (hWidth + lWidth)) >= best.length) {
+						continue;
+					}
+					BasicInstruction[][] level = new BasicInstruction[1 << (hWidth + lWidth)][];
+					int longest = 0;
+					for (int index = 0; index < level.length; index++) {
+						int value = ((index >>> lWidth) << hShift) | ((index & ((1 << lWidth) - 1)) << lShift);
+						int fieldMask = (((1 << hWidth) - 1) << hShift) | (((1 << lWidth) - 1) << lShift);
+						ArrayList list = new ArrayList();
+						for (int i = 0; i < candidates.size(); i++) {
+							BasicInstruction basic = (BasicInstruction) candidates.get(i);
+							if (consistent(basic, value, fieldMask)) {
+								list.add(basic);
+							}
+						}
+						level[index] = (list.size() == 0) ? NONE
+							: (BasicInstruction[]) list.toArray(new BasicInstruction[list.size()]);
+						longest = Math.max(longest, list.size());
+						if (longest > bestLongest) {
+							break;
+						}
+					}
+					if (longest < bestLongest || (longest == bestLongest && level.length < best.length)) {
+						best = level;
+						bestLongest = longest;
+						highShift[opcode] = hShift;
+						highMask[opcode] = (1 << hWidth) - 1;
+						lowShift[opcode] = lShift;
+						lowMask[opcode] = (1 << lWidth) - 1;
+						lowWidth[opcode] = lWidth;
+					}
+				}
+			}
+			table[opcode] = best;
+		}
+	}
    }
 
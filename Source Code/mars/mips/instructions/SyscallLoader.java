@@ -43,11 +43,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     
     class SyscallLoader {
       
-      private static final String CLASS_PREFIX = "mars.mips.instructions.syscalls.";
       private static final String SYSCALLS_DIRECTORY_PATH = "mars/mips/instructions/syscalls";
-      private static final String SYSCALL_INTERFACE = "Syscall.class";
-      private static final String SYSCALL_ABSTRACT = "AbstractSyscall.class";
-      private static final String CLASS_EXTENSION = "class";
       
       private ArrayList syscallList;
    	
@@ -56,45 +52,31 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       *  the loadGameControllers() method in Bret Barker's GameServer class.
       *  Barker (bret@hypefiend.com) is co-author of the book "Developing Games
       *  in Java".  Also see the "loadMarsTools()" method from ToolLoader class.
+      *  The Syscall classes are taken from the index built into the MARS JAR file,
+      *  or if there is none, found among the class files in the same directory as Syscall.
       */
        void loadSyscalls() {
          syscallList = new ArrayList();
-         // grab all class files in the same directory as Syscall
-         ArrayList candidates = FilenameFinder.getFilenameList(this.getClass( ).getClassLoader(),
-                                              SYSCALLS_DIRECTORY_PATH, CLASS_EXTENSION);
-		   HashMap syscalls = new HashMap();
-         for( int i = 0; i < candidates.size(); i++) {
-            String file = (String) candidates.get(i); 
-				// Do not add class if already encountered (happens if run in MARS development directory)
-				if (syscalls.containsKey(file)) {
-				  continue;
-				} else {
-				   syscalls.put(file,file);
-				}
-            if ((!file.equals(SYSCALL_INTERFACE)) &&
-               	  (!file.equals(SYSCALL_ABSTRACT)) ) {
-               try {
-                  // grab the class, make sure it implements Syscall, instantiate, add to list
-                  String syscallClassName = CLASS_PREFIX+file.substring(0, file.indexOf(CLASS_EXTENSION)-1);
-                  Class clas = Class.forName(syscallClassName);
-                  if (!Syscall.class.isAssignableFrom(clas)) {
-                     continue;
-                  }
-                  Syscall syscall = (Syscall) clas.newInstance();
-                  if (findSyscall(syscall.getNumber()) == null) {
-                     syscallList.add(syscall);
-                  } 
-                  else {
-                     throw new Exception("Duplicate service number: "+syscall.getNumber()+
-                            " already registered to "+
-                            findSyscall(syscall.getNumber()).getName());
-                  }
+         ArrayList<String> classNames = PluginIndex.getClassNames(this.getClass( ).getClassLoader(),
+                                              SYSCALLS_DIRECTORY_PATH, Syscall.class);
+         for( int i = 0; i < classNames.size(); i++) {
+            String syscallClassName = classNames.get(i); 
+            try {
+               // instantiate, add to list
+               Syscall syscall = (Syscall) Class.forName(syscallClassName).newInstance();
+               if (findSyscall(syscall.getNumber()) == null) {
+                  syscallList.add(syscall);
                } 
-                   catch (Exception e) {
-                     System.out.println("Error instantiating Syscall from file " + file + ": "+e);
-                     System.exit(0);
-                  }
-            }
+               else {
+                  throw new Exception("Duplicate service number: "+syscall.getNumber()+
+                         " already registered to "+
+                         findSyscall(syscall.getNumber()).getName());
+               }
+            } 
+                catch (Exception e) {
+                  System.out.println("Error instantiating Syscall " + syscallClassName + ": "+e);
+                  System.exit(0);
+               }
          }
          syscallList = processSyscallNumberOverrides(syscallList);
          return;
@@ -0,0 +1,97 @@
+   package mars.simulator;
+   import javax.swing.*;
+   import java.awt.event.*;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Refreshes the GUI during timed execution at no more than one refresh per display
+ * frame.  The simulation thread calls requestUpdate() after each instruction, which
+ * only sets a flag; a Swing timer checks the flag once per frame and, if set, runs the
+ * update on the event dispatch thread.  However fast the simulation runs, no more than
+ * one update is ever pending and updates cannot pile up in the event queue.
+ */
+
+    class GUIUpdateScheduler implements ActionListener {
+      /** Milliseconds between checks for a pending update (about 60 per second). */
+      public static final int FRAME_INTERVAL = 16;
+   
+      private Runnable update;
+      private Timer frameTimer;
+      private volatile boolean pending;
+   
+   	/**
+   	 * Create a scheduler for the given GUI update.
+   	 *
+   	 * @param update the Runnable that refreshes the GUI.  It runs on the event dispatch thread.
+   	 */
+       GUIUpdateScheduler(Runnable update) {
+         this.update = update;
+         this.frameTimer = new Timer(FRAME_INTERVAL, this);
+         this.frameTimer.setCoalesce(true);
+      }
+   
+   	/**
+   	 * Start checking for update requests.  Called by the simulation thread when
+   	 * execution starts.
+   	 */
+       void start() {
+         pending = false;
+         frameTimer.start();
+      }
+   
+   	/**
+   	 * Stop checking for update requests and discard any that is pending.  Called on 
+   	 * the event dispatch thread when execution has stopped, by which time the GUI
+   	 * is about to be brought up to date anyway.
+   	 */
+       void stop() {
+         frameTimer.stop();
+         pending = false;
+      }
+   
+   	/**
+   	 * Ask for the GUI to be refreshed at the next frame.  Cheap enough to be
+   	 * called after every instruction.
+   	 */
+       void requestUpdate() {
+         pending = true;
+      }
+   
+   	/**
+   	 * Called by the frame timer on the event dispatch thread.  Runs the update 
+   	 * if one has been requested since the last one.
+   	 */
+       public void actionPerformed(ActionEvent e) {
+         if (pending) {
+            pending = false;
+            update.run();
+         }
+      }
+   }
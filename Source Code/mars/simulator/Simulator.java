@@ -45,7 +45,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     public class Simulator extends Observable {
       private SimThread simulatorThread;
       private static Simulator simulator = null;  // Singleton object
-      private static Runnable interactiveGUIUpdater = null;
+      private static GUIUpdateScheduler interactiveGUIUpdater = null;
       // Others can set this true to indicate external interrupt.  Initially used
    	// to simulate keyboard and display interrupts.  The device is identified
    	// by the address of its MMIO control register.  keyboard 0xFFFF0000 and
@@ -79,7 +79,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        private Simulator() {
          simulatorThread = null;
          if (Globals.getGui() != null) {
-            interactiveGUIUpdater = new UpdateGUI();
+            interactiveGUIUpdater = new GUIUpdateScheduler(new UpdateGUI());
          } 
       }
    
@@ -167,6 +167,36 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          stopListeners.remove(l);
       }
    
+      /**
+       * Receives every instruction just before it is executed, on the simulation
+       * thread.  For tools such as the profiler that need each instruction and would
+       * be slowed considerably by observing memory for instruction fetches.
+       */
+       public interface InstructionListener {
+         /**
+          * Called before the simulator executes an instruction.
+          * @param address address of the instruction (the program counter)
+          * @param statement the instruction
+          */
+          void executing(int address, ProgramStatement statement);
+      }
+   
+      // Copied on change so the simulation thread can use it without locking.
+      private volatile InstructionListener[] instructionListeners = new InstructionListener[0];
+   
+       public synchronized void addInstructionListener(InstructionListener l) {
+         InstructionListener[] listeners = new InstructionListener[instructionListeners.length + 1];
+         System.arraycopy(instructionListeners, 0, listeners, 0, instructionListeners.length);
+         listeners[instructionListeners.length] = l;
+         instructionListeners = listeners;
+      }
+   
+       public synchronized void removeInstructionListener(InstructionListener l) {
+         ArrayList<InstructionListener> listeners = new ArrayList<InstructionListener>(Arrays.asList(instructionListeners));
+         listeners.remove(l);
+         instructionListeners = listeners.toArray(new InstructionListener[listeners.size()]);
+      }
+   
    	 // The Simthread object will call this method when it enters and returns from
    	 // its construct() method.  These signal start and stop, respectively, of
    	 // simulation execution.  The observer can then adjust its own state depending
@@ -198,6 +228,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 */ 	
    		
        class SimThread extends SwingWorker {
+         // Timed execution that falls further behind schedule than this (nanoseconds) does 
+      	// not try to catch up.
+         private static final long MAX_PACING_LAG = 100000000L;
+         // Longest single sleep while waiting for the next instruction (nanoseconds).
+         private static final long MAX_PACING_SLEEP = 50000000L;
          private MIPSprogram p;
          private int pc, maxSteps;
          private int[] breakPoints;
@@ -207,6 +242,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          private volatile AbstractAction stopper;
          private AbstractAction starter;
          private int constructReturnReason;
+         // Timed execution keeps to a schedule: instruction N of those executed since
+      	// pacingStart at the current pacingSpeed is due at pacingStart + N/pacingSpeed.
+         private double pacingSpeed;
+         private long pacingStart;
+         private long pacingCount;
       
       
          /**
@@ -267,6 +307,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             }
             
             Simulator.getInstance().notifyObserversOfExecutionStart(maxSteps, pc);
+            if (interactiveGUIUpdater != null && maxSteps != 1) {
+               interactiveGUIUpdater.start();
+            }
          	
             RegisterFile.initializeProgramCounter(pc);
             ProgramStatement statement = null;
@@ -342,6 +385,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                             "undefined instruction ("+Binary.intToHexString(statement.getBinaryStatement())+")",
                             Exceptions.RESERVED_INSTRUCTION_EXCEPTION);
                      }
+                     InstructionListener[] listeners = instructionListeners;
+                     for (int i=0; i<listeners.length; i++) {
+                        listeners[i].executing(pc, statement);
+                     }
                      // THIS IS WHERE THE INSTRUCTION EXECUTION IS ACTUALLY SIMULATED!
                      instruction.getSimulationCode().simulate(statement);
                   	
@@ -420,20 +467,19 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   }
                }
             	
-            	// schedule GUI update only if: there is in fact a GUI! AND
-            	//                              using Run,  not Step (maxSteps > 1) AND
-            	//                              running slowly enough for GUI to keep up
-               //if (Globals.getGui() != null && maxSteps != 1 &&             
-               if (interactiveGUIUpdater != null && maxSteps != 1 && 
-                          RunSpeedPanel.getInstance().getRunSpeed() < RunSpeedPanel.UNLIMITED_SPEED) {
-                  SwingUtilities.invokeLater(interactiveGUIUpdater);
-               }
+            	// request GUI update only if: there is in fact a GUI! AND
+            	//                             using Run,  not Step (maxSteps > 1) AND
+            	//                             running in timed mode.
+            	// The request is coalesced; the GUI is refreshed at most once per frame.
                if (Globals.getGui() != null || Globals.runSpeedPanelExists) { // OR added by DPS 24 July 2008 to enable speed control by stand-alone tool
-                  if (maxSteps != 1 && 
-                          RunSpeedPanel.getInstance().getRunSpeed() < RunSpeedPanel.UNLIMITED_SPEED) {
-                     try { Thread.sleep((int)(1000/RunSpeedPanel.getInstance().getRunSpeed())); // make sure it's never zero!
-                     } 
-                         catch (InterruptedException e) {}
+                  if (maxSteps != 1) {
+                     double runSpeed = RunSpeedPanel.getInstance().getRunSpeed();
+                     if (runSpeed < RunSpeedPanel.UNLIMITED_SPEED) {
+                        if (interactiveGUIUpdater != null) {
+                           interactiveGUIUpdater.requestUpdate();
+                        }
+                        paceExecution(runSpeed);
+                     }
                   }
                }
                
@@ -477,6 +523,44 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          }
          
       	
+      	/**
+      	 *  Called after each instruction in timed mode, to wait until the next instruction
+      	 *  is due.  The wait is measured against a schedule rather than being a fixed sleep 
+      	 *  per instruction, so time lost to sleep granularity or to the GUI is made up by
+      	 *  running the next instructions without waiting.  At high speeds instructions are thus
+      	 *  executed in short bursts, one per sleep, and the average rate is as requested.  The
+      	 *  schedule restarts if the speed changes or execution falls too far behind.
+      	 *
+      	 *  @param runSpeed current run speed in instructions per second
+      	 */
+          private void paceExecution(double runSpeed) {
+            long now = System.nanoTime();
+            if (runSpeed != pacingSpeed) {
+               pacingSpeed = runSpeed;
+               pacingStart = now;
+               pacingCount = 0;
+            }
+            pacingCount++;
+            long due = pacingStart + (long) (pacingCount * 1.0e9 / runSpeed);
+            if (now - due > MAX_PACING_LAG) {
+               pacingStart = now;
+               pacingCount = 0;
+               return;
+            }
+            // Sleep in slices so that Stop, Pause and a change of speed take effect 
+         	// promptly even at the slowest speeds.
+            while (!stop && due > now && RunSpeedPanel.getInstance().getRunSpeed() == runSpeed) {
+               long wait = Math.min(due - now, MAX_PACING_SLEEP);
+               try { 
+                  Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+               } 
+                   catch (InterruptedException e) {
+                     return;
+                  }
+               now = System.nanoTime();
+            }
+         }
+      
       	/**
       	 *   This method is invoked by the SwingWorker when the "construct" method returns.  
       	 *   It will update the GUI appropriately.  According to Sun's documentation, it 
@@ -488,6 +572,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       	 */
       	 
           public void finished() {
+            if (interactiveGUIUpdater != null) {
+               interactiveGUIUpdater.stop();
+            }
            // If running from the command-line, then there is no GUI to update.
             if (Globals.getGui() == null) {
                return;
@@ -520,6 +607,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	
        private class UpdateGUI implements Runnable {
           public void run() {
+            // Highlight the latest register writes first, as doing so shows the window written.
+            Globals.getGui().getMainPane().getExecutePane().getRegistersWindow().updateHighlighting();
+            Globals.getGui().getMainPane().getExecutePane().getCoprocessor1Window().updateHighlighting();
+            Globals.getGui().getMainPane().getExecutePane().getCoprocessor0Window().updateHighlighting();
             if (Globals.getGui().getRegistersPane().getSelectedComponent() == 
                                                      Globals.getGui().getMainPane().getExecutePane().getRegistersWindow()) {
                Globals.getGui().getMainPane().getExecutePane().getRegistersWindow().updateRegisters();
@@ -0,0 +1,209 @@
+   package mars.tools;
+   import mars.mips.instructions.*;
+   import java.awt.*;
+   import java.awt.event.*;
+   import javax.swing.*;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+	
+   /**
+	 * Base of the tools that count executed instructions by kind: Instruction Counter,
+	 * Instruction Statistics and the R-, I- and J-Type Instruction Counters.  Counting
+	 * is done by the shared InstructionHistogram; a subclass only says which row of
+	 * its display each basic instruction belongs to.  The display shows the total and,
+	 * for each row, its count and percentage, and is refreshed from the histogram
+	 * REFRESH_INTERVAL times per second at most while connected.
+	 */
+    public abstract class AbstractInstructionCounter extends AbstractMarsToolAndApplication {
+   
+   	/** Milliseconds between refreshes of the display while connected */
+      public static final int REFRESH_INTERVAL = 100;
+   
+      private InstructionHistogram histogram;
+      private int[] rowOfInstruction; // row of each instruction id, -1 if not counted
+      private int[] sample, countsAtReset;
+      private int totalAtRefresh = -1;
+      private Timer refreshTimer;
+   
+   	/**
+   	 * Total number of instructions counted since reset, as last displayed.
+   	 */
+      protected int counter = 0;
+   	/**
+   	 * Number of instructions in each row since reset, as last displayed.
+   	 */
+      protected int[] rowCounters;
+      private JTextField counterField;
+      private JTextField[] rowFields;
+      private JProgressBar[] rowProgressBars;
+   
+   	/**
+   	 * Constructor for a counting tool.
+   	 * @param title String containing title for title bar
+   	 * @param heading String containing text for heading shown in upper part of window.
+   	 */
+       protected AbstractInstructionCounter(String title, String heading) {
+         super(title, heading);
+      }
+   
+   	/**
+   	 * @return label for the total count
+   	 */
+       protected abstract String getTotalLabel();
+   
+   	/**
+   	 * @return labels for the rows of the display, one per kind of instruction counted
+   	 */
+       protected abstract String[] getRowLabels();
+   
+   	/**
+   	 * Decide which row a basic instruction is counted in.  Called once for each
+   	 * instruction in the instruction set.
+   	 * @param instruction the basic instruction
+   	 * @return index into getRowLabels(), or -1 if the instruction is not counted
+   	 */
+       protected abstract int getRow(BasicInstruction instruction);
+   
+       protected void initializePreGUI() {
+         histogram = InstructionHistogram.getInstance();
+         rowOfInstruction = new int[histogram.getNumberOfInstructions()];
+         for (int id=0; id<rowOfInstruction.length; id++) {
+            rowOfInstruction[id] = getRow(histogram.getInstruction(id));
+         }
+         rowCounters = new int[getRowLabels().length];
+         sample = histogram.getCounts(null);
+         countsAtReset = histogram.getCounts(null);
+         counter = 0;
+      }
+   
+       protected JComponent buildMainDisplayArea() {
+         String[] labels = getRowLabels();
+         JPanel panel = new JPanel(new GridBagLayout());
+         counterField = new JTextField("0", 10);
+         counterField.setEditable(false);
+         rowFields = new JTextField[labels.length];
+         rowProgressBars = new JProgressBar[labels.length];
+      
+         GridBagConstraints c = new GridBagConstraints();
+         c.anchor = GridBagConstraints.LINE_END;
+         c.gridheight = 1;
+         c.gridx = 1;
+         c.gridwidth = 2;
+         c.gridy = 1;
+         c.insets = new Insets(0, 0, 17, 0);
+         panel.add(new JLabel(getTotalLabel()), c);
+         c.anchor = GridBagConstraints.LINE_START;
+         c.gridx = 3;
+         c.gridwidth = 1;
+         panel.add(counterField, c);
+      
+         for (int row=0; row<labels.length; row++) {
+            rowFields[row] = new JTextField("0", 10);
+            rowFields[row].setEditable(false);
+            rowProgressBars[row] = new JProgressBar(JProgressBar.HORIZONTAL);
+            rowProgressBars[row].setStringPainted(true);
+            c.gridy++;
+            c.insets = new Insets(0, 0, 0, 0);
+            c.anchor = GridBagConstraints.LINE_END;
+            c.gridx = 2;
+            panel.add(new JLabel(labels[row]), c);
+            c.anchor = GridBagConstraints.LINE_START;
+            c.gridx = 3;
+            panel.add(rowFields[row], c);
+            c.insets = new Insets(3, 3, 3, 3);
+            c.gridx = 4;
+            panel.add(rowProgressBars[row], c);
+         }
+      
+         refreshTimer = new Timer(REFRESH_INTERVAL, 
+                new ActionListener() {
+                   public void actionPerformed(ActionEvent e) {
+                     if (histogram.getTotal() != totalAtRefresh) {
+                        updateDisplay();
+                     }
+                  }
+               });
+         return panel;
+      }
+   
+   	/**
+   	 * Start counting with the shared histogram and refreshing the display.
+   	 */
+       protected void addAsObserver() {
+         histogram.addUser();
+         refreshTimer.start();
+      }
+   
+   	/**
+   	 * Stop counting and show the final counts.
+   	 */
+       protected void deleteAsObserver() {
+         refreshTimer.stop();
+         histogram.removeUser();
+         SwingUtilities.invokeLater(
+                new Runnable() {
+                   public void run() {
+                     updateDisplay();
+                  }
+               });
+      }
+   
+   	/**
+   	 * Start counting again from zero.
+   	 */
+       protected void reset() {
+         histogram.getCounts(countsAtReset);
+         updateDisplay();
+      }
+   
+   	/**
+   	 * Sample the histogram and show the counts since reset.
+   	 */
+       protected void updateDisplay() {
+         totalAtRefresh = histogram.getTotal();
+         histogram.getCounts(sample);
+         java.util.Arrays.fill(rowCounters, 0);
+         counter = 0;
+         for (int id=0; id<sample.length; id++) {
+            int row = rowOfInstruction[id];
+            if (row >= 0) {
+               int count = sample[id] - countsAtReset[id];
+               rowCounters[row] += count;
+               counter += count;
+            }
+         }
+         counterField.setText(String.valueOf(counter));
+         for (int row=0; row<rowCounters.length; row++) {
+            rowFields[row].setText(String.valueOf(rowCounters[row]));
+            rowProgressBars[row].setMaximum(counter);
+            rowProgressBars[row].setValue(rowCounters[row]);
+            rowProgressBars[row].setString((counter == 0) ? "0%" : (int) ((rowCounters[row] * 100L) / counter) + "%");
+         }
+      }
+   }
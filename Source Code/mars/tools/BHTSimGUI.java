@@ -35,6 +35,7 @@ import java.awt.Insets;
 import java.text.DecimalFormat;
 import java.util.Vector;
 
+import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -81,6 +82,9 @@ public class BHTSimGUI extends JPanel {
 	/** combo box for selecting the initial value */
 	private JComboBox m_cbBHTinitVal;
 	
+	/** button for showing the comparison of branch predictors */
+	private JButton m_btCompare;
+	
 	/** the table representing the BHT */
 	private JTable m_tabBHT;
 	
@@ -209,7 +213,8 @@ public class BHTSimGUI extends JPanel {
 	
 	/**
 	 * Creates and initializes the panel for the configuration of the tool
-	 * The panel contains two combo boxes for selecting the number of BHT entries and the history size.
+	 * The panel contains combo boxes for selecting the number of BHT entries, the history size and the initial value,
+	 * and a button for comparing other branch predictors.
 	 * 
 	 * @return a panel for the configuration
 	 */	
@@ -240,6 +245,10 @@ public class BHTSimGUI extends JPanel {
 		panel.add(new JLabel("Initial value"));
 		panel.add(m_cbBHTinitVal);
 		
+		m_btCompare = new JButton("Compare Predictors");
+		m_btCompare.setToolTipText("Accuracy and CPI of other branch predictors on the branches executed so far");
+		panel.add(m_btCompare);
+		
 		return panel;
 	}
 	
@@ -292,6 +301,16 @@ public class BHTSimGUI extends JPanel {
 		return m_cbBHTinitVal;
 	}
 	
+	
+	/***
+	 * Returns the button for showing the comparison of branch predictors
+	 * 
+	 * @return the reference to the button
+	 */		
+	public JButton getBtCompare() {
+		return m_btCompare;
+	}
+	
 	/***
 	 * Returns the table representing the BHT.
 	 * 
@@ -27,11 +27,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
 package mars.tools;
 
+import java.awt.Font;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.Observable;
 
 import javax.swing.JComponent;
+import javax.swing.JOptionPane;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
 
 import mars.ProgramStatement;
 import mars.mips.hardware.AccessNotice;
@@ -92,6 +96,9 @@ public class BHTSimulator extends AbstractMarsToolAndApplication implements Acti
 	/** state variable that signals if the last branch was taken */
 	private boolean m_lastBranchTaken;
 	
+	/** the standard set of branch predictors, run on the same branches as the BHT */
+	private BranchPredictorComparison m_comparison = new BranchPredictorComparison(BranchPredictor.createStandardSet());
+	
 	
 	/**
 	 * Creates a BHT Simulator with given name and heading.
@@ -125,6 +132,7 @@ public class BHTSimulator extends AbstractMarsToolAndApplication implements Acti
 		m_gui.getCbBHTentries().addActionListener(this);
 		m_gui.getCbBHThistory().addActionListener(this);		
 		m_gui.getCbBHTinitVal().addActionListener(this);
+		m_gui.getBtCompare().addActionListener(this);
 		
 		return m_gui;
 	}
@@ -151,6 +159,7 @@ public class BHTSimulator extends AbstractMarsToolAndApplication implements Acti
 	/**
 	 * Handles the actions when selecting another value in one of the two combo boxes.
 	 * Selecting a different BHT size or history causes a reset of the simulator.
+	 * The compare button shows how other branch predictors perform on the branches executed since the last reset.
 	 */
 	public void actionPerformed(ActionEvent event) {
 		// change of the BHT size or BHT bit configuration
@@ -158,6 +167,12 @@ public class BHTSimulator extends AbstractMarsToolAndApplication implements Acti
 		if (event.getSource() == m_gui.getCbBHTentries() || event.getSource() == m_gui.getCbBHThistory() || event.getSource() == m_gui.getCbBHTinitVal()) {			
 			resetSimulator();
 		}		
+		else if (event.getSource() == m_gui.getBtCompare()) {
+			JTextArea report = new JTextArea(m_comparison.getReport(), 12, 100);
+			report.setEditable(false);
+			report.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+			JOptionPane.showMessageDialog(m_gui, new JScrollPane(report), "Branch Predictor Comparison", JOptionPane.INFORMATION_MESSAGE);
+		}
 	}
 	
 	
@@ -175,6 +190,7 @@ public class BHTSimulator extends AbstractMarsToolAndApplication implements Acti
 		
 		m_pendingBranchInstAddress = 0;
 		m_lastBranchTaken = false;
+		m_comparison.reset();
 	}
 	
 	
@@ -343,6 +359,8 @@ public class BHTSimulator extends AbstractMarsToolAndApplication implements Acti
 				// (e.g., if the simulator tries to execute the next instruction after the last instruction in the text segment) 
 				if (stmt != null) {								
 					
+					m_comparison.traceEvent(TraceListener.FETCH, memAccNotice.getAddress());
+					
 					boolean clearTextFields = true;
 					
 					// first, check if there's a pending branch to handle
@@ -357,6 +375,7 @@ public class BHTSimulator extends AbstractMarsToolAndApplication implements Acti
 					if (BHTSimulator.isBranchInstruction(stmt)) {						
 						handlePreBranchInst(stmt);
 						m_lastBranchTaken = willBranch(stmt);
+						m_comparison.branch(stmt.getAddress(), m_lastBranchTaken);
 						m_pendingBranchInstAddress = stmt.getAddress();
 						clearTextFields = false;
 					}
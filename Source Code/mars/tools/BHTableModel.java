@@ -55,7 +55,7 @@ import javax.swing.table.AbstractTableModel;
  */
 
 //@SuppressWarnings("serial")
-public class BHTableModel extends AbstractTableModel {
+public class BHTableModel extends AbstractTableModel implements TraceListener {
 
 	/** vector holding the entries of the BHT */ 
 	private Vector m_entries;
@@ -234,5 +234,49 @@ public class BHTableModel extends AbstractTableModel {
 		((BHTEntry) m_entries.elementAt(index)).updatePrediction(branchTaken);
 		fireTableRowsUpdated(index, index);
 	}
+	
+	
+	/**
+	 * Updates the BHT with the outcome of a branch event of a trace.
+	 * Other events are ignored, so the BHT can be run on a trace without the GUI.
+	 * 
+	 * @param type the event type
+	 * @param address the address of the branch instruction
+	 */
+	public void traceEvent(int type, int address) {
+		if (type == BRANCH_TAKEN || type == BRANCH_NOT_TAKEN) {
+			updatePredictionAtIdx(getIdxForAddress(address), type == BRANCH_TAKEN);
+		}
+	}
+	
+	
+	/**
+	 * Builds a report of the BHT configuration, the overall prediction statistics 
+	 * and the statistics of each entry that has been used.
+	 * 
+	 * @return the report as String
+	 */
+	public String getReport() {
+		StringBuffer report = new StringBuffer();
+		int correct = 0, incorrect = 0;
+		for (int i=0; i < m_entryCnt; i++) {
+			BHTEntry e = (BHTEntry) m_entries.elementAt(i);
+			correct += e.getStatsPredCorrect();
+			incorrect += e.getStatsPredIncorrect();
+		}
+		report.append("Branch history table: " + m_entryCnt + " entries, history " + m_historySize + "\n");
+		report.append("  branches " + (correct + incorrect) + ", correct " + correct + ", incorrect " + incorrect 
+				+ ", precision " + String.format("%.2f%%", (correct + incorrect == 0) ? 0.0 : correct * 100.0 / (correct + incorrect)) + "\n");
+		report.append(String.format("%8s %-10s %-10s %10s %10s %10s\n", (Object[]) m_columnNames));
+		for (int i=0; i < m_entryCnt; i++) {
+			BHTEntry e = (BHTEntry) m_entries.elementAt(i);
+			if (e.getStatsPredCorrect() + e.getStatsPredIncorrect() > 0) {
+				report.append(String.format("%8d %-10s %-10s %10d %10d %10.2f\n", new Object[] {new Integer(i), e.getHistoryAsStr(), 
+						e.getPredictionAsStr(), new Integer(e.getStatsPredCorrect()), new Integer(e.getStatsPredIncorrect()), 
+						new Double(e.getStatsPredPrecision())}));
+			}
+		}
+		return report.toString();
+	}
 
 }
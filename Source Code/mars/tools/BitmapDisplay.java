@@ -4,6 +4,7 @@
    import javax.swing.event.*;
    import java.awt.*;
    import java.awt.event.*;
+   import java.awt.image.*;
    import java.util.*;
    import mars.tools.*;
    import mars.mips.hardware.*;
@@ -41,10 +42,16 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 	 * access to the mars package, or through MARS as an item in its Tools menu.  It makes
 	 * maximum use of methods inherited from its abstract superclass AbstractMarsToolAndApplication.
 	 * Pete Sanderson, verison 1.0, 23 December 2010.
+	 * <p>
+	 * Version 1.1 keeps the display in an integer raster that memory writes store into directly,
+	 * and repaints only the region written since the previous frame at a capped frame rate.  It
+	 * also provides a "vsync" register at {@link #VSYNC_OFFSET} above the memory map base address
+	 * for programs that want to draw a whole frame off-screen before showing it.  The register
+	 * is not available when the display area covers its address; that word is then a pixel.
 	 */
     public class BitmapDisplay extends AbstractMarsToolAndApplication {
    
-      private static String version = "Version 1.0";
+      private static String version = "Version 1.1";
       private static String heading =  "Bitmap Display";
    	
    	// Major GUI components
@@ -85,6 +92,16 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private int baseAddress;
    	
       private Grid theGrid;
+   
+   	/** Offset from the memory map base address of the vsync register (0xffff0020 by default) */
+      public static final int VSYNC_OFFSET = 0x20;
+   	/** Milliseconds between display refreshes while connected, about 60 frames per second */
+      public static final int FRAME_INTERVAL = 16;
+   
+      private int vsyncAddress;
+      private boolean vsyncEnabled;   // false if the display area covers the vsync register
+      private volatile boolean vsyncPending = false;
+      private javax.swing.Timer frameTimer;
    	         	
    	/**
    	 * Simple constructor, likely used to run a stand-alone bitmap display tool.
@@ -143,6 +160,24 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             highAddress = -4;
          }
          addAsObserver(baseAddress, highAddress);
+         vsyncAddress = Memory.memoryMapBaseAddress + VSYNC_OFFSET;
+         long lastPixelAddress = (baseAddress & 0xFFFFFFFFL) + (long) (theGrid.getRows()*theGrid.getColumns()-1)*Memory.WORD_LENGTH_BYTES;
+         vsyncEnabled = (vsyncAddress & 0xFFFFFFFFL) < (baseAddress & 0xFFFFFFFFL) 
+                        || (vsyncAddress & 0xFFFFFFFFL) > lastPixelAddress;
+         if (vsyncEnabled && (vsyncAddress < baseAddress || vsyncAddress > highAddress)) {
+            addAsObserver(vsyncAddress, vsyncAddress);
+         }
+         frameTimer.start();
+      }
+   
+   	/**
+   	 *  Stop the frame timer and show whatever was written since the last frame.
+   	 */
+       protected void deleteAsObserver() {
+         super.deleteAsObserver();
+         frameTimer.stop();
+         vsyncPending = false;
+         canvas.repaint();
       }
    
       
@@ -173,7 +208,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 */
        protected void processMIPSUpdate(Observable memory, AccessNotice accessNotice) {
          if (accessNotice.getAccessType() == AccessNotice.WRITE) {
-            updateColorForAddress((MemoryAccessNotice)accessNotice);
+            if (vsyncEnabled && ((MemoryAccessNotice)accessNotice).getAddress() == vsyncAddress) {
+               theGrid.showBackBuffer();
+               vsyncPending = true;
+            } 
+            else {
+               updateColorForAddress((MemoryAccessNotice)accessNotice);
+            }
          }
       }
    	
@@ -200,6 +241,21 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        protected void initializePostGUI() {
          theGrid = createNewGrid();
          updateBaseAddress();
+         frameTimer = new javax.swing.Timer(FRAME_INTERVAL, 
+                new ActionListener() {
+                   public void actionPerformed(ActionEvent e) {
+                     paintFrame();
+                  }
+               });
+      }
+   
+   	/**
+   	 *  Stop the frame timer when the tool is closed.
+   	 */
+       protected void performSpecialClosingDuties() {
+         if (frameTimer != null) {
+            frameTimer.stop();
+         }
       }
    	
    	
@@ -213,12 +269,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       }
    
    	/**
-   	 *  Updates display immediately after each update (AccessNotice) is processed, after
-   	 *  display configuration changes as needed, and after each execution step when Mars
-   	 *  is running in timed mode.  Overrides inherited method that does nothing.
+   	 *  Updates display after display configuration changes and after each execution step 
+   	 *  when Mars is running in timed mode.  It is also called after each update (AccessNotice)
+   	 *  is processed, but while connected the frame timer repaints the written region instead,
+   	 *  so those calls do nothing.  Overrides inherited method that does nothing.
    	 */
        protected void updateDisplay() {
-         canvas.repaint();
+         if (frameTimer == null || !frameTimer.isRunning()) {
+            canvas.repaint();
+         }
       }
    
        
@@ -241,11 +300,23 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             						"the green component in bits 8-15, and the blue component in bits 0-7.\n"+									
             						"Each time a memory word within the display address space is written\n"+
             						"by the MIPS program, its position in the display will be rendered\n"+
-            						"in the color that its value represents.\n"+
+            						"in the color that its value represents.  The display is redrawn\n"+
+            						"about 60 times per second, showing all writes since the last frame.\n"+
+            						"\n"+
+            						"To avoid showing partly drawn frames, use the vsync register at\n"+
+            						mars.util.Binary.intToHexString(Memory.memoryMapBaseAddress + VSYNC_OFFSET)+
+            						".  After the first write to it, writes to the display\n"+
+            						"area go to an off-screen buffer, and each write to the register\n"+
+            						"copies that buffer to the screen.  Write 0 to the register, draw\n"+
+            						"the next frame, then wait until the register reads 1: it is set\n"+
+            						"once the previous frame has been displayed.  Reset returns the\n"+
+            						"display to drawing directly on the screen.  There is no vsync\n"+
+            						"register when the display area covers its address, as it can\n"+
+            						"with the memory map base address; that word is then a pixel.\n"+
             						"\n"+
-            						"Version 1.0 is very basic and was constructed from the Memory\n"+
-            						"Reference Visualization tool's code.  Feel free to improve it and\n"+
-            						"send me your code for consideration in the next MARS release.\n"+
+            						"Version 1.0 was constructed from the Memory Reference Visualization\n"+
+            						"tool's code.  Feel free to improve it and send me your code for\n"+
+            						"consideration in the next MARS release.\n"+
             						"\n"+
             						"Contact Pete Sanderson at psanderson@otterbein.edu with\n"+
             						"questions or comments.\n";
@@ -434,6 +505,30 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	// reset all counters in the Grid.
        private void resetCounts() {
          theGrid.reset();
+         vsyncPending = false;
+      }
+   
+   	// Called by the frame timer: paint the region written since the last frame, then
+   	// acknowledge a pending vsync by storing 1 in its register.  The store is made here
+   	// rather than in processMIPSUpdate() because a MIPS-thread write there would be
+   	// delivered straight back to this tool as another MIPS notice.
+       private void paintFrame() {
+         Rectangle dirty = theGrid.takeDirtyRegion();
+         if (dirty != null) {
+            canvas.paintImmediately(dirty.x*unitPixelWidth, dirty.y*unitPixelHeight,
+                                    dirty.width*unitPixelWidth, dirty.height*unitPixelHeight);
+         }
+         if (vsyncPending) {
+            vsyncPending = false;
+            try {
+               synchronized (mars.Globals.memoryAndRegistersLock) {
+                  mars.Globals.memory.setRawWord(vsyncAddress, 1);
+               }
+            } 
+                catch (AddressErrorException aee) {
+                  // Cannot occur: the memory map is always present.
+               }
+         }
       }
    	
    	// Will return int equivalent of specified combo box's current selection.
@@ -492,32 +587,35 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                paintGrid(g, theGrid);
          }
       
-      	// Paint the color codes.
+      	// Paint the color codes.  The raster has one pixel per unit and is scaled to the
+      	// unit size; drawing is limited to the clip, which is the dirty region on timed frames.
           private void paintGrid(Graphics g, Grid grid) {
-            int upperLeftX = 0, upperLeftY = 0;
-            for (int i=0; i<grid.getRows(); i++) {
-               for (int j=0; j<grid.getColumns(); j++) {
-                  g.setColor(grid.getElementFast(i,j));
-                  g.fillRect(upperLeftX, upperLeftY, unitPixelWidth, unitPixelHeight); 
-                  upperLeftX += unitPixelWidth;   // faster than multiplying
-               }
-            	// get ready for next row...
-               upperLeftX = 0;
-               upperLeftY += unitPixelHeight;     // faster than multiplying
+            synchronized (grid) { // not while a vsync copies the back buffer to the front
+               g.drawImage(grid.getImage(), 0, 0, grid.getColumns()*unitPixelWidth, 
+                           grid.getRows()*unitPixelHeight, null);
             }
          }
       }
    
    	
       ////////////////////////////////////////////////////////////////////////
-   	// Represents grid of colors
+   	// Represents grid of colors as an RGB image with one pixel per unit.  The image's raster
+   	// is the front buffer shown on screen; the back buffer always holds every value written.  
+   	// Until the first vsync both are written together; after it only the back buffer is 
+   	// written, and showBackBuffer() copies it to the front.  The dirty region, in units, 
+   	// covers everything written to the front buffer since it was last taken.
        private class Grid {
       
-         Color[][] grid;
+         BufferedImage image;
+         int[] front, back;
          int rows, columns;
+         boolean doubleBuffered;
+         int dirtyMinRow, dirtyMinColumn, dirtyMaxRow, dirtyMaxColumn; 
       	 		  
           private Grid(int rows, int columns) {
-            grid = new Color[rows][columns];
+            image = new BufferedImage(Math.max(columns,1), Math.max(rows,1), BufferedImage.TYPE_INT_RGB);
+            front = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            back = new int[front.length];
             this.rows = rows;
             this.columns = columns;
             reset();
@@ -531,36 +629,59 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             return columns;
          }
       
-      	// Returns value in given grid element; null if row or column is out of range.			
-          private Color getElement(int row, int column) {
-            return (row>=0 && row<=rows && column>=0 && column<=columns) ? grid[row][column] : null;			
-         }
-      
-      	// Returns value in given grid element without doing any row/column index checking.
-      	// Is faster than getElement but will throw array index out of bounds exception if
-      	// parameter values are outside the bounds of the grid.			
-          private Color getElementFast(int row, int column) {
-            return grid[row][column];			
+          private Image getImage() {
+            return image;
          }
       	      	
-      	// Set the grid element.
+      	// Set the grid element.  Throws IndexOutOfBoundsException if row or column is out of range.
           private void setElement(int row, int column, int color) {
-            grid[row][column] = new Color(color);
+            if (row < 0 || row >= rows || column < 0 || column >= columns) {
+               throw new IndexOutOfBoundsException();
+            }
+            int index = row*columns + column;
+            back[index] = color & 0xFFFFFF;
+            if (!doubleBuffered) {
+               front[index] = back[index];
+               markDirty(row, column, row, column);
+            }
          }
-      	
-      	// Set the grid element.
-          private void setElement(int row, int column, Color color) {
-            grid[row][column] = color;
+      
+      	// Show everything written to the back buffer, and leave it written to alone from now on.
+      	// Synchronized with painting so that a frame is never drawn half copied.
+          private synchronized void showBackBuffer() {
+            doubleBuffered = true;
+            System.arraycopy(back, 0, front, 0, back.length);
+            markDirty(0, 0, rows-1, columns-1);
          }
       
-      	// Just set all grid elements to black.
-          private void reset() {
-            for (int i=0; i<rows; i++) {
-               for (int j=0; j<columns; j++) {
-                  grid[i][j] = Color.BLACK;
-               }
+      	// Returns the region, in units, to repaint and clears it; null if nothing was written.
+          private synchronized Rectangle takeDirtyRegion() {
+            if (dirtyMaxRow < dirtyMinRow) {
+               return null;
             }
+            Rectangle dirty = new Rectangle(dirtyMinColumn, dirtyMinRow,
+                                            dirtyMaxColumn-dirtyMinColumn+1, dirtyMaxRow-dirtyMinRow+1);
+            dirtyMinRow = dirtyMinColumn = Integer.MAX_VALUE;
+            dirtyMaxRow = dirtyMaxColumn = -1;
+            return dirty;
+         }
+      
+          private synchronized void markDirty(int minRow, int minColumn, int maxRow, int maxColumn) {
+            dirtyMinRow = Math.min(dirtyMinRow, minRow);
+            dirtyMinColumn = Math.min(dirtyMinColumn, minColumn);
+            dirtyMaxRow = Math.max(dirtyMaxRow, maxRow);
+            dirtyMaxColumn = Math.max(dirtyMaxColumn, maxColumn);
+         }
+      
+      	// Just set all grid elements to black and go back to drawing directly on the screen.
+          private void reset() {
+            Arrays.fill(front, 0);
+            Arrays.fill(back, 0);
+            doubleBuffered = false;
+            dirtyMinRow = dirtyMinColumn = Integer.MAX_VALUE;
+            dirtyMaxRow = dirtyMaxColumn = -1;
+            markDirty(0, 0, rows-1, columns-1);
          }
       }  	
    
-   }
\ No newline at end of file
+   }
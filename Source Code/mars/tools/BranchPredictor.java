@@ -0,0 +1,548 @@
+   package mars.tools;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+	
+   /**
+	 * A dynamic branch direction predictor.  For each conditional branch, predict()
+	 * is called with the address of the branch and then update() with the same
+	 * address and the actual outcome.  Tables are packed into primitive arrays: the
+	 * saturating counters occupy one byte each and branch histories are kept as the
+	 * low order bits of an int, so the predictors are fast enough to run on traces
+	 * of millions of branches.
+	 * <p>Predictors are created from a short specification by create(), for
+	 * instance "gshare:4096:12", which is how they are given on the command line.</p>
+	 */
+    public abstract class BranchPredictor {
+   
+   	/** Specifications of the predictors compared by default, in order of increasing sophistication. */
+      public static final String[] STANDARD_SPECIFICATIONS = { 
+            "bimodal:4096", "global:12", "gshare:4096:12", "local:1024:10", "tournament", "tage" };
+   
+      private String name;
+   
+       protected BranchPredictor(String name) {
+         this.name = name;
+      }
+   
+   	/**
+   	 * Predict the direction of the conditional branch at the given address.
+   	 * @param pc address of the branch instruction
+   	 * @return true if the branch is predicted to be taken
+   	 */
+       public abstract boolean predict(int pc);
+   
+   	/**
+   	 * Train the predictor with the actual outcome of the branch most recently predicted.
+   	 * @param pc address of the branch instruction
+   	 * @param taken true if the branch was taken
+   	 */
+       public abstract void update(int pc, boolean taken);
+   
+   	/**
+   	 * Return the predictor to its initial state.
+   	 */
+       public abstract void reset();
+   
+   	/**
+   	 * Hardware budget of the predictor.
+   	 * @return number of bits of storage in the predictor's tables and history registers
+   	 */
+       public abstract int getStorageBits();
+   
+   	/**
+   	 * @return specification of this predictor, in the form accepted by create()
+   	 */
+       public String getName() {
+         return name;
+      }
+   
+   	/**
+   	 * Create a predictor from its specification, the kind followed by optional
+   	 * sizes separated by colons.  Table sizes must be powers of 2.
+   	 * <ul>
+   	 * <li>bimodal[:entries] -- table of 2-bit counters indexed by branch address</li>
+   	 * <li>global[:history] -- two-level predictor with one global history register (GAg)</li>
+   	 * <li>gshare[:entries[:history]] -- counters indexed by address XOR global history</li>
+   	 * <li>local[:entries[:history]] -- two-level predictor with per-address histories (PAg)</li>
+   	 * <li>tournament[:entries] -- local and global predictors with a chooser</li>
+   	 * <li>tage[:entries] -- bimodal base and four tagged tables of that many entries using
+   	 * geometrically increasing lengths of global history</li>
+   	 * </ul>
+   	 * @param specification predictor specification
+   	 * @return the new predictor
+   	 * @throws IllegalArgumentException if the specification is not valid
+   	 */
+       public static BranchPredictor create(String specification) {
+         String[] parts = specification.toLowerCase().split(":");
+         String kind = parts[0];
+         int[] sizes = new int[parts.length - 1];
+         try {
+            for (int i=0; i<sizes.length; i++) {
+               sizes[i] = Integer.parseInt(parts[i+1]);
+            }
+         } 
+             catch (NumberFormatException e) {
+               throw new IllegalArgumentException("invalid predictor size in " + specification);
+            }
+         if (kind.equals("bimodal") && sizes.length <= 1) {
+            return new Bimodal(size(sizes, 0, 4096));
+         }
+         if (kind.equals("global") && sizes.length <= 1) {
+            return new Gshare(1 << history(sizes, 0, 12), history(sizes, 0, 12), false);
+         }
+         if (kind.equals("gshare") && sizes.length <= 2) {
+            int entries = size(sizes, 0, 4096);
+            return new Gshare(entries, history(sizes, 1, log2(entries)), true);
+         }
+         if (kind.equals("local") && sizes.length <= 2) {
+            return new Local(size(sizes, 0, 1024), history(sizes, 1, 10));
+         }
+         if (kind.equals("tournament") && sizes.length <= 1) {
+            int entries = size(sizes, 0, 4096);
+            return new Tournament(entries, log2(entries));
+         }
+         if (kind.equals("tage") && sizes.length <= 1) {
+            return new Tage(size(sizes, 0, 1024));
+         }
+         throw new IllegalArgumentException("invalid predictor specification " + specification);
+      }
+   
+   	/**
+   	 * Create the predictors of STANDARD_SPECIFICATIONS.
+   	 * @return array of new predictors
+   	 */
+       public static BranchPredictor[] createStandardSet() {
+         BranchPredictor[] predictors = new BranchPredictor[STANDARD_SPECIFICATIONS.length];
+         for (int i=0; i<predictors.length; i++) {
+            predictors[i] = create(STANDARD_SPECIFICATIONS[i]);
+         }
+         return predictors;
+      }
+   
+       private static int size(int[] sizes, int index, int defaultSize) {
+         int size = (index < sizes.length) ? sizes[index] : defaultSize;
+         if (size < 2 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("table size " + size + " is not a power of 2");
+         }
+         return size;
+      }
+   
+       private static int history(int[] sizes, int index, int defaultLength) {
+         int length = (index < sizes.length) ? sizes[index] : defaultLength;
+         if (length < 1 || length > 24) {
+            throw new IllegalArgumentException("history length " + length + " is not between 1 and 24");
+         }
+         return length;
+      }
+   
+       private static int log2(int powerOfTwo) {
+         return Integer.numberOfTrailingZeros(powerOfTwo);
+      }
+   
+   	// Instructions are word aligned so the low two address bits carry no information.
+       static int index(int pc, int mask) {
+         return (pc >>> 2) & mask;
+      }
+   
+   	// Table of 2-bit saturating counters, initially weakly not taken.
+       static byte[] counters(int entries) {
+         byte[] table = new byte[entries];
+         java.util.Arrays.fill(table, (byte) 1);
+         return table;
+      }
+   
+       static void train(byte[] table, int i, boolean taken) {
+         if (taken) {
+            if (table[i] < 3) 
+               table[i]++;
+         } 
+         else if (table[i] > 0) {
+            table[i]--;
+         }
+      }
+   
+      ///////////////////////////////////////////////////////////////////////
+   	/**
+   	 * Table of 2-bit counters indexed by the low order bits of the branch address,
+   	 * the same organization as the BHT Simulator tool with a history of 2.
+   	 */
+       public static class Bimodal extends BranchPredictor {
+         private byte[] counters;
+         private int mask;
+      
+          public Bimodal(int entries) {
+            super("bimodal:" + entries);
+            counters = counters(entries);
+            mask = entries - 1;
+         }
+      
+          public boolean predict(int pc) {
+            return counters[index(pc, mask)] >= 2;
+         }
+      
+          public void update(int pc, boolean taken) {
+            train(counters, index(pc, mask), taken);
+         }
+      
+          public void reset() {
+            java.util.Arrays.fill(counters, (byte) 1);
+         }
+      
+          public int getStorageBits() {
+            return 2 * counters.length;
+         }
+      }
+   
+      ///////////////////////////////////////////////////////////////////////
+   	/**
+   	 * Two-level predictor with a global history register.  With hashing, the
+   	 * counter is selected by branch address XOR history (gshare); without, by
+   	 * the history alone (GAg).
+   	 */
+       public static class Gshare extends BranchPredictor {
+         private byte[] counters;
+         private int mask, historyMask, history;
+         private boolean hashed;
+      
+          public Gshare(int entries, int historyLength, boolean hashed) {
+            super(hashed ? "gshare:" + entries + ":" + historyLength : "global:" + historyLength);
+            counters = counters(entries);
+            mask = entries - 1;
+            historyMask = (1 << historyLength) - 1;
+            this.hashed = hashed;
+         }
+      
+          private int index(int pc) {
+            return hashed ? ((pc >>> 2) ^ history) & mask : history & mask;
+         }
+      
+          public boolean predict(int pc) {
+            return counters[index(pc)] >= 2;
+         }
+      
+          public void update(int pc, boolean taken) {
+            train(counters, index(pc), taken);
+            history = ((history << 1) | (taken ? 1 : 0)) & historyMask;
+         }
+      
+          int getHistory() {
+            return history;
+         }
+      
+          public void reset() {
+            java.util.Arrays.fill(counters, (byte) 1);
+            history = 0;
+         }
+      
+          public int getStorageBits() {
+            return 2 * counters.length + Integer.bitCount(historyMask);
+         }
+      }
+   
+      ///////////////////////////////////////////////////////////////////////
+   	/**
+   	 * Two-level predictor with a history per branch address (PAg): the history
+   	 * of the branch selects a counter in a single pattern table.
+   	 */
+       public static class Local extends BranchPredictor {
+         private int[] histories;
+         private byte[] counters;
+         private int mask, historyMask;
+      
+          public Local(int entries, int historyLength) {
+            super("local:" + entries + ":" + historyLength);
+            histories = new int[entries];
+            mask = entries - 1;
+            historyMask = (1 << historyLength) - 1;
+            counters = counters(1 << historyLength);
+         }
+      
+          public boolean predict(int pc) {
+            return counters[histories[index(pc, mask)]] >= 2;
+         }
+      
+          public void update(int pc, boolean taken) {
+            int i = index(pc, mask);
+            train(counters, histories[i], taken);
+            histories[i] = ((histories[i] << 1) | (taken ? 1 : 0)) & historyMask;
+         }
+      
+          public void reset() {
+            java.util.Arrays.fill(histories, 0);
+            java.util.Arrays.fill(counters, (byte) 1);
+         }
+      
+          public int getStorageBits() {
+            return histories.length * Integer.bitCount(historyMask) + 2 * counters.length;
+         }
+      }
+   
+      ///////////////////////////////////////////////////////////////////////
+   	/**
+   	 * Tournament predictor after the Alpha 21264: a local and a global (GAg)
+   	 * predictor, and a table of 2-bit counters indexed by global history that
+   	 * chooses between them, trained only when the two disagree.
+   	 */
+       public static class Tournament extends BranchPredictor {
+         private Local local;
+         private Gshare global;
+         private byte[] chooser;
+         private int mask;
+      
+          public Tournament(int entries, int historyLength) {
+            super("tournament:" + entries);
+            local = new Local(Math.max(entries / 4, 1), 10);
+            global = new Gshare(entries, historyLength, false);
+            chooser = counters(entries);
+            mask = entries - 1;
+         }
+      
+          public boolean predict(int pc) {
+            return (chooser[global.getHistory() & mask] >= 2) ? global.predict(pc) : local.predict(pc);
+         }
+      
+          public void update(int pc, boolean taken) {
+            boolean localPrediction = local.predict(pc);
+            boolean globalPrediction = global.predict(pc);
+            if (localPrediction != globalPrediction) {
+               train(chooser, global.getHistory() & mask, globalPrediction == taken);
+            }
+            local.update(pc, taken);
+            global.update(pc, taken);
+         }
+      
+          public void reset() {
+            local.reset();
+            global.reset();
+            java.util.Arrays.fill(chooser, (byte) 1);
+         }
+      
+          public int getStorageBits() {
+            return local.getStorageBits() + global.getStorageBits() + 2 * chooser.length;
+         }
+      }
+   
+      ///////////////////////////////////////////////////////////////////////
+   	/**
+   	 * Simplified TAGE predictor.  A bimodal base table is backed by four tables
+   	 * of partially tagged entries indexed by hashes of the branch address and
+   	 * global histories of 5, 15, 44 and 130 branches.  The matching table with
+   	 * the longest history provides the prediction.  On a misprediction an entry
+   	 * is allocated in a longer history table whose entry is not useful.  The
+   	 * long histories are compressed by folding as in the original design, so
+   	 * each branch costs a few shifts and exclusive ors per table.
+   	 */
+       public static class Tage extends BranchPredictor {
+         private static final int[] HISTORY_LENGTHS = { 5, 15, 44, 130 };
+         private static final int TAG_BITS = 9;
+         private static final int HISTORY_BUFFER = 256; // power of 2 exceeding longest history
+         private static final int USEFUL_RESET_PERIOD = 1 << 18;
+      
+         private int tables, logEntries, entryMask, tagMask;
+         private byte[] base;
+         private short[][] tags;
+         private byte[][] counters; // 3-bit signed, -4 to 3, taken if not negative
+         private byte[][] useful; // 2-bit
+         private byte[] history; // circular, one outcome per byte
+         private int historyPointer;
+         private int[] foldedIndex, foldedTag0, foldedTag1;
+         private int[] indices, tagValues;
+         private int provider, alternate, branches;
+         private int useAlternate; // 4-bit signed, prefer alternate when newly allocated entry is weak
+      
+          public Tage(int entries) {
+            super("tage:" + entries);
+            tables = HISTORY_LENGTHS.length;
+            logEntries = Integer.numberOfTrailingZeros(entries);
+            entryMask = entries - 1;
+            tagMask = (1 << TAG_BITS) - 1;
+            base = new byte[4 * entries];
+            tags = new short[tables][entries];
+            counters = new byte[tables][entries];
+            useful = new byte[tables][entries];
+            history = new byte[HISTORY_BUFFER];
+            foldedIndex = new int[tables];
+            foldedTag0 = new int[tables];
+            foldedTag1 = new int[tables];
+            indices = new int[tables];
+            tagValues = new int[tables];
+            reset();
+         }
+      
+          public void reset() {
+            java.util.Arrays.fill(base, (byte) 1);
+            for (int t=0; t<tables; t++) {
+               java.util.Arrays.fill(tags[t], (short) -1); // matches no tag
+               java.util.Arrays.fill(counters[t], (byte) 0);
+               java.util.Arrays.fill(useful[t], (byte) 0);
+            }
+            java.util.Arrays.fill(history, (byte) 0);
+            java.util.Arrays.fill(foldedIndex, 0);
+            java.util.Arrays.fill(foldedTag0, 0);
+            java.util.Arrays.fill(foldedTag1, 0);
+            historyPointer = 0;
+            branches = 0;
+            useAlternate = 0;
+         }
+      
+          public int getStorageBits() {
+            return 2 * base.length + tables * (entryMask + 1) * (TAG_BITS + 3 + 2) 
+                   + HISTORY_LENGTHS[tables-1] + 4;
+         }
+      
+      	// Compute table indices and tags for the branch and find the provider
+      	// (longest matching history) and alternate (next longest) tables, -1 if none.
+          private void lookup(int pc) {
+            int address = pc >>> 2;
+            provider = alternate = -1;
+            for (int t=tables-1; t>=0; t--) {
+               indices[t] = (address ^ (address >>> (logEntries - t)) ^ foldedIndex[t]) & entryMask;
+               tagValues[t] = (address ^ foldedTag0[t] ^ (foldedTag1[t] << 1)) & tagMask;
+               if (tags[t][indices[t]] == tagValues[t]) {
+                  if (provider < 0) {
+                     provider = t;
+                  } 
+                  else if (alternate < 0) {
+                     alternate = t;
+                  }
+               }
+            }
+         }
+      
+          private boolean alternatePrediction(int pc) {
+            return (alternate >= 0) ? counters[alternate][indices[alternate]] >= 0 
+                                    : base[index(pc, base.length - 1)] >= 2;
+         }
+      
+         // A newly allocated provider entry has a weak counter and is not yet useful.
+          private boolean providerIsNew() {
+            int counter = counters[provider][indices[provider]];
+            return (counter == 0 || counter == -1) && useful[provider][indices[provider]] == 0;
+         }
+      
+          public boolean predict(int pc) {
+            lookup(pc);
+            if (provider < 0) {
+               return alternatePrediction(pc);
+            }
+            if (useAlternate >= 0 && providerIsNew()) {
+               return alternatePrediction(pc);
+            }
+            return counters[provider][indices[provider]] >= 0;
+         }
+      
+          public void update(int pc, boolean taken) {
+            lookup(pc);
+            boolean alternatePrediction = alternatePrediction(pc);
+            boolean prediction = alternatePrediction;
+            if (provider >= 0) {
+               int i = indices[provider];
+               boolean providerPrediction = counters[provider][i] >= 0;
+               prediction = (useAlternate >= 0 && providerIsNew()) ? alternatePrediction : providerPrediction;
+               if (providerIsNew() && providerPrediction != alternatePrediction) {
+                  if (alternatePrediction == taken) {
+                     if (useAlternate < 7) 
+                        useAlternate++;
+                  } 
+                  else if (useAlternate > -8) {
+                     useAlternate--;
+                  }
+               }
+               if (providerPrediction != alternatePrediction) {
+                  if (providerPrediction == taken) {
+                     if (useful[provider][i] < 3) 
+                        useful[provider][i]++;
+                  } 
+                  else if (useful[provider][i] > 0) {
+                     useful[provider][i]--;
+                  }
+               }
+               if (taken) {
+                  if (counters[provider][i] < 3) 
+                     counters[provider][i]++;
+               } 
+               else if (counters[provider][i] > -4) {
+                  counters[provider][i]--;
+               }
+            } 
+            else {
+               train(base, index(pc, base.length - 1), taken);
+            }
+            if (prediction != taken && provider < tables - 1) {
+               allocate(taken);
+            }
+            if (++branches % USEFUL_RESET_PERIOD == 0) {
+               for (int t=0; t<tables; t++) {
+                  for (int i=0; i<useful[t].length; i++) {
+                     useful[t][i] >>= 1;
+                  }
+               }
+            }
+            updateHistory(taken);
+         }
+      
+      	// Take over the first entry not useful in a table of longer history than the
+      	// provider, or if every one is useful, age them so one may be taken next time.
+          private void allocate(boolean taken) {
+            for (int t=provider+1; t<tables; t++) {
+               int i = indices[t];
+               if (useful[t][i] == 0) {
+                  tags[t][i] = (short) tagValues[t];
+                  counters[t][i] = (byte) (taken ? 0 : -1);
+                  return;
+               }
+            }
+            for (int t=provider+1; t<tables; t++) {
+               if (useful[t][indices[t]] > 0) 
+                  useful[t][indices[t]]--;
+            }
+         }
+      
+          private void updateHistory(boolean taken) {
+            int bit = taken ? 1 : 0;
+            historyPointer = (historyPointer - 1) & (HISTORY_BUFFER - 1);
+            history[historyPointer] = (byte) bit;
+            for (int t=0; t<tables; t++) {
+               int outgoing = history[(historyPointer + HISTORY_LENGTHS[t]) & (HISTORY_BUFFER - 1)];
+               foldedIndex[t] = fold(foldedIndex[t], bit, outgoing, HISTORY_LENGTHS[t], logEntries);
+               foldedTag0[t] = fold(foldedTag0[t], bit, outgoing, HISTORY_LENGTHS[t], TAG_BITS);
+               foldedTag1[t] = fold(foldedTag1[t], bit, outgoing, HISTORY_LENGTHS[t], TAG_BITS - 1);
+            }
+         }
+      
+      	// Shift the newest outcome into a history of the given length folded by
+      	// exclusive or into width bits, and remove the outcome that left the history.
+          private static int fold(int folded, int incoming, int outgoing, int length, int width) {
+            folded = (folded << 1) | incoming;
+            folded ^= outgoing << (length % width);
+            folded ^= folded >>> width;
+            return folded & ((1 << width) - 1);
+         }
+      }
+   }
@@ -0,0 +1,174 @@
+   package mars.tools;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+	
+   /**
+	 * Runs several branch predictors side by side on the same stream of conditional
+	 * branches, together with a branch target buffer (BTB), and estimates the cycles
+	 * per instruction each would give a simple pipeline.  Every instruction costs one
+	 * cycle, a mispredicted branch costs the misprediction penalty, and a correctly
+	 * predicted taken branch whose address is not in the BTB costs the BTB miss
+	 * penalty, the target not being known until decode.
+	 * <p>The BTB is direct mapped, tagged by the full branch address, and allocated
+	 * for taken branches.  As its contents do not depend on the predictions, one BTB
+	 * serves all predictors.</p>
+	 */
+    public class BranchPredictorComparison implements TraceListener {
+   
+   	/** Default number of entries in the branch target buffer */
+      public static final int DEFAULT_BTB_ENTRIES = 512;
+   	/** Default cycles lost by a mispredicted branch, resolved in the execute stage */
+      public static final int DEFAULT_MISPREDICT_PENALTY = 3;
+   	/** Default cycles lost by a taken branch that misses in the BTB */
+      public static final int DEFAULT_BTB_MISS_PENALTY = 1;
+   
+      private static final int NO_BRANCH = 1; // not word aligned so matches no branch address
+   
+      private BranchPredictor[] predictors;
+      private long[] mispredicts, btbMisses;
+      private int[] btb;
+      private int mispredictPenalty, btbMissPenalty;
+      private long instructions, branches, taken;
+   
+   	/**
+   	 * Create a comparison of the given predictors with default BTB and penalties.
+   	 * @param predictors the predictors to compare
+   	 */
+       public BranchPredictorComparison(BranchPredictor[] predictors) {
+         this(predictors, DEFAULT_BTB_ENTRIES, DEFAULT_MISPREDICT_PENALTY, DEFAULT_BTB_MISS_PENALTY);
+      }
+   
+   	/**
+   	 * Create a comparison of the given predictors.
+   	 * @param predictors the predictors to compare
+   	 * @param btbEntries number of entries in the branch target buffer, a power of 2
+   	 * @param mispredictPenalty cycles lost by a mispredicted branch
+   	 * @param btbMissPenalty cycles lost by a correctly predicted taken branch missing in the BTB
+   	 * @throws IllegalArgumentException if btbEntries is not a power of 2
+   	 */
+       public BranchPredictorComparison(BranchPredictor[] predictors, int btbEntries, 
+                                        int mispredictPenalty, int btbMissPenalty) {
+         if (btbEntries < 1 || Integer.bitCount(btbEntries) != 1) {
+            throw new IllegalArgumentException("BTB entries " + btbEntries + " is not a power of 2");
+         }
+         this.predictors = predictors;
+         this.mispredictPenalty = mispredictPenalty;
+         this.btbMissPenalty = btbMissPenalty;
+         mispredicts = new long[predictors.length];
+         btbMisses = new long[predictors.length];
+         btb = new int[btbEntries];
+         reset();
+      }
+   
+   	/**
+   	 * Return the predictors, BTB and statistics to their initial state.
+   	 */
+       public void reset() {
+         for (int i=0; i<predictors.length; i++) {
+            predictors[i].reset();
+            mispredicts[i] = btbMisses[i] = 0;
+         }
+         java.util.Arrays.fill(btb, NO_BRANCH);
+         instructions = branches = taken = 0;
+      }
+   
+   	/**
+   	 * Count an instruction fetch, or predict and train on a conditional branch.
+   	 * Data accesses are ignored.
+   	 * @param type trace event type
+   	 * @param address instruction or branch address
+   	 */
+       public void traceEvent(int type, int address) {
+         if (type == FETCH) {
+            instructions++;
+         } 
+         else if (type == BRANCH_TAKEN || type == BRANCH_NOT_TAKEN) {
+            branch(address, type == BRANCH_TAKEN);
+         }
+      }
+   
+   	/**
+   	 * Predict and train on one conditional branch.
+   	 * @param pc address of the branch instruction
+   	 * @param wasTaken true if the branch was taken
+   	 */
+       public void branch(int pc, boolean wasTaken) {
+         int entry = BranchPredictor.index(pc, btb.length - 1);
+         boolean btbHit = btb[entry] == pc;
+         for (int i=0; i<predictors.length; i++) {
+            boolean prediction = predictors[i].predict(pc);
+            if (prediction != wasTaken) {
+               mispredicts[i]++;
+            } 
+            else if (wasTaken && !btbHit) {
+               btbMisses[i]++;
+            }
+            predictors[i].update(pc, wasTaken);
+         }
+         if (wasTaken) {
+            btb[entry] = pc;
+            taken++;
+         }
+         branches++;
+      }
+   
+   	/**
+   	 * Estimated cycles per instruction with the given predictor.
+   	 * @param i index of the predictor
+   	 * @return cycles per instruction, 0 if no instructions were counted
+   	 */
+       public double getCyclesPerInstruction(int i) {
+         if (instructions == 0) {
+            return 0;
+         }
+         return (instructions + mispredicts[i] * mispredictPenalty + btbMisses[i] * btbMissPenalty) 
+                / (double) instructions;
+      }
+   
+   	/**
+   	 * @return table comparing the predictors, one line each
+   	 */
+       public String getReport() {
+         StringBuffer report = new StringBuffer();
+         report.append("Branch predictors: " + branches + " branches (" + taken + " taken) in " 
+                       + instructions + " instructions, BTB of " + btb.length + " entries, penalty " 
+                       + mispredictPenalty + " cycles per misprediction and " + btbMissPenalty 
+                       + " per BTB miss\n");
+         report.append(String.format("%-20s %8s %10s %10s %8s %8s %10s %7s%n", 
+                       "Predictor", "Bits", "Branches", "Mispredict", "Accuracy", "MPKI", "BTB misses", "CPI"));
+         for (int i=0; i<predictors.length; i++) {
+            report.append(String.format("%-20s %8d %10d %10d %7.2f%% %8.2f %10d %7.3f%n", 
+                          predictors[i].getName(), predictors[i].getStorageBits(), branches, mispredicts[i], 
+                          (branches == 0) ? 0.0 : 100.0 * (branches - mispredicts[i]) / branches, 
+                          (instructions == 0) ? 0.0 : 1000.0 * mispredicts[i] / instructions, 
+                          btbMisses[i], getCyclesPerInstruction(i)));
+         }
+         return report.toString();
+      }
+   }
@@ -0,0 +1,467 @@
+   package mars.tools;
+   import java.util.*;
+   import mars.mips.hardware.*;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+	
+   /**
+	 * Models a two-level cache hierarchy: split level 1 instruction and data caches backed by
+	 * an optional unified level 2 cache, then main memory.  Each cache is set associative with
+	 * LRU replacement and has its own write policy (write-back with dirty blocks, or
+	 * write-through), write miss policy (write-allocate or not) and write buffer, which holds
+	 * writes to the next level so they need not wait for it unless the buffer is full.
+	 * <p>Timing is estimated by giving each cache a hit time and main memory an access time,
+	 * all in cycles.  An access costs the hit time of each level it reaches plus memory time if it
+	 * reaches memory; a write buffer drains one write at a time at the speed of the next level.
+	 * Reported for each level are hit rates, write-backs, write buffer stall cycles and average
+	 * memory access time (AMAT) as observed at that level.</p>
+	 * <p>The hierarchy can be attached to MIPS memory as an Observer, in which case it treats
+	 * reads of the text segments as instruction fetches and other accesses as data loads and
+	 * stores.  All state is kept in primitive arrays; there is no allocation per access.</p>
+	 */
+    @SuppressWarnings("deprecation")
+    public class CacheHierarchy implements Observer, TraceListener {
+      public static final int DEFAULT_L1_HIT_CYCLES = 1;
+      public static final int DEFAULT_L2_HIT_CYCLES = 10;
+      public static final int DEFAULT_MEMORY_CYCLES = 100;
+      public static final int DEFAULT_L2_SIZE_FACTOR = 8;
+      public static final int DEFAULT_WRITE_BUFFER_ENTRIES = 4;
+   	
+      private Level instructionCache, dataCache, unifiedCache;
+      private int memoryCycles;
+      private long clock;     // cycles elapsed, assuming every cycle is spent accessing memory
+      private long fetchCount, fetchCycles, dataCount, dataCycles;
+   	
+   	/**
+   	 * Build the hierarchy from its caches.
+   	 * @param instructionCache level 1 instruction cache; null if fetches are not modeled
+   	 * @param dataCache level 1 data cache
+   	 * @param unifiedCache level 2 cache shared by both; null if there is none
+   	 * @param memoryCycles time in cycles for a main memory access
+   	 */
+       public CacheHierarchy(Level instructionCache, Level dataCache, Level unifiedCache, int memoryCycles) {
+         this.instructionCache = instructionCache;
+         this.dataCache = dataCache;
+         this.unifiedCache = unifiedCache;
+         this.memoryCycles = memoryCycles;
+         if (instructionCache != null) {
+            instructionCache.next = unifiedCache;
+            instructionCache.memoryCycles = memoryCycles;
+         }
+         dataCache.next = unifiedCache;
+         dataCache.memoryCycles = memoryCycles;
+         if (unifiedCache != null) {
+            unifiedCache.memoryCycles = memoryCycles;
+         }
+      }
+   	
+   	/**
+   	 * Model an instruction fetch.
+   	 * @param address the address fetched from
+   	 * @return cycles taken by the fetch, 0 if fetches are not modeled
+   	 */
+       public int fetch(int address) {
+         if (instructionCache == null) {
+            return 0;
+         }
+         int cycles = instructionCache.access(address, false, clock);
+         fetchCount++;
+         fetchCycles += cycles;
+         clock += cycles;
+         return cycles;
+      }
+   	
+   	/**
+   	 * Model a data load (read) or store (write).
+   	 * @param address the address accessed
+   	 * @param write true for a store, false for a load
+   	 * @return cycles taken by the access
+   	 */
+       public int access(int address, boolean write) {
+         int cycles = dataCache.access(address, write, clock);
+         dataCount++;
+         dataCycles += cycles;
+         clock += cycles;
+         return cycles;
+      }
+   	
+   	/**
+   	 * Model the fetch, read or write of a trace event.  Branch events are ignored.
+   	 * @param type event type
+   	 * @param address event address
+   	 */
+       public void traceEvent(int type, int address) {
+         switch (type) {
+            case FETCH : 
+               fetch(address);
+               break;
+            case READ : 
+               access(address, false);
+               break;
+            case WRITE : 
+               access(address, true);
+               break;
+         }
+      }
+   	
+   	/**
+   	 * Observer method, so the hierarchy can be attached to MIPS memory.  Only
+   	 * accesses made by the executing MIPS program are modeled.
+   	 * @param memory the MIPS memory
+   	 * @param notice the MemoryAccessNotice for the access
+   	 */
+       public void update(Observable memory, Object notice) {
+         if (notice instanceof MemoryAccessNotice && ((AccessNotice) notice).accessIsFromMIPS()) {
+            access((MemoryAccessNotice) notice);
+         }
+      }
+   	
+   	/**
+   	 * Model an access reported by MIPS memory: a read of a text segment is an
+   	 * instruction fetch and anything else a data access.
+   	 * @param notice the memory access
+   	 */
+       public void access(MemoryAccessNotice notice) {
+         int address = notice.getAddress();
+         boolean write = notice.getAccessType() == AccessNotice.WRITE;
+         if (!write && (Memory.inTextSegment(address) || Memory.inKernelTextSegment(address))) {
+            fetch(address);
+         } 
+         else {
+            access(address, write);
+         }
+      }
+   	
+   	/**
+   	 * Empty all caches and discard statistics.
+   	 */
+       public void reset() {
+         clock = fetchCount = fetchCycles = dataCount = dataCycles = 0;
+         if (instructionCache != null) {
+            instructionCache.reset();
+         }
+         dataCache.reset();
+         if (unifiedCache != null) {
+            unifiedCache.reset();
+         }
+      }
+   	
+   	/**
+   	 * @return level 1 instruction cache, null if fetches are not modeled
+   	 */
+       public Level getInstructionCache() {
+         return instructionCache;
+      }
+   	
+   	/**
+   	 * @return level 1 data cache
+   	 */
+       public Level getDataCache() {
+         return dataCache;
+      }
+   	
+   	/**
+   	 * @return estimated cycles spent accessing memory so far
+   	 */
+       public long getCycles() {
+         return clock;
+      }
+   	
+   	/**
+   	 * Produce statistics for the hierarchy and each of its levels as text.
+   	 * @return the report
+   	 */
+       public String getReport() {
+         StringBuffer report = new StringBuffer();
+         report.append("Cache hierarchy: " + fetchCount + " instruction fetches, " + dataCount 
+            + " data accesses, " + clock + " cycles estimated\n");
+         if (fetchCount > 0) {
+            report.append("  instruction AMAT " + format(fetchCycles / (double) fetchCount) + " cycles\n");
+         }
+         if (dataCount > 0) {
+            report.append("  data AMAT " + format(dataCycles / (double) dataCount) + " cycles\n");
+         }
+         if (instructionCache != null) {
+            instructionCache.appendReport(report);
+         }
+         dataCache.appendReport(report);
+         if (unifiedCache != null) {
+            unifiedCache.appendReport(report);
+         }
+         report.append("Main memory: " + memoryCycles + " cycles per access\n");
+         return report.toString();
+      }
+   	
+       private static String format(double value) {
+         return String.format("%.3f", value);
+      }
+   	
+   	/////////////////////////////////////////////////////////////////////////
+   	/**
+   	 * One cache of the hierarchy.  Blocks are located through a CacheTagIndex and each
+   	 * set keeps its blocks in a doubly linked list, most recently used first, so both
+   	 * lookup and LRU replacement take constant time regardless of associativity.
+   	 */
+       public static class Level {
+         private String name;
+         private int numberOfBlocks, blockSizeInWords, setSizeInBlocks, numberOfSets, blockShift;
+         private boolean writeBack, writeAllocate;
+         private int hitCycles;
+         private Level next;          // null for main memory
+         private int memoryCycles;
+      	// block state, indexed by block number (set * setSizeInBlocks + way)
+         private int[] tags;          // block address (memory address / block size)
+         private boolean[] dirty;
+         private int[] newer, older;  // LRU list links, -1 at either end
+      	// set state
+         private int[] newest, oldest, used;
+         private CacheTagIndex index;
+      	// write buffer, as ring of completion times
+         private long[] writeBuffer;
+         private int writeBufferFirst, writeBufferCount;
+         private long lastWriteCompletion;
+      	// statistics
+         private long reads, readHits, writes, writeHits, writeBacks, bufferStallCycles, cycles;
+      	
+      	/**
+      	 * Create one cache.
+      	 * @param name name used in reports, e.g. "L1 data"
+      	 * @param numberOfBlocks cache size in blocks, a power of 2
+      	 * @param blockSizeInWords block size, a power of 2
+      	 * @param setSizeInBlocks blocks per set, a power of 2 no larger than numberOfBlocks
+      	 * @param writeBack true for write-back, false for write-through
+      	 * @param writeAllocate true to bring the block into the cache on a write miss
+      	 * @param hitCycles time in cycles to access this cache
+      	 * @param writeBufferEntries number of writes to the next level that can be outstanding
+      	 */
+          public Level(String name, int numberOfBlocks, int blockSizeInWords, int setSizeInBlocks,
+                       boolean writeBack, boolean writeAllocate, int hitCycles, int writeBufferEntries) {
+            if (Integer.bitCount(numberOfBlocks) != 1 || Integer.bitCount(blockSizeInWords) != 1
+                  || Integer.bitCount(setSizeInBlocks) != 1 || setSizeInBlocks > numberOfBlocks) {
+               throw new IllegalArgumentException(name + ": sizes must be powers of 2, set size no more than blocks");
+            }
+            this.name = name;
+            this.numberOfBlocks = numberOfBlocks;
+            this.blockSizeInWords = blockSizeInWords;
+            this.setSizeInBlocks = setSizeInBlocks;
+            this.numberOfSets = numberOfBlocks / setSizeInBlocks;
+            this.blockShift = Integer.numberOfTrailingZeros(blockSizeInWords * Memory.WORD_LENGTH_BYTES);
+            this.writeBack = writeBack;
+            this.writeAllocate = writeAllocate;
+            this.hitCycles = hitCycles;
+            this.tags = new int[numberOfBlocks];
+            this.dirty = new boolean[numberOfBlocks];
+            this.newer = new int[numberOfBlocks];
+            this.older = new int[numberOfBlocks];
+            this.newest = new int[numberOfSets];
+            this.oldest = new int[numberOfSets];
+            this.used = new int[numberOfSets];
+            this.index = new CacheTagIndex(numberOfBlocks);
+            this.writeBuffer = new long[Math.max(1, writeBufferEntries)];
+            reset();
+         }
+      	
+      	/**
+      	 * Empty the cache and discard statistics.
+      	 */
+          public void reset() {
+            Arrays.fill(dirty, false);
+            Arrays.fill(newest, -1);
+            Arrays.fill(oldest, -1);
+            Arrays.fill(used, 0);
+            index.clear();
+            writeBufferFirst = writeBufferCount = 0;
+            lastWriteCompletion = 0;
+            reads = readHits = writes = writeHits = writeBacks = bufferStallCycles = cycles = 0;
+         }
+      	
+      	/** @return name given to this cache */
+          public String getName() {
+            return name;
+         }
+      	
+      	/** @return time in cycles to access this cache when it hits */
+          public int getHitCycles() {
+            return hitCycles;
+         }
+      	
+      	/** @return number of accesses that hit */
+          public long getHitCount() {
+            return readHits + writeHits;
+         }
+      	
+      	/** @return number of accesses */
+          public long getAccessCount() {
+            return reads + writes;
+         }
+      	
+      	// Access the cache at the given time.  Returns the cycles taken, including any
+      	// time spent waiting for the next level or for room in the write buffer.
+          int access(int address, boolean write, long now) {
+            int block = address >>> blockShift;
+            int slot = index.get(block);
+            int time = hitCycles;
+            if (write) {
+               writes++;
+            } 
+            else {
+               reads++;
+            }
+            if (slot >= 0) {
+               if (write) {
+                  writeHits++;
+               } 
+               else {
+                  readHits++;
+               }
+               makeNewest(slot);
+            } 
+            else if (write && !writeAllocate) {
+               time += writeToNextLevel(address, now + time);
+               cycles += time;
+               return time;
+            } 
+            else {
+               time += readFromNextLevel(address, now + time);
+               slot = allocate(block);
+               if (slot < 0) { // a dirty block was replaced; write it back
+                  slot = -slot - 1;
+                  writeBacks++;
+                  time += writeToNextLevel(tags[slot] << blockShift, now + time);
+               }
+               tags[slot] = block;
+               dirty[slot] = false;
+               index.put(block, slot);
+            }
+            if (write) {
+               if (writeBack) {
+                  dirty[slot] = true;
+               } 
+               else {
+                  time += writeToNextLevel(address, now + time);
+               }
+            }
+            cycles += time;
+            return time;
+         }
+      	
+      	// Find a block for a new entry in the set: an unused one, else the least recently
+      	// used, which is removed from the index.  The block is made newest.  Returns
+      	// -(block + 1) if the replaced block is dirty, so the caller can write it back.
+          private int allocate(int block) {
+            int set = block & (numberOfSets - 1);
+            int slot;
+            boolean replacingDirty = false;
+            if (used[set] < setSizeInBlocks) {
+               slot = set * setSizeInBlocks + used[set]++;
+               newer[slot] = older[slot] = -1;
+               if (newest[set] < 0) {
+                  newest[set] = oldest[set] = slot;
+               } 
+               else {
+                  older[slot] = newest[set];
+                  newer[newest[set]] = slot;
+                  newest[set] = slot;
+               }
+            } 
+            else {
+               slot = oldest[set];
+               index.remove(tags[slot]);
+               replacingDirty = dirty[slot];
+               makeNewest(slot);
+            }
+            return replacingDirty ? -slot - 1 : slot;
+         }
+      	
+      	// Move block to the front of its set's LRU list.
+          private void makeNewest(int slot) {
+            int set = slot / setSizeInBlocks;
+            if (newest[set] == slot) {
+               return;
+            }
+         	// unlink; it has a newer neighbor since it is not newest
+            if (older[slot] >= 0) {
+               newer[older[slot]] = newer[slot];
+            } 
+            else {
+               oldest[set] = newer[slot];
+            }
+            older[newer[slot]] = older[slot];
+         	// link in at the front
+            older[slot] = newest[set];
+            newer[slot] = -1;
+            newer[newest[set]] = slot;
+            newest[set] = slot;
+         }
+      	
+      	// Time for a block read from the next level or memory.
+          private int readFromNextLevel(int address, long now) {
+            return (next == null) ? memoryCycles : next.access(address, false, now);
+         }
+      	
+      	// Put a write to the next level in the write buffer.  Returns the cycles spent
+      	// waiting for room in the buffer.  Writes drain one at a time.
+          private int writeToNextLevel(int address, long now) {
+            int stall = 0;
+            while (writeBufferCount > 0 && writeBuffer[writeBufferFirst] <= now) {
+               writeBufferFirst = (writeBufferFirst + 1) % writeBuffer.length;
+               writeBufferCount--;
+            }
+            if (writeBufferCount == writeBuffer.length) {
+               stall = (int) (writeBuffer[writeBufferFirst] - now);
+               now += stall;
+               bufferStallCycles += stall;
+               writeBufferFirst = (writeBufferFirst + 1) % writeBuffer.length;
+               writeBufferCount--;
+            }
+            int drain = (next == null) ? memoryCycles : next.access(address, true, Math.max(now, lastWriteCompletion));
+            lastWriteCompletion = Math.max(now, lastWriteCompletion) + drain;
+            writeBuffer[(writeBufferFirst + writeBufferCount) % writeBuffer.length] = lastWriteCompletion;
+            writeBufferCount++;
+            return stall;
+         }
+      	
+          void appendReport(StringBuffer report) {
+            long accesses = reads + writes;
+            report.append(name + ": " + numberOfBlocks + " blocks of " + blockSizeInWords + " words, "
+               + ((setSizeInBlocks == numberOfBlocks) ? "fully associative" 
+                  : (setSizeInBlocks == 1) ? "direct mapped" : setSizeInBlocks + "-way set associative")
+               + ", " + (writeBack ? "write-back" : "write-through") 
+               + (writeAllocate ? ", write-allocate" : ", no write-allocate") + ", " + hitCycles + " cycle hit\n");
+            report.append("  reads " + reads + " (hit rate " + rate(readHits, reads) + "), writes " + writes 
+               + " (hit rate " + rate(writeHits, writes) + "), overall hit rate " + rate(readHits + writeHits, accesses) + "\n");
+            report.append("  write-backs " + writeBacks + ", write buffer stall cycles " + bufferStallCycles 
+               + ", AMAT " + ((accesses == 0) ? "-" : format(cycles / (double) accesses)) + " cycles\n");
+         }
+      	
+          private static String rate(long hits, long accesses) {
+            return (accesses == 0) ? "-" : String.format("%.2f%%", 100.0 * hits / accesses);
+         }
+      }
+   }
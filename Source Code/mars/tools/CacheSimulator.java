@@ -5,6 +5,7 @@
    import java.awt.event.*;
    import java.util.*;
 	import mars.util.*;
+   import mars.*;
    import mars.tools.*;
    import mars.mips.hardware.*;
 
@@ -64,6 +65,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private JTextArea logText;
       private JCheckBox logShow;
    	
+      private JCheckBox sweepEnabled;
+      private JButton sweepResults;
+      private JCheckBox hierarchyEnabled;
+      private JComboBox hierarchyWritePolicySelector;
+      private JButton hierarchyResults;
+   	
    	// Some GUI settings
       private EmptyBorder emptyBorder = new EmptyBorder(4,4,4,4);
       private Font countFonts = new Font("Times", Font.BOLD,12);
@@ -77,6 +84,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private final int DIRECT = 0, FULL = 1, SET = 2; // NOTE: these have to match placementPolicyChoices order!
       private String[] replacementPolicyChoices =  {"LRU","Random"};
       private final int LRU = 0, RANDOM = 1; // NOTE: these have to match replacementPolicyChoices order!
+      private String[] writePolicyChoices = {"Write-back, write-allocate", "Write-back, no write-allocate",
+                                             "Write-through, write-allocate", "Write-through, no write-allocate"};
       private String[] cacheSetSizeChoices; // will change dynamically based on the other selections
       private int defaultCacheBlockSizeIndex    = 2;
       private int defaultCacheBlockCountIndex   = 3;
@@ -88,6 +97,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private AbstractCache theCache;   			
       private int memoryAccessCount, cacheHitCount, cacheMissCount;
       private double cacheHitRate;
+   	// Evaluates every configuration selectable above, if enabled.  Null otherwise.
+      private CacheSweep sweep;
+   	// Models L1 instruction and data caches having the above organization, backed by an L2
+   	// cache, if enabled.  Null otherwise.  It observes memory itself, including the text segment.
+      private CacheHierarchy hierarchy;
       
    	// RNG used for random replacement policy.  For testing, set seed for reproducible stream
       private Random randu = new Random(0);  
@@ -142,10 +156,84 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          Box results = Box.createVerticalBox();
          results.add(buildOrganizationArea());
          results.add(buildPerformanceArea());
+         results.add(buildSweepArea());
+         results.add(buildHierarchyArea());
          results.add(buildLogArea());
          return results;
       }
    	
+   	////////////////////////////////////////////////////////////////////////////
+       private JComponent buildSweepArea() {
+         JPanel sweepPanel = new JPanel();
+         TitledBorder stb =new TitledBorder("Configuration Sweep");
+         stb.setTitleJustification(TitledBorder.CENTER);
+         sweepPanel.setBorder(stb);
+         sweepEnabled = new JCheckBox("Evaluate all configurations", false);
+         sweepEnabled.setToolTipText("Also compute hit rates of every block size, block count, set size and replacement policy in the same run");
+         sweepEnabled.addItemListener(
+                new ItemListener() {
+                   public void itemStateChanged(ItemEvent e) { 
+                     sweep = (e.getStateChange() == ItemEvent.SELECTED)
+                        ? new CacheSweep(cacheBlockSizeChoicesInt, cacheBlockCountChoicesInt, true)
+                        : null;
+                     sweepResults.setEnabled(sweep != null);
+                  }
+               });
+         sweepResults = new JButton("Show Results");
+         sweepResults.setEnabled(false);
+         sweepResults.setToolTipText("Display hit rate of every configuration");
+         sweepResults.addActionListener(
+                new ActionListener() {
+                   public void actionPerformed(ActionEvent e) {
+                     showResults(sweep.getReport(), "Cache Configuration Sweep");
+                  }
+               });
+         sweepPanel.add(sweepEnabled);
+         sweepPanel.add(sweepResults);
+         return sweepPanel;
+      }
+   
+   	////////////////////////////////////////////////////////////////////////////
+       private JComponent buildHierarchyArea() {
+         JPanel hierarchyPanel = new JPanel();
+         TitledBorder htb =new TitledBorder("Cache Hierarchy");
+         htb.setTitleJustification(TitledBorder.CENTER);
+         hierarchyPanel.setBorder(htb);
+         hierarchyEnabled = new JCheckBox("Model L1 instruction, L1 data and L2", false);
+         hierarchyEnabled.setToolTipText("Also model split L1 caches of the above organization backed by a unified L2 cache "
+            + CacheHierarchy.DEFAULT_L2_SIZE_FACTOR + " times larger");
+         hierarchyEnabled.addItemListener(
+                new ItemListener() {
+                   public void itemStateChanged(ItemEvent e) { 
+                     createNewHierarchy();
+                     hierarchyResults.setEnabled(hierarchy != null);
+                  }
+               });
+         hierarchyWritePolicySelector = new JComboBox(writePolicyChoices);
+         hierarchyWritePolicySelector.setEditable(false);
+         hierarchyWritePolicySelector.setBackground(backgroundColor);
+         hierarchyWritePolicySelector.setToolTipText("Write policy of the L1 data cache.  L2 is write-back, write-allocate.");
+         hierarchyWritePolicySelector.addActionListener(
+                new ActionListener() {
+                   public void actionPerformed(ActionEvent e) {
+                     createNewHierarchy();
+                  }
+               });
+         hierarchyResults = new JButton("Show Results");
+         hierarchyResults.setEnabled(false);
+         hierarchyResults.setToolTipText("Display hit rates, write-backs and average access times of each level");
+         hierarchyResults.addActionListener(
+                new ActionListener() {
+                   public void actionPerformed(ActionEvent e) {
+                     showResults(hierarchy.getReport(), "Cache Hierarchy");
+                  }
+               });
+         hierarchyPanel.add(hierarchyEnabled);
+         hierarchyPanel.add(hierarchyWritePolicySelector);
+         hierarchyPanel.add(hierarchyResults);
+         return hierarchyPanel;
+      }
+   
    	////////////////////////////////////////////////////////////////////////////
        private JComponent buildLogArea() {
          logPanel = new JPanel();
@@ -217,6 +305,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                    public void actionPerformed(ActionEvent e) {
                      updateCacheSetSizeSelector();
                      theCache = createNewCache();
+                     createNewHierarchy();
                      resetCounts();
                      updateDisplay();
                      updateCacheSizeDisplay();
@@ -429,6 +518,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             animations.showMiss(cacheAccessResult.getBlock());
          }
          cacheHitRate = cacheHitCount / (double)memoryAccessCount;
+         if (sweep != null) {
+            sweep.access(notice.getAddress());
+         }
       }
    	
    
@@ -479,6 +571,30 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          updateDisplay();
          animations.reset();
          resetLogDisplay();
+         if (sweep != null) {
+            sweep.reset();
+         }
+         createNewHierarchy();
+      }
+   
+   	/**
+   	 *  Register as observer of the data segment and, if the cache hierarchy is being modeled,
+   	 *  register it to observe the text and data segments.  The hierarchy observes memory
+   	 *  directly so instruction fetches do not cause display updates.
+   	 */
+       protected void addAsObserver() {
+         super.addAsObserver();
+         addHierarchyAsObserver();
+      }
+   
+   	/**
+   	 *  Remove this tool and the cache hierarchy as memory observers.
+   	 */
+       protected void deleteAsObserver() {
+         super.deleteAsObserver();
+         if (hierarchy != null) {
+            Globals.memory.deleteObserver(hierarchy);
+         }
       }
    
    	/**
@@ -580,6 +696,60 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return new JPanel(new BorderLayout(2,2));
       }
       
+       private void showResults(String report, String title) {
+         JTextArea results = new JTextArea(report, 24, 100);
+         results.setEditable(false);
+         results.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+         JOptionPane.showMessageDialog(theWindow, new JScrollPane(results), 
+            title, JOptionPane.INFORMATION_MESSAGE);
+      }
+   	
+   	// Replace the cache hierarchy, if enabled, with an empty one of the current organization.
+   	// L1 instruction and data caches have the selected organization and L2 is larger and 8-way.
+       private void createNewHierarchy() {
+         if (hierarchy != null) {
+            Globals.memory.deleteObserver(hierarchy);
+            hierarchy = null;
+         }
+         if (hierarchyEnabled == null || !hierarchyEnabled.isSelected()) {
+            return;
+         }
+         int blocks = cacheBlockCountChoicesInt[cacheBlockCountSelector.getSelectedIndex()];
+         int blockSize = cacheBlockSizeChoicesInt[cacheBlockSizeSelector.getSelectedIndex()];
+         int setSize = 1;
+         try {
+            setSize = Integer.parseInt((String)cacheSetSizeSelector.getSelectedItem());
+         } 
+             catch (NumberFormatException nfe) { 
+            }
+         int policy = hierarchyWritePolicySelector.getSelectedIndex();
+         int l2Blocks = blocks * CacheHierarchy.DEFAULT_L2_SIZE_FACTOR;
+         hierarchy = new CacheHierarchy(
+            new CacheHierarchy.Level("L1 instruction", blocks, blockSize, setSize, true, true, 
+                                     CacheHierarchy.DEFAULT_L1_HIT_CYCLES, CacheHierarchy.DEFAULT_WRITE_BUFFER_ENTRIES),
+            new CacheHierarchy.Level("L1 data", blocks, blockSize, setSize, policy < 2, policy % 2 == 0, 
+                                     CacheHierarchy.DEFAULT_L1_HIT_CYCLES, CacheHierarchy.DEFAULT_WRITE_BUFFER_ENTRIES),
+            new CacheHierarchy.Level("L2", l2Blocks, blockSize, Math.min(8, l2Blocks), true, true, 
+                                     CacheHierarchy.DEFAULT_L2_HIT_CYCLES, CacheHierarchy.DEFAULT_WRITE_BUFFER_ENTRIES),
+            CacheHierarchy.DEFAULT_MEMORY_CYCLES);
+         if (isObserving()) {
+            addHierarchyAsObserver();
+         }
+      }
+   	
+       private void addHierarchyAsObserver() {
+         if (hierarchy == null) {
+            return;
+         }
+         try {
+            Globals.memory.addObserver(hierarchy, Memory.textBaseAddress, Memory.textLimitAddress - Memory.WORD_LENGTH_BYTES);
+            Globals.memory.addObserver(hierarchy, Memory.dataSegmentBaseAddress, Memory.stackBaseAddress);
+         } 
+             catch (AddressErrorException aee) {
+               hierarchyEnabled.setSelected(false);
+            }
+      }
+   	
        private void resetLogDisplay() {
          logText.setText("");
       }
@@ -615,12 +785,14 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	// whether it was a hit or not, and in which block is the value stored.
    	// In the case of a hit, the block associated with address.  In the case of
    	// a miss, the block where new association is made.	DPS 23-Dec-2010
+   	// Each cache reuses one of these for every access, so it is only valid until the next access.
        private class CacheAccessResult {
          private boolean hitOrMiss;
          private int blockNumber;
-          public CacheAccessResult(boolean hitOrMiss, int blockNumber) {
+          public CacheAccessResult set(boolean hitOrMiss, int blockNumber) {
             this.hitOrMiss = hitOrMiss;
             this.blockNumber = blockNumber;
+            return this;
          }
           public boolean isHit() {
             return hitOrMiss;
@@ -757,86 +929,115 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	// selected for removal and the new tag will replace it.
    	//
        private class AnyCache extends AbstractCache {
+      	// Instead of searching a set's blocks sequentially, blocks are found through an
+      	// index from memory block address (tag and set together) to cache block number.
+      	// Each set keeps its occupied blocks in a doubly linked list ordered by recency of
+      	// access, most recent first, so the LRU block is always at the end.  Blocks of a set
+      	// are occupied in order and never vacated, so the set's occupied blocks are the first
+      	// usedBlocks[set] of them.  Every operation takes constant time however many blocks.
+         private CacheTagIndex index;
+         private int[] newer, older;              // LRU list links by block number, -1 at either end
+         private int[] newest, oldest, usedBlocks; // by set number
+         private CacheAccessResult result = new CacheAccessResult();
+      	
           public AnyCache(int numberOfBlocks, int blockSizeInWords, int setSizeInBlocks) {
             super(numberOfBlocks, blockSizeInWords, setSizeInBlocks);
+            index = new CacheTagIndex(numberOfBlocks);
+            newer = new int[numberOfBlocks];
+            older = new int[numberOfBlocks];
+            newest = new int[getNumberOfSets()];
+            oldest = new int[getNumberOfSets()];
+            usedBlocks = new int[getNumberOfSets()];
+            Arrays.fill(newest, -1);
+            Arrays.fill(oldest, -1);
          }
       	
-         private final int SET_FULL=0, HIT=1, MISS=2;
-      	
       	// This method works for any of the placement policies: 
       	// direct mapped, full associative or n-way set associative.
           public CacheAccessResult isItAHitThenReadOnMiss(int address) {
-            int result = SET_FULL;
-            int firstBlock = getFirstBlockToSearch(address);
-            int lastBlock  = getLastBlockToSearch(address);
+            int set = getSetNumber(address);
+            int firstBlock = set * getSetSizeInBlocks();
+            int memoryBlock = address / Memory.WORD_LENGTH_BYTES / getBlockSizeInWords();
             if (debug) //System.out.print
-               writeLog("("+memoryAccessCount+") address: "+Binary.intToHexString(address)+" (tag "+Binary.intToHexString(getTag(address))+") "+" block range: "+firstBlock+"-"+lastBlock+"\n");
-            CacheBlock block;
-            int blockNumber = 0;
-         	// Will do a sequential instead of associative search!
-            for (blockNumber = firstBlock; blockNumber <= lastBlock; blockNumber++) {
-               block = blocks[blockNumber];
-               if (debug) //System.out.print
-                  writeLog("   trying block "+blockNumber+ ((block.valid)? " tag "+Binary.intToHexString(block.tag) : " empty"));
-               if (block.valid && block.tag==getTag(address)) {//  it's a hit!
-                  if (debug) //System.out.print
-                     writeLog(" -- HIT\n");
-                  result = HIT;
-                  block.mostRecentAccessTime = memoryAccessCount;
-                  break;
-               }
-               if (!block.valid) {// it's a miss but I got it now because it is empty!
-                  if (debug) //System.out.print
-                     writeLog(" -- MISS\n");
-                  result = MISS;
-                  block.valid = true;
-                  block.tag = getTag(address);
-                  block.mostRecentAccessTime = memoryAccessCount;
-                  break;
-               }
+               writeLog("("+memoryAccessCount+") address: "+Binary.intToHexString(address)+" (tag "+Binary.intToHexString(getTag(address))+") "+" block range: "+firstBlock+"-"+getLastBlockToSearch(address)+"\n");
+            int blockNumber = index.get(memoryBlock);
+            if (blockNumber >= 0) {//  it's a hit!
                if (debug) //System.out.print
-                  writeLog(" -- OCCUPIED\n");
+                  writeLog("   HIT in block "+blockNumber+"\n");
+               blocks[blockNumber].mostRecentAccessTime = memoryAccessCount;
+               makeMostRecent(set, blockNumber);
+               return result.set(true, blockNumber);
             }
-            if (result == SET_FULL) {
-              //select one to replace and replace it...
+            if (usedBlocks[set] < getSetSizeInBlocks()) {// it's a miss but I got it now because one is empty!
+               blockNumber = firstBlock + usedBlocks[set]++;
+               if (debug) //System.out.print
+                  writeLog("   MISS, empty block "+blockNumber+"\n");
+               blocks[blockNumber].valid = true;
+               addAsMostRecent(set, blockNumber);
+            } 
+            else {//select one to replace and replace it...
                if (debug) //System.out.print
                   writeLog("   MISS due to FULL SET");
-               int blockToReplace = selectBlockToReplace(firstBlock,lastBlock);
-               block = blocks[blockToReplace];
-               block.tag = getTag(address);
-               block.mostRecentAccessTime = memoryAccessCount;
-               blockNumber = blockToReplace;
+               blockNumber = selectBlockToReplace(set, firstBlock);
+               index.remove(blocks[blockNumber].tag * getNumberOfSets() + set);
+               makeMostRecent(set, blockNumber);
             }
-            return new CacheAccessResult(result==HIT, blockNumber);
+            blocks[blockNumber].tag = getTag(address);
+            blocks[blockNumber].mostRecentAccessTime = memoryAccessCount;
+            index.put(memoryBlock, blockNumber);
+            return result.set(false, blockNumber);
          }      
       	
       	 // call this if all blocks in the set are full.  If the set contains more than one block,
       	 // It will pick on to replace based on selected replacement policy.
-          private int selectBlockToReplace(int first, int last) {
+          private int selectBlockToReplace(int set, int first) {
             int replaceBlock = first;
-            if (first!=last) { 
+            if (getSetSizeInBlocks() > 1) { 
                switch (cacheReplacementSelector.getSelectedIndex()) {
                   case RANDOM : 
-                     replaceBlock = first + randu.nextInt(last-first+1);
+                     replaceBlock = first + randu.nextInt(getSetSizeInBlocks());
                      if (debug) //System.out.print
                         writeLog(" -- Random replace block "+replaceBlock+"\n");
                      break;
                   case LRU :
                   default :
-                     int leastRecentAccessTime = memoryAccessCount; // all of them have to be less than this
-                     for (int block = first; block <= last; block++) {
-                        if (blocks[block].mostRecentAccessTime < leastRecentAccessTime) {
-                           leastRecentAccessTime = blocks[block].mostRecentAccessTime;
-                           replaceBlock = block;
-                        }
-                     }
+                     replaceBlock = oldest[set];
                      if (debug) //System.out.print
-                        writeLog(" -- LRU replace block "+replaceBlock+"; unused since ("+leastRecentAccessTime+")\n");
+                        writeLog(" -- LRU replace block "+replaceBlock+"; unused since ("+blocks[replaceBlock].mostRecentAccessTime+")\n");
                      break;
                }
             }
             return replaceBlock;
          }
+      	
+      	 // Put newly occupied block at the front of its set's recency list.
+          private void addAsMostRecent(int set, int block) {
+            newer[block] = -1;
+            older[block] = newest[set];
+            if (newest[set] >= 0) {
+               newer[newest[set]] = block;
+            } 
+            else {
+               oldest[set] = block;
+            }
+            newest[set] = block;
+         }
+      	
+      	 // Move occupied block to the front of its set's recency list.
+          private void makeMostRecent(int set, int block) {
+            if (newest[set] == block) {
+               return;
+            }
+            // not the newest so it has a newer neighbor
+            older[newer[block]] = older[block];
+            if (older[block] >= 0) {
+               newer[older[block]] = newer[block];
+            } 
+            else {
+               oldest[set] = newer[block];
+            }
+            addAsMostRecent(set, block);
+         }
       }
    	
    	//////////////////////////////////////////////////////////////
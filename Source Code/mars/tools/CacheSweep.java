@@ -0,0 +1,350 @@
+   package mars.tools;
+   import java.util.*;
+   import mars.mips.hardware.*;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+	
+   /**
+	 * Evaluates many cache configurations in a single pass over a stream of memory accesses,
+	 * instead of re-running the MIPS program once per configuration.  Configurations are
+	 * every combination of the given block sizes and block counts (both powers of 2) with
+	 * every set size from 1 block (direct mapped) through all blocks (fully associative).
+	 * <p>For LRU replacement, all set sizes having the same block size and number of sets are
+	 * evaluated together by the stack distance algorithm of Mattson et al.: each set keeps its
+	 * blocks in order of most recent access, and an access found at depth d of its set's stack
+	 * is a hit in every configuration of more than d blocks per set.  Random replacement has no
+	 * such inclusion property, so each of those configurations is simulated separately.</p>
+	 * <p>LRU results are the same as those of the cache simulator configured accordingly, which
+	 * fills empty blocks of a set before replacing any.  Random replacement results agree only
+	 * statistically: each configuration has its own generator, seeded as the simulator's is,
+	 * but the simulator does not reseed its generator when reset, so the blocks chosen for
+	 * replacement generally differ.</p>
+	 * <p>A hit in an LRU stack is found by searching the set's stack and moved to the top by
+	 * shifting the blocks above it, which costs time in proportion to its depth: up to the
+	 * largest set size of interest, 2048 blocks for a fully associative 2048 block cache.</p>
+	 */
+    public class CacheSweep implements TraceListener {
+      public static final int LRU = 0, RANDOM = 1;
+   	
+      private int[] blockSizes;    // in words
+      private int[] blockCounts;
+      private boolean includeRandom;
+      private long accessCount;
+      private StackDistanceModel[] stackModels;
+      private RandomReplacementModel[] randomModels;
+   	
+   	/**
+   	 * Create a sweep over all combinations of the given block sizes and block counts,
+   	 * and all set sizes possible for each.
+   	 * @param blockSizesInWords block sizes to evaluate; each a power of 2
+   	 * @param blockCounts numbers of blocks to evaluate; each a power of 2
+   	 * @param includeRandom true to evaluate random replacement as well as LRU
+   	 */
+       public CacheSweep(int[] blockSizesInWords, int[] blockCounts, boolean includeRandom) {
+         this.blockSizes = blockSizesInWords.clone();
+         this.blockCounts = blockCounts.clone();
+         Arrays.sort(this.blockSizes);
+         Arrays.sort(this.blockCounts);
+         for (int i = 0; i < this.blockSizes.length; i++) {
+            checkPowerOfTwo(this.blockSizes[i]);
+         }
+         for (int i = 0; i < this.blockCounts.length; i++) {
+            checkPowerOfTwo(this.blockCounts[i]);
+         }
+         this.includeRandom = includeRandom;
+         reset();
+      }
+   	
+   	/**
+   	 * Discard all results and cache contents.
+   	 */
+       public void reset() {
+         accessCount = 0;
+         int maximumBlockCount = blockCounts[blockCounts.length - 1];
+         ArrayList<StackDistanceModel> stack = new ArrayList<StackDistanceModel>();
+         ArrayList<RandomReplacementModel> random = new ArrayList<RandomReplacementModel>();
+         for (int b = 0; b < blockSizes.length; b++) {
+         	// One stack distance model per number of sets, deep enough for the largest set size.
+            for (int sets = 1; sets <= maximumBlockCount; sets <<= 1) {
+               int deepest = 0;
+               for (int c = 0; c < blockCounts.length; c++) {
+                  if (blockCounts[c] >= sets) {
+                     deepest = Math.max(deepest, blockCounts[c] / sets);
+                  }
+               }
+               if (deepest > 0) {
+                  stack.add(new StackDistanceModel(blockSizes[b], sets, deepest));
+               }
+            }
+            if (includeRandom) {
+               for (int c = 0; c < blockCounts.length; c++) {
+                  for (int setSize = 2; setSize <= blockCounts[c]; setSize <<= 1) {
+                     random.add(new RandomReplacementModel(blockSizes[b], blockCounts[c], setSize));
+                  }
+               }
+            }
+         }
+         stackModels = stack.toArray(new StackDistanceModel[stack.size()]);
+         randomModels = random.toArray(new RandomReplacementModel[random.size()]);
+      }
+   	
+   	/**
+   	 * Apply data reads and writes of a trace to every configuration, as the cache
+   	 * simulator does; other events are ignored.
+   	 * @param type event type
+   	 * @param address event address
+   	 */
+       public void traceEvent(int type, int address) {
+         if (type == READ || type == WRITE) {
+            access(address);
+         }
+      }
+   	
+   	/**
+   	 * Apply one memory access to every configuration.
+   	 * @param address the memory address accessed
+   	 */
+       public void access(int address) {
+         accessCount++;
+         int wordAddress = address >>> 2;
+         for (int i = 0; i < stackModels.length; i++) {
+            stackModels[i].access(wordAddress);
+         }
+         for (int i = 0; i < randomModels.length; i++) {
+            randomModels[i].access(wordAddress);
+         }
+      }
+   	
+   	/**
+   	 * @return number of memory accesses applied so far
+   	 */
+       public long getAccessCount() {
+         return accessCount;
+      }
+   	
+   	/**
+   	 * Get number of hits for one configuration.  With a set size of 1 block the two
+   	 * replacement policies are the same.
+   	 * @param blockSizeInWords block size, one of those given to the constructor
+   	 * @param numberOfBlocks number of blocks, one of those given to the constructor
+   	 * @param setSizeInBlocks set size, power of 2 no larger than number of blocks
+   	 * @param policy LRU or RANDOM
+   	 * @return number of hits, or -1 if the configuration was not evaluated
+   	 */
+       public long getHitCount(int blockSizeInWords, int numberOfBlocks, int setSizeInBlocks, int policy) {
+         if (policy == RANDOM && setSizeInBlocks > 1) {
+            for (int i = 0; i < randomModels.length; i++) {
+               RandomReplacementModel model = randomModels[i];
+               if (model.blockSize == blockSizeInWords && model.numberOfBlocks == numberOfBlocks 
+                     && model.setSize == setSizeInBlocks) {
+                  return model.hits;
+               }
+            }
+            return -1;
+         }
+         if (Arrays.binarySearch(blockCounts, numberOfBlocks) < 0 || setSizeInBlocks < 1 
+               || setSizeInBlocks > numberOfBlocks) {
+            return -1;
+         }
+         for (int i = 0; i < stackModels.length; i++) {
+            StackDistanceModel model = stackModels[i];
+            if (model.blockSize == blockSizeInWords && model.numberOfSets == numberOfBlocks / setSizeInBlocks) {
+               return model.getHits(setSizeInBlocks);
+            }
+         }
+         return -1;
+      }
+   	
+   	/**
+   	 * Get hit rate for one configuration.
+   	 * @return hit rate, 0.0 through 1.0, or -1.0 if the configuration was not evaluated
+   	 * @see #getHitCount(int, int, int, int)
+   	 */
+       public double getHitRate(int blockSizeInWords, int numberOfBlocks, int setSizeInBlocks, int policy) {
+         long hits = getHitCount(blockSizeInWords, numberOfBlocks, setSizeInBlocks, policy);
+         if (hits < 0) {
+            return -1.0;
+         }
+         return (accessCount == 0) ? 0.0 : hits / (double) accessCount;
+      }
+   	
+   	/**
+   	 * Produce the hit rate matrix as text.  For each block size and replacement policy
+   	 * there is a table with one row per number of blocks and one column per set size.
+   	 * @return report with one table per block size and replacement policy
+   	 */
+       public String getReport() {
+         StringBuffer report = new StringBuffer();
+         report.append("Cache configuration sweep: " + accessCount + " memory accesses\n");
+         int maximumBlockCount = blockCounts[blockCounts.length - 1];
+         int policies = includeRandom ? 2 : 1;
+         for (int policy = 0; policy < policies; policy++) {
+            for (int b = 0; b < blockSizes.length; b++) {
+               report.append("\nHit rate (%), " + ((policy == LRU) ? "LRU" : "Random") + " replacement, block size "
+                  + blockSizes[b] + " words (" + blockSizes[b] * Memory.WORD_LENGTH_BYTES + " bytes)\n");
+               report.append(pad("blocks \\ set size", 18));
+               for (int setSize = 1; setSize <= maximumBlockCount; setSize <<= 1) {
+                  report.append(pad(Integer.toString(setSize), 8));
+               }
+               report.append('\n');
+               for (int c = 0; c < blockCounts.length; c++) {
+                  report.append(pad(Integer.toString(blockCounts[c]), 18));
+                  for (int setSize = 1; setSize <= blockCounts[c]; setSize <<= 1) {
+                     double rate = getHitRate(blockSizes[b], blockCounts[c], setSize, policy);
+                     report.append(pad(String.format("%.2f", rate * 100), 8));
+                  }
+                  report.append('\n');
+               }
+            }
+         }
+         return report.toString();
+      }
+   	
+       private static String pad(String text, int width) {
+         StringBuffer padded = new StringBuffer();
+         for (int i = text.length(); i < width; i++) {
+            padded.append(' ');
+         }
+         return padded.append(text).toString();
+      }
+   	
+       private static void checkPowerOfTwo(int value) {
+         if (value <= 0 || (value & (value - 1)) != 0) {
+            throw new IllegalArgumentException(value + " is not a power of 2");
+         }
+      }
+   	
+       private static int log2(int powerOfTwo) {
+         return Integer.numberOfTrailingZeros(powerOfTwo);
+      }
+   
+   	/////////////////////////////////////////////////////////////////////////
+   	// LRU stacks for all caches of one block size and number of sets.  Each set's
+   	// stack holds block addresses, most recently accessed first, down to the largest
+   	// set size of interest.  The histogram counts accesses by stack depth at which the
+   	// block was found; the last element counts those not found.  An index of the blocks
+	// in the stacks lets misses be recognized without searching; a hit is found by
+	// searching its set's stack, in time proportional to its depth.
+       private static class StackDistanceModel {
+         private int blockSize, blockShift, numberOfSets, depth;
+         private int[] stacks;
+         private int[] used;
+         private long[] histogram;
+         private CacheTagIndex resident;
+      
+          StackDistanceModel(int blockSize, int numberOfSets, int depth) {
+            this.blockSize = blockSize;
+            this.blockShift = log2(blockSize);
+            this.numberOfSets = numberOfSets;
+            this.depth = depth;
+            this.stacks = new int[numberOfSets * depth];
+            this.used = new int[numberOfSets];
+            this.histogram = new long[depth + 1];
+            this.resident = new CacheTagIndex(numberOfSets * depth);
+         }
+      
+          void access(int wordAddress) {
+            int block = wordAddress >>> blockShift;
+            int set = block & (numberOfSets - 1);
+            int top = set * depth;
+            int found;
+            if (resident.get(block) >= 0) {
+               found = 0;
+               while (stacks[top + found] != block) {
+                  found++;
+               }
+               histogram[found]++;
+            } 
+            else {
+               histogram[depth]++;
+               resident.put(block, set);
+               if (used[set] < depth) {
+                  found = used[set]++;
+               } 
+               else {
+                  found = depth - 1; // bottom block drops out
+                  resident.remove(stacks[top + found]);
+               }
+            }
+            System.arraycopy(stacks, top, stacks, top + 1, found);
+            stacks[top] = block;
+         }
+      
+          long getHits(int setSize) {
+            long hits = 0;
+            for (int i = 0; i < setSize; i++) {
+               hits += histogram[i];
+            }
+            return hits;
+         }
+      }
+   
+   	/////////////////////////////////////////////////////////////////////////
+   	// One set associative cache with random replacement.  Blocks of a set are
+   	// filled in order; once full, a block chosen at random is replaced.  Block
+   	// addresses are located through a CacheTagIndex rather than by searching the set.
+       private static class RandomReplacementModel {
+         private int blockSize, blockShift, numberOfBlocks, setSize, numberOfSets;
+         private int[] blocks;
+         private int[] used;
+         private CacheTagIndex index;
+         private Random randu = new Random(0);
+         private long hits;
+      
+          RandomReplacementModel(int blockSize, int numberOfBlocks, int setSize) {
+            this.blockSize = blockSize;
+            this.blockShift = log2(blockSize);
+            this.numberOfBlocks = numberOfBlocks;
+            this.setSize = setSize;
+            this.numberOfSets = numberOfBlocks / setSize;
+            this.blocks = new int[numberOfBlocks];
+            this.used = new int[numberOfSets];
+            this.index = new CacheTagIndex(numberOfBlocks);
+         }
+      
+          void access(int wordAddress) {
+            int block = wordAddress >>> blockShift;
+            if (index.get(block) >= 0) {
+               hits++;
+               return;
+            }
+            int set = block & (numberOfSets - 1);
+            int slot;
+            if (used[set] < setSize) {
+               slot = set * setSize + used[set]++;
+            } 
+            else {
+               slot = set * setSize + randu.nextInt(setSize);
+               index.remove(blocks[slot]);
+            }
+            blocks[slot] = block;
+            index.put(block, slot);
+         }
+      }
+   }
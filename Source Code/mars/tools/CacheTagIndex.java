@@ -0,0 +1,139 @@
+   package mars.tools;
+   import java.util.Arrays;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+	
+   /**
+	 * Associative lookup of cache block addresses, as used by the cache models to find
+	 * the block (way) holding a given memory block without searching the set sequentially.
+	 * It maps int keys (block addresses, tags) to non-negative int values (block numbers)
+	 * using open addressing with linear probing in primitive arrays, so there is no boxing
+	 * or allocation per lookup, insertion or removal.
+	 */
+    public class CacheTagIndex {
+      private static final int NONE = -1;
+      private int[] keys;
+      private int[] values;
+      private int mask;
+      private int size;
+   	
+   	/**
+   	 * Create an index that will hold up to the given number of entries.
+   	 * @param maximumEntries most entries (blocks) the index will have to hold at one time
+   	 */
+       public CacheTagIndex(int maximumEntries) {
+         int capacity = 4;
+         while (capacity < 2 * maximumEntries) {
+            capacity <<= 1;
+         }
+         keys = new int[capacity];
+         values = new int[capacity];
+         mask = capacity - 1;
+         clear();
+      }
+   	
+   	/**
+   	 * Find the value associated with a key.
+   	 * @param key the key, e.g. block address
+   	 * @return associated value, or -1 if key is not present
+   	 */
+       public int get(int key) {
+         for (int slot = slotFor(key); values[slot] != NONE; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+               return values[slot];
+            }
+         }
+         return NONE;
+      }
+   	
+   	/**
+   	 * Associate a value with a key, replacing any previous association.
+   	 * @param key the key, e.g. block address
+   	 * @param value the value, e.g. block number.  Must not be negative.
+   	 */
+       public void put(int key, int value) {
+         int slot = slotFor(key);
+         while (values[slot] != NONE) {
+            if (keys[slot] == key) {
+               values[slot] = value;
+               return;
+            }
+            slot = (slot + 1) & mask;
+         }
+         keys[slot] = key;
+         values[slot] = value;
+         size++;
+      }
+   	
+   	/**
+   	 * Remove a key and its value, if present.
+   	 * @param key the key, e.g. block address
+   	 */
+       public void remove(int key) {
+         int slot = slotFor(key);
+         while (values[slot] != NONE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+         }
+         if (values[slot] == NONE) {
+            return;
+         }
+         size--;
+      	// Shift later entries of the probe sequence back so none is cut off from its home slot.
+         int hole = slot;
+         for (slot = (hole + 1) & mask; values[slot] != NONE; slot = (slot + 1) & mask) {
+            int home = slotFor(keys[slot]);
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+               keys[hole] = keys[slot];
+               values[hole] = values[slot];
+               hole = slot;
+            }
+         }
+         values[hole] = NONE;
+      }
+   	
+   	/**
+   	 * @return number of entries in the index
+   	 */
+       public int size() {
+         return size;
+      }
+   	
+   	/**
+   	 * Remove all entries.
+   	 */
+       public void clear() {
+         Arrays.fill(values, NONE);
+         size = 0;
+      }
+   
+       private int slotFor(int key) {
+         int hash = key * 0x9E3779B9;
+         return (hash ^ (hash >>> 16)) & mask;
+      }
+   }
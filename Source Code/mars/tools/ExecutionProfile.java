@@ -0,0 +1,478 @@
+   package mars.tools;
+   import mars.*;
+   import mars.assembler.*;
+   import mars.mips.hardware.*;
+   import mars.simulator.*;
+   import java.io.*;
+   import java.util.*;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+	
+   /**
+	 * Execution profile of a MIPS program: how many times each instruction was executed,
+	 * and in which function and source line.  The simulator calls executing() for each
+	 * instruction, which adds to counts kept in int arrays indexed by text address.
+	 * <p>A shadow call stack follows jal, jalr and the branch-and-link instructions
+	 * into functions and jr back out of them, so that each instruction is also counted
+	 * in its calling context, the path of functions from the entry point.  From these
+	 * the profile gives inclusive and exclusive counts for each function, writes folded
+	 * stacks (one line per calling context, the form read by flame graph tools), and
+	 * writes the source annotated with the execution count of each line.  Backward
+	 * jumps are counted to find the hottest loops.</p>
+	 * <p>A function is known by the label at its entry address, or by that address.</p>
+	 * <p>The simulator calls executing() while holding Globals.memoryAndRegistersLock.
+	 * Other threads should hold it too while they use the profile during a simulation.</p>
+	 */
+    public class ExecutionProfile implements Simulator.InstructionListener {
+   
+      private static final int NO_ADDRESS = 1; // not word aligned, so no instruction has it
+      private static final int REPORT_LINES = 10; // hot loops and source lines shown by getReport
+   
+      private Segment text, kernelText;
+      private long total;
+   	// Calling context tree.  Node 0 is the root; children are always created after their parents.
+      private int nodes;
+      private int[] nodeFunction, nodeParent;
+      private long[] nodeSelf, nodeCalls;
+      private HashMap<Long,Integer> children; // (parent, function) -> child node
+   	// Shadow call stack of calling context nodes and return addresses; the current node is on top.
+      private int depth;
+      private int[] stackNode, stackReturn;
+   	// Call or return waiting for its delay slot, if any, to execute.
+      private int callCountdown, returnCountdown, pendingReturnAddress;
+      private int previousAddress;
+   
+   	/**
+   	 * Create an empty profile.
+   	 */
+       public ExecutionProfile() {
+         reset();
+      }
+   
+   	/**
+   	 * Discard all counts, and the call stack, so that profiling starts again.
+   	 */
+       public void reset() {
+         text = new Segment(Memory.textBaseAddress, Memory.textLimitAddress);
+         kernelText = new Segment(Memory.kernelTextBaseAddress, Memory.kernelTextLimitAddress);
+         total = 0;
+         nodes = 0;
+         nodeFunction = new int[64];
+         nodeParent = new int[64];
+         nodeSelf = new long[64];
+         nodeCalls = new long[64];
+         children = new HashMap<Long,Integer>();
+         depth = 0;
+         stackNode = new int[64];
+         stackReturn = new int[64];
+         callCountdown = returnCountdown = 0;
+         previousAddress = NO_ADDRESS;
+      }
+   
+   	/**
+   	 * Count the execution of one instruction.  Called by the simulator.
+   	 * @param address address of the instruction
+   	 * @param statement the instruction
+   	 */
+       public void executing(int address, ProgramStatement statement) {
+         if (depth == 0) { // first instruction is the entry to the root function
+            stackNode[0] = newNode(-1, address);
+            stackReturn[0] = NO_ADDRESS;
+            nodeCalls[0]++;
+            depth = 1;
+         }
+         boolean transferred = false;
+         if (callCountdown > 0 && --callCountdown == 0 && address != pendingReturnAddress) {
+            call(address, pendingReturnAddress);
+            transferred = true;
+         }
+         if (returnCountdown > 0 && --returnCountdown == 0) {
+            transferred = returnTo(address);
+         }
+         nodeSelf[stackNode[depth-1]]++;
+         total++;
+         Segment segment = kernelText.contains(address) ? kernelText : text.contains(address) ? text : null;
+         if (segment != null) {
+            segment.counts[segment.slot(address)]++;
+            if (!transferred && address <= previousAddress && previousAddress != NO_ADDRESS 
+                && segment.contains(previousAddress)) {
+               int from = segment.slot(previousAddress);
+               segment.backEdges[from]++;
+               segment.backEdgeTargets[from] = address;
+            }
+         }
+         previousAddress = address;
+      
+         int binary = statement.getBinaryStatement();
+         int opcode = binary >>> 26;
+         int funct = binary & 0x3F;
+         int rt = (binary >>> 16) & 0x1F;
+         if (opcode == 0x03 || (opcode == 0x00 && funct == 0x09) || (opcode == 0x01 && rt >= 0x10 && rt <= 0x13)) {
+            // jal, jalr, bltzal, bgezal, bltzall, bgezall: control reaches the callee after any delay slot
+            boolean delayed = Globals.getSettings().getBooleanSetting(Settings.DELAYED_BRANCHING_ENABLED);
+            callCountdown = delayed ? 2 : 1;
+            pendingReturnAddress = address + (delayed ? 8 : 4);
+         } 
+         else if (opcode == 0x00 && funct == 0x08) { // jr
+            returnCountdown = Globals.getSettings().getBooleanSetting(Settings.DELAYED_BRANCHING_ENABLED) ? 2 : 1;
+         }
+      }
+   
+       private void call(int function, int returnAddress) {
+         int caller = stackNode[depth-1];
+         Long key = Long.valueOf(((long) caller << 32) | (function & 0xFFFFFFFFL));
+         Integer child = children.get(key);
+         if (child == null) {
+            child = Integer.valueOf(newNode(caller, function));
+            children.put(key, child);
+         }
+         if (depth == stackNode.length) {
+            stackNode = Arrays.copyOf(stackNode, 2 * depth);
+            stackReturn = Arrays.copyOf(stackReturn, 2 * depth);
+         }
+         stackNode[depth] = child.intValue();
+         stackReturn[depth] = returnAddress;
+         depth++;
+         nodeCalls[child.intValue()]++;
+      }
+   
+   	// Return from the function whose return address this is, and from any it called
+   	// that did not return.  A jr to any other address is a jump within the function.
+       private boolean returnTo(int address) {
+         for (int d=depth-1; d>0; d--) {
+            if (stackReturn[d] == address) {
+               depth = d;
+               return true;
+            }
+         }
+         return false;
+      }
+   
+       private int newNode(int parent, int function) {
+         if (nodes == nodeFunction.length) {
+            nodeFunction = Arrays.copyOf(nodeFunction, 2 * nodes);
+            nodeParent = Arrays.copyOf(nodeParent, 2 * nodes);
+            nodeSelf = Arrays.copyOf(nodeSelf, 2 * nodes);
+            nodeCalls = Arrays.copyOf(nodeCalls, 2 * nodes);
+         }
+         nodeFunction[nodes] = function;
+         nodeParent[nodes] = parent;
+         return nodes++;
+      }
+   
+   	/**
+   	 * @return number of instructions executed
+   	 */
+       public long getTotal() {
+         return total;
+      }
+   
+   	/**
+   	 * @param address address of an instruction
+   	 * @return number of times the instruction at that address was executed
+   	 */
+       public int getCount(int address) {
+         Segment segment = kernelText.contains(address) ? kernelText : text;
+         int slot = (address - segment.base) >>> 2;
+         return (slot < segment.counts.length) ? segment.counts[slot] : 0;
+      }
+   
+   	/**
+   	 * Summary of the profile: inclusive and exclusive counts and number of calls for
+   	 * each function, then the hottest loops and the hottest source lines.
+   	 * @return the report
+   	 */
+       public String getReport() {
+         StringBuffer report = new StringBuffer();
+         report.append("Profile: " + total + " instructions executed\n");
+         if (total == 0) {
+            return report.toString();
+         }
+         report.append(String.format("%-24s %12s %7s %12s %7s %10s%n", 
+                       "Function", "Inclusive", "%", "Exclusive", "%", "Calls"));
+         long[][] functions = getFunctionCounts();
+         for (int i=0; i<functions.length; i++) {
+            report.append(String.format("%-24s %12d %6.2f%% %12d %6.2f%% %10d%n", 
+                          getFunctionName((int) functions[i][0]), functions[i][1], 100.0 * functions[i][1] / total,
+                          functions[i][2], 100.0 * functions[i][2] / total, functions[i][3]));
+         }
+         appendHotLoops(report);
+         appendHotLines(report);
+         return report.toString();
+      }
+   
+   	// For each function, its entry address, inclusive count, exclusive count and calls,
+   	// sorted by decreasing inclusive count.  A recursive call is included only once.
+       private long[][] getFunctionCounts() {
+         long[] subtree = new long[nodes];
+         for (int n=nodes-1; n>=0; n--) { // children follow parents
+            subtree[n] += nodeSelf[n];
+            if (nodeParent[n] >= 0) 
+               subtree[nodeParent[n]] += subtree[n];
+         }
+         LinkedHashMap<Integer,long[]> byFunction = new LinkedHashMap<Integer,long[]>();
+         for (int n=0; n<nodes; n++) {
+            Integer function = Integer.valueOf(nodeFunction[n]);
+            long[] counts = byFunction.get(function);
+            if (counts == null) {
+               counts = new long[] { nodeFunction[n], 0, 0, 0 };
+               byFunction.put(function, counts);
+            }
+            boolean recursive = false;
+            for (int a=nodeParent[n]; a>=0 && !recursive; a=nodeParent[a]) {
+               recursive = nodeFunction[a] == nodeFunction[n];
+            }
+            if (!recursive) 
+               counts[1] += subtree[n];
+            counts[2] += nodeSelf[n];
+            counts[3] += nodeCalls[n];
+         }
+         long[][] functions = byFunction.values().toArray(new long[byFunction.size()][]);
+         Arrays.sort(functions, 
+                new Comparator<long[]>() {
+                   public int compare(long[] a, long[] b) {
+                     long difference = b[1] - a[1];
+                     return (difference > 0) ? 1 : (difference < 0) ? -1 : 0;
+                  }
+               });
+         return functions;
+      }
+   
+   	// Loops, found by their backward jumps, with the most instructions executed in their bodies.
+       private void appendHotLoops(StringBuffer report) {
+         ArrayList<long[]> loops = new ArrayList<long[]>(); // of { from, to, iterations, instructions }
+         Segment[] segments = { text, kernelText };
+         for (int s=0; s<segments.length; s++) {
+            Segment segment = segments[s];
+            for (int slot=0; slot<segment.backEdges.length; slot++) {
+               if (segment.backEdges[slot] > 0) {
+                  int to = segment.backEdgeTargets[slot];
+                  long instructions = 0;
+                  for (int i=segment.slot(to); i<=slot; i++) {
+                     instructions += segment.counts[i];
+                  }
+                  loops.add(new long[] { segment.base + 4 * slot, to, segment.backEdges[slot], instructions });
+               }
+            }
+         }
+         if (loops.size() == 0) {
+            return;
+         }
+         Collections.sort(loops, 
+                new Comparator<long[]>() {
+                   public int compare(long[] a, long[] b) {
+                     long difference = b[3] - a[3];
+                     return (difference > 0) ? 1 : (difference < 0) ? -1 : 0;
+                  }
+               });
+         report.append("\nHot loops\n");
+         report.append(String.format("%12s %7s %12s  %-21s %s%n", "Instructions", "%", "Iterations", "Addresses", "Lines"));
+         for (int i=0; i<loops.size() && i<REPORT_LINES; i++) {
+            long[] loop = loops.get(i);
+            report.append(String.format("%12d %6.2f%% %12d  0x%08x-0x%08x %s%n", loop[3], 100.0 * loop[3] / total, 
+                          loop[2], (int) loop[1], (int) loop[0], getLines((int) loop[1], (int) loop[0])));
+         }
+      }
+   
+   	// Source lines by number of instructions executed.
+       private void appendHotLines(StringBuffer report) {
+         final HashMap<ProgramStatement,long[]> lines = getLineCounts();
+         ArrayList<ProgramStatement> statements = new ArrayList<ProgramStatement>(lines.keySet());
+         Collections.sort(statements, 
+                new Comparator<ProgramStatement>() {
+                   public int compare(ProgramStatement a, ProgramStatement b) {
+                     long difference = lines.get(b)[0] - lines.get(a)[0];
+                     return (difference > 0) ? 1 : (difference < 0) ? -1 : 0;
+                  }
+               });
+         report.append("\nHot source lines\n");
+         report.append(String.format("%12s %7s  %-20s %s%n", "Instructions", "%", "Line", "Source"));
+         for (int i=0; i<statements.size() && i<REPORT_LINES; i++) {
+            ProgramStatement statement = statements.get(i);
+            long count = lines.get(statement)[0];
+            if (count == 0) 
+               break;
+            report.append(String.format("%12d %6.2f%%  %-20s %s%n", count, 100.0 * count / total,
+                          new File(statement.getSourceFile()).getName() + ":" + statement.getSourceLine(), 
+                          statement.getSource().trim()));
+         }
+      }
+   
+   	// Instruction counts by source line, keyed by the first statement of the line.
+       private HashMap<ProgramStatement,long[]> getLineCounts() {
+         HashMap<ProgramStatement,long[]> lines = new HashMap<ProgramStatement,long[]>();
+         HashMap<String,ProgramStatement> firstStatements = new HashMap<String,ProgramStatement>(); // "file:line" -> first statement
+         Segment[] segments = { text, kernelText };
+         for (int s=0; s<segments.length; s++) {
+            for (int slot=0; slot<segments[s].counts.length; slot++) {
+               ProgramStatement statement = getStatement(segments[s].base + 4 * slot);
+               if (statement == null || statement.getSourceMIPSprogram() == null) 
+                  continue;
+               String line = statement.getSourceFile() + ":" + statement.getSourceLine();
+               ProgramStatement first = firstStatements.get(line);
+               if (first == null) {
+                  first = statement;
+                  firstStatements.put(line, first);
+                  lines.put(first, new long[1]);
+               }
+               lines.get(first)[0] += segments[s].counts[slot];
+            }
+         }
+         return lines;
+      }
+   
+       private String getLines(int from, int to) {
+         ProgramStatement first = getStatement(from), last = getStatement(to);
+         if (first == null || last == null || first.getSourceMIPSprogram() == null) 
+            return "";
+         return new File(first.getSourceFile()).getName() + ":" + first.getSourceLine() + "-" + last.getSourceLine();
+      }
+   
+       private static ProgramStatement getStatement(int address) {
+         try {
+            return Memory.getInstance().getStatementNoNotify(address);
+         } 
+             catch (AddressErrorException e) {
+               return null;
+            }
+      }
+   
+   	/**
+   	 * Name of a function, the label at its entry address if any.
+   	 * @param address entry address of the function
+   	 * @return label or hexadecimal address
+   	 */
+       public static String getFunctionName(int address) {
+         ProgramStatement statement = getStatement(address);
+         Symbol symbol = null;
+         if (statement != null && statement.getSourceMIPSprogram() != null) {
+            symbol = statement.getSourceMIPSprogram().getLocalSymbolTable()
+                        .getSymbolGivenAddressLocalOrGlobal(String.valueOf(address));
+         } 
+         else if (Globals.symbolTable != null) {
+            symbol = Globals.symbolTable.getSymbolGivenAddress(String.valueOf(address));
+         }
+         return (symbol != null) ? symbol.getName() : mars.util.Binary.intToHexString(address);
+      }
+   
+   	/**
+   	 * Write the calling contexts in folded stack form, one line for each context in
+   	 * which instructions were executed: function names from the entry function to
+   	 * the current one, separated by semicolons, then a space and the count.
+   	 * @param out where to write
+   	 */
+       public void writeFoldedStacks(PrintStream out) {
+         String[] names = new String[nodes];
+         HashMap<Integer,String> functionNames = new HashMap<Integer,String>();
+         for (int n=0; n<nodes; n++) {
+            Integer function = Integer.valueOf(nodeFunction[n]);
+            String name = functionNames.get(function);
+            if (name == null) {
+               name = getFunctionName(nodeFunction[n]).replace(';', '_').replace(' ', '_');
+               functionNames.put(function, name);
+            }
+            names[n] = (nodeParent[n] < 0) ? name : names[nodeParent[n]] + ";" + name;
+            if (nodeSelf[n] > 0) 
+               out.println(names[n] + " " + nodeSelf[n]);
+         }
+      }
+   
+   	/**
+   	 * Write the source of each program file containing executed instructions, each line
+   	 * preceded by the number of instructions executed for it.  Lines that assembled to
+   	 * instructions but were never executed are marked #####.
+   	 * @param out where to write
+   	 */
+       public void writeAnnotatedSource(PrintStream out) {
+         LinkedHashMap<MIPSprogram,long[]> files = new LinkedHashMap<MIPSprogram,long[]>(); // counts by line, -1 if no code
+         Segment[] segments = { text, kernelText };
+         for (int s=0; s<segments.length; s++) {
+            for (int address=segments[s].base; ; address += 4) {
+               ProgramStatement statement = getStatement(address);
+               if (statement == null) 
+                  break;
+               MIPSprogram program = statement.getSourceMIPSprogram();
+               if (program == null || program.getSourceList() == null) 
+                  continue;
+               long[] counts = files.get(program);
+               if (counts == null) {
+                  counts = new long[program.getSourceList().size() + 1];
+                  Arrays.fill(counts, -1);
+                  files.put(program, counts);
+               }
+               int line = statement.getSourceLine();
+               if (line > 0 && line < counts.length) {
+                  counts[line] = Math.max(counts[line], 0) + getCount(address);
+               }
+            }
+         }
+         Iterator<MIPSprogram> programs = files.keySet().iterator();
+         while (programs.hasNext()) {
+            MIPSprogram program = programs.next();
+            long[] counts = files.get(program);
+            ArrayList<?> source = program.getSourceList();
+            out.println("File " + program.getFilename());
+            for (int line=1; line<counts.length; line++) {
+               String count = (counts[line] < 0) ? "" : (counts[line] == 0) ? "#####" : String.valueOf(counts[line]);
+               out.println(String.format("%12s %6d: %s", count, line, source.get(line-1)));
+            }
+         }
+      }
+   
+      ///////////////////////////////////////////////////////////////////////
+   	// Counts for a text segment, indexed by word, extended as higher addresses are executed.
+       private static class Segment {
+         int base, limit;
+         int[] counts, backEdges, backEdgeTargets;
+      
+          Segment(int base, int limit) {
+            this.base = base;
+            this.limit = limit;
+            counts = new int[1024];
+            backEdges = new int[1024];
+            backEdgeTargets = new int[1024];
+         }
+      
+          boolean contains(int address) {
+            int offset = address - base;
+            return offset >= 0 && offset < limit - base;
+         }
+      
+          int slot(int address) {
+            int slot = (address - base) >>> 2;
+            if (slot >= counts.length) {
+               int length = Math.max(2 * counts.length, slot + 1);
+               counts = Arrays.copyOf(counts, length);
+               backEdges = Arrays.copyOf(backEdges, length);
+               backEdgeTargets = Arrays.copyOf(backEdgeTargets, length);
+            }
+            return slot;
+         }
+      }
+   }
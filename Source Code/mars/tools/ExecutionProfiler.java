@@ -0,0 +1,225 @@
+   package mars.tools;
+   import mars.*;
+   import mars.simulator.*;
+   import java.awt.*;
+   import java.awt.event.*;
+   import java.io.*;
+   import javax.swing.*;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+	
+   /**
+	 * Tool that profiles the running MIPS program: how many times each instruction,
+	 * source line and function is executed, and which loops are hottest.  The profile
+	 * is shown as a report, refreshed while the program runs, and can be saved as folded
+	 * stacks for a flame graph or as the source annotated with execution counts.
+	 * Counting is done by an ExecutionProfile the simulator calls for each instruction.
+	 */
+    public class ExecutionProfiler extends AbstractMarsToolAndApplication {
+   
+      private static String name    = "Execution Profiler";
+      private static String version = "Version 1.0";
+      private static String heading = "Instructions executed by function, loop and source line";
+   
+   	/** Milliseconds between refreshes of the report while connected */
+      public static final int REFRESH_INTERVAL = 1000;
+   
+      private ExecutionProfile profile;
+      private long totalAtRefresh = -1;
+      private Timer refreshTimer;
+      private JTextArea reportArea;
+   
+   	/**
+   	 * Simple constructor, likely used to run a stand-alone profiler.
+   	 * @param title String containing title for title bar
+   	 * @param heading String containing text for heading shown in upper part of window.
+   	 */
+       public ExecutionProfiler(String title, String heading) {
+         super(title, heading);
+      }
+   
+   	/**
+   	 * Simple constructor, likely used by the MARS Tools menu mechanism
+   	 */
+       public ExecutionProfiler() {
+         super(name + ", " + version, heading);
+      }
+   
+   	/**
+   	 * Required method to return Tool name.
+   	 * @return Tool name.  MARS will display this in menu item.
+   	 */
+       public String getName() {
+         return name;
+      }
+   
+       protected void initializePreGUI() {
+         profile = new ExecutionProfile();
+      }
+   
+       protected JComponent buildMainDisplayArea() {
+         JPanel panel = new JPanel(new BorderLayout());
+         reportArea = new JTextArea(24, 80);
+         reportArea.setEditable(false);
+         reportArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+         panel.add(new JScrollPane(reportArea), BorderLayout.CENTER);
+      
+         JButton saveStacks = new JButton("Save Folded Stacks...");
+         saveStacks.setToolTipText("Save the count of each calling context, for flame graph tools");
+         saveStacks.addActionListener(
+                new ActionListener() {
+                   public void actionPerformed(ActionEvent e) {
+                     save(false);
+                  }
+               });
+         JButton saveSource = new JButton("Save Annotated Source...");
+         saveSource.setToolTipText("Save the source with the execution count of each line");
+         saveSource.addActionListener(
+                new ActionListener() {
+                   public void actionPerformed(ActionEvent e) {
+                     save(true);
+                  }
+               });
+         JPanel buttons = new JPanel();
+         buttons.add(saveStacks);
+         buttons.add(saveSource);
+         panel.add(buttons, BorderLayout.SOUTH);
+      
+         refreshTimer = new Timer(REFRESH_INTERVAL, 
+                new ActionListener() {
+                   public void actionPerformed(ActionEvent e) {
+                     updateDisplay();
+                  }
+               });
+         return panel;
+      }
+   
+   	/**
+   	 * Start profiling each instruction executed and refreshing the report.
+   	 */
+       protected void addAsObserver() {
+         Simulator.getInstance().addInstructionListener(profile);
+         refreshTimer.start();
+      }
+   
+   	/**
+   	 * Stop profiling and show the final report.
+   	 */
+       protected void deleteAsObserver() {
+         refreshTimer.stop();
+         Simulator.getInstance().removeInstructionListener(profile);
+         SwingUtilities.invokeLater(
+                new Runnable() {
+                   public void run() {
+                     updateDisplay();
+                  }
+               });
+      }
+   
+   	/**
+   	 * Discard the profile and start again.
+   	 */
+       protected void reset() {
+         synchronized (Globals.memoryAndRegistersLock) {
+            profile.reset();
+         }
+         updateDisplay();
+      }
+   
+   	/**
+   	 * Show the report if anything has been executed since it was last shown.
+   	 */
+       protected void updateDisplay() {
+         String report;
+         synchronized (Globals.memoryAndRegistersLock) {
+            if (profile.getTotal() == totalAtRefresh) {
+               return;
+            }
+            totalAtRefresh = profile.getTotal();
+            report = profile.getReport();
+         }
+         reportArea.setText(report);
+         reportArea.setCaretPosition(0);
+      }
+   
+       protected JComponent getHelpComponent() {
+         final String helpContent = 
+                              "Use this tool to find where a MIPS program spends its time.\n"+
+                              "While connected, it counts each instruction executed and shows:\n"+
+            						"\n"+
+            						"Functions: instructions executed in each function (exclusive) and\n"+
+            						"in it and everything it calls (inclusive), and the number of calls.\n"+
+            						"A function is entered by jal, jalr or a branch-and-link instruction\n"+
+            						"and left by jr to its return address, and is known by its label.\n"+
+            						"Hot loops: the most executed backward branches and jumps, with the\n"+
+            						"instructions executed in the range they enclose.\n"+
+            						"Hot source lines: the most executed lines of the program source.\n"+
+            						"\n"+
+            						"Save Folded Stacks writes one line per calling context, such as\n"+
+            						"main;fib;fib 34, the input format of flame graph tools.\n"+
+            						"Save Annotated Source writes the program source with the execution\n"+
+            						"count of each line; lines of code never executed are marked #####.\n"+
+            						"\n"+
+            						"The same profile is available from the command line with the\n"+
+            						"profile and annotate options.\n";
+         JButton help = new JButton("Help");
+         help.addActionListener(
+                new ActionListener() {
+                   public void actionPerformed(ActionEvent e) {
+                     JOptionPane.showMessageDialog(theWindow, helpContent);
+                  }
+               });
+         return help;
+      }
+   
+   	// Save folded stacks or annotated source to a file chosen by the user.
+       private void save(boolean annotatedSource) {
+         JFileChooser fileChooser = new JFileChooser();
+         fileChooser.setDialogTitle(annotatedSource ? "Save Annotated Source" : "Save Folded Stacks");
+         if (fileChooser.showSaveDialog(theWindow) != JFileChooser.APPROVE_OPTION) {
+            return;
+         }
+         File file = fileChooser.getSelectedFile();
+         try {
+            PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(file)));
+            synchronized (Globals.memoryAndRegistersLock) {
+               if (annotatedSource) {
+                  profile.writeAnnotatedSource(out);
+               } 
+               else {
+                  profile.writeFoldedStacks(out);
+               }
+            }
+            out.close();
+         } 
+             catch (IOException e) {
+               JOptionPane.showMessageDialog(theWindow, "Error writing " + file + ": " + e.getMessage());
+            }
+      }
+   }
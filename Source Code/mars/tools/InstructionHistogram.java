@@ -0,0 +1,190 @@
+   package mars.tools;
+   import mars.*;
+   import mars.mips.hardware.*;
+   import mars.mips.instructions.*;
+   import java.util.*;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+	
+   /**
+	 * Counts executed instructions by basic instruction, for the instruction counting
+	 * tools.  There is one histogram, shared by all tools, which observes the text
+	 * segment while at least one tool uses it.  On each instruction fetch it adds one
+	 * to an array element indexed by the instruction's id; the tools read the array
+	 * a few times per second to update their displays, rather than on every fetch.
+	 * <p>Instruction ids are the positions of the basic instructions in the
+	 * instruction set.  Counts are never cleared, so a tool's count since its own
+	 * reset is the difference from a copy taken at that reset.</p>
+	 */
+    @SuppressWarnings("deprecation")
+    public class InstructionHistogram implements Observer {
+   
+      private static InstructionHistogram histogram;
+   	
+   	// Statements recently fetched, by word address, and their instruction ids.
+      private static final int STATEMENT_CACHE_SIZE = 4096; // power of 2
+   
+      private BasicInstruction[] instructions;
+      private IdentityHashMap<BasicInstruction,Integer> instructionIds;
+      private ProgramStatement[] cachedStatements;
+      private int[] cachedIds;
+      private int[] counts;
+      private int total; // read without synchronization, so views see a recent value
+      private int lastAddress = -1;
+      private int users;
+   
+   	/**
+   	 * The histogram shared by all instruction counting tools.
+   	 * @return the histogram
+   	 */
+       public static synchronized InstructionHistogram getInstance() {
+         if (histogram == null) {
+            histogram = new InstructionHistogram();
+         }
+         return histogram;
+      }
+   
+       private InstructionHistogram() {
+         ArrayList<BasicInstruction> basicInstructions = new ArrayList<BasicInstruction>();
+         ArrayList<?> instructionList = Globals.instructionSet.getInstructionList();
+         for (int i=0; i<instructionList.size(); i++) {
+            if (instructionList.get(i) instanceof BasicInstruction) {
+               basicInstructions.add((BasicInstruction) instructionList.get(i));
+            }
+         }
+         instructions = basicInstructions.toArray(new BasicInstruction[basicInstructions.size()]);
+         instructionIds = new IdentityHashMap<BasicInstruction,Integer>();
+         for (int id=0; id<instructions.length; id++) {
+            instructionIds.put(instructions[id], Integer.valueOf(id));
+         }
+         cachedStatements = new ProgramStatement[STATEMENT_CACHE_SIZE];
+         cachedIds = new int[STATEMENT_CACHE_SIZE];
+         counts = new int[instructions.length];
+      }
+   
+   	/**
+   	 * Start counting on behalf of a tool, observing the text segment if not already.
+   	 * Each call must be matched by a call to removeUser().
+   	 */
+       public synchronized void addUser() {
+         if (users++ == 0) {
+            lastAddress = -1;
+            try {
+               Globals.memory.addObserver(this, Memory.textBaseAddress, Memory.textLimitAddress);
+            } 
+                catch (AddressErrorException aee) {
+                  users--;
+               }
+         }
+      }
+   
+   	/**
+   	 * Stop counting on behalf of a tool.  Observing stops when no tool remains.
+   	 */
+       public synchronized void removeUser() {
+         if (users > 0 && --users == 0) {
+            Globals.memory.deleteObserver(this);
+         }
+      }
+   
+   	/**
+   	 * Count one fetch of an instruction.  Consecutive notices for the same address
+   	 * are counted once, as in the original Instruction Counter tool.
+   	 */
+       public void update(Observable memory, Object accessNotice) {
+         AccessNotice notice = (AccessNotice) accessNotice;
+         if (!notice.accessIsFromMIPS() || notice.getAccessType() != AccessNotice.READ 
+             || !(notice instanceof MemoryAccessNotice)) {
+            return;
+         }
+         int address = ((MemoryAccessNotice) notice).getAddress();
+         if (address == lastAddress) {
+            return;
+         }
+         lastAddress = address;
+         ProgramStatement statement;
+         try {
+            statement = Memory.getInstance().getStatementNoNotify(address);
+         } 
+             catch (AddressErrorException e) {
+               return;
+            }
+         if (statement == null) {
+            return;
+         }
+         int slot = (address >>> 2) & (STATEMENT_CACHE_SIZE - 1);
+         if (cachedStatements[slot] != statement) {
+            Integer id = instructionIds.get(statement.getInstruction());
+            if (id == null) {
+               return;
+            }
+            cachedStatements[slot] = statement;
+            cachedIds[slot] = id.intValue();
+         }
+         counts[cachedIds[slot]]++;
+         total++;
+      }
+   
+   	/**
+   	 * @return number of different basic instructions, one more than the largest id
+   	 */
+       public int getNumberOfInstructions() {
+         return instructions.length;
+      }
+   
+   	/**
+   	 * @param id instruction id, 0 through getNumberOfInstructions()-1
+   	 * @return the basic instruction having that id
+   	 */
+       public BasicInstruction getInstruction(int id) {
+         return instructions[id];
+      }
+   
+   	/**
+   	 * @return total number of instructions counted
+   	 */
+       public int getTotal() {
+         return total;
+      }
+   
+   	/**
+   	 * Copy the current counts.  The simulation may still be running, in which case
+   	 * the copy is a sample of counts that were each correct at some moment during
+   	 * the call.
+   	 * @param sample array to receive the count of each instruction id, or null
+   	 * @return sample, or a new array if sample was null
+   	 */
+       public int[] getCounts(int[] sample) {
+         if (sample == null) {
+            sample = new int[counts.length];
+         }
+         System.arraycopy(counts, 0, sample, 0, counts.length);
+         return sample;
+      }
+   }
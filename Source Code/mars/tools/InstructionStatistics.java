@@ -27,22 +27,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
    package mars.tools;
 
-   import java.awt.GridBagConstraints;
-   import java.awt.GridBagLayout;
-   import java.awt.Insets;
-   import java.util.Observable;
-
-   import javax.swing.JComponent;
-   import javax.swing.JLabel;
-   import javax.swing.JPanel;
-   import javax.swing.JProgressBar;
-   import javax.swing.JTextField;
-
-   import mars.ProgramStatement;
-   import mars.mips.hardware.AccessNotice;
-   import mars.mips.hardware.AddressErrorException;
-   import mars.mips.hardware.Memory;
-   import mars.mips.hardware.MemoryAccessNotice;
+   import mars.mips.instructions.BasicInstruction;
 
 
 /**
@@ -55,7 +40,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  *
  */
    // @SuppressWarnings("serial")
-    public class InstructionStatistics extends AbstractMarsToolAndApplication {
+    public class InstructionStatistics extends AbstractInstructionCounter {
     
    /** name of the tool */
       private static String NAME    = "Instruction Statistics";
@@ -68,9 +53,6 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     
     
     
-    /** number of instruction categories used by this tool */
-      private static final int MAX_CATEGORY = 5;
-    
     /** constant for ALU instructions category */
       private static final int CATEGORY_ALU = 0;
     
@@ -86,38 +68,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     /** constant for any other instruction category */
       private static final int CATEGORY_OTHER = 4;    
    
-        
-    
-    
-    /** text field for visualizing the total number of instructions processed */
-      private JTextField m_tfTotalCounter;
-    
-    /** array of text field - one for each instruction category */    
-      private JTextField m_tfCounters[];
-    
-    /** array of progress pars - one for each instruction category */
-      private JProgressBar m_pbCounters[];
-    
-    
-    /** counter for the total number of instructions processed */
-      private int m_totalCounter = 0;
-   
-    /** array of counter variables - one for each instruction category */
-      private int m_counters[] = new int[MAX_CATEGORY];     
     
     /** names of the instruction categories as array */
-      private String m_categoryLabels[] = { "ALU", "Jump", "Branch", "Memory", "Other" };
+      private String m_categoryLabels[] = { "ALU:   ", "Jump:   ", "Branch:   ", "Memory:   ", "Other:   " };
     
    
-    // From Felipe Lessa's instruction counter.  Prevent double-counting of instructions 
-    // which happens because 2 read events are generated.   
-    /**
-     * The last address we saw. We ignore it because the only way for a
-     * program to execute twice the same instruction is to enter an infinite
-     * loop, which is not insteresting in the POV of counting instructions.
-     */
-      protected int lastAddress = -1;  
-    
    	/**
    	 * Simple constructor, likely used to run a stand-alone enhanced instruction counter.
    	 * @param title String containing title for title bar
@@ -147,64 +102,33 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    
    
    /**
-    * creates the display area for the tool as required by the API
+    * returns the label of the total instruction counter
     * 
-    * @return a panel that holds the GUI of the tool
+    * @return the label
     */
-       protected JComponent buildMainDisplayArea() {
-      
-      // Create GUI elements for the tool
-         JPanel panel = new JPanel(new GridBagLayout());
-      
-         m_tfTotalCounter = new JTextField("0", 10);
-         m_tfTotalCounter.setEditable(false);
-      
-         m_tfCounters = new JTextField[MAX_CATEGORY];
-         m_pbCounters = new JProgressBar[MAX_CATEGORY];
-      
-       // for each category a text field and a progress bar is created
-         for (int i=0; i < InstructionStatistics.MAX_CATEGORY; i++) {
-            m_tfCounters[i] = new JTextField("0", 10);
-            m_tfCounters[i].setEditable(false);
-            m_pbCounters[i] = new JProgressBar(JProgressBar.HORIZONTAL);
-            m_pbCounters[i].setStringPainted(true);
-         }	    
-      
-         GridBagConstraints c = new GridBagConstraints();
-         c.anchor = GridBagConstraints.LINE_START;
-         c.gridheight = c.gridwidth = 1;
-      
-      // create the label and text field for the total instruction counter
-         c.gridx = 2;		
-         c.gridy = 1;
-         c.insets = new Insets(0, 0, 17, 0);
-         panel.add(new JLabel("Total: "), c);		
-         c.gridx = 3;			
-         panel.add(m_tfTotalCounter, c);
-      
-         c.insets = new Insets(3, 3, 3, 3);
-      
-      // create label, text field and progress bar for each category
-         for (int i=0; i < InstructionStatistics.MAX_CATEGORY; i++) {
-            c.gridy++;
-            c.gridx=2;
-            panel.add(new JLabel(m_categoryLabels[i] + ":   "), c);
-            c.gridx=3;
-            panel.add(m_tfCounters[i], c);
-            c.gridx=4;
-            panel.add(m_pbCounters[i], c);	
-         }		 		
-      
-         return panel;
+       protected String getTotalLabel() {
+         return "Total: ";
       }
    
    
    /**
-    * registers the tool as observer for the text segment of the MIPS program
+    * returns the names of the instruction categories, one row of the display each
     * 
+    * @return the category labels
     */
-       protected void addAsObserver() { 
-         addAsObserver(Memory.textBaseAddress, Memory.textLimitAddress);
+       protected String[] getRowLabels() {
+         return m_categoryLabels;
+      }
+   
+   
+   /**
+    * determines the category of an instruction, and so the row it is counted in.
+    * 
+    * @param instr the instruction to categorize
+    * @return the category of the instruction
+    */
+       protected int getRow(BasicInstruction instr) {
+         return getInstructionCategory(instr.getOpcodeMatch());
       }
    
    
@@ -214,7 +138,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     * The instruction is decoded by extracting the operation and function code of the 32-bit instruction. 
     * Only the most relevant instructions are decoded and categorized.
     * 
-    * @param stmt the instruction to decode
+    * @param binaryStatement the instruction to decode
     * @return the category of the instruction
     * @see InstructionStatistics#CATEGORY_ALU
     * @see InstructionStatistics#CATEGORY_JUMP
@@ -222,10 +146,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     * @see InstructionStatistics#CATEGORY_MEM
     * @see InstructionStatistics#CATEGORY_OTHER
     */	
-       protected int getInstructionCategory(ProgramStatement stmt) {
+       protected int getInstructionCategory(int binaryStatement) {
       
-         int opCode = stmt.getBinaryStatement() >>> (32-6);
-         int funct = stmt.getBinaryStatement() & 0x1F;
+         int opCode = binaryStatement >>> (32-6);
+         int funct = binaryStatement & 0x3F;
+         int rt = (binaryStatement >>> 16) & 0x1F; // selects the branch of opcode 0x01
       
          if (opCode == 0x00) {			
             if (funct == 0x00 ) 
@@ -239,9 +164,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             return InstructionStatistics.CATEGORY_OTHER;			
          }
          if (opCode == 0x01) {
-            if (0x00 <= funct && funct <= 0x07) 
+            if (0x00 <= rt && rt <= 0x07) 
                return InstructionStatistics.CATEGORY_BRANCH; // bltz, bgez, bltzl, bgezl
-            if (0x10 <= funct && funct <= 0x13) 
+            if (0x10 <= rt && rt <= 0x13) 
                return InstructionStatistics.CATEGORY_BRANCH; // bltzal, bgezal, bltzall, bgczall
             return InstructionStatistics.CATEGORY_OTHER;
          }
@@ -260,92 +185,4 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       
          return InstructionStatistics.CATEGORY_OTHER;
       }
-   
-   	
-   /**
-    * method that is called each time the MIPS simulator accesses the text segment.
-    * Before an instruction is executed by the simulator, the instruction is fetched from the program memory. 
-    * This memory access is observed and the corresponding instruction is decoded and categorized by the tool.
-    * According to the category the counter values are increased and the display gets updated. 
-    * 
-    * @param resource the observed resource
-    * @param notice signals the type of access (memory, register etc.)
-    */
-       protected void processMIPSUpdate(Observable resource, AccessNotice notice) {
-      		
-         if (!notice.accessIsFromMIPS()) 
-            return;			
-      
-      // check for a read access in the text segment 
-         if (notice.getAccessType() == AccessNotice.READ && notice instanceof MemoryAccessNotice) {
-         
-         // now it is safe to make a cast of the notice
-            MemoryAccessNotice memAccNotice = (MemoryAccessNotice) notice;		
-         
-         // The next three statments are from Felipe Lessa's instruction counter.  Prevents double-counting.			
-            int a = memAccNotice.getAddress();
-            if (a == lastAddress) 
-               return;
-            lastAddress = a;
-         
-            try {
-            
-            // access the statement in the text segment without notifying other tools etc.
-               ProgramStatement stmt = Memory.getInstance().getStatementNoNotify(memAccNotice.getAddress());
-            
-            // necessary to handle possible null pointers at the end of the program 
-            // (e.g., if the simulator tries to execute the next instruction after the last instruction in the text segment) 
-               if (stmt != null) {				
-                  int category = getInstructionCategory(stmt);
-               			
-                  m_totalCounter ++;
-                  m_counters[category] ++;
-                  updateDisplay();					
-               }								
-            } 
-                catch (AddressErrorException e) {			
-               // silently ignore these exceptions
-               }			
-         }			
-      }
-   
-   
-   /**
-    * performs initialization tasks of the counters before the GUI is created.
-    * 
-    */
-       protected void initializePreGUI() {
-         m_totalCounter = 0; 
-			lastAddress = -1; // from Felipe Lessa's instruction counter tool
-         for (int i=0; i < InstructionStatistics.MAX_CATEGORY; i++) 
-            m_counters[i] = 0;		
-      }
-   
-   
-   /**
-    * resets the counter values of the tool and updates the display.
-    * 
-    */
-       protected void reset() {
-         m_totalCounter = 0; 
-			lastAddress = -1; // from Felipe Lessa's instruction counter tool
-         for (int i=0; i < InstructionStatistics.MAX_CATEGORY; i++) 
-            m_counters[i] = 0;		
-         updateDisplay();
-      }
-   
-   
-   /**
-    * updates the text fields and progress bars according to the current counter values.
-    * 
-    */
-       protected void updateDisplay() {
-         m_tfTotalCounter.setText(String.valueOf(m_totalCounter));
-      
-         for (int i=0; i < InstructionStatistics.MAX_CATEGORY; i++) {
-            m_tfCounters[i].setText(String.valueOf(m_counters[i]));
-            m_pbCounters[i].setMaximum(m_totalCounter);
-            m_pbCounters[i].setValue(m_counters[i]);
-         }
-      }
    }
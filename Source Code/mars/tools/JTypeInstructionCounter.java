@@ -26,22 +26,6 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 package mars.tools;
 
-import java.awt.GridBagConstraints;
-import java.awt.GridBagLayout;
-import java.awt.Insets;
-import java.util.Observable;
-
-import javax.swing.JComponent;
-import javax.swing.JLabel;
-import javax.swing.JPanel;
-import javax.swing.JProgressBar;
-import javax.swing.JTextField;
-
-import mars.ProgramStatement;
-import mars.mips.hardware.AccessNotice;
-import mars.mips.hardware.AddressErrorException;
-import mars.mips.hardware.Memory;
-import mars.mips.hardware.MemoryAccessNotice;
 import mars.mips.instructions.BasicInstruction;
 import mars.mips.instructions.BasicInstructionFormat;
 
@@ -57,35 +41,22 @@ import mars.mips.instructions.BasicInstructionFormat;
  *
  */
 // @SuppressWarnings("serial")
-public class JTypeInstructionCounter extends AbstractMarsToolAndApplication {
+public class JTypeInstructionCounter extends AbstractInstructionCounter {
     private static String name = "J-Type Instruction Counter";
     private static String version = "Version 1.0 (Adarsh Kumar)";
     private static String heading = "Counting The Number Of J-Type Instructions Executed";
 
     /**
-     * Total number of J-Type instructions executed until now.
-     */
-    protected int counter = 0;
-    private JTextField counterField;
-
-    /**
+     * Mnemonics of the instructions counted individually, in the order of the
+     * rows of the display.
      * All J-type instructions can be viewed here:
      * https://en.wikibooks.org/wiki/MIPS_Assembly/Instruction_Formats#J_Instructions
      */
-    protected int counterJ = 0;
-    private JTextField counterJField;
-    private JProgressBar progressbarJ;
+    private static final String[] mnemonics = { "j", "jal" };
 
-    protected int counterJAL = 0;
-    private JTextField counterJALField;
-    private JProgressBar progressbarJAL;
-
-    /**
-     * The last address we saw. We ignore it because the only way for a
-     * program to execute twice the same instruction is to enter an infinite
-     * loop, which is not insteresting in the POV of counting instructions.
-     */
-    protected int lastAddress = -1;
+    private static final String[] rowLabels = {
+        "Jump to Address: ",
+        "Jump and Link: " };
 
     /**
      * Simple constructor, likely used to run a stand-alone memory reference
@@ -112,140 +83,25 @@ public class JTypeInstructionCounter extends AbstractMarsToolAndApplication {
     }
 
     // @Override
-    protected JComponent buildMainDisplayArea() {
-        // Create everything
-        JPanel panel = new JPanel(new GridBagLayout());
-
-        counterField = new JTextField("0", 10);
-        counterField.setEditable(false);
-
-        counterJField = new JTextField("0", 10);
-        counterJField.setEditable(false);
-        progressbarJ = new JProgressBar(JProgressBar.HORIZONTAL);
-        progressbarJ.setStringPainted(true);
-
-        counterJALField = new JTextField("0", 10);
-        counterJALField.setEditable(false);
-        progressbarJAL = new JProgressBar(JProgressBar.HORIZONTAL);
-        progressbarJAL.setStringPainted(true);
-
-        // Add them to the panel
-
-        // Fields
-        GridBagConstraints c = new GridBagConstraints();
-        c.anchor = GridBagConstraints.LINE_START;
-        c.gridheight = c.gridwidth = 1;
-        c.gridx = 3;
-        c.gridy = 1;
-        c.insets = new Insets(0, 0, 17, 0);
-        panel.add(counterField, c);
-
-        c.insets = new Insets(0, 0, 0, 0);
-
-        c.gridy++;
-        panel.add(counterJField, c);
-
-        c.gridy++;
-        panel.add(counterJALField, c);
-
-        // Labels
-        c.anchor = GridBagConstraints.LINE_END;
-        c.gridx = 1;
-        c.gridwidth = 2;
-        c.gridy = 1;
-        c.insets = new Insets(0, 0, 17, 0);
-        panel.add(new JLabel("Total J-Type Instructions: "), c);
-
-        c.insets = new Insets(0, 0, 0, 0);
-        c.gridx = 2;
-        c.gridwidth = 1;
-
-        c.gridy++;
-        panel.add(new JLabel("Jump to Address: "), c);
-
-        c.gridy++;
-        panel.add(new JLabel("Jump and Link: "), c);
-
-        // Progress bars
-        c.insets = new Insets(3, 3, 3, 3);
-        c.gridx = 4;
-        c.gridy = 2;
-
-        panel.add(progressbarJ, c);
-
-        c.gridy++;
-        panel.add(progressbarJAL, c);
-
-        return panel;
-    }
-
-    // @Override
-    protected void addAsObserver() {
-        addAsObserver(Memory.textBaseAddress, Memory.textLimitAddress);
+    protected String getTotalLabel() {
+        return "Total J-Type Instructions: ";
     }
 
     // @Override
-    protected void processMIPSUpdate(Observable resource, AccessNotice notice) {
-        if (!notice.accessIsFromMIPS())
-            return;
-        if (notice.getAccessType() != AccessNotice.READ)
-            return;
-        MemoryAccessNotice m = (MemoryAccessNotice) notice;
-        int a = m.getAddress();
-        if (a == lastAddress)
-            return;
-        lastAddress = a;
-        try {
-            ProgramStatement stmt = Memory.getInstance().getStatement(a);
-            BasicInstruction instr = (BasicInstruction) stmt.getInstruction();
-            String _mnemonics = instr.getName().trim();
-
-            if (_mnemonics.equals("j"))
-                counterJ++;
-            else if (_mnemonics.equals("jal"))
-                counterJAL++;
-
-            BasicInstructionFormat format = instr.getInstructionFormat();
-            if (format == BasicInstructionFormat.J_FORMAT)
-                counter++;
-        } catch (AddressErrorException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        }
-        updateDisplay();
+    protected String[] getRowLabels() {
+        return rowLabels;
     }
 
     // @Override
-    protected void initializePreGUI() {
-        counter = counterJ = counterJAL = 0;
-        lastAddress = -1;
-    }
-
-    // @Override
-    protected void reset() {
-        counter = counterJ = counterJAL = 0;
-        lastAddress = -1;
-        updateDisplay();
-    }
-
-    // @Override
-    protected void updateDisplay() {
-        counterField.setText(String.valueOf(counter));
-
-        counterJField.setText(String.valueOf(counterJ));
-        progressbarJ.setMaximum(counter);
-        progressbarJ.setValue(counterJ);
-
-        counterJALField.setText(String.valueOf(counterJAL));
-        progressbarJAL.setMaximum(counter);
-        progressbarJAL.setValue(counterJAL);
-
-        if (counter == 0) {
-            progressbarJ.setString("0%");
-            progressbarJAL.setString("0%");
-        } else {
-            progressbarJ.setString((counterJ * 100) / counter + "%");
-            progressbarJAL.setString((counterJAL * 100) / counter + "%");
+    protected int getRow(BasicInstruction instr) {
+        BasicInstructionFormat format = instr.getInstructionFormat();
+        if (format != BasicInstructionFormat.J_FORMAT)
+            return -1;
+        String _mnemonics = instr.getName().trim();
+        for (int i = 0; i < mnemonics.length; i++) {
+            if (_mnemonics.equals(mnemonics[i]))
+                return i;
         }
+        return -1;
     }
 }
@@ -4,6 +4,7 @@
    import javax.swing.event.*;
    import java.awt.*;
    import java.awt.event.*;
+   import java.awt.image.*;
    import java.util.*;
    import mars.tools.*;
    import mars.mips.hardware.*;
@@ -41,16 +42,23 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 	 * access to the mars package, or through MARS as an item in its Tools menu.  It makes
 	 * maximum use of methods inherited from its abstract superclass AbstractMarsToolAndApplication.
 	 * Pete Sanderson, verison 1.0, 14 November 2006.
+	 * <p>
+	 * Version 1.1 counts references in a flat int array and keeps the display in an image raster,
+	 * colored through a table of precomputed RGB values, so it keeps up with the simulator running
+	 * at full speed.  The display is repainted by a timer at a capped frame rate.  In "recent activity"
+	 * mode the counts decay on every frame, showing where the program is referencing memory now.
+	 * The base address can be typed in, and units can be as large as a 4 KB page or more, so whole 
+	 * heaps and stacks can be watched.
 	 */
     public class MemoryReferenceVisualization extends AbstractMarsToolAndApplication {
    
-      private static String version = "Version 1.0";
+      private static String version = "Version 1.1";
       private static String heading =  "Visualizing memory reference patterns";
    	
    	// Major GUI components
       private JComboBox wordsPerUnitSelector, visualizationUnitPixelWidthSelector, visualizationUnitPixelHeightSelector,
                         visualizationPixelWidthSelector, visualizationPixelHeightSelector, displayBaseAddressSelector;
-      private JCheckBox drawHashMarksSelector;
+      private JCheckBox drawHashMarksSelector, recentActivitySelector;
       private Graphics drawingArea;
       private JPanel canvas;
       private JPanel results;
@@ -62,7 +70,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	
    	// Values for Combo Boxes
    	
-      private final String[] wordsPerUnitChoices  = {"1","2","4","8","16","32","64","128","256","512","1024","2048"};
+      private final String[] wordsPerUnitChoices  = {"1","2","4","8","16","32","64","128","256","512","1024","2048",
+                                                     "4096","16384","65536"};
       private final int defaultWordsPerUnitIndex  = 0;
       private final String[] visualizationUnitPixelWidthChoices  = {"1","2","4","8","16","32"};
       private final int defaultVisualizationUnitPixelWidthIndex  = 4;
@@ -73,6 +82,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private final String[] displayAreaPixelHeightChoices  = {"64","128","256","512","1024"};
       private final int defaultDisplayHeightIndex  = 2;
       private final boolean defaultDrawHashMarks = true;
+      private final boolean defaultRecentActivity = false;
    
       // Values for display canvas.  Note their initialization uses the identifiers just above.
    
@@ -113,6 +123,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	
       private Grid theGrid;
       private CounterColorScale counterColorScale;
+   
+   	/** Milliseconds between display refreshes while connected */
+      public static final int FRAME_INTERVAL = 40;
+   	/** In recent activity mode, each frame removes this fraction (as a right shift) of every count */
+      public static final int DECAY_SHIFT = 3;
+   
+      private javax.swing.Timer frameTimer;
    	         	
    	/**
    	 * Simple constructor, likely used to run a stand-alone memory reference visualizer.
@@ -162,15 +179,25 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 *  "Assemble and Run" button on a Mars-based app.
    	 */
        protected void addAsObserver() {
-         int highAddress = baseAddress+theGrid.getRows()*theGrid.getColumns()*Memory.WORD_LENGTH_BYTES*wordsPerUnit;
-      	// Special case: baseAddress<0 means we're in kernel memory (0x80000000 and up) and most likely
-      	// in memory map address space (0xffff0000 and up).  In this case, we need to make sure the high address
-      	// does not drop off the high end of 32 bit address space.  Highest allowable word address is 0xfffffffc,
-      	// which is interpreted in Java int as -4.
-         if (baseAddress < 0 && highAddress > -4) {
-            highAddress = -4;
-         }
-         addAsObserver(baseAddress, highAddress);
+      	// Computed in long, since a large grid of large units can reach past the 32 bit address space.
+         long highAddress = (baseAddress & 0xFFFFFFFFL) 
+            + (long) theGrid.getRows()*theGrid.getColumns()*Memory.WORD_LENGTH_BYTES*wordsPerUnit;
+      	// The range must not cross from user space into kernel memory (0x80000000 and up), nor drop off
+      	// the high end of the address space, which the memory observer ranges do not allow.  Highest
+      	// allowable word address is 0x7ffffffc in user space and 0xfffffffc, which is -4 as a Java int,
+      	// in kernel memory.
+         highAddress = Math.min(highAddress, (baseAddress < 0) ? 0xfffffffcL : 0x7ffffffcL);
+         addAsObserver(baseAddress, (int) highAddress);
+         frameTimer.start();
+      }
+   
+   	/**
+   	 *  Stop the frame timer and show the counts as they were at disconnection.
+   	 */
+       protected void deleteAsObserver() {
+         super.deleteAsObserver();
+         frameTimer.stop();
+         canvas.repaint();
       }
    
       
@@ -201,7 +228,6 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 */
        protected void processMIPSUpdate(Observable memory, AccessNotice accessNotice) {
          incrementReferenceCountForAddress(((MemoryAccessNotice)accessNotice).getAddress());
-         updateDisplay();
       }
    	
    
@@ -229,6 +255,21 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          wordsPerUnit = getIntComboBoxSelection(wordsPerUnitSelector);
          theGrid = createNewGrid();
          updateBaseAddress();
+         frameTimer = new javax.swing.Timer(FRAME_INTERVAL, 
+                new ActionListener() {
+                   public void actionPerformed(ActionEvent e) {
+                     paintFrame();
+                  }
+               });
+      }
+   
+   	/**
+   	 *  Stop the frame timer when the tool is closed.
+   	 */
+       protected void performSpecialClosingDuties() {
+         if (frameTimer != null) {
+            frameTimer.stop();
+         }
       }
    	
    	
@@ -242,12 +283,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       }
    
    	/**
-   	 *  Updates display immediately after each update (AccessNotice) is processed, after
-   	 *  display configuration changes as needed, and after each execution step when Mars
-   	 *  is running in timed mode.  Overrides inherited method that does nothing.
+   	 *  Updates display after display configuration changes and after each execution step 
+   	 *  when Mars is running in timed mode.  It is also called after each update (AccessNotice)
+   	 *  is processed, but while connected the frame timer repaints the changed region instead,
+   	 *  so those calls do nothing.  Overrides inherited method that does nothing.
    	 */
        protected void updateDisplay() {
-         canvas.repaint();
+         if (frameTimer == null || !frameTimer.isRunning()) {
+            canvas.repaint();
+         }
       }
    
        
@@ -263,9 +307,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 										"MemoryReferenceVisualization object and invoke its go() method.\n"+
 										"\n"+
 										"You can easily learn to use this small program by playing with\n"+
-										"it!  For the best animation, set the MIPS program to run in\n"+
-										"timed mode using the Run Speed slider.  Each rectangular unit\n"+
-										"on the display represents one or more memory words (default 1)\n"+
+										"it!  The display keeps up with the MIPS program running at full\n"+
+										"speed, though timed mode makes the pattern easier to follow.  Each\n"+
+										"rectangular unit on the display represents one or more memory\n"+
+										"words (default 1; 1024 words is a 4 KB page)\n"+
 										"and each time a memory word is accessed by the MIPS program,\n"+
 										"its reference count is incremented then rendered in the color\n"+
 										"assigned to the count value.  You can change the count-color\n"+
@@ -274,6 +319,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 										"This color will apply beginning at the selected count and\n"+
 										"extending up to the next slider-provided count.\n"+
 										"\n"+
+										"Select \"Show recent activity only\" to make the counts decay on\n"+
+										"every display frame, so that only recently referenced memory\n"+
+										"stays lit.  The base address can be chosen from the list or typed\n"+
+										"in as a decimal or hexadecimal (0x...) address.\n"+
+										"\n"+
 										"Contact Pete Sanderson at psanderson@otterbein.edu with\n"+
 										"questions or comments.\n";
          JButton help = new JButton("Help");
@@ -292,16 +342,19 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       	
    	// UI components and layout for left half of GUI, where settings are specified.
        private JComponent buildOrganizationArea() {
-         JPanel organization = new JPanel(new GridLayout(9,1));
+         JPanel organization = new JPanel(new GridLayout(10,1));
       	
          drawHashMarksSelector = new JCheckBox();
          drawHashMarksSelector.setSelected(defaultDrawHashMarks);
          drawHashMarksSelector.addActionListener(
                 new ActionListener() {
                    public void actionPerformed(ActionEvent e) {
-                     updateDisplay();
+                     canvas.repaint();
                   }
                });	
+         recentActivitySelector = new JCheckBox();
+         recentActivitySelector.setSelected(defaultRecentActivity);
+         recentActivitySelector.setToolTipText("Decay reference counts over time so only recent references are shown");
          wordsPerUnitSelector = new JComboBox(wordsPerUnitChoices);
          wordsPerUnitSelector.setEditable(false);
          wordsPerUnitSelector.setBackground(backgroundColor);
@@ -373,10 +426,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   }
                });	      	
          displayBaseAddressSelector = new JComboBox(displayBaseAddressChoices);
-         displayBaseAddressSelector.setEditable(false);
+         displayBaseAddressSelector.setEditable(true);
          displayBaseAddressSelector.setBackground(backgroundColor);
          displayBaseAddressSelector.setSelectedIndex(defaultBaseAddressIndex);
-         displayBaseAddressSelector.setToolTipText("Base address for visualization area (upper left corner)");
+         displayBaseAddressSelector.setToolTipText("Base address for visualization area (upper left corner); select or type one");
          displayBaseAddressSelector.addActionListener(
                 new ActionListener() {
                    public void actionPerformed(ActionEvent e) {
@@ -404,6 +457,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          hashMarksRow.setBorder(emptyBorder);
          hashMarksRow.add(new JLabel("Show unit boundaries (grid marks)"), BorderLayout.WEST);
          hashMarksRow.add(drawHashMarksSelector, BorderLayout.EAST);
+      
+         JPanel recentActivityRow = getPanelWithBorderLayout();
+         recentActivityRow.setBorder(emptyBorder);
+         recentActivityRow.add(new JLabel("Show recent activity only"), BorderLayout.WEST);
+         recentActivityRow.add(recentActivitySelector, BorderLayout.EAST);
       	
          JPanel wordsPerUnitRow = getPanelWithBorderLayout();
          wordsPerUnitRow.setBorder(emptyBorder);
@@ -439,6 +497,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       
       	// Lay 'em out in the grid...
          organization.add(hashMarksRow);
+         organization.add(recentActivityRow);
          organization.add(wordsPerUnitRow);
          organization.add(unitWidthInPixelsRow);
          organization.add(unitHeightInPixelsRow);     
@@ -462,12 +521,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       // the constants defined in the Memory class.  This method called prior to 
       // building the GUI.  Here are current values from Memory.java:
       //textBaseAddress=0x00400000, dataSegmentBaseAddress=0x10000000, globalPointer=0x10008000
-      //dataBaseAddress=0x10010000, heapBaseAddress=0x10040000, memoryMapBaseAddress=0xffff0000	
+      //dataBaseAddress=0x10010000, heapBaseAddress=0x10040000, stackLimitAddress=0x7fbffffc,
+      //kernelDataBaseAddress=0x90000000, memoryMapBaseAddress=0xffff0000	
        private void initializeDisplayBaseChoices() {
          int[] displayBaseAddressArray = {Memory.textBaseAddress, Memory.dataSegmentBaseAddress, Memory.globalPointer, Memory.dataBaseAddress,
-                                          Memory.heapBaseAddress, Memory.memoryMapBaseAddress };
+                                          Memory.heapBaseAddress, (Memory.stackLimitAddress + Memory.WORD_LENGTH_BYTES), 
+                                          Memory.kernelDataBaseAddress, Memory.memoryMapBaseAddress };
       	// Must agree with above in number and order...
-         String[] descriptions =         { " (text)", " (global data)", " ($gp)", " (static data)", " (heap)", " (memory map)" };
+         String[] descriptions =         { " (text)", " (global data)", " ($gp)", " (static data)", " (heap)", " (stack segment)",
+                                           " (kernel data)", " (memory map)" };
          displayBaseAddresses = displayBaseAddressArray;
          displayBaseAddressChoices = new String[displayBaseAddressArray.length];
          for (int i=0; i<displayBaseAddressChoices.length; i++) {
@@ -479,14 +541,27 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	
    	// update based on combo box selection (currently not editable but that may change).
        private void updateBaseAddress() {
-         baseAddress = displayBaseAddresses[displayBaseAddressSelector.getSelectedIndex()];
-      	/*  If you want to extend this app to allow user to edit combo box, you can always
-      	    parse the getSelectedItem() value, because the pre-defined items are all formatted
-      		 such that the first 10 characters contain the integer's hex value.  And if the
-      		 value is user-entered, the numeric part cannot exceed 10 characters for a 32-bit
-      		 address anyway.  So if the value is > 10 characters long, slice off the first
-      		 10 and apply Integer.parseInt() to it to get custom base address.
-      	*/
+         int index = displayBaseAddressSelector.getSelectedIndex();
+         if (index >= 0) {
+            baseAddress = displayBaseAddresses[index];
+            return;
+         }
+      	// User-entered value.  Only its first word is the address, so a pre-defined item that
+      	// has been edited keeps working.  Round down to a word boundary; if it does not parse,
+      	// keep the current base address.  Either way show it as the address alone, which
+      	// will parse to the same value when this listener is notified of the change.
+         String entry = ((String) displayBaseAddressSelector.getSelectedItem()).trim();
+         int blank = entry.indexOf(' ');
+         try {
+            baseAddress = mars.util.Binary.stringToInt((blank < 0) ? entry : entry.substring(0,blank)) 
+                          & ~(Memory.WORD_LENGTH_BYTES-1);
+         } 
+             catch (NumberFormatException nfe) {
+            }
+         String shown = mars.util.Binary.intToHexString(baseAddress);
+         if (!shown.equals(entry)) {
+            displayBaseAddressSelector.setSelectedItem(shown);
+         }
       }
    	
    	 // Returns Dimension object with current width and height of display area as determined
@@ -499,6 +574,19 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        private void resetCounts() {
          theGrid.reset();
       }
+   
+   	// Called by the frame timer: decay the counts in recent activity mode, then paint
+   	// the region whose colors changed since the last frame.
+       private void paintFrame() {
+         if (recentActivitySelector.isSelected()) {
+            theGrid.decay();
+         }
+         Rectangle dirty = theGrid.takeDirtyRegion();
+         if (dirty != null) {
+            canvas.repaint(dirty.x*unitPixelWidth, dirty.y*unitPixelHeight,
+                           dirty.width*unitPixelWidth+1, dirty.height*unitPixelHeight+1);
+         }
+      }
    	
    	// Will return int equivalent of specified combo box's current selection.
    	// The selection must be a String that parses to an int.
@@ -529,12 +617,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 // Given memory address, increment the counter for the corresponding grid element.
    	 // Need to consider words per unit (number of memory words that each visual element represents).
    	 // If address maps to invalid grid element (e.g. is outside the current bounds based on all
-   	 // display settings) then nothing happens.
+   	 // display settings) then nothing happens.  The offset is taken unsigned so that addresses
+   	 // below the base address fall beyond the end of the grid.
        private void incrementReferenceCountForAddress(int address) {
-         int offset = (address - baseAddress)/Memory.WORD_LENGTH_BYTES/wordsPerUnit;
+         long offset = ((address - baseAddress) & 0xFFFFFFFFL) / Memory.WORD_LENGTH_BYTES / wordsPerUnit;
       	// If you care to do anything with it, the following will return -1 if the address
       	// maps outside the dimensions of the grid (e.g. below the base address or beyond end).
-         theGrid.incrementElement(offset / theGrid.getColumns(), offset % theGrid.getColumns());
+         if (offset < theGrid.getSize()) {
+            theGrid.incrementElement((int) offset);
+         }
       }
    	  
    	  
@@ -577,19 +668,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             }
          }
       	
-      	// Paint the color codes for reference counts.
+      	// Paint the color codes for reference counts.  The raster holds one pixel per unit,
+      	// already colored, and is scaled to the unit size.
           private void paintGrid(Graphics g, Grid grid) {
-            int upperLeftX = 0, upperLeftY = 0;
-            for (int i=0; i<grid.getRows(); i++) {
-               for (int j=0; j<grid.getColumns(); j++) {
-                  g.setColor(counterColorScale.getColor(grid.getElementFast(i,j)));
-                  g.fillRect(upperLeftX, upperLeftY, unitPixelWidth, unitPixelHeight); 
-                  upperLeftX += unitPixelWidth;   // faster than multiplying
-               }
-            	// get ready for next row...
-               upperLeftX = 0;
-               upperLeftY += unitPixelHeight;     // faster than multiplying
-            }
+            g.drawImage(grid.getImage(), 0, 0, grid.getColumns()*unitPixelWidth, 
+                        grid.getRows()*unitPixelHeight, null);
          }
       	
           private Color getContrastingColor(Color color) {
@@ -642,6 +725,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                         if (newColor != null && !newColor.equals(counterColorScale.getColor(counterValue))) {
                            counterColorScale.insertOrReplace(new CounterColor(counterValue,newColor));
                            currentColorButton.setBackground(newColor);
+                           theGrid.recolor();
                            updateDisplay();
                         } 
                      }
@@ -685,11 +769,26 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	////////////////////////////////////////////////////////////////////////////////
    	// Object that represents mapping from counter value to color it is displayed as.
    	//
+   	// Counts below LOOKUP_SIZE are colored by table lookup rather than by searching the scale.
        private class CounterColorScale {
+         private static final int LOOKUP_SIZE = 1024;
          CounterColor[] counterColors;
+         int[] rgbLookup = new int[LOOKUP_SIZE];
       	
           CounterColorScale(CounterColor[] colors) {
             counterColors = colors;
+            fillLookup();
+         }
+      
+      	// return RGB value of color associated with specified counter value
+          private int getRGB(int count) {
+            return (count < LOOKUP_SIZE) ? rgbLookup[count] : getColor(count).getRGB();
+         }
+      
+          private void fillLookup() {
+            for (int count=0; count<LOOKUP_SIZE; count++) {
+               rgbLookup[count] = getColor(count).getRGB();
+            }
          }
       
       	// return color associated with specified counter value
@@ -733,6 +832,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                newSortedArray[insertIndex] = newColor; 
                counterColors = newSortedArray;
             }
+            fillLookup();
          }
       }
    	
@@ -762,17 +862,25 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       
    	
       ////////////////////////////////////////////////////////////////////////
-   	// Represents grid of memory access counts
+   	// Represents grid of memory access counts, in row-major order, along with an RGB image
+   	// having one pixel per unit in the color of its count.  Counts are incremented by the
+   	// MIPS thread and decayed, recolored and painted on the GUI thread, hence the locking.
+   	// The dirty region, in units, covers every pixel changed since it was last taken.
        private class Grid {
       
-         int[][] grid;
+         int[] counts;
+         BufferedImage image;
+         int[] pixels;
          int rows, columns;
+         int dirtyMinRow, dirtyMinColumn, dirtyMaxRow, dirtyMaxColumn; 
       	 		  
           private Grid(int rows, int columns) {
-            grid = new int[rows][columns];
+            counts = new int[rows*columns];
+            image = new BufferedImage(Math.max(columns,1), Math.max(rows,1), BufferedImage.TYPE_INT_RGB);
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
             this.rows = rows;
             this.columns = columns;
-          // automatically initialized to 0, so I won't bother to....
+            recolor();
          }
        
           private int getRows() {
@@ -783,32 +891,90 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             return columns;
          }
       
-      	// Returns value in given grid element; -1 if row or column is out of range.			
-          private int getElement(int row, int column) {
-            return (row>=0 && row<=rows && column>=0 && column<=columns) ? grid[row][column] : -1;			
+          private int getSize() {
+            return counts.length;
          }
       
-      	// Returns value in given grid element without doing any row/column index checking.
-      	// Is faster than getElement but will throw array index out of bounds exception if
-      	// parameter values are outside the bounds of the grid.			
-          private int getElementFast(int row, int column) {
-            return grid[row][column];			
+          private Image getImage() {
+            return image;
          }
       	      	
       	// Increment the given grid element and return incremented value.
-      	// Returns -1 if row or column is out of range.
-          private int incrementElement(int row, int column) {
-            return (row>=0 && row<=rows && column>=0 && column<=columns) ? ++grid[row][column] : -1;
+      	// Returns -1 if index is out of range.
+          private synchronized int incrementElement(int index) {
+            if (index < 0 || index >= counts.length) {
+               return -1;
+            }
+            int count = ++counts[index];
+            int rgb = counterColorScale.getRGB(count);
+            if (pixels[index] != rgb) {
+               pixels[index] = rgb;
+               int row = index / columns;
+               int column = index - row*columns;
+               markDirty(row, column, row, column);
+            }
+            return count;
          }
-      	
-      	// Just set all grid elements to 0.
-          private void reset() {
-            for (int i=0; i<rows; i++) {
-               for (int j=0; j<columns; j++) {
-                  grid[i][j] = 0;
+      
+      	// Remove 1/2^DECAY_SHIFT of every count, rounding up so that counts reach zero.
+          private synchronized void decay() {
+            boolean changed = false;
+            for (int i=0; i<counts.length; i++) {
+               int count = counts[i];
+               if (count != 0) {
+                  count -= (count + (1<<DECAY_SHIFT) - 1) >> DECAY_SHIFT;
+                  counts[i] = count;
+                  int rgb = counterColorScale.getRGB(count);
+                  if (pixels[i] != rgb) {
+                     pixels[i] = rgb;
+                     changed = true;
+                  }
                }
             }
+            if (changed) {
+               markDirty(0, 0, rows-1, columns-1);
+            }
          }
-      }  	
-   
-   }
\ No newline at end of file
+      
+      	// Recompute every unit's color, after the color scale has changed.
+          private synchronized void recolor() {
+            for (int i=0; i<counts.length; i++) {
+               pixels[i] = counterColorScale.getRGB(counts[i]);
+            }
+            markDirty(0, 0, rows-1, columns-1);
+         }
+      
+      	// Returns the region, in units, to repaint and clears it; null if nothing changed.
+          private synchronized Rectangle takeDirtyRegion() {
+            if (dirtyMaxRow < dirtyMinRow) {
+               return null;
+            }
+            Rectangle dirty = new Rectangle(dirtyMinColumn, dirtyMinRow,
+                                            dirtyMaxColumn-dirtyMinColumn+1, dirtyMaxRow-dirtyMinRow+1);
+            dirtyMinRow = dirtyMinColumn = Integer.MAX_VALUE;
+            dirtyMaxRow = dirtyMaxColumn = -1;
+            return dirty;
+         }
+      
+          private void markDirty(int minRow, int minColumn, int maxRow, int maxColumn) {
+            if (dirtyMaxRow < dirtyMinRow) {
+               dirtyMinRow = minRow;
+               dirtyMinColumn = minColumn;
+               dirtyMaxRow = maxRow;
+               dirtyMaxColumn = maxColumn;
+            } 
+            else {
+               dirtyMinRow = Math.min(dirtyMinRow, minRow);
+               dirtyMinColumn = Math.min(dirtyMinColumn, minColumn);
+               dirtyMaxRow = Math.max(dirtyMaxRow, maxRow);
+               dirtyMaxColumn = Math.max(dirtyMaxColumn, maxColumn);
+            }
+         }
+      	
+      	// Just set all grid elements to 0.
+          private synchronized void reset() {
+            Arrays.fill(counts, 0);
+            recolor();
+         }
+      }
+   }
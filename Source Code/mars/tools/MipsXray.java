@@ -17,6 +17,7 @@ import java.awt.Image;
 import java.awt.MouseInfo;
 import java.awt.Point;
 import java.awt.PointerInfo;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
@@ -31,7 +32,10 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Observable;
 import java.util.Vector;
 
@@ -92,6 +96,9 @@ public class MipsXray extends AbstractMarsToolAndApplication{
     private VenusUI mainUI;
     private JToolBar toolbar;
     private Timer time;
+    private String pendingInstruction; //latest instruction waiting to be animated, guarded by this
+    
+    private static BufferedImage datapathImage; //shared by all animations, see getDatapathImage
     
     public MipsXray(String title, String heading) {
         super(title,heading);
@@ -255,15 +262,26 @@ public class MipsXray extends AbstractMarsToolAndApplication{
    			
    			instr = (BasicInstruction) stmt.getInstruction();
    			instructionBinary = stmt.getMachineStatement();
-   			BasicInstructionFormat format = instr.getInstructionFormat();
    			
-   			painel.removeAll();
-   			datapathAnimation = new DatapathAnimation(instructionBinary);
-   			this.createActionObjects();
-   			toolbar= this.setUpToolBar();
-   			painel.add(toolbar, BorderLayout.NORTH);
-   			painel.add(datapathAnimation, BorderLayout.WEST);
-   			datapathAnimation.startAnimation(instructionBinary );
+   			//the animation is replaced on the event dispatch thread. If the simulator gets ahead of it, 
+   			//only the latest instruction is animated.
+   			boolean scheduled;
+   			synchronized (this) {
+   				scheduled = (pendingInstruction != null);
+   				pendingInstruction = instructionBinary;
+   			}
+   			if (!scheduled) {
+   				SwingUtilities.invokeLater(new Runnable() {
+   					public void run() {
+   						String binary;
+   						synchronized (MipsXray.this) {
+   							binary = pendingInstruction;
+   							pendingInstruction = null;
+   						}
+   						showAnimation(binary);
+   					}
+   				});
+   			}
 
    		} catch (AddressErrorException e) {
    			e.printStackTrace();
@@ -271,6 +289,19 @@ public class MipsXray extends AbstractMarsToolAndApplication{
    		
    		
    	}
+   	
+   	//replace the animation of the previous instruction, if any, by that of the given one.
+   	private void showAnimation(String binary) {
+   		if (datapathAnimation != null) {
+   			datapathAnimation.stopAnimation();
+   		}
+   		painel.removeAll();
+   		datapathAnimation = new DatapathAnimation(binary);
+   		painel.add(toolbar, BorderLayout.NORTH);
+   		painel.add(datapathAnimation, BorderLayout.WEST);
+   		painel.validate();
+   		datapathAnimation.startAnimation(binary);
+   	}
 
    	public void updateDisplay(){
    		this.repaint();
@@ -321,6 +352,126 @@ public class MipsXray extends AbstractMarsToolAndApplication{
            }
        }
 
+       //datapath image for the animations, read once.
+       private static synchronized BufferedImage getDatapathImage(GraphicsConfiguration gc) {
+    	   if (datapathImage == null) {
+    		   try {
+    			   BufferedImage im =  ImageIO.read( 
+    					   MipsXray.class.getResource(Globals.imagesPath+"datapath.png") );
+    			   int transparency = im.getColorModel().getTransparency();
+    			   datapathImage =  gc.createCompatibleImage(
+    					   im.getWidth(), im.getHeight(),
+    					   transparency );
+    			   Graphics2D g2d = datapathImage.createGraphics();
+    			   g2d.drawImage(im,0,0,null);
+    			   g2d.dispose();
+    		   } 
+    		   catch(IOException e) {
+    			   System.out.println("Load Image error for " +
+    					   MipsXray.class.getResource(Globals.imagesPath+"datapath.png") + ":\n" + e); 
+    		   }
+    	   }
+    	   return datapathImage;
+       }
+
+//Datapath of the animation as read from MipsXRayOpcode.xml: the mnemonic tables, and the attributes of
+//each vertex with its color for each type of instruction. The file is parsed once, the first time it is
+//needed, and the map is shared by all animations and never changed; each animation creates its own
+//Vertex objects from it to hold the state of the animation.
+static class DatapathMap {
+	private static DatapathMap instance;
+	private static final String[] COLOR_TAGS = { "color_Rtype", "color_Jtype", "color_LOADtype", 
+												"color_STOREtype", "color_BRANCHtype", "color_Itype" };
+	
+	final Map<String, String> opcodes, functions, registers;
+	private final ArrayList<String[]> vertices = new ArrayList<String[]>(); //text of each vertex's elements, by tag below
+	private static final String[] VERTEX_TAGS = { "num_vertex", "name", "init", "end", "other_axis", 
+												"isMovingXaxis", "target_vertex", "is_text" };
+	
+	static synchronized DatapathMap getInstance() {
+		if (instance == null)
+			instance = new DatapathMap("/MipsXRayOpcode.xml");
+		return instance;
+	}
+	
+	private DatapathMap(String xmlName) {
+		HashMap<String, String> opcodeTable = new HashMap<String, String>();
+		HashMap<String, String> functionTable = new HashMap<String, String>();
+		HashMap<String, String> registerTable = new HashMap<String, String>();
+		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+		dbf.setNamespaceAware(false);
+		try {
+			DocumentBuilder docBuilder = dbf.newDocumentBuilder();
+			Document doc = docBuilder.parse(MipsXray.class.getResource(xmlName).toString());
+			Element root = doc.getDocumentElement();
+			readTable(root, opcodeTable, "equivalence");
+			readTable(root, functionTable, "function_equivalence");
+			readTable(root, registerTable, "register_equivalence");
+			NodeList datapath_mapList = root.getElementsByTagName("datapath_map");
+			for(int i = 0; i < datapath_mapList.getLength(); i++){
+				Element datapath_mapItem =  (Element)datapath_mapList.item(i);
+				NodeList[] elements = new NodeList[VERTEX_TAGS.length + COLOR_TAGS.length];
+				for(int k = 0; k < VERTEX_TAGS.length; k++)
+					elements[k] = datapath_mapItem.getElementsByTagName(VERTEX_TAGS[k]);
+				for(int k = 0; k < COLOR_TAGS.length; k++)
+					elements[VERTEX_TAGS.length + k] = datapath_mapItem.getElementsByTagName(COLOR_TAGS[k]);
+				for(int j= 0; j < elements[0].getLength(); j++){
+					String[] vertex = new String[elements.length];
+					for(int k = 0; k < elements.length; k++)
+						vertex[k] = (j < elements[k].getLength()) ? elements[k].item(j).getTextContent() : null;
+					vertices.add(vertex);
+				}
+			}
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+		}
+		opcodes = Collections.unmodifiableMap(opcodeTable);
+		functions = Collections.unmodifiableMap(functionTable);
+		registers = Collections.unmodifiableMap(registerTable);
+	}
+	
+	//read the bits and mnemonic pairs of the given elements into the table.
+	private static void readTable(Element root, HashMap<String, String> table, String elementTree) {
+		NodeList equivalenceList = root.getElementsByTagName(elementTree);
+		for(int i = 0; i < equivalenceList.getLength(); i++){
+			Element equivalenceItem =  (Element)equivalenceList.item(i);
+			NodeList bitsList = equivalenceItem.getElementsByTagName("bits");
+			NodeList mnemonic = equivalenceItem.getElementsByTagName("mnemonic");
+			for(int j= 0; j < bitsList.getLength(); j++){
+				table.put(bitsList.item(j).getTextContent(),mnemonic.item(j).getTextContent());
+			}
+		}
+	}
+	
+	int getNumberOfVertices() {
+		return vertices.size();
+	}
+	
+	//text of the element of a vertex named by the given tag of VERTEX_TAGS.
+	String get(int vertex, String tag) {
+		return vertices.get(vertex)[Arrays.asList(VERTEX_TAGS).indexOf(tag)];
+	}
+	
+	//color of a vertex for an instruction, as "red#green#blue". The color depends on the instruction type.
+	String getColor(int vertex, String instructionCode) {
+		String opcode = instructionCode.substring(0,6);
+		int type;
+		if(opcode.equals("000000")) //R-type instructions
+			type = 0;
+		else if(opcode.matches("00001[0-1]")) //J-type instructions
+			type = 1;
+		else if(opcode.matches("100[0-1][0-1][0-1]")) //LOAD type instructions
+			type = 2;
+		else if(opcode.matches("101[0-1][0-1][0-1]")) //STORE type instructions
+			type = 3;
+		else if(opcode.matches("0001[0-1][0-1]")) //BRANCH type instructions
+			type = 4;
+		else //immediate type instructions
+			type = 5;
+		return vertices.get(vertex)[VERTEX_TAGS.length + type];
+	}
+}
 
 class Vertex {
 	private int numIndex;
@@ -487,9 +638,9 @@ class DatapathAnimation extends JPanel
 	 private ArrayList<Vertex> vertexTraversed;
 	 //Screen Label variables
 	 
-	 private HashMap<String, String> opcodeEquivalenceTable;
-	 private HashMap<String, String> functionEquivalenceTable;
-	 private HashMap<String, String> registerEquivalenceTable;
+	 private Map<String, String> opcodeEquivalenceTable;
+	 private Map<String, String> functionEquivalenceTable;
+	 private Map<String, String> registerEquivalenceTable;
 
 	 private String instructionCode;
 	 
@@ -514,6 +665,15 @@ class DatapathAnimation extends JPanel
 	 
 	 
 	 private BufferedImage datapath;
+	 
+	 //the datapath with the instruction information and the tracks drawn so far. Only the tracks
+	 //being animated are drawn each tick, and only the rectangle they cover is repainted.
+	 private BufferedImage frame;
+	 private Timer timer;
+	 private static final int FRAME_PERIOD = 20;		//ms between frames
+	 private static final int STEPS_PER_FRAME = 4;		//track advances by a point each step (PERIOD ms)
+	 private Font textFont = new Font("Verdana", Font.BOLD, 13);
+	 private HashMap<Vertex, TextLayout> textLayouts = new HashMap<Vertex, TextLayout>();
 
 	 public void mousePressed(MouseEvent e) {
 		 	PointerInfo a = MouseInfo.getPointerInfo();
@@ -539,11 +699,6 @@ class DatapathAnimation extends JPanel
 		 justStarted = true;
 		 instructionCode = instructionBinary;
 		 
-		 //declaration of labels definition.
-		 opcodeEquivalenceTable = new  HashMap<String, String>();
-		 functionEquivalenceTable = new  HashMap<String, String>();
-		 registerEquivalenceTable = new  HashMap<String, String>();
-		 
 		 countRegLabel = 400;
 		 countALULabel = 380;
 		 countPCLabel = 380;
@@ -554,123 +709,38 @@ class DatapathAnimation extends JPanel
 
 	 } // end of ImagesTests()
 
-	 //set the binnary opcode value of the basic instructions of MIPS instruction set
+	 //set the binnary opcode value of the basic instructions of MIPS instruction set, and the vertex of the datapath,
+	 //from the shared datapath map.
 	 public void loadHashMapValues(){
-		 importXmlStringData("/MipsXRayOpcode.xml",opcodeEquivalenceTable, "equivalence",  "bits", "mnemonic");
-		 importXmlStringData("/MipsXRayOpcode.xml", functionEquivalenceTable, "function_equivalence",  "bits", "mnemonic");
-		 importXmlStringData("/MipsXRayOpcode.xml", registerEquivalenceTable, "register_equivalence",  "bits", "mnemonic");
-	 	 importXmlDatapathMap("/MipsXRayOpcode.xml", "datapath_map"); 
-	 }
-	 
-	 //import the list of opcodes of mips set of instructions
-	 public void importXmlStringData(String xmlName, HashMap table, String elementTree, String tagId, String tagData){
-		 	DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-			dbf.setNamespaceAware(false);
-			DocumentBuilder docBuilder;
-			try {
-				//System.out.println();
-				docBuilder = dbf.newDocumentBuilder();
-				Document doc = docBuilder.parse(getClass().getResource(xmlName).toString());
-				Element root = doc.getDocumentElement();
-				Element equivalenceItem;
-				NodeList bitsList,  mnemonic;
-				NodeList equivalenceList = root.getElementsByTagName(elementTree);
-				for(int i = 0; i < equivalenceList.getLength(); i++){
-					equivalenceItem =  (Element)equivalenceList.item(i);
-					bitsList = equivalenceItem.getElementsByTagName(tagId);
-					mnemonic = equivalenceItem.getElementsByTagName(tagData);
-					for(int j= 0; j < bitsList.getLength(); j++){
-						table.put(bitsList.item(j).getTextContent(),mnemonic.item(j).getTextContent());
-					}
-				}
-			}
-			 catch (Exception e) {
-					e.printStackTrace();
-				}
-	 }
-	 
-	 //import the parameters of the animation on datapath
-	 public void importXmlDatapathMap(String xmlName, String elementTree){
-		 DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-			dbf.setNamespaceAware(false);
-			DocumentBuilder docBuilder;
-			try {
-				docBuilder = dbf.newDocumentBuilder();
-				Document doc = docBuilder.parse(getClass().getResource(xmlName).toString());
-				Element root = doc.getDocumentElement();
-				Element datapath_mapItem;
-				NodeList index_vertex,  name, init, end,color, other_axis, isMovingXaxis, targetVertex, sourceVertex, isText ;
-					NodeList datapath_mapList = root.getElementsByTagName(elementTree);
-				for(int i = 0; i < datapath_mapList.getLength(); i++){ //extract the vertex of the xml input and encapsulate into the vertex object
-					datapath_mapItem =  (Element)datapath_mapList.item(i);
-					index_vertex = datapath_mapItem.getElementsByTagName("num_vertex");
-					name = datapath_mapItem.getElementsByTagName("name");
-					init = datapath_mapItem.getElementsByTagName("init");
-					end = datapath_mapItem.getElementsByTagName("end");
-					//definition of colors line 
-					if(instructionCode.substring(0,6).equals("000000")){//R-type instructions
-						color = datapath_mapItem.getElementsByTagName("color_Rtype"); 
-						//System.out.println("rtype");
-					}
-					else if(instructionCode.substring(0,6).matches("00001[0-1]")){ //J-type instructions
-						color = datapath_mapItem.getElementsByTagName("color_Jtype"); 
-						//System.out.println("jtype");
-					}
-					else if(instructionCode.substring(0,6).matches("100[0-1][0-1][0-1]")){ //LOAD type instructions
-						color = datapath_mapItem.getElementsByTagName("color_LOADtype");
-						//System.out.println("load type");
-					}
-					else if(instructionCode.substring(0,6).matches("101[0-1][0-1][0-1]")){ //LOAD type instructions
-						color = datapath_mapItem.getElementsByTagName("color_STOREtype");
-						//System.out.println("store type");
-					}
-					else if(instructionCode.substring(0,6).matches("0001[0-1][0-1]")){ //BRANCH type instructions
-						color = datapath_mapItem.getElementsByTagName("color_BRANCHtype");
-						//System.out.println("branch type");
-					}
-					else{ //BRANCH type instructions
-						color = datapath_mapItem.getElementsByTagName("color_Itype");
-						//System.out.println("immediate type");
-					}
-					
-					other_axis = datapath_mapItem.getElementsByTagName("other_axis");
-					isMovingXaxis = datapath_mapItem.getElementsByTagName("isMovingXaxis");
-					targetVertex = datapath_mapItem.getElementsByTagName("target_vertex");
-					isText = datapath_mapItem.getElementsByTagName("is_text");
-					
-					for(int j= 0; j < index_vertex.getLength(); j++){
-						Vertex vert = new Vertex(Integer.parseInt(index_vertex.item(j).getTextContent()), Integer.parseInt(init.item(j).getTextContent()),
-								Integer.parseInt(end.item(j).getTextContent()), name.item(j).getTextContent(), Integer.parseInt(other_axis.item(j).getTextContent()),
-								Boolean.parseBoolean(isMovingXaxis.item(j).getTextContent()), color.item(j).getTextContent(), targetVertex.item(j).getTextContent(), Boolean.parseBoolean(isText.item(j).getTextContent()));
-						vertexList.add(vert);
-					}
-				}
-				//loading matrix of control of vertex.
-				outputGraph = new Vector<Vector<Vertex>>();
-				vertexTraversed = new ArrayList<Vertex>();
-				int size = vertexList.size();
-				Vertex vertex;
-				ArrayList<Integer> targetList;
-				for(int i = 0; i < vertexList.size(); i++){
-					vertex = vertexList.get(i);
-					targetList = vertex.getTargetVertex();
-					Vector<Vertex> vertexOfTargets = new Vector<Vertex>();
-					for(int k = 0; k < targetList.size(); k++){
-						vertexOfTargets.add(vertexList.get(targetList.get(k)));
-					}
-					outputGraph.add(vertexOfTargets); 	
-				}
-				for(int i=0; i< outputGraph.size(); i++){
-					Vector<Vertex> vert = outputGraph.get(i);
-				}
-				
-				vertexList.get(0).setActive(true);
-				vertexTraversed.add(vertexList.get(0));
-			}
-			 catch (Exception e) {
-					e.printStackTrace();
-				}
-			
+		 DatapathMap map = DatapathMap.getInstance();
+		 opcodeEquivalenceTable = map.opcodes;
+		 functionEquivalenceTable = map.functions;
+		 registerEquivalenceTable = map.registers;
+		 try {
+			 for(int j= 0; j < map.getNumberOfVertices(); j++){
+				 Vertex vert = new Vertex(Integer.parseInt(map.get(j, "num_vertex")), Integer.parseInt(map.get(j, "init")),
+						 Integer.parseInt(map.get(j, "end")), map.get(j, "name"), Integer.parseInt(map.get(j, "other_axis")),
+						 Boolean.parseBoolean(map.get(j, "isMovingXaxis")), map.getColor(j, instructionCode), 
+						 map.get(j, "target_vertex"), Boolean.parseBoolean(map.get(j, "is_text")));
+				 vertexList.add(vert);
+			 }
+			 //loading matrix of control of vertex.
+			 outputGraph = new Vector<Vector<Vertex>>();
+			 vertexTraversed = new ArrayList<Vertex>();
+			 for(int i = 0; i < vertexList.size(); i++){
+				 ArrayList<Integer> targetList = vertexList.get(i).getTargetVertex();
+				 Vector<Vertex> vertexOfTargets = new Vector<Vertex>();
+				 for(int k = 0; k < targetList.size(); k++){
+					 vertexOfTargets.add(vertexList.get(targetList.get(k)));
+				 }
+				 outputGraph.add(vertexOfTargets); 	
+			 }
+			 vertexList.get(0).setActive(true);
+			 vertexTraversed.add(vertexList.get(0));
+		 }
+		 catch (Exception e) {
+			 e.printStackTrace();
+		 }
 	 } 
 	 
 	 //Set up the information showed in the screen of the current instruction.
@@ -1101,63 +1171,66 @@ class DatapathAnimation extends JPanel
 	 
 	 
 	//set the initial state of the variables that controls the animation, and start the timer that triggers the animation. 
+	 //The datapath and the information of the instruction, which do not change, are drawn once into the frame.
 	 public void startAnimation(String codeInstruction){
 	 	instructionCode = codeInstruction;
-	 	time = new Timer(PERIOD, this);    // start timer
-	 	time.start();
-	// 	this.repaint();
+	 	frame = gc.createCompatibleImage(PWIDTH, PHEIGHT);
+	 	g2d = frame.createGraphics();
+	 	g2d.setColor(getBackground());
+	 	g2d.fillRect(0, 0, PWIDTH, PHEIGHT);
+	 	g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+	 	drawImage(g2d, datapath, 0,0,null);
+	 	setUpInstructionInfo(g2d);
+	 	timer = new Timer(FRAME_PERIOD, this);    // start timer
+	 	timer.start();
+	 	repaint();
+	 }
+	 
+	 //stop the timer, if the animation has not already finished.
+	 public void stopAnimation(){
+		 if (timer != null)
+			 timer.stop();
 	 }
 	 
 	 //initialize the image of datapath.
 	 private void initImages(){
-		 try {
-			 BufferedImage im =  ImageIO.read( 
-					 getClass().getResource(Globals.imagesPath+"datapath.png") );
-
-			 int transparency = im.getColorModel().getTransparency();
-			 datapath =  gc.createCompatibleImage(
-					 im.getWidth(), im.getHeight(),
-					 transparency );
-			 g2d = datapath.createGraphics();
-			 g2d.drawImage(im,0,0,null);
-			 g2d.dispose();
-		 } 
-		 catch(IOException e) {
-			 System.out.println("Load Image error for " +
-					 getClass().getResource(Globals.imagesPath+"datapath.png") + ":\n" + e); 
-		 }
+		 datapath = getDatapathImage(gc);
 	 } 
 
 	 
 	 public void actionPerformed(ActionEvent e)
-	 // triggered by the timer: update, repaint
+	 // triggered by the timer: advance the tracks being animated, and repaint the region they cover.
+	 // The timer stops when no track is left to animate.
 	 { 
 		 if (justStarted)   
 			 justStarted = false;
-		 if(xIsMoving)
-			 indexX++;
-		 if(yIsMoving)
-			 indexY--;
-		 repaint(); 
+		 Rectangle dirty = new Rectangle();
+		 for(int step = 0; step < STEPS_PER_FRAME; step++)
+			 dirty = executeAnimation(dirty);
+		 if (dirty.isEmpty()){
+			 timer.stop();
+			 redrawTracks();
+			 repaint();
+		 }
+		 else
+			 repaint(dirty.x, dirty.y, dirty.width, dirty.height); 
 	 } 
 
 
 	 public void paintComponent(Graphics g)
 	 {
 		 super.paintComponent(g);
-		 g2d = (Graphics2D)g; 
-		 // use antialiasing
-		 g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+		 Graphics2D g2 = (Graphics2D)g; 
+		 if (frame != null)
+			 g2.drawImage(frame, 0, 0, this);
+		 // text moving along the datapath is drawn over the frame, so it leaves no trail.
+		 g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
 				 RenderingHints.VALUE_ANTIALIAS_ON);
-		 // smoother (and slower) image transformations  (e.g. for resizing)
-		 g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
-				 RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-		 g2d = (Graphics2D)g;
-		 drawImage(g2d, datapath, 0,0,null);
-		 executeAnimation(g);
-		 counter = (counter + 1)% 100;
-		 g2d.dispose();
-		 
+		 g2.setColor(Color.RED);
+		 for(Vertex v : vertexTraversed){
+			 if(v.isText == true && v.isActive() == true)
+				 getTextLayout(v).draw(g2, v.getOppositeAxis(), v.getCurrent());
+		 }
 	 } 
 
 	 private void drawImage(Graphics2D g2d, BufferedImage im, int x, int y,Color c){ 
@@ -1308,42 +1381,79 @@ class DatapathAnimation extends JPanel
 		 }
 	 }
 	
+	 //advance text that moves along the datapath. It is drawn by paintComponent.
 	 public void printTextDtoU(Vertex v){	 
-		 int size;
-		 int[] track;
+		 if(v.isActive() == true){
+			 v.setFirst_interaction(false);		 
+			 if (v.getCurrent() == v.getEnd())
+				 v.setActive(false);
+			 v.setCurrent(v.getCurrent()-1);	
+		 }
+	 }
+	 
+	 //text shown by a text vertex for the current instruction.
+	 private TextLayout getTextLayout(Vertex v){
+		 TextLayout actionInFunctionalBlock = textLayouts.get(v);
+		 if (actionInFunctionalBlock != null)
+			 return actionInFunctionalBlock;
 		 FontRenderContext frc = g2d.getFontRenderContext();
-		 
-		 TextLayout actionInFunctionalBlock = new TextLayout(v.getName(), new Font("Verdana", Font.BOLD, 13), frc);
-		 g2d.setColor(Color.RED);
-		
+		 String text = v.getName();
 		 if(instructionCode.substring(0,6).matches("101[0-1][0-1][0-1]")
 				 &&!instructionCode.substring(0,6).matches("0001[0-1][0-1]")
 				 	&&!instructionCode.substring(0,6).matches("00001[0-1]")){//load instruction
-			 actionInFunctionalBlock = new TextLayout(" ", new Font("Verdana", Font.BOLD, 13), frc);
+			 text = " ";
 		 }
 		 if(v.getName().equals("ALUVALUE")){
 			 if( instructionCode.substring(0,6).equals("000000"))//R-type instruction
-				 actionInFunctionalBlock = new TextLayout(functionEquivalenceTable.get(instructionCode.substring(26,32)), new Font("Verdana", Font.BOLD, 13), frc);
+				 text = functionEquivalenceTable.get(instructionCode.substring(26,32));
 			else //other instructions 
-				actionInFunctionalBlock  = new TextLayout(opcodeEquivalenceTable.get(instructionCode.substring(0,6)), new Font("Verdana", Font.BOLD, 13), frc);
+				text = opcodeEquivalenceTable.get(instructionCode.substring(0,6));
 		 }
 		 
 		 if(instructionCode.substring(0,6).matches("0001[0-1][0-1]")&& v.getName().equals("CP+4")) //branch code
-			 actionInFunctionalBlock = new TextLayout("PC+OFFSET", new Font("Verdana", Font.BOLD, 13), frc);
+			 text = "PC+OFFSET";
 		 
 		 if(v.getName().equals("WRITING")){
 			 if(!instructionCode.substring(0,6).matches("100[0-1][0-1][0-1]"))
-				 actionInFunctionalBlock = new TextLayout(" ", new Font("Verdana", Font.BOLD, 13), frc); 
+				 text = " ";
 		 }
-		 if(v.isActive() == true){
-			 v.setFirst_interaction(false);		 
-			 actionInFunctionalBlock.draw(g2d, v.getOppositeAxis(), v.getCurrent());	
-			 if (v.getCurrent() == v.getEnd())
-				 v.setActive(false);
-			 v.setCurrent(v.getCurrent()-1);	
+		 actionInFunctionalBlock = new TextLayout(text, textFont, frc);
+		 textLayouts.put(v, actionInFunctionalBlock);
+		 return actionInFunctionalBlock;
+	 }
+	 
+	 //draw all tracks again in the order they were reached, so that where tracks cross, the one reached
+	 //last is on top.
+	 private void redrawTracks(){
+		 for(Vertex v : vertexTraversed){
+			 if(v.isText == true)
+				 continue;
+			 if(v.isMovingXaxis == true){
+				 if(v.getDirection() == v.movingLeft)
+					 printTrackLtoR(v);
+				 else
+					 printTrackRtoL(v);
+			 }
+			 else if(v.getDirection() == v.movingDownside)
+				 printTrackDtoU(v);
+			 else
+				 printTrackUtoD(v);
 		 }
-
-
+	 }
+	 
+	 //region of the panel that changes when a vertex advances: its track, or its text before and after moving.
+	 private Rectangle getBounds(Vertex v){
+		 if(v.isText == true){
+			 Rectangle text = getTextLayout(v).getBounds().getBounds();
+			 text.translate(v.getOppositeAxis(), v.getCurrent());
+			 text.grow(2, 2);
+			 text.height += 2;
+			 return text;
+		 }
+		 int low = Math.min(v.getInit(), v.getEnd()), high = Math.max(v.getInit(), v.getEnd());
+		 if(v.isMovingXaxis == true)
+			 return new Rectangle(low, v.getOppositeAxis(), high - low + 3, 3);
+		 return new Rectangle(v.getOppositeAxis(), low, 3, high - low + 3);
 	 }
 
 	 //convert binnary value to integer.
@@ -1361,12 +1471,15 @@ class DatapathAnimation extends JPanel
 	 
 	 //set and execute the information about the current position of each line of information in the animation,
 	 //verifies the previous status of the animation and increment the position of each line that interconnect the unit function.
-	 private void executeAnimation(Graphics g){
-		 g2d = (Graphics2D)g; 
-		 setUpInstructionInfo(g2d);
+	 //Tracks that have finished are already in the frame, so only active ones are drawn. Returns the given region
+	 //joined with the region that changed.
+	 private Rectangle executeAnimation(Rectangle dirty){
 		 Vertex vert;
 		 for(int i = 0; i < vertexTraversed.size(); i++){
 			 vert = vertexTraversed.get(i);
+			 if(vert.isActive() == false)
+				 continue;
+			 dirty = dirty.isEmpty() ? getBounds(vert) : dirty.union(getBounds(vert));
 			 if(vert.isMovingXaxis == true){
 				 if(vert.getDirection() == vert.movingLeft){
 					 printTrackLtoR(vert);
@@ -1453,7 +1566,10 @@ class DatapathAnimation extends JPanel
 					 }
 				 }
 			 }
+			 if(vert.isText == true)
+				 dirty = dirty.union(getBounds(vert));
 		 }
+		 return dirty;
 	 }
 
 	@Override
@@ -0,0 +1,507 @@
+   package mars.tools;
+   import mars.*;
+   import mars.mips.hardware.*;
+   import mars.mips.instructions.*;
+   import mars.simulator.*;
+   import java.util.*;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+	
+   /**
+	 * Cycle-level timing model of the classic five stage MIPS pipeline (IF, ID, EX, MEM, WB),
+	 * run alongside the functional simulator.  The simulator calls executing() for each
+	 * instruction; the model decodes its register operands and works out the cycle in
+	 * which it enters EX, given the instructions before it:
+	 * <ul>
+	 * <li>each stage holds one instruction, so an instruction stalled in ID holds the one
+	 * behind it in IF;</li>
+	 * <li>with forwarding, an ALU result can be used in EX by the next instruction and a
+	 * loaded value one instruction later (the load-use stall); store data is needed only
+	 * in MEM.  Without forwarding, operands are read in ID after the producer's WB;</li>
+	 * <li>branches are resolved in ID or in EX, jumps in ID.  Fetch continues sequentially
+	 * (predict not taken), so a taken branch or jump costs a cycle for each stage between
+	 * IF and the stage that resolves it, less the branch delay slot if enabled.  Branches
+	 * and jr resolved in ID need their operands in ID;</li>
+	 * <li>mult, div and the other HI/LO instructions and mul use a separate unit that is
+	 * not pipelined and takes a number of cycles; mfhi, mflo and the next multiply or
+	 * divide wait for it;</li>
+	 * <li>if a CacheHierarchy is given, an instruction cache miss delays IF and a data
+	 * cache miss stalls the whole pipeline in MEM, each by the cycles beyond a level 1 hit.</li>
+	 * </ul>
+	 * Floating point operations take one cycle in EX.  Exceptions and interrupts are not modeled.
+	 * <p>The model keeps only the ready cycle of each register and a few pipeline times, all
+	 * in primitive fields, and does no allocation per instruction.  It counts instructions,
+	 * cycles and stall cycles by cause; the display, if any, reads these when it likes.
+	 * The simulator calls executing() while holding Globals.memoryAndRegistersLock.</p>
+	 */
+    public class PipelineModel implements Simulator.InstructionListener {
+   
+      public static final int DEFAULT_MULTIPLY_CYCLES = 4;
+      public static final int DEFAULT_DIVIDE_CYCLES = 32;
+   
+   	/** Stall cause: instruction needs the result of the load before it */
+      public static final int LOAD_USE = 0;
+   	/** Stall cause: instruction needs a result not yet available, other than from a load or multiply */
+      public static final int DATA = 1;
+   	/** Stall cause: instruction waits for the multiply/divide unit or its result */
+      public static final int MULTIPLY_DIVIDE = 2;
+   	/** Stall cause: instruction fetched after a taken branch or jump */
+      public static final int CONTROL = 3;
+   	/** Stall cause: instruction cache miss */
+      public static final int INSTRUCTION_CACHE = 4;
+   	/** Stall cause: data cache miss */
+      public static final int DATA_CACHE = 5;
+      private static final String[] CAUSES = { "load-use", "data dependence", "multiply/divide", 
+                                               "taken branch/jump", "instruction cache", "data cache" };
+   
+   	// Scoreboard slots: general registers, then floating point registers, HI, LO and the FP condition flags.
+      private static final int FPR = 32, HI = 64, LO = 65, FCC = 66, REGISTERS = 67;
+   	// Kinds of instruction, as far as timing is concerned.
+      private static final int ALU = 0, LOAD = 1, STORE = 2, BRANCH = 3, JUMP = 4, JUMP_REGISTER = 5, 
+                               MULTIPLY = 6, DIVIDE = 7;
+   	// Stage in which an operand is needed, relative to EX.
+      private static final int IN_ID = -1, IN_EX = 0, IN_MEM = 1;
+   
+      private boolean branchesInEX, forwarding;
+      private int multiplyCycles, divideCycles;
+      private CacheHierarchy caches;
+   
+   	// Cycle from which each register's value can be used, and the cause to blame for waiting for it.
+      private long[] ready = new long[REGISTERS];
+      private int[] readyCause = new int[REGISTERS];
+      private long lastEX;           // cycle the previous instruction entered EX, plus any MEM stall
+      private long nextFetch;        // earliest cycle the next instruction can enter IF
+      private long unitFree;         // cycle the multiply/divide unit can accept another operation
+      private long redirectFetch;    // cycle the target of the pending taken branch or jump can enter IF
+      private int redirectCountdown; // instructions until that target, 0 if none pending
+      private int redirectFallThrough;
+   	// Statistics
+      private long instructions, branches, taken;
+      private long[] stalls = new long[CAUSES.length];
+   	// The instruction being decoded
+      private int kind, sources, destinations;
+      private int[] source = new int[4], sourceStage = new int[4], destination = new int[2];
+   
+   	/**
+   	 * Create a pipeline model with no caches.
+   	 * @param branchesInEX true if conditional branches are resolved in EX, false for ID
+   	 * @param forwarding true if results are forwarded to EX and MEM
+   	 * @param multiplyCycles cycles the multiply/divide unit takes for a multiply
+   	 * @param divideCycles cycles the multiply/divide unit takes for a divide
+   	 */
+       public PipelineModel(boolean branchesInEX, boolean forwarding, int multiplyCycles, int divideCycles) {
+         if (multiplyCycles < 1 || divideCycles < 1) {
+            throw new IllegalArgumentException("multiply and divide take at least one cycle");
+         }
+         this.branchesInEX = branchesInEX;
+         this.forwarding = forwarding;
+         this.multiplyCycles = multiplyCycles;
+         this.divideCycles = divideCycles;
+         reset();
+      }
+   
+   	/**
+   	 * Add cache miss penalties from a cache hierarchy, which the model will then
+   	 * drive with each instruction fetch and data access.  Stall cycles are those
+   	 * beyond the level 1 hit time.
+   	 * @param caches the hierarchy, or null for no caches
+   	 */
+       public void setCacheHierarchy(CacheHierarchy caches) {
+         this.caches = caches;
+      }
+   
+   	/**
+   	 * Discard statistics and start again with an empty pipeline.  Does not reset the caches.
+   	 */
+       public void reset() {
+         Arrays.fill(ready, 0);
+         Arrays.fill(readyCause, DATA);
+         lastEX = 1; // so the first instruction enters EX in cycle 2
+         nextFetch = unitFree = redirectFetch = 0;
+         redirectCountdown = 0;
+         instructions = branches = taken = 0;
+         Arrays.fill(stalls, 0);
+      }
+   
+   	/**
+   	 * Time the execution of one instruction.  Called by the simulator before the
+   	 * instruction is simulated, so that registers still hold its operands.
+   	 * @param address address of the instruction
+   	 * @param statement the instruction
+   	 */
+       public void executing(int address, ProgramStatement statement) {
+         int binary = statement.getBinaryStatement();
+         decode(binary);
+         instructions++;
+      
+      	// IF: after the previous instruction, or after the branch or jump that redirected fetch.
+         long fetch = nextFetch;
+         if (redirectCountdown > 0 && --redirectCountdown == 0 && address != redirectFallThrough) {
+            fetch = Math.max(fetch, redirectFetch);
+            taken++;
+         }
+         int fetchPenalty = 0;
+         if (caches != null && caches.getInstructionCache() != null) {
+            fetchPenalty = caches.fetch(address) - caches.getInstructionCache().getHitCycles();
+         }
+      	// EX: the latest of the constraints, each stall cycle blamed on the constraint that caused it.
+         long ex = lastEX + 1;
+         ex = stall(ex, fetch + 2, CONTROL);
+         ex = stall(ex, fetch + Math.max(0, fetchPenalty) + 2, INSTRUCTION_CACHE);
+         for (int i=0; i<sources; i++) {
+            ex = stall(ex, ready[source[i]] - sourceStage[i], readyCause[source[i]]);
+         }
+         if (kind == MULTIPLY || kind == DIVIDE) {
+            ex = stall(ex, unitFree, MULTIPLY_DIVIDE);
+         }
+         nextFetch = Math.max(fetch + Math.max(0, fetchPenalty) + 1, ex - 1);
+      
+      	// MEM: a data cache miss holds this instruction in MEM and everything behind it.
+         long memoryPenalty = 0;
+         if (caches != null && (kind == LOAD || kind == STORE)) {
+            int effectiveAddress = RegisterFile.getValueNoNotify((binary >>> 21) & 0x1F) + (short) binary;
+            memoryPenalty = Math.max(0, caches.access(effectiveAddress, kind == STORE) 
+                                        - caches.getDataCache().getHitCycles());
+            stalls[DATA_CACHE] += memoryPenalty;
+         }
+         lastEX = ex + memoryPenalty;
+      
+      	// Results become available to later instructions.
+         long available;
+         int cause = DATA;
+         if (kind == MULTIPLY || kind == DIVIDE) {
+            unitFree = ex + ((kind == MULTIPLY) ? multiplyCycles : divideCycles);
+            available = forwarding ? unitFree : unitFree + 1;
+            cause = MULTIPLY_DIVIDE;
+         } 
+         else if (kind == LOAD) {
+            available = lastEX + 2;
+            cause = LOAD_USE;
+         } 
+         else {
+            available = forwarding ? ex + 1 : ex + 2;
+         }
+         for (int i=0; i<destinations; i++) {
+            if (destination[i] != 0) {
+               ready[destination[i]] = available;
+               readyCause[destination[i]] = cause;
+            }
+         }
+      
+      	// Branches and jumps redirect fetch, if taken, once resolved.
+         if (kind == BRANCH || kind == JUMP || kind == JUMP_REGISTER) {
+            if (kind == BRANCH) {
+               branches++;
+            }
+            long resolved = (kind == BRANCH && branchesInEX) ? ex : ex - 1;
+            redirectFetch = resolved + 1;
+            redirectCountdown = Globals.getSettings().getBooleanSetting(Settings.DELAYED_BRANCHING_ENABLED) ? 2 : 1;
+            redirectFallThrough = address + redirectCountdown * Instruction.INSTRUCTION_LENGTH;
+         }
+      }
+   
+   	// Apply one constraint on the EX cycle, and blame any stall on the given cause.
+       private long stall(long ex, long earliest, int cause) {
+         if (earliest > ex) {
+            stalls[cause] += earliest - ex;
+            return earliest;
+         }
+         return ex;
+      }
+   
+   	/**
+   	 * @return number of instructions executed
+   	 */
+       public long getInstructionCount() {
+         return instructions;
+      }
+   
+   	/**
+   	 * @return cycles to execute the instructions so far, through WB of the last
+   	 */
+       public long getCycles() {
+         return (instructions == 0) ? 0 : lastEX + 3;
+      }
+   
+   	/**
+   	 * @return average cycles per instruction, 0 if none executed
+   	 */
+       public double getCyclesPerInstruction() {
+         return (instructions == 0) ? 0 : getCycles() / (double) instructions;
+      }
+   
+   	/**
+   	 * @param cause one of the stall causes LOAD_USE through DATA_CACHE
+   	 * @return stall cycles due to that cause
+   	 */
+       public long getStallCycles(int cause) {
+         return stalls[cause];
+      }
+   
+   	/**
+   	 * Produce the configuration, cycles, CPI and stall cycles by cause as text.
+   	 * @return the report
+   	 */
+       public String getReport() {
+         StringBuffer report = new StringBuffer();
+         long cycles = getCycles();
+         report.append("Pipeline: 5 stages, branches resolved in " + (branchesInEX ? "EX" : "ID") 
+            + ", " + (forwarding ? "forwarding" : "no forwarding") + ", multiply " + multiplyCycles 
+            + " cycles, divide " + divideCycles + " cycles"
+            + (Globals.getSettings().getBooleanSetting(Settings.DELAYED_BRANCHING_ENABLED) ? ", delayed branches" : "") + "\n");
+         report.append("  " + instructions + " instructions, " + cycles + " cycles, CPI " 
+            + String.format("%.3f", getCyclesPerInstruction()) + "\n");
+         report.append("  " + branches + " conditional branches, " + taken + " taken branches and jumps\n");
+         report.append(String.format("  %-20s %12s %8s %8s%n", "Stall cycles", "Cycles", "CPI", "%"));
+         long stalled = 0;
+         for (int i=0; i<CAUSES.length; i++) {
+            appendStalls(report, CAUSES[i], stalls[i], cycles);
+            stalled += stalls[i];
+         }
+         appendStalls(report, "fill and drain", cycles - instructions - stalled, cycles);
+         return report.toString();
+      }
+   
+       private void appendStalls(StringBuffer report, String cause, long count, long cycles) {
+         report.append(String.format("  %-20s %12d %8.3f %7.2f%%%n", cause, count, 
+            (instructions == 0) ? 0.0 : count / (double) instructions, 
+            (cycles == 0) ? 0.0 : 100.0 * count / cycles));
+      }
+   
+   	// Decode the operands of an instruction: its kind, the registers it reads and the stage
+   	// in which it needs each, and the registers it writes.  Unknown instructions read and
+   	// write nothing.
+       private void decode(int binary) {
+         int opcode = binary >>> 26;
+         int rs = (binary >>> 21) & 0x1F, rt = (binary >>> 16) & 0x1F, rd = (binary >>> 11) & 0x1F;
+         int funct = binary & 0x3F;
+         kind = ALU;
+         sources = destinations = 0;
+         switch (opcode) {
+            case 0x00 : // SPECIAL
+               if (funct == 0x08 || funct == 0x09) { // jr, jalr
+                  kind = JUMP_REGISTER;
+                  read(rs, IN_ID);
+                  write(rd);
+               } 
+               else if (funct == 0x0C) { // syscall: service number and arguments
+                  read(2, IN_EX);
+                  read(4, IN_EX);
+                  read(5, IN_EX);
+                  read(6, IN_EX);
+                  write(2);
+               } 
+               else if (funct == 0x10 || funct == 0x12) { // mfhi, mflo
+                  read((funct == 0x10) ? HI : LO, IN_EX);
+                  write(rd);
+               } 
+               else if (funct == 0x11 || funct == 0x13) { // mthi, mtlo
+                  read(rs, IN_EX);
+                  write((funct == 0x11) ? HI : LO);
+               } 
+               else if (funct >= 0x18 && funct <= 0x1B) { // mult, multu, div, divu
+                  kind = (funct <= 0x19) ? MULTIPLY : DIVIDE;
+                  read(rs, IN_EX);
+                  read(rt, IN_EX);
+                  write(HI);
+                  write(LO);
+               } 
+               else if (funct <= 0x03) { // sll, srl, sra; movf, movt
+                  read(rt, IN_EX);
+                  if (funct == 0x01) {
+                     read(rs, IN_EX);
+                     read(rd, IN_EX);
+                     read(FCC, IN_EX);
+                  }
+                  write(rd);
+               } 
+               else if (funct != 0x0D && funct != 0x0F) { // all others but break and sync
+                  read(rs, IN_EX);
+                  read(rt, IN_EX);
+                  if (funct == 0x0A || funct == 0x0B) { // movz, movn keep rd if not moved
+                     read(rd, IN_EX);
+                  }
+                  if (funct < 0x30) { // not a trap
+                     write(rd);
+                  }
+               }
+               break;
+            case 0x01 : // REGIMM: bltz, bgez, bltzal, bgezal, traps
+               if (rt < 0x08 || rt >= 0x10) {
+                  kind = BRANCH;
+                  read(rs, branchesInEX ? IN_EX : IN_ID);
+                  if (rt >= 0x10) {
+                     write(31);
+                  }
+               } 
+               else {
+                  read(rs, IN_EX);
+               }
+               break;
+            case 0x02 : // j
+            case 0x03 : // jal
+               kind = JUMP;
+               if (opcode == 0x03) {
+                  write(31);
+               }
+               break;
+            case 0x04 : // beq
+            case 0x05 : // bne
+            case 0x06 : // blez
+            case 0x07 : // bgtz
+               kind = BRANCH;
+               read(rs, branchesInEX ? IN_EX : IN_ID);
+               if (opcode <= 0x05) {
+                  read(rt, branchesInEX ? IN_EX : IN_ID);
+               }
+               break;
+            case 0x10 : // COP0: mfc0, mtc0, eret
+               if (rs == 0x00) {
+                  write(rt);
+               } 
+               else if (rs == 0x04) {
+                  read(rt, IN_EX);
+               }
+               break;
+            case 0x11 : // COP1
+               decodeFloatingPoint(binary, rs, rt, rd, funct);
+               break;
+            case 0x1C : // SPECIAL2: madd, maddu, mul, msub, msubu, clz, clo
+               if (funct == 0x02) {
+                  kind = MULTIPLY;
+                  read(rs, IN_EX);
+                  read(rt, IN_EX);
+                  write(rd);
+               } 
+               else if (funct == 0x20 || funct == 0x21) {
+                  read(rs, IN_EX);
+                  write(rd);
+               } 
+               else {
+                  kind = MULTIPLY;
+                  read(rs, IN_EX);
+                  read(rt, IN_EX);
+                  read(HI, IN_EX);
+                  read(LO, IN_EX);
+                  write(HI);
+                  write(LO);
+               }
+               break;
+            case 0x31 : // lwc1
+            case 0x35 : // ldc1
+               kind = LOAD;
+               read(rs, IN_EX);
+               write(FPR + rt);
+               break;
+            case 0x39 : // swc1
+            case 0x3D : // sdc1
+               kind = STORE;
+               read(rs, IN_EX);
+               read(FPR + rt, IN_MEM);
+               break;
+            default :
+               if (opcode >= 0x08 && opcode <= 0x0F) { // immediate ALU operations
+                  if (opcode != 0x0F) { // lui has no source
+                     read(rs, IN_EX);
+                  }
+                  write(rt);
+               } 
+               else if (opcode >= 0x20 && opcode <= 0x26 || opcode == 0x30) { // loads, ll
+                  kind = LOAD;
+                  read(rs, IN_EX);
+                  if (opcode == 0x22 || opcode == 0x26) { // lwl, lwr merge into rt
+                     read(rt, IN_EX);
+                  }
+                  write(rt);
+               } 
+               else if (opcode >= 0x28 && opcode <= 0x2E || opcode == 0x38) { // stores, sc
+                  kind = STORE;
+                  read(rs, IN_EX);
+                  read(rt, IN_MEM);
+                  if (opcode == 0x38) {
+                     write(rt);
+                  }
+               }
+               break;
+         }
+      }
+   
+   	// Decode a coprocessor 1 instruction; rs is the format or move/branch field.
+       private void decodeFloatingPoint(int binary, int rs, int rt, int rd, int funct) {
+         int ft = rt, fs = rd, fd = (binary >>> 6) & 0x1F;
+         if (rs == 0x00) { // mfc1
+            read(FPR + fs, IN_EX);
+            write(rt);
+         } 
+         else if (rs == 0x04) { // mtc1
+            read(rt, IN_EX);
+            write(FPR + fs);
+         } 
+         else if (rs == 0x08) { // bc1f, bc1t
+            kind = BRANCH;
+            read(FCC, branchesInEX ? IN_EX : IN_ID);
+         } 
+         else if (funct >= 0x30) { // c.cond.fmt
+            read(FPR + fs, IN_EX);
+            read(FPR + ft, IN_EX);
+            write(FCC);
+         } 
+         else {
+            read(FPR + fs, IN_EX);
+            if (funct <= 0x03) { // add, sub, mul, div
+               read(FPR + ft, IN_EX);
+            } 
+            else if (funct == 0x11) { // movf, movt
+               read(FCC, IN_EX);
+               read(FPR + fd, IN_EX);
+            } 
+            else if (funct == 0x12 || funct == 0x13) { // movz, movn
+               read(ft, IN_EX);
+               read(FPR + fd, IN_EX);
+            }
+            write(FPR + fd);
+         }
+      }
+   
+   	// Note a register read by the instruction being decoded, and the stage that needs it.
+       private void read(int register, int stage) {
+         if (register != 0 && sources < source.length) {
+            source[sources] = register;
+            sourceStage[sources] = forwarding ? stage : IN_ID;
+            sources++;
+         }
+      }
+   
+   	// Note a register written by the instruction being decoded.
+       private void write(int register) {
+         if (destinations < destination.length) {
+            destination[destinations++] = register;
+         }
+      }
+   }
@@ -0,0 +1,205 @@
+   package mars.tools;
+   import mars.*;
+   import mars.simulator.*;
+   import java.awt.*;
+   import java.awt.event.*;
+   import javax.swing.*;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+	
+   /**
+	 * Tool that times the running MIPS program on a five stage pipeline, using a
+	 * PipelineModel, and shows cycles, CPI and stall cycles by cause.  The model runs
+	 * in the simulator thread; the display only reads its counts, at most once a second.
+	 */
+    public class PipelineTiming extends AbstractMarsToolAndApplication {
+   
+      private static String name    = "Pipeline Timing";
+      private static String version = "Version 1.0";
+      private static String heading = "Cycles and stalls on a 5-stage pipeline";
+   
+   	/** Milliseconds between refreshes of the report while connected */
+      public static final int REFRESH_INTERVAL = 1000;
+   
+      private PipelineModel model;
+      private long instructionsAtRefresh = -1;
+      private Timer refreshTimer;
+      private JComboBox branchStageSelector;
+      private JCheckBox forwardingSelector;
+      private JTextArea reportArea;
+   
+   	/**
+   	 * Simple constructor, likely used to run a stand-alone pipeline timing tool.
+   	 * @param title String containing title for title bar
+   	 * @param heading String containing text for heading shown in upper part of window.
+   	 */
+       public PipelineTiming(String title, String heading) {
+         super(title, heading);
+      }
+   
+   	/**
+   	 * Simple constructor, likely used by the MARS Tools menu mechanism
+   	 */
+       public PipelineTiming() {
+         super(name + ", " + version, heading);
+      }
+   
+   	/**
+   	 * Required method to return Tool name.
+   	 * @return Tool name.  MARS will display this in menu item.
+   	 */
+       public String getName() {
+         return name;
+      }
+   
+       protected JComponent buildMainDisplayArea() {
+         JPanel panel = new JPanel(new BorderLayout());
+         JPanel settings = new JPanel();
+         branchStageSelector = new JComboBox(new String[] { "ID", "EX" });
+         branchStageSelector.setToolTipText("Stage in which conditional branches are resolved");
+         forwardingSelector = new JCheckBox("Forwarding", true);
+         forwardingSelector.setToolTipText("Forward results to EX and MEM instead of waiting for WB");
+         ActionListener settingsChanged = 
+                new ActionListener() {
+                   public void actionPerformed(ActionEvent e) {
+                     createModel();
+                  }
+               };
+         branchStageSelector.addActionListener(settingsChanged);
+         forwardingSelector.addActionListener(settingsChanged);
+         settings.add(new JLabel("Branches resolved in"));
+         settings.add(branchStageSelector);
+         settings.add(forwardingSelector);
+         panel.add(settings, BorderLayout.NORTH);
+      
+         reportArea = new JTextArea(14, 72);
+         reportArea.setEditable(false);
+         reportArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+         panel.add(new JScrollPane(reportArea), BorderLayout.CENTER);
+         createModel();
+      
+         refreshTimer = new Timer(REFRESH_INTERVAL, 
+                new ActionListener() {
+                   public void actionPerformed(ActionEvent e) {
+                     updateDisplay();
+                  }
+               });
+         return panel;
+      }
+   
+   	// Replace the model by one with the selected settings, connecting it in its place if connected.
+       private void createModel() {
+         PipelineModel replacement = new PipelineModel(branchStageSelector.getSelectedIndex() == 1, 
+              forwardingSelector.isSelected(), PipelineModel.DEFAULT_MULTIPLY_CYCLES, PipelineModel.DEFAULT_DIVIDE_CYCLES);
+         if (model != null && isObserving()) {
+            Simulator.getInstance().removeInstructionListener(model);
+            Simulator.getInstance().addInstructionListener(replacement);
+         }
+         model = replacement;
+         instructionsAtRefresh = -1;
+         updateDisplay();
+      }
+   
+   	/**
+   	 * Start timing each instruction executed and refreshing the report.
+   	 */
+       protected void addAsObserver() {
+         Simulator.getInstance().addInstructionListener(model);
+         refreshTimer.start();
+      }
+   
+   	/**
+   	 * Stop timing and show the final report.
+   	 */
+       protected void deleteAsObserver() {
+         refreshTimer.stop();
+         Simulator.getInstance().removeInstructionListener(model);
+         SwingUtilities.invokeLater(
+                new Runnable() {
+                   public void run() {
+                     updateDisplay();
+                  }
+               });
+      }
+   
+   	/**
+   	 * Start again with an empty pipeline.
+   	 */
+       protected void reset() {
+         synchronized (Globals.memoryAndRegistersLock) {
+            model.reset();
+         }
+         instructionsAtRefresh = -1;
+         updateDisplay();
+      }
+   
+   	/**
+   	 * Show the report if anything has been executed since it was last shown.
+   	 */
+       protected void updateDisplay() {
+         String report;
+         synchronized (Globals.memoryAndRegistersLock) {
+            if (model.getInstructionCount() == instructionsAtRefresh) {
+               return;
+            }
+            instructionsAtRefresh = model.getInstructionCount();
+            report = model.getReport();
+         }
+         reportArea.setText(report);
+         reportArea.setCaretPosition(0);
+      }
+   
+       protected JComponent getHelpComponent() {
+         final String helpContent = 
+                              "Use this tool to estimate how many cycles a MIPS program would take\n"+
+                              "on the classic 5-stage pipeline: IF, ID, EX, MEM and WB.\n"+
+            						"\n"+
+            						"Each instruction takes one cycle in each stage, and one instruction\n"+
+            						"completes each cycle unless the pipeline stalls.  Stalls are counted by\n"+
+            						"cause:  load-use (the value loaded by the previous instruction is not\n"+
+            						"ready until after MEM), other data dependences (no forwarding, or a\n"+
+            						"branch resolved in ID needing a result just computed), the multiply/\n"+
+            						"divide unit (" + PipelineModel.DEFAULT_MULTIPLY_CYCLES + " cycles to multiply, " 
+            						+ PipelineModel.DEFAULT_DIVIDE_CYCLES + " to divide), and taken branches\n"+
+            						"and jumps, since the pipeline fetches sequentially until they are\n"+
+            						"resolved.  Enable delayed branching in the Settings menu to fill the\n"+
+            						"branch delay slot.\n"+
+            						"\n"+
+            						"Cache miss stalls, and other multiply and divide times, are available\n"+
+            						"from the command line with the pipeline and cache options.\n";
+         JButton help = new JButton("Help");
+         help.addActionListener(
+                new ActionListener() {
+                   public void actionPerformed(ActionEvent e) {
+                     JOptionPane.showMessageDialog(theWindow, helpContent);
+                  }
+               });
+         return help;
+      }
+   }
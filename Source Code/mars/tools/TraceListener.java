@@ -0,0 +1,58 @@
+   package mars.tools;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+	
+   /**
+	 * Receives the events of a memory and branch trace, one call per event, whether
+	 * they come from a running MIPS program (see TraceObserver) or from a recorded
+	 * trace file (see TraceReader).  Cache and branch prediction models implement
+	 * this so they can be run without the GUI.
+	 * <p>Event types READ, WRITE and FETCH have the same numbers as the access types
+	 * of the Dinero cache simulator trace format.</p>
+	 */
+    public interface TraceListener {
+      /** Event type for a data read (load) from the event address */
+      public static final int READ = 0;
+      /** Event type for a data write (store) to the event address */
+      public static final int WRITE = 1;
+      /** Event type for an instruction fetch from the event address */
+      public static final int FETCH = 2;
+      /** Event type for a conditional branch at the event address that was taken */
+      public static final int BRANCH_TAKEN = 3;
+      /** Event type for a conditional branch at the event address that was not taken */
+      public static final int BRANCH_NOT_TAKEN = 4;
+   	
+   	/**
+   	 * Process one trace event.  A branch event immediately follows the
+   	 * fetch of the branch instruction.
+   	 * @param type one of the event types READ, WRITE, FETCH, BRANCH_TAKEN, BRANCH_NOT_TAKEN
+   	 * @param address memory address accessed, or address of the branch instruction
+   	 */
+       public void traceEvent(int type, int address);
+   }
@@ -0,0 +1,131 @@
+   package mars.tools;
+   import java.util.*;
+   import mars.*;
+   import mars.mips.hardware.*;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+	
+   /**
+	 * Turns the memory accesses of a running MIPS program into trace events for
+	 * TraceListeners.  Reads of the text segments are instruction fetches; other reads and
+	 * writes are data accesses.  Optionally, when a conditional branch is fetched a branch
+	 * event follows the fetch, telling whether the branch will be taken, which is decided as
+	 * the BHT Simulator decides it: from register contents at the time of the fetch.
+	 * <p>Only accesses made by the executing MIPS program produce events.  Events can also
+	 * be recorded, with program counter, size and value, by a TraceRecorder.</p>
+	 */
+    @SuppressWarnings("deprecation")
+    public class TraceObserver implements Observer {
+      private TraceListener[] listeners;
+      private boolean traceBranches;
+      private TraceRecorder recorder;
+      private int pc; // address of last instruction fetched
+   	
+   	/**
+   	 * Create an observer that sends events to the given listeners.
+   	 * @param listeners receive each event, in order
+   	 * @param traceBranches true to produce branch events, which requires examining
+   	 * each instruction fetched
+   	 */
+       public TraceObserver(TraceListener[] listeners, boolean traceBranches) {
+         this.listeners = listeners;
+         this.traceBranches = traceBranches;
+      }
+   	
+   	/**
+   	 * Also record every event, including branches, to a binary trace.
+   	 * @param recorder the TraceRecorder, or null for none
+   	 */
+       public void setRecorder(TraceRecorder recorder) {
+         this.recorder = recorder;
+      }
+   	
+   	/**
+   	 * Register as observer of the user and kernel text segments and of the data
+   	 * segments from the data segment base address through the stack base address.
+   	 * @throws AddressErrorException if the memory configuration does not allow it
+   	 */
+       public void addAsObserver() throws AddressErrorException {
+         Globals.memory.addObserver(this, Memory.textBaseAddress, Memory.textLimitAddress - Memory.WORD_LENGTH_BYTES);
+         Globals.memory.addObserver(this, Memory.dataSegmentBaseAddress, Memory.stackBaseAddress);
+         Globals.memory.addObserver(this, Memory.kernelTextBaseAddress, Memory.kernelTextLimitAddress - Memory.WORD_LENGTH_BYTES);
+      }
+   	
+   	/**
+   	 * Stop observing memory.
+   	 */
+       public void deleteAsObserver() {
+         Globals.memory.deleteObserver(this);
+      }
+   	
+   	/**
+   	 * Produce trace events for a memory access.
+   	 * @param memory the MIPS memory
+   	 * @param accessNotice MemoryAccessNotice for the access
+   	 */
+       public void update(Observable memory, Object accessNotice) {
+         if (!(accessNotice instanceof MemoryAccessNotice) || !((AccessNotice) accessNotice).accessIsFromMIPS()) {
+            return;
+         }
+         MemoryAccessNotice notice = (MemoryAccessNotice) accessNotice;
+         int address = notice.getAddress();
+         if (notice.getAccessType() == AccessNotice.WRITE) {
+            sendEvent(TraceListener.WRITE, address, notice);
+         } 
+         else if (!Memory.inTextSegment(address) && !Memory.inKernelTextSegment(address)) {
+            sendEvent(TraceListener.READ, address, notice);
+         } 
+         else {
+            pc = address;
+            sendEvent(TraceListener.FETCH, address, notice);
+            if (traceBranches || recorder != null) {
+               try {
+                  ProgramStatement statement = Globals.memory.getStatementNoNotify(address);
+                  if (statement != null && BHTSimulator.isBranchInstruction(statement)) {
+                     sendEvent(BHTSimulator.willBranch(statement) ? TraceListener.BRANCH_TAKEN 
+                                                                  : TraceListener.BRANCH_NOT_TAKEN, address, null);
+                  }
+               } 
+                   catch (AddressErrorException e) {
+                     // fetch was from a valid address, so this cannot happen
+                  }
+            }
+         }
+      }
+   	
+       private void sendEvent(int type, int address, MemoryAccessNotice notice) {
+         if (recorder != null) {
+            recorder.record(pc, type, address, (notice == null) ? 0 : notice.getLength(), 
+                            (notice == null) ? 0 : notice.getValue());
+         }
+         for (int i = 0; i < listeners.length; i++) {
+            listeners[i].traceEvent(type, address);
+         }
+      }
+   }
@@ -0,0 +1,388 @@
+   package mars.tools;
+   import java.io.*;
+   import java.util.zip.*;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+	
+   /**
+	 * Reads trace files one record at a time, or sends their events to TraceListeners, so
+	 * cache and branch prediction models can be run on a recorded trace instead of a running
+	 * MIPS program.  Both the binary format of TraceRecorder and the text format of
+	 * TraceWriter are read; the format is recognized from the start of the file.
+	 * <p>Text traces also accept the numeric types 0 (read), 1 (write) and 2 (instruction fetch)
+	 * of the Dinero "din" format in place of the letters, so traces produced by other tools can
+	 * be used.  Addresses are hexadecimal, with or without leading "0x".  Blank lines and lines
+	 * starting with # are ignored.  Text traces carry only type and address, so the program
+	 * counter of a data access is taken to be the address of the last fetch, and size and
+	 * value are 0.</p>
+	 */
+    public class TraceReader {
+      private File file;
+      private boolean binary;
+      private long recordNumber = -1; // of current record
+   	// current record
+      private int type, pc, address, size, value;
+   	// text trace
+      private BufferedReader text;
+      private int lineNumber;
+   	// binary trace
+      private RandomAccessFile in;
+      private long chunksEnd, nextChunkPosition;
+      private long[] chunkPositions, chunkFirstRecords;
+      private long totalRecords = -1;
+      private byte[] compressed = new byte[0], data = new byte[0];
+      private int dataLength, dataPosition, recordsLeftInChunk;
+      private int lastPc, lastAddress, lastValue;
+      private Inflater inflater;
+   	
+   	/**
+   	 * Open a trace file.
+   	 * @param file the trace file
+   	 * @throws IOException if the file cannot be read
+   	 */
+       public TraceReader(File file) throws IOException {
+         this.file = file;
+         in = new RandomAccessFile(file, "r");
+         byte[] magic = new byte[TraceRecorder.MAGIC.length()];
+         binary = in.read(magic) == magic.length && new String(magic, "ISO-8859-1").equals(TraceRecorder.MAGIC);
+         if (binary) {
+            inflater = new Inflater();
+            readTrailer();
+            nextChunkPosition = magic.length;
+         } 
+         else {
+            in.close();
+            in = null;
+            openText();
+         }
+      }
+   	
+   	/**
+   	 * Read the trace file and send each event to the listeners in turn.
+   	 * @param file the trace file
+   	 * @param listeners receive each event, in order
+   	 * @return number of events read
+   	 * @throws IOException if the file cannot be read or is not a trace
+   	 */
+       public static long replay(File file, TraceListener[] listeners) throws IOException {
+         TraceReader reader = new TraceReader(file);
+         long events = 0;
+         try {
+            while (reader.next()) {
+               for (int i = 0; i < listeners.length; i++) {
+                  listeners[i].traceEvent(reader.type, reader.address);
+               }
+               events++;
+            }
+         } 
+         finally {
+            reader.close();
+         }
+         return events;
+      }
+   	
+   	/**
+   	 * Advance to the next record.
+   	 * @return true if there is one, false at end of trace
+   	 * @throws IOException if the file cannot be read or is not a valid trace
+   	 */
+       public boolean next() throws IOException {
+         boolean found = binary ? nextBinary() : nextText();
+         if (found) {
+            recordNumber++;
+         }
+         return found;
+      }
+   	
+   	/**
+   	 * Position the reader so that the next call to next() reads the given record.
+   	 * A binary trace goes directly to the chunk containing it.
+   	 * @param record number of the record, counting from 0
+   	 * @throws IOException if the file cannot be read
+   	 */
+       public void seek(long record) throws IOException {
+         if (binary && chunkPositions != null) {
+            int chunk = 0;
+            while (chunk + 1 < chunkPositions.length && chunkFirstRecords[chunk + 1] <= record) {
+               chunk++;
+            }
+            recordsLeftInChunk = 0;
+            if (chunkPositions.length > 0) {
+               nextChunkPosition = chunkPositions[chunk];
+               recordNumber = chunkFirstRecords[chunk] - 1;
+            }
+         } 
+         else if (binary) {
+            recordsLeftInChunk = 0;
+            nextChunkPosition = TraceRecorder.MAGIC.length();
+            recordNumber = -1;
+         } 
+         else {
+            text.close();
+            openText();
+            recordNumber = -1;
+         }
+         while (recordNumber + 1 < record && next()) {
+         }
+      }
+   	
+   	/** @return event type of the current record, one of the TraceListener types */
+       public int getType() {
+         return type;
+      }
+   	
+   	/** @return address of the instruction making the access of the current record */
+       public int getPc() {
+         return pc;
+      }
+   	
+   	/** @return address accessed by the current record, or address of the branch */
+       public int getAddress() {
+         return address;
+      }
+   	
+   	/** @return size in bytes of the access of the current record, 0 if not known */
+       public int getSize() {
+         return size;
+      }
+   	
+   	/** @return value read, written or fetched by the current record, 0 if not known */
+       public int getValue() {
+         return value;
+      }
+   	
+   	/** @return number of the current record, counting from 0 */
+       public long getRecordNumber() {
+         return recordNumber;
+      }
+   	
+   	/** @return number of records in the trace, or -1 if not known (text or incomplete trace) */
+       public long getRecordCount() {
+         return totalRecords;
+      }
+   	
+   	/**
+   	 * Close the trace file.
+   	 * @throws IOException if it cannot be closed
+   	 */
+       public void close() throws IOException {
+         if (binary) {
+            inflater.end();
+            in.close();
+         } 
+         else {
+            text.close();
+         }
+      }
+   
+   	////////////////////////////////////////////////////////////////////////////
+   	// Binary traces
+   	
+   	// Read the index if the trace is complete, otherwise chunks are read until end of file.
+       private void readTrailer() throws IOException {
+         chunksEnd = in.length();
+         if (in.length() < TraceRecorder.MAGIC.length() + TraceRecorder.TRAILER_SIZE) {
+            return;
+         }
+         in.seek(in.length() - TraceRecorder.TRAILER_SIZE);
+         long indexPosition = in.readLong();
+         int chunks = in.readInt();
+         long records = in.readLong();
+         byte[] magic = new byte[TraceRecorder.INDEX_MAGIC.length()];
+         in.readFully(magic);
+         if (!new String(magic, "ISO-8859-1").equals(TraceRecorder.INDEX_MAGIC)) {
+            return;
+         }
+         chunksEnd = indexPosition;
+         totalRecords = records;
+         chunkPositions = new long[chunks];
+         chunkFirstRecords = new long[chunks];
+         in.seek(indexPosition);
+         for (int i = 0; i < chunks; i++) {
+            chunkPositions[i] = in.readLong();
+            chunkFirstRecords[i] = in.readLong();
+         }
+      }
+   	
+       private boolean nextBinary() throws IOException {
+         while (recordsLeftInChunk == 0) {
+            if (nextChunkPosition + 12 > chunksEnd) {
+               return false;
+            }
+            readChunk();
+         }
+         int header = data[dataPosition++] & 0xff;
+         type = header & 0x07;
+         boolean branch = type == TraceListener.BRANCH_TAKEN || type == TraceListener.BRANCH_NOT_TAKEN;
+         pc = (type == TraceListener.FETCH) ? lastPc + 4 : lastPc;
+         if ((header & TraceRecorder.PC_FOLLOWS) != 0) {
+            pc += getVarint();
+         }
+         lastPc = pc;
+         address = pc;
+         if (type == TraceListener.READ || type == TraceListener.WRITE) {
+            if ((header & TraceRecorder.ADDRESS_FOLLOWS) != 0) {
+               lastAddress += getVarint();
+            }
+            address = lastAddress;
+         }
+         size = value = 0;
+         if (!branch) {
+            size = 1 << ((header >> TraceRecorder.SIZE_SHIFT) & 0x03);
+            if ((header & TraceRecorder.VALUE_FOLLOWS) != 0) {
+               lastValue += getVarint();
+            }
+            value = lastValue;
+         }
+         if (type > TraceListener.BRANCH_NOT_TAKEN || dataPosition > dataLength) {
+            throw new IOException(file + ": invalid trace record " + (recordNumber + 1));
+         }
+         recordsLeftInChunk--;
+         return true;
+      }
+   	
+       private void readChunk() throws IOException {
+         in.seek(nextChunkPosition);
+         int records = in.readInt();
+         int length = in.readInt();
+         int compressedLength = in.readInt();
+         if (records < 0 || length < 0 || compressedLength < 0 || nextChunkPosition + 12 + compressedLength > chunksEnd) {
+            throw new IOException(file + ": invalid trace chunk at position " + nextChunkPosition);
+         }
+         if (compressed.length < compressedLength) {
+            compressed = new byte[compressedLength];
+         }
+         if (data.length < length + 5) {
+            data = new byte[length + 5]; // room for a truncated varint to run into
+         }
+         in.readFully(compressed, 0, compressedLength);
+         inflater.reset();
+         inflater.setInput(compressed, 0, compressedLength);
+         try {
+            dataLength = inflater.inflate(data, 0, length);
+         } 
+             catch (DataFormatException e) {
+               throw new IOException(file + ": invalid trace chunk at position " + nextChunkPosition);
+            }
+         if (dataLength != length) {
+            throw new IOException(file + ": invalid trace chunk at position " + nextChunkPosition);
+         }
+         nextChunkPosition += 12 + compressedLength;
+         dataPosition = 0;
+         recordsLeftInChunk = records;
+         lastPc = lastAddress = lastValue = 0;
+      }
+   	
+   	// Inverse of TraceRecorder.putVarint
+       private int getVarint() {
+         int bits = 0;
+         for (int shift = 0; shift < 35; shift += 7) {
+            int b = data[dataPosition++];
+            bits |= (b & 0x7f) << shift;
+            if (b >= 0) {
+               break;
+            }
+         }
+         return (bits >>> 1) ^ -(bits & 1);
+      }
+   
+   	////////////////////////////////////////////////////////////////////////////
+   	// Text traces
+   	
+       private void openText() throws IOException {
+         text = new BufferedReader(new FileReader(file), 1 << 16);
+         lineNumber = 0;
+         pc = 0;
+      }
+   	
+       private boolean nextText() throws IOException {
+         String line;
+         while ((line = text.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.length() == 0 || line.charAt(0) == '#') {
+               continue;
+            }
+            int newType = parseType(line.charAt(0));
+            long newAddress = (line.length() > 2 && Character.isWhitespace(line.charAt(1))) ? parseAddress(line, 2) : -1;
+            if (newType < 0 || newAddress < 0) {
+               throw new IOException(file + " line " + lineNumber + ": not a trace event: " + line);
+            }
+            type = newType;
+            address = (int) newAddress;
+            if (type != TraceListener.READ && type != TraceListener.WRITE) {
+               pc = address;
+            }
+            size = value = 0;
+            return true;
+         }
+         return false;
+      }
+   	
+   	// Event type for letter or Dinero digit, -1 if none
+       private static int parseType(char c) {
+         switch (Character.toLowerCase(c)) {
+            case 'r' : case '0' : 
+               return TraceListener.READ;
+            case 'w' : case '1' : 
+               return TraceListener.WRITE;
+            case 'i' : case '2' : 
+               return TraceListener.FETCH;
+            case 't' : 
+               return TraceListener.BRANCH_TAKEN;
+            case 'n' : 
+               return TraceListener.BRANCH_NOT_TAKEN;
+            default : 
+               return -1;
+         }
+      }
+   	
+   	// Hexadecimal value of the rest of the line from start, -1 if not a valid 32 bit address.
+       private static long parseAddress(String line, int start) {
+         int end = line.length();
+         while (start < end && Character.isWhitespace(line.charAt(start))) {
+            start++;
+         }
+         if (start + 2 < end && line.charAt(start) == '0' && Character.toLowerCase(line.charAt(start + 1)) == 'x') {
+            start += 2;
+         }
+         if (start == end || end - start > 8) {
+            return -1;
+         }
+         long value = 0;
+         for (int i = start; i < end; i++) {
+            int digit = Character.digit(line.charAt(i), 16);
+            if (digit < 0) {
+               return -1;
+            }
+            value = (value << 4) | digit;
+         }
+         return value;
+      }
+   }
@@ -0,0 +1,274 @@
+   package mars.tools;
+   import java.io.*;
+   import java.util.concurrent.*;
+   import java.util.concurrent.locks.LockSupport;
+   import java.util.zip.Deflater;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+	
+   /**
+	 * Records a memory and branch trace to a compact binary file.  Each record holds the
+	 * program counter, event type (TraceListener types), address, access size in bytes and
+	 * value read or written; for fetches the value is the instruction.  A branch record
+	 * directly follows the fetch of its branch instruction.  TraceReader reads the file.
+	 * <p>Records are collected in chunks of about CHUNK_SIZE bytes.  Within a chunk each
+	 * record is encoded as a change from the one before: a header byte holding the type and
+	 * size, then variable length integers for what changed (the next sequential fetch needs
+	 * only the header and value).  A background thread compresses each full chunk with
+	 * Deflate and appends it to the file, so the simulation only encodes records into memory.
+	 * Chunks are passed to that thread through a bounded pool of preallocated buffers in
+	 * lock-free queues; the simulation waits only if the writer falls a whole pool behind.</p>
+	 * <p>Every chunk can be decoded by itself, and an index of the file position and
+	 * first record number of each chunk is written at the end, so a reader can go
+	 * straight to any record.  File layout (integers big-endian):</p>
+	 * <pre>
+	 * header:  MAGIC (8 bytes)
+	 * chunk:   record count (int), encoded length (int), compressed length (int), compressed records
+	 * index:   per chunk: file position (long), first record number (long)
+	 * trailer: index position (long), chunk count (int), total records (long), INDEX_MAGIC (8 bytes)
+	 * </pre>
+	 */
+    public class TraceRecorder {
+      /** First bytes of a binary trace file */
+      public static final String MAGIC = "MARSTRC1";
+      /** Last bytes of a complete binary trace file */
+      public static final String INDEX_MAGIC = "MARSIDX1";
+      /** Encoded bytes per chunk, before compression */
+      public static final int CHUNK_SIZE = 1 << 20;
+      /** Size of trailer at end of file */
+      public static final int TRAILER_SIZE = 8 + 4 + 8 + 8;
+      // header byte: type in bits 0-2, size code in bits 3-4, bit 5 if pc delta follows,
+   	// bit 6 if address delta follows, bit 7 if value follows
+      static final int SIZE_SHIFT = 3, PC_FOLLOWS = 0x20, ADDRESS_FOLLOWS = 0x40, VALUE_FOLLOWS = 0x80;
+      private static final int MAXIMUM_RECORD_SIZE = 1 + 3 * 5;
+      private static final int BUFFERS = 8;
+   	
+      private DataOutputStream out;
+      private long position;
+      private ConcurrentLinkedQueue freeChunks = new ConcurrentLinkedQueue();
+      private ConcurrentLinkedQueue fullChunks = new ConcurrentLinkedQueue();
+      private Thread writer;
+      private volatile Thread producer; // thread recording, to wake if waiting for a buffer
+      private volatile boolean closing;
+      private volatile IOException error;
+      private ByteArrayOutputStream index = new ByteArrayOutputStream();
+      private int chunkCount;
+   	// state of the chunk being encoded
+      private Chunk chunk;
+      private long recordCount;
+      private int lastPc, lastAddress, lastValue;
+   	
+   	/**
+   	 * Create the trace file, replacing any existing file, and start the writer thread.
+   	 * @param file the trace file
+   	 * @throws IOException if the file cannot be created
+   	 */
+       public TraceRecorder(File file) throws IOException {
+         out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+         out.writeBytes(MAGIC);
+         position = MAGIC.length();
+         for (int i = 0; i < BUFFERS; i++) {
+            freeChunks.add(new Chunk());
+         }
+         chunk = (Chunk) freeChunks.poll();
+         chunk.start(0);
+         writer = 
+               new Thread("MARS trace writer") {
+                  public void run() {
+                     writeChunks();
+                  }
+               };
+         writer.setDaemon(true);
+         writer.start();
+      }
+   	
+   	/**
+   	 * Add a record to the trace.
+   	 * @param pc address of the instruction making the access
+   	 * @param type TraceListener event type
+   	 * @param address address accessed; for fetches and branches, the same as pc
+   	 * @param size size of access in bytes: 1, 2 or 4; ignored for branches
+   	 * @param value value read or written, or instruction fetched; ignored for branches
+   	 */
+       public void record(int pc, int type, int address, int size, int value) {
+         byte[] data = chunk.data;
+         int start = chunk.length;
+         int length = start + 1;
+         int header = type;
+         boolean branch = type == TraceListener.BRANCH_TAKEN || type == TraceListener.BRANCH_NOT_TAKEN;
+         if (!branch) {
+            header |= ((size == 4) ? 2 : (size == 2) ? 1 : 0) << SIZE_SHIFT;
+         }
+         // a fetch predicts the next pc sequentially; anything else is expected at the current pc
+         int expectedPc = (type == TraceListener.FETCH) ? lastPc + 4 : lastPc;
+         if (pc != expectedPc) {
+            header |= PC_FOLLOWS;
+            length = putVarint(data, length, pc - expectedPc);
+         }
+         lastPc = pc;
+         if (type == TraceListener.READ || type == TraceListener.WRITE) {
+            if (address != lastAddress) {
+               header |= ADDRESS_FOLLOWS;
+               length = putVarint(data, length, address - lastAddress);
+               lastAddress = address;
+            }
+         }
+         if (!branch && value != lastValue) {
+            header |= VALUE_FOLLOWS;
+            length = putVarint(data, length, value - lastValue);
+            lastValue = value;
+         }
+         data[start] = (byte) header;
+         chunk.length = length;
+         chunk.records++;
+         recordCount++;
+         if (length > CHUNK_SIZE - MAXIMUM_RECORD_SIZE) {
+            nextChunk();
+         }
+      }
+   	
+   	/**
+   	 * Write the remaining records, index and trailer, then close the file.
+   	 * @throws IOException if this or any earlier write failed
+   	 */
+       public void close() throws IOException {
+         if (chunk.records > 0) {
+            fullChunks.add(chunk);
+         }
+         chunk = null;
+         closing = true;
+         LockSupport.unpark(writer);
+         try {
+            writer.join();
+         } 
+             catch (InterruptedException e) {
+               error = new InterruptedIOException("trace not completed");
+            }
+         if (error == null) {
+            try {
+               long indexPosition = position;
+               index.writeTo(out);
+               out.writeLong(indexPosition);
+               out.writeInt(chunkCount);
+               out.writeLong(recordCount);
+               out.writeBytes(INDEX_MAGIC);
+            } 
+                catch (IOException e) {
+                  error = e;
+               }
+         }
+         out.close();
+         if (error != null) {
+            throw error;
+         }
+      }
+   	
+   	// Hand the full chunk to the writer and start another.  Waits for a free buffer if necessary.
+       private void nextChunk() {
+         producer = Thread.currentThread();
+         fullChunks.add(chunk);
+         LockSupport.unpark(writer);
+         Chunk next;
+         while ((next = (Chunk) freeChunks.poll()) == null) {
+            LockSupport.parkNanos(this, 100000);
+         }
+         next.start(recordCount);
+         chunk = next;
+         lastPc = lastAddress = lastValue = 0;
+      }
+   	
+   	// Body of writer thread: compress and write chunks as they fill until closed.
+       private void writeChunks() {
+         Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+         byte[] compressed = new byte[CHUNK_SIZE + CHUNK_SIZE / 8];
+         DataOutputStream indexOut = new DataOutputStream(index);
+         while (true) {
+            Chunk full = (Chunk) fullChunks.poll();
+            if (full == null) {
+               if (closing && fullChunks.isEmpty()) {
+                  break;
+               }
+               LockSupport.parkNanos(this, 1000000);
+               continue;
+            }
+            if (error == null) {
+               try {
+                  deflater.reset();
+                  deflater.setInput(full.data, 0, full.length);
+                  deflater.finish();
+                  int compressedLength = deflater.deflate(compressed);
+                  if (!deflater.finished()) {
+                     throw new IOException("trace chunk did not compress");
+                  }
+                  indexOut.writeLong(position);
+                  indexOut.writeLong(full.firstRecord);
+                  out.writeInt(full.records);
+                  out.writeInt(full.length);
+                  out.writeInt(compressedLength);
+                  out.write(compressed, 0, compressedLength);
+                  position += 12 + compressedLength;
+                  chunkCount++;
+               } 
+                   catch (IOException e) {
+                     error = e;
+                  }
+            }
+            freeChunks.add(full);
+            if (producer != null) {
+               LockSupport.unpark(producer);
+            }
+         }
+         deflater.end();
+      }
+   	
+   	// Store value as zigzag variable length integer: 7 bits per byte, low first, high bit set
+   	// on all but the last byte.  Small positive and negative values take few bytes.
+       static int putVarint(byte[] data, int position, int value) {
+         int bits = (value << 1) ^ (value >> 31);
+         while ((bits & ~0x7f) != 0) {
+            data[position++] = (byte) ((bits & 0x7f) | 0x80);
+            bits >>>= 7;
+         }
+         data[position++] = (byte) bits;
+         return position;
+      }
+   	
+   	// Buffer of encoded records.
+       private static class Chunk {
+         byte[] data = new byte[CHUNK_SIZE];
+         int length, records;
+         long firstRecord;
+      	
+          void start(long firstRecord) {
+            this.firstRecord = firstRecord;
+            length = 0;
+            records = 0;
+         }
+      }
+   }
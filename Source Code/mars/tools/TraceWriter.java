@@ -0,0 +1,90 @@
+   package mars.tools;
+   import java.io.*;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+	
+   /**
+	 * Writes trace events to a text file, one per line: a letter for the event type
+	 * (r read, w write, i instruction fetch, t branch taken, n branch not taken), a space,
+	 * then the address as 8 hexadecimal digits.  Lines starting with # are comments.
+	 * TraceReader reads these files back.
+	 */
+    public class TraceWriter implements TraceListener {
+      /** Letter for each event type, indexed by type */
+      static final char[] EVENT_LETTERS = {'r', 'w', 'i', 't', 'n'};
+      private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+      private Writer out;
+      private char[] line = new char[11];
+      private IOException error;
+   	
+   	/**
+   	 * Create the trace file, replacing any existing file.
+   	 * @param file the trace file
+   	 * @throws IOException if the file cannot be created
+   	 */
+       public TraceWriter(File file) throws IOException {
+         out = new BufferedWriter(new FileWriter(file), 1 << 16);
+         out.write("# MARS memory and branch trace\n");
+         line[1] = ' ';
+         line[10] = '\n';
+      }
+   	
+   	/**
+   	 * Write one event.  Errors are reported by close().
+   	 * @param type event type
+   	 * @param address event address
+   	 */
+       public void traceEvent(int type, int address) {
+         if (error != null) {
+            return;
+         }
+         line[0] = EVENT_LETTERS[type];
+         for (int i = 9; i >= 2; i--) {
+            line[i] = HEX_DIGITS[address & 0xf];
+            address >>>= 4;
+         }
+         try {
+            out.write(line);
+         } 
+             catch (IOException e) {
+               error = e;
+            }
+      }
+   	
+   	/**
+   	 * Finish writing the trace file.
+   	 * @throws IOException if this or any earlier write failed
+   	 */
+       public void close() throws IOException {
+         out.close();
+         if (error != null) {
+            throw error;
+         }
+      }
+   }
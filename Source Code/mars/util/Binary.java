@@ -254,23 +254,25 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       }  
    
     /**
-     * Prefix a hexadecimal-indicating string "0x" to the string which is 
-     * returned by the method "Integer.toHexString". Prepend leading zeroes
+     * Prefix a hexadecimal-indicating string "0x" to the string equivalent to the 
+     * hexadecimal value in the int parameter. Prepend leading zeroes
      * to that string as necessary to make it always eight hexadecimal digits.
+     * Produces the same result as "0x" plus zero-padded "Integer.toHexString" 
+     * but builds it in a single char array, as it is called for every value displayed.
      *
      * @param d The int value to convert.
      * @return String containing '0', '1', ...'F' which form hexadecimal equivalent of int.
      */
        public static String intToHexString(int d)
       {
-         String leadingZero = new String("0");
-         String leadingX = new String("0x");
-         String t = Integer.toHexString(d);
-         while (t.length() < 8)
-            t = leadingZero.concat(t);
-            
-         t = leadingX.concat(t);   
-         return t;
+         char[] hexChars = new char[10];
+         hexChars[0] = '0';
+         hexChars[1] = 'x';
+         for (int i = 9; i >= 2; i--) {
+            hexChars[i] = chars[d & 0xf];
+            d >>>= 4;
+         }
+         return new String(hexChars);
       }
    
     /**
@@ -310,7 +312,14 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
      */
    
        public static String longToHexString(long value) {
-         return binaryStringToHexString(longToBinaryString(value));
+         char[] hexChars = new char[18];
+         hexChars[0] = '0';
+         hexChars[1] = 'x';
+         for (int i = 17; i >= 2; i--) {
+            hexChars[i] = chars[(int) value & 0xf];
+            value >>>= 4;
+         }
+         return new String(hexChars);
       }
    
    
@@ -0,0 +1,294 @@
+   package mars.util;
+   import java.io.*;
+   import java.lang.reflect.*;
+   import java.net.URL;
+   import java.util.*;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Index of the syscalls, memory dump formats and tools that come with MARS, so that
+ * they can be found at startup without listing the class files of their package
+ * folder or JAR directory and loading every one to see whether it qualifies.
+ * <p>
+ * There is one index per kind of plugin, in the form read by java.util.ServiceLoader:
+ * a resource named META-INF/services/ followed by the name of the interface, listing
+ * the implementing classes one per line.  A tool's line also gives its menu name as a
+ * trailing comment, which ServiceLoader ignores, so the Tools menu can be built before
+ * any tool is created.
+ * <p>
+ * The indexes are generated when the JAR is built, by running this class (see
+ * CreateMarsJar.bat).  When there is no index, as when MARS runs from its source
+ * folder, the loaders fall back to scanning for class files as before.  When the
+ * package folder is a directory rather than part of a JAR, as after extracting
+ * Mars.jar to add a tool or syscall, it is scanned too for classes not in the index.
+ */
+
+    public class PluginIndex {
+      /** Folder, relative to the class path, holding the index resources. */
+      public static final String INDEX_DIRECTORY = "META-INF/services/";
+   
+      private static final String CLASS_EXTENSION = "class";
+      private static final String COMMENT = "#";
+      // Interface, package folder and whether named, for each kind of plugin indexed.
+      private static final String[][] PLUGIN_KINDS = {
+            { "mars.mips.instructions.syscalls.Syscall", "mars/mips/instructions/syscalls", "" },
+            { "mars.mips.dump.DumpFormat", "mars/mips/dump", "" },
+            { "mars.tools.MarsTool", "mars/tools", "named" } };
+   
+      private String className;
+      private String name;
+   
+   	/**
+   	 * Create an index entry.
+   	 * @param className fully qualified name of the plugin class
+   	 * @param name display name of the plugin, or null if not known
+   	 */
+       public PluginIndex(String className, String name) {
+         this.className = className;
+         this.name = name;
+      }
+   
+   	/**
+   	 * Get the fully qualified name of the plugin class.
+   	 * @return class name
+   	 */
+       public String getClassName() {
+         return className;
+      }
+   
+   	/**
+   	 * Get the display name recorded for the plugin, such as a tool's menu name.
+   	 * @return the name, or null if none was recorded
+   	 */
+       public String getName() {
+         return name;
+      }
+   
+   	/**
+   	 * Read the index of the classes implementing the given interface.  If several
+   	 * class path entries have an index, all are read, and a class listed more than
+   	 * once is returned only the first time.
+   	 * @param classLoader loader through which to find the index resources
+   	 * @param service the plugin interface
+   	 * @return ArrayList of PluginIndex entries in the order listed, or null if there
+   	 * is no index, in which case the caller should look for the classes itself
+   	 */
+       public static ArrayList<PluginIndex> read(ClassLoader classLoader, Class<?> service) {
+         ArrayList<PluginIndex> entries = new ArrayList<PluginIndex>();
+         Set<String> listed = new HashSet<String>();
+         boolean found = false;
+         try {
+            Enumeration<URL> urls = classLoader.getResources(INDEX_DIRECTORY + service.getName());
+            while (urls.hasMoreElements()) {
+               found = true;
+               BufferedReader in = new BufferedReader(new InputStreamReader(
+                                   urls.nextElement().openStream(), "UTF-8"));
+               try {
+                  String line;
+                  while ((line = in.readLine()) != null) {
+                     String name = null;
+                     int comment = line.indexOf(COMMENT);
+                     if (comment >= 0) {
+                        name = line.substring(comment + 1).trim();
+                        line = line.substring(0, comment);
+                     }
+                     line = line.trim();
+                     if (line.length() > 0 && listed.add(line)) {
+                        entries.add(new PluginIndex(line, (name == null || name.length() == 0) ? null : name));
+                     }
+                  }
+               } 
+               finally {
+                  in.close();
+               }
+            }
+         } 
+             catch (IOException e) {
+               return null;
+            }
+         return (found) ? entries : null;
+      }
+   
+   	/**
+   	 * Find the classes implementing the given interface.  The index is used if there
+   	 * is one.  The package folder is scanned if there is no index, and also if the
+   	 * folder is a directory, so that classes added to it after the index was built
+   	 * are found.  Only classes not in the index are loaded by that scan.
+   	 * @param classLoader loader through which to find the index or classes
+   	 * @param directoryPath package folder of the plugins, such as "mars/tools"
+   	 * @param service the plugin interface
+   	 * @return ArrayList of PluginIndex entries, indexed ones first
+   	 */
+       public static ArrayList<PluginIndex> find(ClassLoader classLoader, String directoryPath, Class<?> service) {
+         ArrayList<PluginIndex> entries = read(classLoader, service);
+         Set<String> indexed = new HashSet<String>();
+         if (entries == null) {
+            entries = new ArrayList<PluginIndex>();
+         } 
+         else if (!isDirectory(classLoader, directoryPath)) {
+            return entries;
+         } 
+         else {
+            for (int i = 0; i < entries.size(); i++) {
+               indexed.add(entries.get(i).getClassName());
+            }
+         }
+         ArrayList<String> classNames = scan(classLoader, directoryPath, service, indexed);
+         for (int i = 0; i < classNames.size(); i++) {
+            entries.add(new PluginIndex(classNames.get(i), null));
+         }
+         return entries;
+      }
+   
+   	/**
+   	 * Get the names of the classes implementing the given interface, as found by
+   	 * find().
+   	 * @param classLoader loader through which to find the index or classes
+   	 * @param directoryPath package folder of the plugins, such as "mars/tools"
+   	 * @param service the plugin interface
+   	 * @return ArrayList of fully qualified class names
+   	 */
+       public static ArrayList<String> getClassNames(ClassLoader classLoader, String directoryPath, Class<?> service) {
+         ArrayList<PluginIndex> entries = find(classLoader, directoryPath, service);
+         ArrayList<String> classNames = new ArrayList<String>();
+         for (int i = 0; i < entries.size(); i++) {
+            classNames.add(entries.get(i).getClassName());
+         }
+         return classNames;
+      }
+   
+   	/**
+   	 * Find the classes in a package folder that implement the given interface and
+   	 * can be instantiated.  This is how plugins are found when there is no index.
+   	 * @param classLoader loader through which to find and load the classes
+   	 * @param directoryPath package folder, such as "mars/tools"
+   	 * @param service the plugin interface
+   	 * @return ArrayList of fully qualified class names, without duplicates
+   	 */
+       public static ArrayList<String> scan(ClassLoader classLoader, String directoryPath, Class<?> service) {
+         return scan(classLoader, directoryPath, service, new HashSet<String>());
+      }
+   
+    // As above, but passing over the classes named in exclude without loading them.
+       private static ArrayList<String> scan(ClassLoader classLoader, String directoryPath, Class<?> service, Set<String> exclude) {
+         ArrayList<String> classNames = new ArrayList<String>();
+         Set<String> seen = new HashSet<String>();
+         String packagePrefix = directoryPath.replace('/', '.') + ".";
+         List<?> candidates = FilenameFinder.getFilenameList(classLoader, directoryPath, CLASS_EXTENSION);
+         for (int i = 0; i < candidates.size(); i++) {
+            String file = (String) candidates.get(i);
+            // Do not add class if already encountered (happens if run in MARS development directory)
+            if (!seen.add(file)) {
+               continue;
+            }
+            String className = packagePrefix + file.substring(0, file.length() - CLASS_EXTENSION.length() - 1);
+            if (exclude.contains(className)) {
+               continue;
+            }
+            try {
+               Class<?> clas = Class.forName(className, false, classLoader);
+               if (service.isAssignableFrom(clas) && 
+                   !Modifier.isAbstract(clas.getModifiers()) &&
+                   !Modifier.isInterface(clas.getModifiers())) {
+                  classNames.add(className);
+               }
+            } 
+                catch (Throwable e) {
+                  System.out.println("Error loading class from file " + file + ": " + e);
+               }
+         }
+         return classNames;
+      }
+   
+    // Whether any class path entry holds the package folder as a directory, not a JAR.
+       private static boolean isDirectory(ClassLoader classLoader, String directoryPath) {
+         try {
+            Enumeration<URL> urls = classLoader.getResources(directoryPath);
+            while (urls.hasMoreElements()) {
+               if ("file".equals(urls.nextElement().getProtocol())) {
+                  return true;
+               }
+            }
+         } 
+             catch (IOException e) {
+            }
+         return false;
+      }
+   
+   	/**
+   	 * Write the index of each kind of plugin, for inclusion in the MARS JAR file.
+   	 * Tools are instantiated to obtain their menu names, which needs a display.
+   	 * Without one (a headless build machine) tools are indexed without a name and
+   	 * created at startup instead.
+   	 * @param args optional folder in which to create META-INF/services, default "."
+   	 */
+       public static void main(String[] args) throws Exception {
+         File directory = new File((args.length > 0) ? args[0] : ".", INDEX_DIRECTORY);
+         directory.mkdirs();
+         ClassLoader classLoader = PluginIndex.class.getClassLoader();
+         for (int kind = 0; kind < PLUGIN_KINDS.length; kind++) {
+            Class<?> service = Class.forName(PLUGIN_KINDS[kind][0]);
+            boolean named = PLUGIN_KINDS[kind][2].length() > 0;
+            ArrayList<String> classNames = scan(classLoader, PLUGIN_KINDS[kind][1], service);
+            Collections.sort(classNames);
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                              new FileOutputStream(new File(directory, service.getName())), "UTF-8"));
+            out.println(COMMENT + " Generated by " + PluginIndex.class.getName() + "; do not edit.");
+            for (int i = 0; i < classNames.size(); i++) {
+               String className = classNames.get(i);
+               String name = (named) ? getPluginName(Class.forName(className), service) : null;
+               if (name != null) {
+                  out.println(className + " " + COMMENT + " " + name);
+               } 
+               else {
+                  // Indexed without a name, the tool will be created at startup to get it
+                  if (named) {
+                     System.out.println("Could not get name of " + className + ", name not indexed");
+                  }
+                  out.println(className);
+               }
+            }
+            out.close();
+            System.out.println(classNames.size() + " classes indexed in " + INDEX_DIRECTORY + service.getName());
+         }
+         System.exit(0); // creating the tools may have started the AWT event thread
+      }
+   
+    // Create a plugin and call its getName().  Tools are windows, which cannot be
+    // created without a display.  Returns null if the plugin cannot be created.
+       private static String getPluginName(Class<?> clas, Class<?> service) {
+         try {
+            return (String) service.getMethod("getName").invoke(clas.getConstructor().newInstance());
+         } 
+             catch (Throwable e) {
+               return null;
+            }
+      }
+   }
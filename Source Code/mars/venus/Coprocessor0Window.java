@@ -49,8 +49,16 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private Object[][] tableData;
       private boolean highlighting;
       private int highlightRow;
+      // Register most recently written by the running program, noted on the simulator
+      // thread and highlighted by updateHighlighting() on the GUI thread.
+      private volatile Register pendingHighlight;
       private ExecutePane executePane;
       private int[] rowGivenRegNumber; // translate register number to table row.
+      // Write generation of each row's register when its value was last displayed.
+   	// Only rows whose register has been written since are updated.
+      private int[] shownGenerations;
+      private int shownBase;
+      private boolean shownValid;
       private static final int NAME_COLUMN = 0;
       private static final int NUMBER_COLUMN = 1;
       private static final int VALUE_COLUMN = 2;
@@ -86,6 +94,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          registers = Coprocessor0.getRegisters();
          tableData = new Object[registers.length][3];
          rowGivenRegNumber = new int[32]; // maximum number of registers
+         shownGenerations = new int[registers.length];
+         shownValid = false;
          for(int i=0; i< registers.length; i++){
             rowGivenRegNumber[registers[i].getNumber()] = i;
             tableData[i][0]= registers[i].getName();
@@ -109,6 +119,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 */
        public void clearHighlighting() {
          highlighting=false;
+         pendingHighlight = null;
          if (table != null) {
             table.tableChanged(new TableModelEvent(table.getModel()));
          }
@@ -128,19 +139,31 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 *  Update register display using current display base (10 or 16)
    	 */
        public void updateRegisters() {
+         updateHighlighting();
          this.updateRegisters(Globals.getGui().getMainPane().getExecutePane().getValueDisplayBase());
       }
    	
    	/**
-   	 * Update register display using specified display base
+   	 * Update register display using specified display base.  Only registers 
+   	 * written since they were last displayed are redrawn, unless the base has changed.
    	 *
    	 * @param base  number base for display (10 or 16)
    	 */
        public void updateRegisters(int base) {
+         if (base != shownBase) {
+            shownBase = base;
+            shownValid = false;
+         }
          registers = Coprocessor0.getRegisters();
          for(int i=0; i< registers.length; i++){
-            this.updateRegisterValue(registers[i].getNumber(), registers[i].getValue(), base);
+            int generation = registers[i].getWriteGeneration();
+            if (shownValid && shownGenerations[i] == generation) {
+               continue;
+            }
+            shownGenerations[i] = generation;
+            this.updateRegisterValue(registers[i].getNumber(), registers[i].getValueNoNotify(), base);
          }
+         shownValid = true;
       }
    	
      /**
@@ -189,13 +212,29 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             	// as visually distinct as changing the background color, but will do for now.
             	// Ideally, use the same highlighting technique as for Text Segment -- see
             	// AddressCellRenderer class in DataSegmentWindow.java.
-               this.highlighting = true;
-               this.highlightCellForRegister((Register)observable);
-               Globals.getGui().getRegistersPane().setSelectedComponent(this);
+               // Runs on the simulator thread, so only note the register here.
+               pendingHighlight = (Register) observable;
             }
          }
       }
    	
+     /**
+      *  Highlight the register most recently written by the running program, if one
+   	*  has been written since the last call, and show this window.  Write notices
+   	*  arrive on the simulator thread, which only notes the register; this is called
+   	*  on the GUI thread, once per frame while running and when stepping or stopping.
+   	*/
+       public void updateHighlighting() {
+         Register register = pendingHighlight;
+         if (register == null) {
+            return;
+         }
+         pendingHighlight = null;
+         this.highlighting = true;
+         this.highlightCellForRegister(register);
+         Globals.getGui().getRegistersPane().setSelectedComponent(this);
+      }
+   
      /**
       *  Highlight the row corresponding to the given register.  
    	*  @param register Register object corresponding to row to be selected.
@@ -204,8 +243,14 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          int registerRow    = Coprocessor0.getRegisterPosition(register);
          if (registerRow < 0) 
             return; // not valid coprocessor0 register
+         int previousRow = this.highlightRow;
          this.highlightRow = registerRow;
-         table.tableChanged(new TableModelEvent(table.getModel()));
+         // Only the previous and new highlighted rows need to be rendered again.
+         RegTableModel model = (RegTableModel) table.getModel();
+         if (previousRow >= 0 && previousRow != highlightRow) {
+            model.fireTableRowsUpdated(previousRow, previousRow);
+         }
+         model.fireTableRowsUpdated(highlightRow, highlightRow);
       }
    
    /*
@@ -309,6 +354,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             }
                 catch (NumberFormatException nfe) {
                   data[row][col] = "INVALID";
+                  shownValid = false; // so the next update replaces it
                   fireTableCellUpdated(row, col);
                   return;
                }
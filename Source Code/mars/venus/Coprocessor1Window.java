@@ -49,8 +49,17 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private Object[][] tableData;
       private boolean highlighting;
       private int highlightRow;
+      // Register most recently written by the running program, noted on the simulator
+      // thread and highlighted by updateHighlighting() on the GUI thread.
+      private volatile Register pendingHighlight;
       private ExecutePane executePane;
       private JCheckBox[] conditionFlagCheckBox;
+      // Write generation of each row's register when its value was last displayed.
+   	// Only rows whose register, or the other register of its pair, has been written 
+   	// since are updated.
+      private int[] shownGenerations;
+      private int shownBase;
+      private boolean shownValid;
       private static final int NAME_COLUMN = 0;
       private static final int FLOAT_COLUMN = 1;
       private static final int DOUBLE_COLUMN = 2;
@@ -129,6 +138,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          registers = Coprocessor1.getRegisters();
          this.highlighting = false;
          tableData = new Object[registers.length][3];
+         shownGenerations = new int[registers.length];
+         shownValid = false;
          for(int i=0; i< registers.length; i++){
             tableData[i][0]= registers[i].getName();
             tableData[i][1]= NumberDisplayBaseChooser.formatFloatNumber(registers[i].getValue(),NumberDisplayBaseChooser.getBase(settings.getDisplayValuesInHex()));//formatNumber(floatValue,NumberDisplayBaseChooser.getBase(settings.getDisplayValuesInHex()));
@@ -163,6 +174,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 */
        public void clearHighlighting() {
          highlighting=false;
+         pendingHighlight = null;
          if (table != null) {
             table.tableChanged(new TableModelEvent(table.getModel()));
          }
@@ -182,24 +194,48 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 * Redisplay registers using current display number base (10 or 16)
    	 */
        public void updateRegisters() {
+         updateHighlighting();
          updateRegisters(Globals.getGui().getMainPane().getExecutePane().getValueDisplayBase());
       }
    	
    	/**
-   	 * Redisplay registers using specified display number base (10 or 16)
+   	 * Redisplay registers using specified display number base (10 or 16).  Only
+   	 * registers written since they were last displayed are redrawn, along with the
+   	 * double value of their even/odd pair, unless the base has changed.
    	 * @param base number base for display (10 or 16)
    	 */   	
        public void updateRegisters(int base) {
+         if (base != shownBase) {
+            shownBase = base;
+            shownValid = false;
+         }
          registers = Coprocessor1.getRegisters();
-         for(int i=0; i< registers.length; i++){
-            updateFloatRegisterValue(registers[i].getNumber(), registers[i].getValue(), base);
-            if (i%2 ==0) {
-               updateDoubleRegisterValue(i, base);
+         for(int i=0; i< registers.length; i+=2){
+            boolean evenChanged = updateFloatRegisterIfWritten(i, base);
+            boolean oddChanged = updateFloatRegisterIfWritten(i+1, base);
+            if (evenChanged || oddChanged) {
+               long val = Binary.twoIntsToLong(registers[i+1].getValueNoNotify(), registers[i].getValueNoNotify());
+               ((RegTableModel)table.getModel()).setDisplayAndModelValueAt(NumberDisplayBaseChooser.formatDoubleNumber(val,base), i, DOUBLE_COLUMN);
             }
          }
+         shownValid = true;
          updateConditionFlagDisplay();
       }
    	
+   	/*
+   	 * Redisplay the float value of the register in the given row if it has been written
+   	 * since last displayed.  Returns true if it was redisplayed.
+   	 */
+       private boolean updateFloatRegisterIfWritten(int row, int base) {
+         int generation = registers[row].getWriteGeneration();
+         if (shownValid && shownGenerations[row] == generation) {
+            return false;
+         }
+         shownGenerations[row] = generation;
+         updateFloatRegisterValue(row, registers[row].getValueNoNotify(), base);
+         return true;
+      }
+   	
        private void updateConditionFlagDisplay() {
          for (int i=0; i<conditionFlagCheckBox.length; i++) {
             conditionFlagCheckBox[i].setSelected((Coprocessor1.getConditionFlag(i)==0)? false : true);
@@ -267,20 +303,42 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             	// as visually distinct as changing the background color, but will do for now.
             	// Ideally, use the same highlighting technique as for Text Segment -- see
             	// AddressCellRenderer class in DataSegmentWindow.java.
-               this.highlighting = true;
-               this.highlightCellForRegister((Register)observable);
-               Globals.getGui().getRegistersPane().setSelectedComponent(this);            
+               // Runs on the simulator thread, so only note the register here.
+               pendingHighlight = (Register) observable;
             }
          }
       }
    	
+     /**
+      *  Highlight the register most recently written by the running program, if one
+   	*  has been written since the last call, and show this window.  Write notices
+   	*  arrive on the simulator thread, which only notes the register; this is called
+   	*  on the GUI thread, once per frame while running and when stepping or stopping.
+   	*/
+       public void updateHighlighting() {
+         Register register = pendingHighlight;
+         if (register == null) {
+            return;
+         }
+         pendingHighlight = null;
+         this.highlighting = true;
+         this.highlightCellForRegister(register);
+         Globals.getGui().getRegistersPane().setSelectedComponent(this);
+      }
+   
      /**
       *  Highlight the row corresponding to the given register.  
    	*  @param register Register object corresponding to row to be selected.
    	*/
        void highlightCellForRegister(Register register) {
+         int previousRow = this.highlightRow;
          this.highlightRow = register.getNumber();
-         table.tableChanged(new TableModelEvent(table.getModel()));
+         // Only the previous and new highlighted rows need to be rendered again.
+         RegTableModel model = (RegTableModel) table.getModel();
+         if (previousRow >= 0 && previousRow != highlightRow) {
+            model.fireTableRowsUpdated(previousRow, previousRow);
+         }
+         model.fireTableRowsUpdated(highlightRow, highlightRow);
       	/*
          int registerColumn = FLOAT_COLUMN;
          registerColumn = table.convertColumnIndexToView(registerColumn); 
@@ -456,6 +514,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             }
                 catch (NumberFormatException nfe) {
                   data[row][col] = "INVALID";
+                  shownValid = false; // so the next update replaces it
                   fireTableCellUpdated(row, col);
                }
                 catch (InvalidRegisterAccessException e) {
@@ -74,6 +74,18 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private boolean asciiDisplay = false;
       private int addressRow, addressColumn, addressRowFirstAddress;
       private Settings settings;
+   	// Address of the latest memory write, set by the simulator thread and highlighted by
+   	// updateValues() on the event dispatch thread, which alone touches the table.
+      private volatile int pendingHighlightAddress;
+      private volatile boolean highlightPending = false;
+   
+   	// What the table currently shows, so that refreshing it need only re-read the rows on
+   	// pages written since (see Memory.getPageGeneration()) and update the cells whose values
+   	// changed.  Not valid until the table has been filled from memory.
+      private boolean shownValid = false;
+      private int shownFirstAddress, shownValueFormat, shownAddressBase;
+      private int[] shownRowGenerations = new int[NUMBER_OF_ROWS];
+      private int[][] shownValues = new int[NUMBER_OF_ROWS][NUMBER_OF_COLUMNS];
    	
       int firstAddress;
       int homeAddress;
@@ -216,6 +228,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	*  @param address data segment address of word to be selected.
    	*/   	 
       void highlightCellForAddress(int address) {
+         int previousRow = this.addressRow;
          Point rowColumn = displayCellForAddress(address);
          if (rowColumn==null || rowColumn.x < 0 || rowColumn.y < 0) {
             return;
@@ -229,7 +242,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       	// during which cell renderers are obtained.  The cell of interest (identified by 
       	// instance variables this.addressRow and this.addressColumn) will get a renderer
       	// with highlight background color and all others get renderer with default background. 
-         dataTable.tableChanged(new TableModelEvent(dataTable.getModel(),0,dataData.length-1));
+      	// Only the rows holding the previous and new highlighted cells need re-rendering.
+         if (previousRow >= 0 && previousRow < dataData.length && previousRow != this.addressRow) {
+            dataTable.tableChanged(new TableModelEvent(dataTable.getModel(),previousRow,previousRow));
+         }
+         dataTable.tableChanged(new TableModelEvent(dataTable.getModel(),this.addressRow,this.addressRow));
       }
    	 
    	 // Given address, will compute table cell location, adjusting table if necessary to
@@ -253,6 +270,17 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             // It is not a data segment address so good bye!
             return null;
          }
+      	// Shortcut: if the address is already in the table for that segment, the cell is found
+      	// from the table's first address and the table only needs to catch up with the pages
+      	// written since.  This is the usual case when highlighting successive writes by a 
+      	// running program.  Like the rest of this method it must run on the GUI thread, as
+      	// it updates the table and its cache of shown values.
+         if (desiredComboBoxIndex == baseAddressSelector.getSelectedIndex() && tablePanel.getComponentCount() > 0
+             && address - firstAddress >= 0 && address - firstAddress < MEMORY_CHUNK_SIZE) {
+            updateModelForMemoryRange(firstAddress);
+            int offset = address - firstAddress;
+            return scrollToCell(offset / BYTES_PER_ROW, offset % BYTES_PER_ROW / BYTES_PER_VALUE + 1);
+         }
          // STEP 2:  Set the combo box appropriately.  This will also display the 
       	// first chunk of addresses from that segment.
          baseAddressSelector.setSelectedIndex(desiredComboBoxIndex);
@@ -289,6 +317,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       	// reordered, but I included it as a precautionary measure in case that changes.
          int addrRow    = byteOffsetIntoChunk / BYTES_PER_ROW;
          int addrColumn = byteOffsetIntoChunk % BYTES_PER_ROW / BYTES_PER_VALUE + 1;
+         return scrollToCell(addrRow, addrColumn);
+      }
+   
+   	// Steps 4 (in part) and 5 of displayCellForAddress(): given the table row and model column
+   	// of a cell, center its row in the viewport and return its row and view column.
+      private Point scrollToCell(int addrRow, int addrColumn) {
          addrColumn = dataTable.convertColumnIndexToView(addrColumn); 
          Rectangle addressCell = dataTable.getCellRect(addrRow, addrColumn, true);
       	// STEP 5:  Center the row containing the cell of interest, to the extent possible.
@@ -456,6 +490,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 * Generates and displays fresh table, typically done upon successful assembly.
    	 */   	
       public void setupTable(){
+         shownValid = false;
          tablePanel.removeAll();
          tablePanel.add(generateDataPanel()); 
          contentPane.add(tablePanel);
@@ -466,6 +501,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 * Removes the table from its frame, typically done when a file is closed.
    	 */
       public void clearWindow() {
+         shownValid = false;
          tablePanel.removeAll();
          disableAllButtons();
       }
@@ -475,6 +511,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 */
       public void clearHighlighting() {
          addressHighlighting=false;
+         highlightPending=false;
          dataTable.tableChanged(new TableModelEvent(dataTable.getModel(),0,dataData.length-1));
       	// The below addresses situation in which addressRow and addressColum hold their
       	// values across assemble operations.  Whereupon at the first step of the next
@@ -493,7 +530,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	
    	/**
    	 * Update table model with contents of new memory "chunk".  Mars supports megabytes of
-   	 * data segment space so we only plug a "chunk" at a time into the table.
+   	 * data segment space so we only plug a "chunk" at a time into the table.  If the table
+   	 * already shows that chunk in the current number formats, only rows on pages written
+   	 * since the last update are read again, and only cells whose value changed are updated.
    	 * @param firstAddr the first address in the memory range to be placed in the model.
    	 */
    	 
@@ -502,45 +541,67 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             return; // ignore if no content to change
          int valueBase = getValueDisplayFormat();
          int addressBase = Globals.getGui().getMainPane().getExecutePane().getAddressDisplayBase();
+         boolean refreshAll = !shownValid || firstAddr != shownFirstAddress 
+                              || valueBase != shownValueFormat || addressBase != shownAddressBase;
          int address = firstAddr;
-         TableModel dataModel = dataTable.getModel();
+         DataTableModel dataModel = (DataTableModel) dataTable.getModel();
          for (int row=0; row<NUMBER_OF_ROWS; row++) {
-            ((DataTableModel)dataModel).setDisplayAndModelValueAt(NumberDisplayBaseChooser.formatUnsignedInteger(address, addressBase),row,ADDRESS_COLUMN);
+         	// A row may straddle two pages.  Generations only increase, so their sum changes
+         	// whenever either does.  Read it before the values, so a write made in between is
+         	// picked up next time.
+            int generation = Globals.memory.getPageGeneration(address) 
+                             + Globals.memory.getPageGeneration(address + BYTES_PER_ROW - BYTES_PER_VALUE);
+            if (!refreshAll && generation == shownRowGenerations[row]) {
+               address += BYTES_PER_ROW;
+               continue;
+            }
+            shownRowGenerations[row] = generation;
+            if (refreshAll) {
+               dataModel.setDisplayAndModelValueAt(NumberDisplayBaseChooser.formatUnsignedInteger(address, addressBase),row,ADDRESS_COLUMN);
+            }
             for (int column=1; column<NUMBER_OF_COLUMNS; column++) {
-               try {
-                  ((DataTableModel)dataModel).setDisplayAndModelValueAt(NumberDisplayBaseChooser.formatNumber(Globals.memory.getWordNoNotify(address), valueBase),row,column);
-               } 
-                  catch (AddressErrorException aee) {
-                     // Bit of a hack here.  Memory will throw an exception if you try to read directly from text segment when the
-                  	// self-modifying code setting is disabled.  This is a good thing if it is the executing MIPS program trying to
-                  	// read.  But not a good thing if it is the DataSegmentDisplay trying to read.  I'll trick Memory by 
-                  	// temporarily enabling the setting as "non persistent" so it won't write through to the registry.
-                     if (Memory.inTextSegment(address)) {
-                        int displayValue = 0;
-                        if (!Globals.getSettings().getBooleanSetting(Settings.SELF_MODIFYING_CODE_ENABLED)) {
-                           Globals.getSettings().setBooleanSettingNonPersistent(Settings.SELF_MODIFYING_CODE_ENABLED, true);
-                           try {
-                              displayValue = Globals.memory.getWordNoNotify(address);
-                           } 
-                              catch (AddressErrorException e) { 
-                              // Still got an exception?  Doesn't seem possible but if we drop through it will write default value 0.
-                              }
-                           Globals.getSettings().setBooleanSettingNonPersistent(Settings.SELF_MODIFYING_CODE_ENABLED, false);
-                        }
-                        ((DataTableModel)dataModel).setDisplayAndModelValueAt(NumberDisplayBaseChooser.formatNumber(displayValue, valueBase),row,column);
-                     } 
-							// Bug Fix: the following line of code disappeared during the release 4.4 mods, but is essential to
-							// display values of 0 for valid MIPS addresses that are outside the MARS simulated address space.  Such
-							// addresses cause an AddressErrorException.  Prior to 4.4, they performed this line of code unconditionally.  
-							// With 4.4, I added the above IF statement to work with the text segment but inadvertently removed this line!
-							// Now it becomes the "else" part, executed when not in text segment.  DPS 8-July-2014.
-                     else {
-                        ((DataTableModel)dataModel).setDisplayAndModelValueAt(NumberDisplayBaseChooser.formatNumber(0, valueBase),row,column);
-                     }
-                  }
+               int value = getDisplayValue(address);
+               if (refreshAll || value != shownValues[row][column]) {
+                  shownValues[row][column] = value;
+                  dataModel.setDisplayAndModelValueAt(NumberDisplayBaseChooser.formatNumber(value, valueBase),row,column);
+               }
                address += BYTES_PER_VALUE;
             }
          }
+         shownFirstAddress = firstAddr;
+         shownValueFormat = valueBase;
+         shownAddressBase = addressBase;
+         shownValid = true;
+      }
+   
+   	// Value of the memory word at the given address, as displayed in the table.
+      private int getDisplayValue(int address) {
+         try {
+            return Globals.memory.getWordNoNotify(address);
+         } 
+            catch (AddressErrorException aee) {
+               // Bit of a hack here.  Memory will throw an exception if you try to read directly from text segment when the
+            	// self-modifying code setting is disabled.  This is a good thing if it is the executing MIPS program trying to
+            	// read.  But not a good thing if it is the DataSegmentDisplay trying to read.  I'll trick Memory by 
+            	// temporarily enabling the setting as "non persistent" so it won't write through to the registry.
+               int displayValue = 0;
+               if (Memory.inTextSegment(address)) {
+                  if (!Globals.getSettings().getBooleanSetting(Settings.SELF_MODIFYING_CODE_ENABLED)) {
+                     Globals.getSettings().setBooleanSettingNonPersistent(Settings.SELF_MODIFYING_CODE_ENABLED, true);
+                     try {
+                        displayValue = Globals.memory.getWordNoNotify(address);
+                     } 
+                        catch (AddressErrorException e) { 
+                        // Still got an exception?  Doesn't seem possible but if we drop through it will write default value 0.
+                        }
+                     Globals.getSettings().setBooleanSettingNonPersistent(Settings.SELF_MODIFYING_CODE_ENABLED, false);
+                  }
+               } 
+               // Bug Fix: valid MIPS addresses that are outside the MARS simulated address space cause an 
+            	// AddressErrorException, and must display as 0 -- the displayValue default.  This disappeared
+            	// during the release 4.4 mods and was restored 8-July-2014.  DPS
+               return displayValue;
+            }
       }
    	 
    	/**
@@ -586,6 +647,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 */
    	 
       public void updateValues(){
+         if (highlightPending) {
+            highlightPending = false;
+            highlightCellForAddress(pendingHighlightAddress);
+         }
          updateModelForMemoryRange(this.firstAddress);
       }
    
@@ -602,6 +667,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 */   
    	
       public void resetValues(){
+         shownValid = false;
          int valueBase = Globals.getGui().getMainPane().getExecutePane().getValueDisplayBase();
          TableModel dataModel = dataTable.getModel();
          for (int row=0; row<NUMBER_OF_ROWS; row++) {
@@ -846,10 +912,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          else if (obj instanceof MemoryAccessNotice) {          	// NOTE: observable != Memory.getInstance() because Memory class delegates notification duty.
             MemoryAccessNotice access = (MemoryAccessNotice) obj;
             if (access.getAccessType()==AccessNotice.WRITE) {
-               int address = access.getAddress();
             	// Use the same highlighting technique as for Text Segment -- see
-            	// AddressCellRenderer class below.
-               this.highlightCellForAddress(address);
+            	// AddressCellRenderer class below.  This runs on the simulator thread, so
+            	// only note the address; updateValues() highlights it on the GUI thread.
+               pendingHighlightAddress = access.getAddress();
+               highlightPending = true;
             }
          }
       }
@@ -1,9 +1,12 @@
    package mars.venus;
    import mars.*;
 	import mars.venus.editors.MARSTextEditingArea;
+	import mars.venus.editors.DocumentSearch;
    import java.awt.*;
    import java.awt.event.*;
    import javax.swing.*;
+   import javax.swing.event.*;
+   import javax.swing.text.Document;
 	
 	/*
 Copyright (c) 2003-2009,  Pete Sanderson and Kenneth Vollmar
@@ -39,6 +42,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     public class EditFindReplaceAction extends GuiAction {
       private static String searchString = "";
 		private static boolean caseSensitivity = true;
+		private static boolean highlightAll = true;
 		private static final String DIALOG_TITLE = "Find and Replace";
       JDialog findReplaceDialog;
        public EditFindReplaceAction(String name, Icon icon, String descrip,
@@ -58,15 +62,22 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        private class FindReplaceDialog extends JDialog {
          JButton findButton, replaceButton, replaceAllButton, closeButton;
          JTextField findInputField, replaceInputField;
-         JCheckBox caseSensitiveCheckBox;
+         JCheckBox caseSensitiveCheckBox, highlightAllCheckBox;
          JRadioButton linearFromStart, circularFromCursor;
-         private JLabel resultsLabel;
+         private JLabel resultsLabel, matchCountLabel;
+         private Timer scanTimer;
+         private DocumentSearch scanSearch;
+         private EditPane scanPane;
+         private Document watchedDocument;
+         private DocumentListener scanTrigger;
       
          public static final String FIND_TOOL_TIP_TEXT = "Find next occurrence of given text; wraps around at end";
          public static final String REPLACE_TOOL_TIP_TEXT = "Replace current occurrence of text then find next";
          public static final String REPLACE_ALL_TOOL_TIP_TEXT = "Replace all occurrences of text";
          public static final String CLOSE_TOOL_TIP_TEXT = "Close the dialog";
          public static final String RESULTS_TOOL_TIP_TEXT = "Outcome of latest operation (button click)";
+         public static final String HIGHLIGHT_ALL_TOOL_TIP_TEXT = "Highlight every occurrence of the text in the editor";
+         public static final String MATCH_COUNT_TOOL_TIP_TEXT = "Number of occurrences of the text in the current file";
       	
          public static final String RESULTS_TEXT_FOUND = "Text found";
          public static final String RESULTS_TEXT_NOT_FOUND = "Text not found";
@@ -74,6 +85,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          public static final String RESULTS_TEXT_REPLACED_LAST = "Text replaced; last occurrence";
          public static final String RESULTS_TEXT_REPLACED_ALL = "Replaced";
          public static final String RESULTS_NO_TEXT_TO_FIND = "No text to find";
+      	// Milliseconds to wait after the last keystroke before counting occurrences again
+         private static final int SCAN_DELAY = 250;
       	 
           public FindReplaceDialog(Frame owner, String title, boolean modality) {
             super(owner, title, modality);
@@ -88,6 +101,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   });
             this.pack();
             this.setLocationRelativeTo(owner);
+            buildScanTriggers();
+            scheduleScan();
          }
           
 			 // Constructs the dialog's main panel.
@@ -130,8 +145,14 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
           private Component buildOptionsPanel() {
             Box optionsPanel = Box.createHorizontalBox();
             caseSensitiveCheckBox = new JCheckBox("Case Sensitive",caseSensitivity);
-            JPanel casePanel = new JPanel(new GridLayout(2,1));
+            highlightAllCheckBox = new JCheckBox("Highlight All",highlightAll);
+            highlightAllCheckBox.setToolTipText(HIGHLIGHT_ALL_TOOL_TIP_TEXT);
+            matchCountLabel = new JLabel(" ");
+            matchCountLabel.setToolTipText(MATCH_COUNT_TOOL_TIP_TEXT);
+            JPanel casePanel = new JPanel(new GridLayout(3,1));
             casePanel.add(caseSensitiveCheckBox);
+            casePanel.add(highlightAllCheckBox);
+            casePanel.add(matchCountLabel);
             casePanel.setMaximumSize(casePanel.getPreferredSize());
             optionsPanel.add(casePanel);
             optionsPanel.add(Box.createHorizontalStrut(5));
@@ -216,6 +237,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   else {
                      resultsLabel.setText(findButton.getText()+": "+RESULTS_TEXT_FOUND);
                   }              
+                  if (editPane != scanPane) {
+                     scheduleScan(); // a different file is now current
+                  }
                }
             }  
             else {
@@ -289,9 +313,131 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 			 // the session.  This also happens with the contents of the "find" text field.
           private void performClose() {
 			   caseSensitivity = caseSensitiveCheckBox.isSelected();
+				highlightAll = highlightAllCheckBox.isSelected();
+            scanTimer.stop();
+            showMatches(null, null);
+            watchDocument(null);
             this.setVisible(false);
             this.dispose();
          }
+			
+		    ////////////////////////////////////////////////////////////////////////
+			 //
+			 //  Private methods to count and highlight every occurrence.  The document
+			 //  is scanned on a background thread after the find text, the case option
+			 //  or the document itself stops changing for SCAN_DELAY milliseconds.
+			 
+			 // Schedules a new scan upon any change to the find text, the options,
+			 // or the text being edited.  A change to the text also clears the
+			 // highlights at once, as their positions no longer apply.
+          private void buildScanTriggers() {
+            scanTimer = new Timer(SCAN_DELAY, 
+                   new ActionListener() {
+                      public void actionPerformed(ActionEvent e) {
+                        startScan();
+                     }
+                  });
+            scanTimer.setRepeats(false);
+            findInputField.getDocument().addDocumentListener(
+                   new DocumentListener() {
+                      public void insertUpdate(DocumentEvent e) { scheduleScan(); }
+                      public void removeUpdate(DocumentEvent e) { scheduleScan(); }
+                      public void changedUpdate(DocumentEvent e) { }
+                  });
+            ActionListener optionListener = 
+                   new ActionListener() {
+                      public void actionPerformed(ActionEvent e) {
+                        scheduleScan();
+                     }
+                  };
+            caseSensitiveCheckBox.addActionListener(optionListener);
+            highlightAllCheckBox.addActionListener(optionListener);
+            scanTrigger = 
+                   new DocumentListener() {
+                      public void insertUpdate(DocumentEvent e) { textChanged(); }
+                      public void removeUpdate(DocumentEvent e) { textChanged(); }
+                      public void changedUpdate(DocumentEvent e) { }
+                  };
+         }
+      
+          private void textChanged() {
+            if (scanPane != null) {
+               scanPane.setMatchHighlights(null, 0);
+            }
+            scheduleScan();
+         }
+      
+          private void scheduleScan() {
+            scanTimer.restart();
+         }
+      
+          // Finds every occurrence in the current file on a separate thread, then
+			 // shows them on the event thread unless a newer scan has been started.
+          private void startScan() {
+            EditPane editPane = mainUI.getMainPane().getEditPane();
+            String find = findInputField.getText();
+            if (editPane != scanPane) {
+               showMatches(null, null);
+               scanPane = editPane;
+               watchDocument(null);
+            }
+            if (editPane == null || find.length() == 0) {
+               showMatches(null, null);
+               return;
+            }
+            final DocumentSearch search = editPane.getSearch(find, caseSensitiveCheckBox.isSelected());
+            scanSearch = search;
+            watchDocument(search.getDocument());
+            Thread scanner = new Thread(
+                   new Runnable() {
+                      public void run() {
+                        final int[] matches = search.findAll();
+                        SwingUtilities.invokeLater(
+                               new Runnable() {
+                                  public void run() {
+                                    if (search == scanSearch && matches != null) {
+                                       showMatches(search, matches);
+                                    }
+                                 }
+                              });
+                     }
+                  }, "Find");
+            scanner.setDaemon(true);
+            scanner.start();
+         }
+      
+          // Displays the count of matches and highlights them if so selected.  
+			 // A null search clears both.
+          private void showMatches(DocumentSearch search, int[] matches) {
+            if (search == null) {
+               scanSearch = null;
+               matchCountLabel.setText(" ");
+               if (scanPane != null) {
+                  scanPane.setMatchHighlights(null, 0);
+               }
+               return;
+            }
+            matchCountLabel.setText(matches.length+" occurrence"+(matches.length==1 ? "" : "s"));
+            if (highlightAllCheckBox.isSelected()) {
+               scanPane.setMatchHighlights(matches, search.getFindLength());
+            } 
+            else {
+               scanPane.setMatchHighlights(null, 0);
+            }
+         }
+      
+          private void watchDocument(Document document) {
+            if (document == watchedDocument) {
+               return;
+            }
+            if (watchedDocument != null) {
+               watchedDocument.removeDocumentListener(scanTrigger);
+            }
+            watchedDocument = document;
+            if (document != null) {
+               document.addDocumentListener(scanTrigger);
+            }
+         }
 			//
          ////////////////////////////////////////////////////////////////////////////////
       }
@@ -1,6 +1,8 @@
    package mars.venus;
    import mars.*;
    import mars.venus.editors.MARSTextEditingArea;
+   import mars.venus.editors.DocumentSearch;
+   import mars.venus.editors.LineNumbersView;
    import mars.venus.editors.generic.GenericTextArea;
    import mars.venus.editors.jeditsyntax.JEditBasedTextArea;
    import javax.swing.*;
@@ -55,11 +57,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private String currentDirectoryPath;
       private JLabel caretPositionLabel;
       private JCheckBox showLineNumbers;
-      private JLabel lineNumbers;
+      private LineNumbersView lineNumbers;
       private static int count = 0;
       private boolean isCompoundEdit = false;
       private CompoundEdit compoundEdit;
       private FileStatus fileStatus;
+   	// number of characters read at a time when opening a file
+      private static final int READ_CHUNK_SIZE = 1 << 20;
    
      /**
       *  Constructor for the EditPane class. 
@@ -74,7 +78,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       	// We want to be notified of editor font changes! See update() below.
          Globals.getSettings().addObserver(this);
          this.fileStatus = new FileStatus();      
-         lineNumbers = new JLabel();
+         lineNumbers = new LineNumbersView();
       
          if (Globals.getSettings().getBooleanSetting(Settings.GENERIC_TEXT_EDITOR)) {
             this.sourceCode = new GenericTextArea(this, lineNumbers);
@@ -93,11 +97,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   	// This method is triggered when file contents added to document
                   	// upon opening, even though not edited by user.  The IF
                   	// statement will sense this situation and immediately return.
+                  	// The contents are added a chunk at a time, so the status is left
+                  	// for the opener to set once they are all in.
                      if (FileStatus.get() == FileStatus.OPENING) { 
-                        setFileStatus(FileStatus.NOT_EDITED); 
-                        FileStatus.set(FileStatus.NOT_EDITED);
                         if (showingLineNumbers()) {
-                           lineNumbers.setText(getLineNumbersList(sourceCode.getDocument()));
+                           updateLineNumbers();
                         }
                         return;
                      } 
@@ -129,7 +133,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      Globals.getGui().getMainPane().getExecutePane().clearPane(); // DPS 9-Aug-2011
                   	
                      if (showingLineNumbers()) {
-                        lineNumbers.setText(getLineNumbersList(sourceCode.getDocument()));
+                        updateLineNumbers();
                      }
                   }
                   public void removeUpdate(DocumentEvent evt) {
@@ -149,8 +153,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          this.setSourceCode("",false);
            
          lineNumbers.setFont(getLineNumberFont(sourceCode.getFont()));
-         lineNumbers.setVerticalAlignment(JLabel.TOP);
-         lineNumbers.setText("");
+         lineNumbers.setLineCount(0);
          lineNumbers.setVisible(true);
       	
       	// Listener fires when "Show Line Numbers" check box is clicked.
@@ -158,11 +161,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                new ItemListener() {
                   public void itemStateChanged(ItemEvent e) {
                      if (showLineNumbers.isSelected()) {
-                        lineNumbers.setText(getLineNumbersList(sourceCode.getDocument()));
+                        updateLineNumbers();
                         lineNumbers.setVisible(true);
                      } 
                      else {
-                        lineNumbers.setText("");
+                        lineNumbers.setLineCount(0);
                         lineNumbers.setVisible(false);
                      }
                      sourceCode.revalidate(); // added 16 Jan 2012 to assure label redrawn.
@@ -193,6 +196,54 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          sourceCode.setSourceCode(s, editable);
       }
       
+    	 /**
+   	  *  For initalizing the source code from a file.  The text is added to the document
+   	  *  a chunk at a time as it is read, so the file is never held in one String.  Line
+   	  *  terminators are converted to newlines, and a newline is added at the end if the
+   	  *  last line lacks one.
+   	  *   @param in Reader from which to read the text
+   	  *   @param editable set true if code is editable else false
+   	  *   @throws IOException if the text cannot be read
+   	  */
+   	
+      public void setSourceCode(Reader in, boolean editable) throws IOException {
+         sourceCode.setSourceCode("", editable);
+         javax.swing.text.Document document = sourceCode.getDocument();
+         char[] buffer = new char[READ_CHUNK_SIZE];
+         boolean afterReturn = false;
+         char lastChar = '\n';
+         int count;
+         try {
+            while ((count = in.read(buffer)) > 0) {
+               int length = 0;
+               for (int i = 0; i < count; i++) {
+                  char c = buffer[i];
+                  if (c == '\r') {
+                     buffer[length++] = '\n';
+                     afterReturn = true;
+                  } 
+                  else {
+                     if (c != '\n' || !afterReturn) {
+                        buffer[length++] = c;
+                     }
+                     afterReturn = false;
+                  }
+               }
+               if (length > 0) {
+                  document.insertString(document.getLength(), new String(buffer, 0, length), null);
+                  lastChar = buffer[length-1];
+               }
+            }
+            if (lastChar != '\n') {
+               document.insertString(document.getLength(), "\n", null);
+            }
+         } 
+             catch (javax.swing.text.BadLocationException e) {
+               throw new IOException(e.toString());
+            }
+         sourceCode.setCaretPosition(0);
+      }
+      
    	/**
    	 *  Get rid of any accumulated undoable edits.  It is useful to call
    	 *  this method after opening a file into the text area.  The 
@@ -205,28 +256,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          sourceCode.discardAllUndoableEdits();
       }
    
-   	/** Form string with source code line numbers.
-   	 * Resulting string is HTML, for which JLabel will happily honor <br> to do
-   	 * multiline label (it ignores '\n').  The line number list is a JLabel with
-   	 * one line number per line.
+   	/** 
+   	 * Bring the line number display up to date with the number of lines
+   	 * in the document.
    	 */
-      private static final String spaces = "&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;";
-      public String getLineNumbersList(javax.swing.text.Document doc) {
-         StringBuffer lineNumberList = new StringBuffer("<html>");
-         int lineCount = doc.getDefaultRootElement().getElementCount(); //this.getSourceLineCount();
-         int digits = Integer.toString(lineCount).length();
-         for (int i=1; i<=lineCount;i++) {
-            String lineStr = Integer.toString(i);
-            int leadingSpaces = digits-lineStr.length();
-            if (leadingSpaces == 0) {
-               lineNumberList.append(lineStr+"&nbsp;<br>");
-            } 
-            else {
-               lineNumberList.append(spaces.substring(0,leadingSpaces*6)+lineStr+"&nbsp;<br>");
-            }
-         }
-         lineNumberList.append("<br></html>");
-         return lineNumberList.toString();
+      private void updateLineNumbers() {
+         lineNumbers.setLineCount(sourceCode.getDocument().getDefaultRootElement().getElementCount());
       }
    
    
@@ -262,6 +297,31 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return sourceCode.getText();
       }
    	
+      /**
+   	 * Write source code text.  It is written a piece at a time, without first
+   	 * being copied into one String.
+   	 *
+   	 * @param out Writer to receive the source code
+   	 * @throws IOException if the text cannot be written
+   	 */
+      public void writeSource(Writer out) throws IOException {
+         javax.swing.text.Document document = sourceCode.getDocument();
+         javax.swing.text.Segment segment = new javax.swing.text.Segment();
+         segment.setPartialReturn(true);
+         int offset = 0;
+         int length = document.getLength();
+         try {
+            while (offset < length) {
+               document.getText(offset, length - offset, segment);
+               out.write(segment.array, segment.offset, segment.count);
+               offset += segment.count;
+            }
+         } 
+             catch (javax.swing.text.BadLocationException e) {
+               throw new IOException(e.toString());
+            }
+      }
+   	
    
    	/**
    	 *  Set the editing status for this EditPane's associated document.
@@ -585,6 +645,24 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return sourceCode.doReplaceAll(find, replace, caseSensitive);
       }
    
+   /** Returns the search of the source code for the given find text.  Its findAll()
+    *  may be run in the background to list every match.
+    * @param find the text to locate
+    * @param caseSensitive true for case sensitive. false to ignore case
+    * @return the search, reused from the last call if for the same text
+    */   
+      public DocumentSearch getSearch(String find, boolean caseSensitive) {
+         return sourceCode.getSearch(find, caseSensitive);
+      }
+   
+   /** Highlights the background of the given matches in the source code.
+    * @param matchStarts ascending positions of the matches, or null for none
+    * @param matchLength the length of each match
+    */   
+      public void setMatchHighlights(int[] matchStarts, int matchLength) {
+         sourceCode.setMatchHighlights(matchStarts, matchLength);
+      }
+   
    	 
    	
    	/**
@@ -288,7 +288,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             File theFile = new File(editPane.getPathname());
             try {
                BufferedWriter outFileStream = new BufferedWriter(new FileWriter(theFile));          
-               outFileStream.write(editPane.getSource(), 0, editPane.getSource().length());
+               editPane.writeSource(outFileStream);
                outFileStream.close();
             } 
                 catch(java.io.IOException c) {
@@ -384,7 +384,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          	// overwrite it, so go for it!
             try {
                BufferedWriter outFileStream = new BufferedWriter(new FileWriter(theFile));          
-               outFileStream.write(editPane.getSource(), 0, editPane.getSource().length());
+               editPane.writeSource(outFileStream);
                outFileStream.close();
             } 
                 catch(java.io.IOException c) {
@@ -617,24 +617,32 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             FileStatus.set(FileStatus.OPENING);// DPS 9-Aug-2011
             if (theFile.canRead()) {
                Globals.program = new MIPSprogram();
+               // The file is read straight into the Edit pane's document a large chunk 
+               // at a time.  It used to be read into a list of lines and then copied into
+               // a StringBuffer for one setText, which for a big file needed several 
+               // times its size in memory at once.
                try {
-                  Globals.program.readSource(currentFilePath);
+                  Reader fileReader = new FileReader(theFile);
+                  try {
+                     editPane.setSourceCode(fileReader, true);
+                  } 
+                  finally {
+                     fileReader.close();
+                  }
                } 
-                   catch (ProcessingException pe) {
+                   catch (IOException ioe) {
+                     // Do not open a tab holding part of the file, lest saving it lose the rest.
+                     JOptionPane.showMessageDialog(mainUI,"Open operation could not be completed due to an error:\n"+ioe,
+                        "Open Operation Failed", JOptionPane.ERROR_MESSAGE);
+                     EditPane currentPane = getCurrentEditTab();
+                     if (currentPane == null) {
+                        FileStatus.reset();
+                     } 
+                     else {
+                        currentPane.updateStaticFileStatus();
+                     }
+                     return false;
                   }
-               // DPS 1 Nov 2006.  Defined a StringBuffer to receive all file contents, 
-               // one line at a time, before adding to the Edit pane with one setText.
-               // StringBuffer is preallocated to full filelength to eliminate dynamic
-               // expansion as lines are added to it. Previously, each line was appended 
-               // to the Edit pane as it was read, way slower due to dynamic string alloc.  
-               StringBuffer fileContents = new StringBuffer((int)theFile.length());
-               int lineNumber = 1;
-               String line = Globals.program.getSourceLine(lineNumber++);
-               while (line != null) {
-                  fileContents.append(line+"\n");
-                  line = Globals.program.getSourceLine(lineNumber++);
-               }
-               editPane.setSourceCode(fileContents.toString(), true);
                	// The above operation generates an undoable edit, setting the initial
                	// text area contents, that should not be seen as undoable by the Undo
                	// action.  Let's get rid of it.
@@ -119,13 +119,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       	// Then generate label from concatentation of segmentArray[i], baseAddressArray[i]
       	// and highAddressArray[i].  This lets user know exactly what range will be dumped.  Initially not
       	// editable but maybe add this later.
-      	// If there is nothing to dump (e.g. address of first null == base address), then
+      	// If there is nothing to dump (e.g. no non-null address at or above base address), then
       	// the segment will not be listed.
          int segmentCount = 0;
       	
          for (int i=0; i<segmentArray.length; i++) {
             try {
-               highAddressArray[i] = Globals.memory.getAddressOfFirstNull(baseAddressArray[i],limitAddressArray[i]) - Memory.WORD_LENGTH_BYTES;
+               highAddressArray[i] = Globals.memory.getAddressOfLastNonNull(baseAddressArray[i],limitAddressArray[i]);
             
             }  // Exception will not happen since the Memory base and limit addresses are on word boundaries!
                 catch (AddressErrorException aee) {
@@ -49,6 +49,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private Object[][] tableData;
       private boolean highlighting;
       private int highlightRow;
+      // Register most recently written by the running program, noted on the simulator
+      // thread and highlighted by updateHighlighting() on the GUI thread.
+      private volatile Register pendingHighlight;
+      // Register shown in each table row, and its write generation when its value 
+   	// was last displayed.  Only rows whose register has been written since are updated.
+      private Register[] rowRegisters;
+      private int[] shownGenerations;
+      private int shownBase;
+      private boolean shownValid;
       private ExecutePane executePane;
       private static final int NAME_COLUMN = 0;
       private static final int NUMBER_COLUMN = 1;
@@ -84,11 +93,18 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          int valueBase = NumberDisplayBaseChooser.getBase(settings.getDisplayValuesInHex());
          tableData = new Object[35][3];
          registers = RegisterFile.getRegisters();
+         rowRegisters = new Register[35];
+         shownGenerations = new int[35];
+         shownValid = false;
          for(int i=0; i< registers.length; i++){
+            rowRegisters[i] = registers[i];
             tableData[i][0]= registers[i].getName();
             tableData[i][1]= new Integer(registers[i].getNumber());
             tableData[i][2]= NumberDisplayBaseChooser.formatNumber(registers[i].getValue(),valueBase);
          }
+         rowRegisters[32] = RegisterFile.getProgramCounterRegister();
+         rowRegisters[33] = RegisterFile.getHiRegister();
+         rowRegisters[34] = RegisterFile.getLoRegister();
          tableData[32][0]= "pc";
          tableData[32][1]= "";//new Integer(32);
          tableData[32][2]= NumberDisplayBaseChooser.formatUnsignedInteger(RegisterFile.getProgramCounter(),valueBase);
@@ -117,6 +133,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 */
        public void clearHighlighting() {
          highlighting=false;
+         pendingHighlight = null;
          if (table != null) {
             table.tableChanged(new TableModelEvent(table.getModel()));
          }
@@ -136,22 +153,37 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 * update register display using current number base (10 or 16)
    	 */
        public void updateRegisters() {
+         updateHighlighting();
          updateRegisters(Globals.getGui().getMainPane().getExecutePane().getValueDisplayBase());
       }
    	
    	/**
-   	 * update register display using specified number base (10 or 16)
+   	 * update register display using specified number base (10 or 16).  Only 
+   	 * registers written since they were last displayed are formatted and redrawn,
+   	 * unless the base has changed.
    	 *
    	 * @param base desired number base
    	 */   	
        public void updateRegisters(int base) {
-         registers = RegisterFile.getRegisters();
-         for(int i=0; i< registers.length; i++){
-            updateRegisterValue(registers[i].getNumber(), registers[i].getValue(), base);
+         if (base != shownBase) {
+            shownBase = base;
+            shownValid = false;
+         }
+         for (int row = 0; row < rowRegisters.length; row++) {
+            // Generation is read before value: if written in between, it is shown next time.
+            int generation = rowRegisters[row].getWriteGeneration();
+            if (shownValid && shownGenerations[row] == generation) {
+               continue;
+            }
+            shownGenerations[row] = generation;
+            if (row == 32) {
+               updateRegisterUnsignedValue(row, rowRegisters[row].getValueNoNotify(), base);
+            } 
+            else {
+               updateRegisterValue(row, rowRegisters[row].getValueNoNotify(), base);
+            }
          }
-         updateRegisterUnsignedValue(32, RegisterFile.getProgramCounter(), base);
-         updateRegisterValue(33, RegisterFile.getValue(33), base);
-         updateRegisterValue(34, RegisterFile.getValue(34), base);
+         shownValid = true;
       }
    	
      /**
@@ -200,24 +232,45 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             if (access.getAccessType()==AccessNotice.WRITE) {
             	// Uses the same highlighting technique as for Text Segment -- see
             	// AddressCellRenderer class in DataSegmentWindow.java.
-               this.highlighting = true;
-               this.highlightCellForRegister((Register)observable);
-               Globals.getGui().getRegistersPane().setSelectedComponent(this);
+               // Runs on the simulator thread, so only note the register here.
+               pendingHighlight = (Register) observable;
             }
          }
       }
    	
+     /**
+      *  Highlight the register most recently written by the running program, if one
+   	*  has been written since the last call, and show this window.  Write notices
+   	*  arrive on the simulator thread, which only notes the register; this is called
+   	*  on the GUI thread, once per frame while running and when stepping or stopping.
+   	*/
+       public void updateHighlighting() {
+         Register register = pendingHighlight;
+         if (register == null) {
+            return;
+         }
+         pendingHighlight = null;
+         this.highlighting = true;
+         this.highlightCellForRegister(register);
+         Globals.getGui().getRegistersPane().setSelectedComponent(this);
+      }
+   
      /**
       *  Highlight the row corresponding to the given register.  
    	*  @param register Register object corresponding to row to be selected.
    	*/
        void highlightCellForRegister(Register register) {
+         int previousRow = this.highlightRow;
          this.highlightRow = register.getNumber();
-         // Tell the system that table contents have changed.  This will trigger re-rendering 
-      	// during which cell renderers are obtained.  The row of interest (identified by 
-      	// instance variabls this.registerRow) will get a renderer
-      	// with highlight background color and all others get renderer with default background. 
-         table.tableChanged(new TableModelEvent(table.getModel()));
+         // Tell the system that the previous and new highlighted rows have changed.  This will
+      	// trigger re-rendering of them, during which cell renderers are obtained.  The row of 
+      	// interest (identified by instance variable this.highlightRow) will get a renderer
+      	// with highlight background color and the other gets renderer with default background. 
+         RegTableModel model = (RegTableModel) table.getModel();
+         if (previousRow >= 0 && previousRow != highlightRow) {
+            model.fireTableRowsUpdated(previousRow, previousRow);
+         }
+         model.fireTableRowsUpdated(highlightRow, highlightRow);
       }
    	
    /*
@@ -324,6 +377,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             }
                 catch (NumberFormatException nfe) {
                   data[row][col] = "INVALID";
+                  shownValid = false; // so the next update replaces it
                   fireTableCellUpdated(row, col);
                   return;
                }
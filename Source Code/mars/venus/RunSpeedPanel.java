@@ -45,8 +45,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 	 /** Constant that represents unlimited run speed.  Compare with return value of
 	  *  getRunSpeed() to determine if set to unlimited.  At the unlimited setting, the GUI
 	  *  will not attempt to update register and memory contents as each instruction
-	  *  is executed.  This is the only possible value for command-line use of Mars. */
-      public final static double UNLIMITED_SPEED = 40;
+	  *  is executed.  This is the only possible value for command-line use of Mars. 
+	  *  It is greater than every timed speed. */
+      public final static double UNLIMITED_SPEED = Double.POSITIVE_INFINITY;
 		
       private final static int SPEED_INDEX_MIN = 0;
       private final static int SPEED_INDEX_MAX = 40;
@@ -54,9 +55,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private static final int SPEED_INDEX_INTERACTION_LIMIT = 35;		
       private double[] speedTable = { 
                .05, .1, .2, .3, .4, .5,  1,  2,  3,  4,  5,      // 0-10
-                     6,  7,  8,  9, 10, 11, 12, 13, 14, 15,      // 11-20
-                    16, 17, 18, 19, 20, 21, 22, 23, 24, 25,      // 21-30
-                    26, 27, 28, 29, 30, UNLIMITED_SPEED,UNLIMITED_SPEED, // 31-37
+                     6,  7,  8,  9, 10, 12, 14, 16, 18, 20,      // 11-20
+                    25, 30, 35, 40, 50, 60, 75,100,125,150,      // 21-30
+                   200,300,500,750,1000, UNLIMITED_SPEED,UNLIMITED_SPEED, // 31-37
          			  UNLIMITED_SPEED,UNLIMITED_SPEED,UNLIMITED_SPEED // 38-40
          		};	 													 													 
       private JLabel sliderLabel=null;
@@ -96,7 +97,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          this.add(runSpeedSlider, BorderLayout.CENTER);
 			this.setToolTipText("Simulation speed for \"Go\".  At "+
 			       ((int)speedTable[SPEED_INDEX_INTERACTION_LIMIT])+" inst/sec or less, tables updated "+
-					 "after each instruction.");
+					 "while running (at most once per screen refresh).");
       }
    	
    	/**
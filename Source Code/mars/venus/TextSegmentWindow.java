@@ -50,17 +50,24 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private static final int PROGRAM_ARGUMENT_TEXTFIELD_COLUMNS = 40;
       private  JTable table;
       private  JScrollPane tableScroller;
-      private  Object[][] data;
-   	/* Maintain an int array of code addresses in parallel with ADDRESS_COLUMN,
-   	 * to speed model-row -> text-address mapping.  Maintain a Hashtable of
-   	 * (text-address, model-row) pairs to speed text-address -> model-row mapping.
-   	 * The former is used for breakpoints and changing display base (e.g. base 10 
-   	 * to 16); the latter is used for highlighting.  Both structures will remain
-   	 * consistent once set up, since address column is not editable.
+   	/* The table model does not hold the table's strings.  Each row is formatted from its
+   	 * ProgramStatement when first displayed and kept in a small cache of recently displayed
+   	 * rows, so the table costs about the same to set up for a program of any size.
+   	 * Maintain an int array of code addresses, one per model row, to speed model-row -> 
+   	 * text-address mapping.  Maintain the same addresses sorted along with their rows 
+   	 * to speed text-address -> model-row mapping by binary search.  The former is used for
+   	 * breakpoints and for highlighting; the latter for finding the row at the program 
+   	 * counter.  Both structures remain consistent once set up, since address column is
+   	 * not editable.
    	 */
+      private  ArrayList sourceStatementList;
       private  int[] intAddresses;      // index is table model row, value is text address
-      private  Hashtable addressRows;   // key is text address, value is table model row
-      private  Hashtable<Integer, ModifiedCode> executeMods;   // key is table model row, value is original code, basic, source.
+      private  long[] addressRows;      // unsigned text address in high half, table model row in low half; sorted
+      private  BitSet breakpoints;      // bit is set if breakpoint set at table model row
+      private  Hashtable<Integer, Integer> executeMods;   // key is table model row, value is code written there at runtime.
+      private  RowCache rowCache;
+      private  int sourceLineDigits;    // so line numbers in Source column vertically align
+      private  int highlightRow = -1;
       private  Container contentPane;
       private  TextTableModel tableModel;
       private Font tableCellFont = new Font("Monospaced",Font.PLAIN,12);
@@ -80,6 +87,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private static final Font monospacedPlain12Point = new Font("Monospaced",Font.PLAIN,12);
    	// The following is displayed in the Basic and Source columns if existing code is overwritten using self-modifying code feature 
       private static final String modifiedCodeMarker = " ------ ";
+   	// Number of formatted rows kept; several times the number of rows visible at once.
+      private static final int ROW_CACHE_SIZE = 512;
    	     
    	/**
    	  *  Constructor, sets up a new JInternalFrame.
@@ -105,50 +114,32 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  *  Should convert the lines of code over to the table rows and columns.
    	  **/
        public  void setupTable(){
-         int addressBase = Globals.getGui().getMainPane().getExecutePane().getAddressDisplayBase();
          codeHighlighting = true;
          breakpointsEnabled = true;
-         ArrayList sourceStatementList = Globals.program.getMachineList();
-         data = new Object[sourceStatementList.size()][columnNames.length];
-         intAddresses = new int[data.length];
-         addressRows = new Hashtable(data.length);
-         executeMods = new Hashtable<Integer,ModifiedCode>(data.length);
+         sourceStatementList = Globals.program.getMachineList();
+         int rows = sourceStatementList.size();
+         intAddresses = new int[rows];
+         addressRows = new long[rows];
+         breakpoints = new BitSet(rows);
+         executeMods = new Hashtable<Integer,Integer>();
+         rowCache = new RowCache();
+         highlightRow = -1;
       	// Get highest source line number to determine #leading spaces so line numbers will vertically align
       	// In multi-file situation, this will not necessarily be the last line b/c sourceStatementList contains
       	// source lines from all files.  DPS 3-Oct-10
          int maxSourceLineNumber = 0;
-         for (int i=sourceStatementList.size()-1; i>=0; i--) {
+         for (int i = 0; i < rows; i++) {
             ProgramStatement statement = (ProgramStatement) sourceStatementList.get(i);
             if (statement.getSourceLine() > maxSourceLineNumber) {
                maxSourceLineNumber = statement.getSourceLine();
             }
-         }
-         int sourceLineDigits = (""+maxSourceLineNumber).length();
-         int leadingSpaces = 0;
-         int lastLine = -1;
-         for (int i = 0; i < sourceStatementList.size(); i++) {
-            ProgramStatement statement = (ProgramStatement) sourceStatementList.get(i);
             intAddresses[i] = statement.getAddress();
-            addressRows.put(new Integer(intAddresses[i]), new Integer(i));
-            data[i][BREAK_COLUMN] = Boolean.FALSE;
-            data[i][ADDRESS_COLUMN] = NumberDisplayBaseChooser.formatUnsignedInteger(statement.getAddress(), addressBase);
-            data[i][CODE_COLUMN] = NumberDisplayBaseChooser.formatNumber(statement.getBinaryStatement(), 16);
-            data[i][BASIC_COLUMN] = statement.getPrintableBasicAssemblyStatement();
-            String sourceString = "";
-            if (!statement.getSource().equals("")) {
-               leadingSpaces = sourceLineDigits - ("" + statement.getSourceLine()).length();
-               String lineNumber = "          ".substring(0, leadingSpaces)
-                  + statement.getSourceLine()+ ": ";
-               if (statement.getSourceLine()==lastLine)
-                  lineNumber="          ".substring(0, sourceLineDigits)+"  ";
-               sourceString = lineNumber 
-                  + mars.util.EditorFont.substituteSpacesForTabs(statement.getSource());		
-            }
-            data[i][SOURCE_COLUMN] = sourceString;
-            lastLine=statement.getSourceLine();
+            addressRows[i] = ((intAddresses[i] & 0xFFFFFFFFL) << 32) | i;
          }
+         Arrays.sort(addressRows);
+         sourceLineDigits = (""+maxSourceLineNumber).length();
          contentPane.removeAll();
-         tableModel = new TextTableModel(data);
+         tableModel = new TextTableModel(rows);
          if (tableModelListener!=null) {
             tableModel.addTableModelListener(tableModelListener);
             tableModel.fireTableDataChanged();// initialize listener
@@ -249,13 +240,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        public void updateCodeAddresses() {
          if (contentPane.getComponentCount() == 0) 
             return; // ignore if no content to change
-         int addressBase = Globals.getGui().getMainPane().getExecutePane().getAddressDisplayBase();
-         int address;
-         String formattedAddress;
-         for (int i=0; i<intAddresses.length; i++) {
-            formattedAddress = NumberDisplayBaseChooser.formatUnsignedInteger(intAddresses[i], addressBase);
-            table.getModel().setValueAt(formattedAddress, i, ADDRESS_COLUMN);
-         }
+         rowCache.invalidateAll();
+         tableModel.fireTableChanged(new TableModelEvent(tableModel,0,intAddresses.length-1,ADDRESS_COLUMN));
       }
    
     	/**
@@ -265,28 +251,42 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        public void updateBasicStatements() {
          if (contentPane.getComponentCount() == 0) 
             return; // ignore if no content to change
-         ArrayList sourceStatementList = Globals.program.getMachineList();
-         for(int i=0; i < sourceStatementList.size(); i++) {
-            // Loop has been extended to cover self-modifying code.  If code at this memory location has been
-         	// modified at runtime, construct a ProgramStatement from the current address and binary code
-         	// then display its basic code.  DPS 11-July-2013
-            if (executeMods.get(i) == null) { // not modified, so use original logic.
-               ProgramStatement statement = (ProgramStatement) sourceStatementList.get(i); 
-               table.getModel().setValueAt(statement.getPrintableBasicAssemblyStatement(), i, BASIC_COLUMN);
-            }
-            else { 
-               try {
-                  ProgramStatement statement = new ProgramStatement(
-                     mars.util.Binary.stringToInt((String)table.getModel().getValueAt(i,CODE_COLUMN)),
-                     mars.util.Binary.stringToInt((String)table.getModel().getValueAt(i,ADDRESS_COLUMN))
-                     ); 
-                  table.getModel().setValueAt(statement.getPrintableBasicAssemblyStatement(), i, BASIC_COLUMN);					
-               } 
-                   catch (NumberFormatException e) { // should never happen but just in case...
-                     table.getModel().setValueAt("", i, BASIC_COLUMN);
-                  }
-            }
+         rowCache.invalidateAll();
+         tableModel.fireTableChanged(new TableModelEvent(tableModel,0,intAddresses.length-1,BASIC_COLUMN));
+      }
+   
+   	/*
+   	 *  Formats the Address, Code, Basic and Source columns of the given table model row.
+   	 *  Code at this memory location may have been modified at runtime (self-modifying code).
+   	 *  If so, construct a ProgramStatement from the current address and binary code then
+   	 *  display its basic code.  DPS 11-July-2013
+   	 */
+       private String[] formatRow(int row) {
+         String[] formatted = new String[columnNames.length];
+         ProgramStatement statement = (ProgramStatement) sourceStatementList.get(row);
+         int addressBase = Globals.getGui().getMainPane().getExecutePane().getAddressDisplayBase();
+         formatted[ADDRESS_COLUMN] = NumberDisplayBaseChooser.formatUnsignedInteger(statement.getAddress(), addressBase);
+         Integer modifiedCode = executeMods.get(row);
+         if (modifiedCode != null) {
+            formatted[CODE_COLUMN] = NumberDisplayBaseChooser.formatNumber(modifiedCode.intValue(), 16);
+            formatted[BASIC_COLUMN] = new ProgramStatement(modifiedCode.intValue(), statement.getAddress()).getPrintableBasicAssemblyStatement();
+            formatted[SOURCE_COLUMN] = modifiedCodeMarker;
+            return formatted;
+         }
+         formatted[CODE_COLUMN] = NumberDisplayBaseChooser.formatNumber(statement.getBinaryStatement(), 16);
+         formatted[BASIC_COLUMN] = statement.getPrintableBasicAssemblyStatement();
+         String sourceString = "";
+         if (!statement.getSource().equals("")) {
+            int leadingSpaces = sourceLineDigits - ("" + statement.getSourceLine()).length();
+            String lineNumber = "          ".substring(0, leadingSpaces)
+               + statement.getSourceLine()+ ": ";
+            if (row > 0 && statement.getSourceLine() == ((ProgramStatement) sourceStatementList.get(row-1)).getSourceLine())
+               lineNumber="          ".substring(0, sourceLineDigits)+"  ";
+            sourceString = lineNumber 
+               + mars.util.EditorFont.substituteSpacesForTabs(statement.getSource());		
          }
+         formatted[SOURCE_COLUMN] = sourceString;
+         return formatted;
       }
    
    
@@ -327,9 +327,6 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             if (access.getAccessType()==AccessNotice.WRITE) { 
                int address = access.getAddress();
                int value = access.getValue();
-               String strValue = mars.util.Binary.intToHexString(access.getValue());
-               String strBasic = modifiedCodeMarker;
-               String strSource = modifiedCodeMarker;
             // Translate the address into table model row and modify the values in that row accordingly.
                int row = 0;
                try {
@@ -338,50 +335,27 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                    catch (IllegalArgumentException e) {
                      return; // do nothing if address modified is outside the range of original program.
                   }
-               ModifiedCode mc = executeMods.get(row);
-               if (mc==null) { // if not already modified
-                  // Not already modified and new code is same as original --> do nothing.
-                  if (tableModel.getValueAt(row, CODE_COLUMN).equals(strValue)) {
+               Integer previous = executeMods.get(row);
+               int original = ((ProgramStatement) sourceStatementList.get(row)).getBinaryStatement();
+               if (value == original) {
+                  // Not already modified and new code is same as original --> do nothing.  If 
+               	// restored to original value, restore the basic and source.  This will be the
+               	// case upon backstepping.
+                  if (previous == null) {
                      return;
                   }
-                  mc = new ModifiedCode(
-                        					row,
-                        					tableModel.getValueAt(row, CODE_COLUMN),
-                        					tableModel.getValueAt(row, BASIC_COLUMN),
-                        					tableModel.getValueAt(row, SOURCE_COLUMN)
-                        					);
-                  executeMods.put(row, mc);
-                  // make a ProgramStatement and get basic code to display in BASIC_COLUMN
-                  strBasic = new ProgramStatement(value,address).getPrintableBasicAssemblyStatement();
+                  executeMods.remove(row);
                } 
                else {
-               // If restored to original value, restore the basic and source
-               // This will be the case upon backstepping.
-                  if (mc.getCode().equals(strValue)) {
-                     strBasic = (String) mc.getBasic();
-                     strSource = (String) mc.getSource();
-                  	// remove from executeMods since we are back to original
-                     executeMods.remove(row);
-                  } 
-                  else {
-                  // make a ProgramStatement and get basic code to display in BASIC_COLUMN
-                     strBasic = new ProgramStatement(value,address).getPrintableBasicAssemblyStatement();
-                  }
+                  executeMods.put(row, value);
                }
-            	// For the code column, we don't want to do the following:					
-               //       tableModel.setValueAt(strValue,  row, CODE_COLUMN)
-            	// because that method will write to memory using Memory.setRawWord() which will
-            	// trigger notification to observers, which brings us back to here!!!  Infinite 
-            	// indirect recursion results.  Neither fun nor productive.  So what happens is
-            	// this: (1) change to memory cell causes setValueAt() to be automatically be
-            	// called.  (2) it updates the memory cell which in turn notifies us which invokes
-            	// the update() method - the method we're in right now.  All we need to do here is
-            	// update the table model then notify the controller/view to update its display.
-               data[row][CODE_COLUMN] = strValue;
-               tableModel.fireTableCellUpdated(row, CODE_COLUMN);
-            	// The other columns do not present a problem since they are not editable by user.
-               tableModel.setValueAt(strBasic,  row, BASIC_COLUMN);
-               tableModel.setValueAt(strSource, row, SOURCE_COLUMN);
+            	// Note the Code column is not changed using tableModel.setValueAt(), because that
+            	// method will write to memory using Memory.setRawWord() which will trigger 
+            	// notification to observers, which brings us back to here!!!  Infinite indirect 
+            	// recursion results.  Neither fun nor productive.  The row is formatted again from
+            	// executeMods the next time it is displayed.
+               rowCache.invalidate(row);
+               tableModel.fireTableRowsUpdated(row, row);
             	// Let's update the value displayed in the DataSegmentWindow too.  But it only observes memory while 
             	// the MIPS program is running, and even then only in timed or step mode.  There are good reasons
             	// for that.  So we'll pretend to be Memory observable and send it a fake memory write update.
@@ -402,13 +376,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 */
        void resetModifiedSourceCode() {
          if (executeMods != null && !executeMods.isEmpty()) {
-            for (Enumeration<ModifiedCode> elements = executeMods.elements(); elements.hasMoreElements();) {
-               ModifiedCode mc = elements.nextElement();
-               tableModel.setValueAt(mc.getCode(), mc.getRow(), CODE_COLUMN);
-               tableModel.setValueAt(mc.getBasic(), mc.getRow(), BASIC_COLUMN);
-               tableModel.setValueAt(mc.getSource(), mc.getRow(), SOURCE_COLUMN);
-            }
             executeMods.clear();
+            rowCache.invalidateAll();
+            tableModel.fireTableDataChanged();
          }
       }		
    	
@@ -426,18 +396,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 */
    	 
        public int getBreakpointCount() {
-         int breakpointCount = 0;
-         for(int i=0; i < data.length; i++){
-            if (((Boolean)data[i][BREAK_COLUMN]).booleanValue()) {
-               breakpointCount++;
-            }
-         }		 
-         return breakpointCount;
+         return (breakpoints == null) ? 0 : breakpoints.cardinality();
       }
    	
    	/**
    	 *  Returns array of current breakpoints, each represented by a MIPS program counter address.
-   	 *  These are stored in the BREAK_COLUMN of the table model.
+   	 *  These are shown in the BREAK_COLUMN of the table.
    	 *  @return int array of breakpoints, sorted by PC address, or null if there are none.
    	 */
        public int[] getSortedBreakPointsArray() {
@@ -447,10 +411,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          }
          int[] breakpoints = new int[breakpointCount];
          breakpointCount = 0;
-         for(int i=0; i < data.length; i++){
-            if (((Boolean)data[i][BREAK_COLUMN]).booleanValue()) {
-               breakpoints[breakpointCount++] = intAddresses[i];
-            }
+         for (int i = this.breakpoints.nextSetBit(0); i >= 0; i = this.breakpoints.nextSetBit(i+1)) {
+            breakpoints[breakpointCount++] = intAddresses[i];
          }
          Arrays.sort(breakpoints);
          return breakpoints;
@@ -461,11 +423,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 * updates the display of the breakpoint column.
    	 */
        public void clearAllBreakpoints() {
-         for(int i=0; i < tableModel.getRowCount(); i++){
-            if (((Boolean)data[i][BREAK_COLUMN]).booleanValue())  {
+         for (int i = breakpoints.nextSetBit(0); i >= 0; i = breakpoints.nextSetBit(i+1)) {
             // must use this method to assure display updated and listener notified
-               tableModel.setValueAt(Boolean.FALSE, i, BREAK_COLUMN);
-            }         
+            tableModel.setValueAt(Boolean.FALSE, i, BREAK_COLUMN);
          }
       	// Handles an obscure situation: if you click to set some breakpoints then "immediately" clear them
       	// all using the shortcut (CTRL-K), the last checkmark set is not removed even though the breakpoint
@@ -534,11 +494,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          table.scrollRectToVisible(table.getCellRect(row, 0, true));
          this.inDelaySlot = inDelaySlot;// Added 25 June 2007
          // Trigger highlighting, which is done by the column's cell renderer.
-         // IMPLEMENTATION NOTE: Pretty crude implementation; mark all rows 
-         // as changed so assure that the previously highlighted row is 
-         // unhighlighted.  Would be better to keep track of previous row
-         // then fire two events: one for it and one for the new row.
-         table.tableChanged(new TableModelEvent(tableModel));
+         // Mark the previously highlighted row as changed, so it is unhighlighted,
+         // and the new one.
+         if (highlightRow >= 0 && highlightRow < intAddresses.length && highlightRow != row) {
+            table.tableChanged(new TableModelEvent(tableModel, highlightRow, highlightRow));
+         }
+         highlightRow = row;
+         table.tableChanged(new TableModelEvent(tableModel, row, row));
          //this.inDelaySlot = false;// Added 25 June 2007
       }
    
@@ -565,8 +527,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        public void unhighlightAllSteps() {
          boolean saved = this.getCodeHighlighting();
          this.setCodeHighlighting(false);
-         table.tableChanged(new TableModelEvent(tableModel,0,data.length-1, BASIC_COLUMN));
-         table.tableChanged(new TableModelEvent(tableModel,0,data.length-1, SOURCE_COLUMN));
+         table.tableChanged(new TableModelEvent(tableModel,0,intAddresses.length-1, BASIC_COLUMN));
+         table.tableChanged(new TableModelEvent(tableModel,0,intAddresses.length-1, SOURCE_COLUMN));
          this.setCodeHighlighting(saved);
       }
      
@@ -666,15 +628,16 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 *  corresponding to this address.
    	 */
        private int findRowForAddress(int address) throws IllegalArgumentException {
-         int addressRow = 0;
-         try {
-            addressRow = ((Integer)addressRows.get(new Integer(address))).intValue();
-         } 
-             catch (NullPointerException e) {
-               throw new IllegalArgumentException(); // address not found in map
-               //return addressRow;// if address not in map, do nothing.
-            }
-         return addressRow;
+         long key = (address & 0xFFFFFFFFL) << 32;
+      	// The search finds the insertion point for row 0 unless the address is in row 0.
+         int index = Arrays.binarySearch(addressRows, key);
+         if (index < 0) {
+            index = -index - 1;
+         }
+         if (index >= addressRows.length || (addressRows[index] & 0xFFFFFFFF00000000L) != key) {
+            throw new IllegalArgumentException(); // address not in program
+         }
+         return (int) addressRows[index];
       }  
      
    
@@ -682,10 +645,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    /** Inner class to implement the Table model for this JTable.
     */
        class TextTableModel extends AbstractTableModel {
-         Object[][] data;
+         int rows;
          
-          public TextTableModel(Object[][] d){
-            data=d;
+          public TextTableModel(int rows){
+            this.rows=rows;
          }
       
           public int getColumnCount() {
@@ -693,7 +656,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          }
         
           public int getRowCount() {
-            return data.length;
+            return rows;
          }
       
           public String getColumnName(int col) {
@@ -701,7 +664,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          }
       
           public Object getValueAt(int row, int col) {
-            return data[row][col];
+            if (col == BREAK_COLUMN) {
+               return Boolean.valueOf(breakpoints.get(row));
+            }
+            return rowCache.getRow(row)[col];
          }
       
         /*
@@ -711,7 +677,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          * rather than a check box.
          */
           public Class getColumnClass(int c) {
-            return getValueAt(0, c).getClass();
+            return (c == BREAK_COLUMN) ? Boolean.class : String.class;
          }
       
         /*
@@ -731,41 +697,36 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       
         /**
          * Set cell contents in the table model. Overrides inherited empty method.  
-         * Straightforward process except for the Code column.
+         * Only the Breakpoint and Code columns can be set.  A change to the Code column
+         * is written to memory, and shown once the text segment observer hears of it.
          */
           @Override
           public void setValueAt(Object value, int row, int col) {
-            if (col != CODE_COLUMN) {
-               data[row][col] = value;
+            if (col == BREAK_COLUMN) {
+               breakpoints.set(row, ((Boolean) value).booleanValue());
                fireTableCellUpdated(row, col);
                return;
             }	
+            if (col != CODE_COLUMN) {
+               return;
+            }
          	// Handle changes in the Code column.		 
             int val=0;
-            int address=0; 
-            if (value.equals(data[row][col])) 
+            if (value.equals(getValueAt(row, col))) 
                return;
             try {
                val = mars.util.Binary.stringToInt((String) value);
             }
                 catch (NumberFormatException nfe) {
-                  data[row][col] = "INVALID";
+                  rowCache.getRow(row)[col] = "INVALID";
                   fireTableCellUpdated(row, col);
                   return;
                }   
-            // calculate address from row and column
-            try {
-               address = mars.util.Binary.stringToInt((String)data[row][ADDRESS_COLUMN]);
-            }
-                catch (NumberFormatException nfe) {
-                  // can't really happen since memory addresses are completely under
-                  // the control of my software.
-               }				
          	//  Assures that if changed during MIPS program execution, the update will
          	//  occur only between MIPS instructions.
             synchronized (Globals.memoryAndRegistersLock) {
                try {
-                  Globals.memory.setRawWord(address,val);
+                  Globals.memory.setRawWord(intAddresses[row],val);
                } 
                 // somehow, user was able to display out-of-range address.  Most likely to occur between
                 // stack base and Kernel.  
@@ -775,41 +736,38 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             }// end synchronized block
             return;
          }
+      }  
+   
+   	/*
+   	 *  Formatted Address, Code, Basic and Source strings of the most recently displayed rows,
+   	 *  least recently used first.  Only rows the table asks for are formatted.  Rows are
+   	 *  invalidated by the text segment observer, on the MIPS thread, hence the locking.
+   	 */
+       private class RowCache extends LinkedHashMap<Integer, String[]> {
+          private RowCache() {
+            super(ROW_CACHE_SIZE*4/3+1, 0.75f, true);
+         }
       
+          private synchronized void invalidate(int row) {
+            remove(row);
+         }
       
+          private synchronized void invalidateAll() {
+            clear();
+         }
       
-          private void printDebugData() {
-            int numRows = getRowCount();
-            int numCols = getColumnCount();
-         
-            for (int i=0; i < numRows; i++) {
-               System.out.print("    row " + i + ":");
-               for (int j=0; j < numCols; j++) {
-                  System.out.print("  " + data[i][j]);
-               }
-               System.out.println();
+          private synchronized String[] getRow(int row) {
+            String[] formatted = get(row);
+            if (formatted == null) {
+               formatted = formatRow(row);
+               put(row, formatted);
             }
-            System.out.println("--------------------------");
+            return formatted;
          }
-      }  
-   
-       private class ModifiedCode {
-         private Integer row;
-         private Object code, basic, source;
-          private ModifiedCode(Integer row, Object code, Object basic, Object source) {
-            this.row = row;
-            this.code = code;
-            this.basic = basic;
-            this.source = source;
+      
+          protected boolean removeEldestEntry(Map.Entry<Integer, String[]> eldest) {
+            return size() > ROW_CACHE_SIZE;
          }
-          private Integer getRow() { 
-            return this.row; }
-          private Object getCode() { 
-            return this.code; }
-          private Object getBasic() { 
-            return  this.basic; }
-          private Object getSource() { 
-            return this.source; }
       }
    
      /*  a custom table cell renderer that we'll use to highlight the current line of 
@@ -1058,7 +1016,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      JCheckBox check = ((JCheckBox)((DefaultCellEditor)table.getCellEditor(0,index)).getComponent());
                      breakpointsEnabled = !breakpointsEnabled;
                      check.setEnabled(breakpointsEnabled);
-                     table.tableChanged(new TableModelEvent(tableModel,0,data.length-1, BREAK_COLUMN));
+                     table.tableChanged(new TableModelEvent(tableModel,0,intAddresses.length-1, BREAK_COLUMN));
                   }
                }
                 public void mouseEntered(MouseEvent e) {}
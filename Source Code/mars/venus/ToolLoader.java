@@ -3,10 +3,7 @@
    import mars.util.*;
    import javax.swing.*;
    import java.awt.event.*;
-   import java.io.*;
    import java.util.*;
-   import java.util.zip.*;
-   import java.lang.reflect.*;
 	
 	/*
 Copyright (c) 2003-2006,  Pete Sanderson and Kenneth Vollmar
@@ -51,32 +48,30 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 	 
     public class ToolLoader {
    
-      private static final String CLASS_PREFIX = "mars.tools.";
       private static final String TOOLS_DIRECTORY_PATH = "mars/tools";
       private static final String TOOLS_MENU_NAME = "Tools";
-      private static final String MARSTOOL_INTERFACE = "MarsTool.class";
-      private static final String CLASS_EXTENSION = "class";
     
     /**
      *  Called in VenusUI to build its Tools menu.  If there are no qualifying tools
      *  or any problems accessing those tools, it returns null.  A qualifying tool
      *  must be a class in the Tools package that implements MarsTool, must be compiled 
      *  into a .class file, and its .class file must be in the same Tools folder as 
-     *  MarsTool.class.
+     *  MarsTool.class.  If the MARS JAR file has an index of its tools, the menu is
+     *  built from the names recorded there, and no tool is loaded until it is chosen.
      *
      *  @return a Tools JMenu if qualifying tool classes are found, otherwise null
      */
        public JMenu buildToolsMenu() {
          JMenu menu = null;
-         ArrayList marsToolList = loadMarsTools();
+         ArrayList<PluginIndex> marsToolList = loadMarsTools();
          if (!marsToolList.isEmpty()) {
             menu = new JMenu(TOOLS_MENU_NAME);
             menu.setMnemonic(KeyEvent.VK_T);
          // traverse array list and build menu
-            MarsToolClassAndInstance listItem;
+            PluginIndex listItem;
             for (int i=0; i<marsToolList.size(); i++) {
-               listItem = (MarsToolClassAndInstance) marsToolList.get(i);
-               menu.add(new ToolAction(listItem.marsToolClass, listItem.marsToolInstance.getName()));
+               listItem = marsToolList.get(i);
+               menu.add(new ToolAction(listItem.getClassName(), listItem.getName()));
             }
          }
          return menu;
@@ -100,11 +95,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     *  of the JAR file (using toString, not getName).  Extract that name, open it
     *  as a ZipFile, get the ZipEntry enumeration, find the class files in the tools
     *  folder, then continue as before.
+    *
+    *  Tools are now taken from the index built into the MARS JAR file, along with
+    *  their names, so that none need be created until chosen from the menu.  Only
+    *  without an index are the class files scanned and each tool created to get its name.
     */
-       private ArrayList loadMarsTools() {
-         ArrayList toolList = new ArrayList();
-         ArrayList candidates = FilenameFinder.getFilenameList(this.getClass( ).getClassLoader(),
-                                              TOOLS_DIRECTORY_PATH, CLASS_EXTENSION);
+       private ArrayList<PluginIndex> loadMarsTools() {
+         ArrayList<PluginIndex> toolList = new ArrayList<PluginIndex>();
       	// Add any tools stored externally, as listed in Config.properties file.
       	// This needs some work, because mars.Globals.getExternalTools() returns
       	// whatever is in the properties file entry.  Since the class file will
@@ -112,43 +109,23 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       	// it correctly.  Not sure how to create a Class object given an absolute
       	// pathname.
          //candidates.addAll(mars.Globals.getExternalTools());  // this by itself is not enough...
-         HashMap tools = new HashMap();
-for( int i = 0; i < candidates.size(); i++) {
-            String file = (String) candidates.get(i);
-            // Do not add class if already encountered (happens if run in MARS development directory)
-            if (tools.containsKey(file)) {
+         ArrayList<PluginIndex> candidates = PluginIndex.find(this.getClass( ).getClassLoader(),
+                                           TOOLS_DIRECTORY_PATH, MarsTool.class);
+         for( int i = 0; i < candidates.size(); i++) {
+            PluginIndex candidate = candidates.get(i);
+            if (candidate.getName() != null) {
+               toolList.add(candidate);
                continue;
-            } 
-            else {
-               tools.put(file,file);
-            }
-            if (!file.equals(MARSTOOL_INTERFACE)) {
-               try {
-                  // grab the class, make sure it implements MarsTool, instantiate, add to menu
-                  String toolClassName = CLASS_PREFIX+file.substring(0, file.indexOf(CLASS_EXTENSION)-1);
-                  Class clas = Class.forName(toolClassName);
-                  if (!MarsTool.class.isAssignableFrom(clas)   || 
-                      Modifier.isAbstract(clas.getModifiers()) ||
-                  	 Modifier.isInterface(clas.getModifiers())  ) {
-                     continue;
-                  }
-                  toolList.add(new MarsToolClassAndInstance(clas,(MarsTool)clas.newInstance()));
-               } 
-                   catch (Exception e) {
-                     System.out.println("Error instantiating MarsTool from file " + file + ": "+e);
-                  }
             }
+            try {
+               // no name recorded, so instantiate the tool to ask it
+               MarsTool tool = (MarsTool) Class.forName(candidate.getClassName()).newInstance();
+               toolList.add(new PluginIndex(candidate.getClassName(), tool.getName()));
+            } 
+                catch (Exception e) {
+                  System.out.println("Error instantiating MarsTool " + candidate.getClassName() + ": "+e);
+               }
          }
          return toolList;
       }
-   
-   	
-       private class MarsToolClassAndInstance {
-         Class marsToolClass;
-         MarsTool marsToolInstance;
-          MarsToolClassAndInstance(Class marsToolClass, MarsTool marsToolInstance) {
-            this.marsToolClass = marsToolClass;
-            this.marsToolInstance = marsToolInstance;
-         }
-      }
-   }
\ No newline at end of file
+   }
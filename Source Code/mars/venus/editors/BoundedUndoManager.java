@@ -0,0 +1,139 @@
+   package mars.venus.editors;
+   import java.util.*;
+   import javax.swing.event.*;
+   import javax.swing.undo.*;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * UndoManager that limits the amount of text its edits may account for, as well as
+ * their number.  When the edits held add up to more than the character limit, the
+ * oldest are discarded.  The most recent edit is always kept, however large, so the
+ * last change made can always be undone.
+ * <p>
+ * The size of a document edit is the number of characters it inserted or removed.
+ * A CompoundEdit cannot be examined from outside, so whoever builds one should total
+ * the sizes of its parts with sizeOf() and add it using addEdit(edit, size).
+ */
+
+    public class BoundedUndoManager extends UndoManager {
+      /** Default maximum number of edits held. */
+      public static final int DEFAULT_EDIT_LIMIT = 100;
+      /** Default maximum number of characters the held edits may account for. */
+      public static final int DEFAULT_CHARACTER_LIMIT = 4 * 1024 * 1024;
+   
+      private int characterLimit;
+      private IdentityHashMap<UndoableEdit,Integer> editSizes;
+   
+   	/**
+   	 * Create an UndoManager with the default edit and character limits.
+   	 */
+       public BoundedUndoManager() {
+         this(DEFAULT_EDIT_LIMIT, DEFAULT_CHARACTER_LIMIT);
+      }
+   
+   	/**
+   	 * Create an UndoManager with the given limits.
+   	 *
+   	 * @param editLimit maximum number of edits held
+   	 * @param characterLimit maximum number of characters the held edits may account for
+   	 */
+       public BoundedUndoManager(int editLimit, int characterLimit) {
+         super();
+         setLimit(editLimit);
+         this.characterLimit = characterLimit;
+         this.editSizes = new IdentityHashMap<UndoableEdit,Integer>();
+      }
+   
+   	/**
+   	 * The number of characters inserted or removed by an edit, if it is a
+   	 * document edit, otherwise 0.
+   	 *
+   	 * @param edit the edit
+   	 * @return the number of characters the edit accounts for
+   	 */
+       public static int sizeOf(UndoableEdit edit) {
+         return (edit instanceof DocumentEvent) ? ((DocumentEvent) edit).getLength() : 0;
+      }
+   
+   	/**
+   	 * Add an edit, sized by sizeOf().
+   	 */
+       public synchronized boolean addEdit(UndoableEdit edit) {
+         return addEdit(edit, sizeOf(edit));
+      }
+   
+   	/**
+   	 * Add an edit of known size, then discard the oldest edits while those held 
+   	 * account for more than the character limit.
+   	 *
+   	 * @param edit the edit
+   	 * @param size the number of characters the edit accounts for
+   	 * @return true if the edit was added
+   	 */
+       public synchronized boolean addEdit(UndoableEdit edit, int size) {
+         if (!super.addEdit(edit)) {
+            return false;
+         }
+         if (edits.isEmpty()) {
+            return true;
+         }
+         // If absorbed by the previous edit, that edit now accounts for this one's characters too.
+         UndoableEdit held = edits.lastElement();
+         Integer heldSize = (held == edit) ? null : editSizes.get(held);
+         editSizes.put(held, (heldSize == null) ? size : heldSize + size);
+         long total = 0;
+         for (int i = 0; i < edits.size(); i++) {
+            Integer editSize = editSizes.get(edits.elementAt(i));
+            total += (editSize == null) ? 0 : editSize;
+         }
+         int trimmed = 0;
+         while (total > characterLimit && trimmed < edits.size() - 1) {
+            Integer editSize = editSizes.get(edits.elementAt(trimmed));
+            total -= (editSize == null) ? 0 : editSize;
+            trimmed++;
+         }
+         if (trimmed > 0) {
+            trimEdits(0, trimmed - 1);
+         }
+         return true;
+      }
+   
+       public synchronized void discardAllEdits() {
+         super.discardAllEdits();
+         editSizes.clear();
+      }
+   
+       protected void trimEdits(int from, int to) {
+         for (int i = from; i <= to && i < edits.size(); i++) {
+            editSizes.remove(edits.elementAt(i));
+         }
+         super.trimEdits(from, to);
+      }
+   }
@@ -0,0 +1,308 @@
+   package mars.venus.editors;
+   import java.util.regex.*;
+   import javax.swing.event.*;
+   import javax.swing.text.*;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Literal text search over a Document, used by Find/Replace.  The text is scanned a
+ * chunk at a time through Segments rather than copied out with getText(), using a
+ * Pattern compiled once for the search string, so a search costs no more memory than
+ * one chunk however large the source.
+ * <p>
+ * findAll() may be run on a background thread.  Its result is kept until the document
+ * next changes, and while it is current findNext() and replace-all use it instead of
+ * scanning again.  Call dispose() when the search is no longer wanted, to stop it
+ * listening to the document.
+ */
+
+    public class DocumentSearch implements DocumentListener {
+      private static final int SCAN_CHUNK_SIZE = 1 << 16;
+      private static final int REPLACE_SPAN_SIZE = 1 << 22;
+   
+      private Document document;
+      private String find;
+      private boolean caseSensitive;
+      private Pattern pattern;
+      private volatile int changeCount;
+      private volatile boolean disposed;
+      private int[] matches;
+      private int matchesChangeCount;
+   
+   	/**
+   	 * Create a search for the given text in a document.
+   	 * @param document the document to search
+   	 * @param find the text to search for
+   	 * @param caseSensitive true for case sensitive, false to ignore case
+   	 */
+       public DocumentSearch(Document document, String find, boolean caseSensitive) {
+         this.document = document;
+         this.find = find;
+         this.caseSensitive = caseSensitive;
+         this.pattern = Pattern.compile(find, (caseSensitive) ? Pattern.LITERAL
+                                 : Pattern.LITERAL | Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+         this.matchesChangeCount = -1;
+         document.addDocumentListener(this);
+      }
+   
+   	/**
+   	 * Tells whether this search is for the given text and case sensitivity.
+   	 * @param find the text to search for
+   	 * @param caseSensitive true for case sensitive, false to ignore case
+   	 * @return true if this search would produce the same matches
+   	 */
+       public boolean isSearchFor(String find, boolean caseSensitive) {
+         return this.find.equals(find) && this.caseSensitive == caseSensitive;
+      }
+   
+   	/**
+   	 * Get the document being searched.
+   	 * @return the document
+   	 */
+       public Document getDocument() {
+         return document;
+      }
+   
+   	/**
+   	 * Get the length of the text searched for, which is the length of every match.
+   	 * @return length of the search text
+   	 */
+       public int getFindLength() {
+         return find.length();
+      }
+   
+   	/**
+   	 * Stop following changes to the document, and abandon any findAll() in progress.
+   	 * The search must not be used afterward.
+   	 */
+       public void dispose() {
+         disposed = true;
+         document.removeDocumentListener(this);
+      }
+   
+   	/**
+   	 * Find the next match at or after the given position.  If there is none, the
+   	 * search wraps around to the beginning one time.  Call from the event thread.
+   	 * @param start the character position to start the search
+   	 * @return position of the match found, or -1 if not found
+   	 */
+       public int findNext(int start) {
+         int length = document.getLength();
+         if (find.length() == 0 || start >= length) {
+            return -1;
+         }
+         int[] found = getMatches();
+         if (found != null) {
+            int index = indexOfMatchAtOrAfter(found, start);
+            if (index < found.length) {
+               return found[index];
+            }
+            return (start > 0 && found.length > 0) ? found[0] : -1;
+         }
+         found = scan(start, length, 1);
+         if (found != null && found.length == 0 && start > 0) {
+            // A match starting before start must end before start+find.length()
+            found = scan(0, Math.min(length, start + find.length() - 1), 1);
+         }
+         return (found == null || found.length == 0) ? -1 : found[0];
+      }
+   
+   	/**
+   	 * Find every match in the document.  Matches do not overlap; each begins after
+   	 * the previous one ends.  May be called from any thread.
+   	 * @return ascending positions of all matches, or null if the search was disposed
+   	 * or the document changed during the scan
+   	 */
+       public int[] findAll() {
+         int[] found = getMatches();
+         if (found != null) {
+            return found;
+         }
+         int startCount = changeCount;
+         found = scan(0, document.getLength(), Integer.MAX_VALUE);
+         synchronized (this) {
+            if (found == null || changeCount != startCount) {
+               return null;
+            }
+            matches = found;
+            matchesChangeCount = startCount;
+         }
+         return found;
+      }
+   
+   	/**
+   	 * Get the result of the last findAll(), if the document has not changed since.
+   	 * @return ascending positions of all matches, or null if not known
+   	 */
+       public synchronized int[] getMatches() {
+         return (matchesChangeCount == changeCount) ? matches : null;
+      }
+   
+   	/**
+   	 * Replace the given matches, which must be current, with the replacement text.
+   	 * Rather than one remove and insert per match, the document is changed by one
+   	 * remove and one insert for each run of matches spanning up to 4M characters, so
+   	 * the cost does not depend on the number of matches.  Runs are replaced last to
+   	 * first so positions of those not yet replaced stay valid.  Call from the event thread.
+   	 * @param found ascending positions of the matches, as from findAll()
+   	 * @param replace the text to replace each match with
+   	 * @return the position just past the last replacement
+   	 */
+       public int replaceAll(int[] found, String replace) throws BadLocationException {
+         int length = find.length();
+         Segment text = new Segment();
+         StringBuilder replaced = new StringBuilder();
+         for (int end = found.length; end > 0; ) {
+            int begin = end - 1;
+            int spanEnd = found[end - 1] + length;
+            while (begin > 0 && spanEnd - found[begin - 1] <= REPLACE_SPAN_SIZE) {
+               begin--;
+            }
+            replaced.setLength(0);
+            for (int i = begin; i < end; i++) {
+               if (i > begin) {
+                  int gapStart = found[i - 1] + length;
+                  document.getText(gapStart, found[i] - gapStart, text);
+                  replaced.append(text.array, text.offset, text.count);
+               }
+               replaced.append(replace);
+            }
+            document.remove(found[begin], spanEnd - found[begin]);
+            document.insertString(found[begin], replaced.toString(), null);
+            end = begin;
+         }
+         return found[found.length - 1] + (found.length - 1) * (replace.length() - length) + replace.length();
+      }
+   
+       public void insertUpdate(DocumentEvent e) {
+         changeCount++;
+      }
+   
+       public void removeUpdate(DocumentEvent e) {
+         changeCount++;
+      }
+   
+       public void changedUpdate(DocumentEvent e) {
+      }
+   
+   	/**
+   	 * Binary search of a list of matches, such as for painting those in view.
+   	 * @param matchStarts ascending positions of matches
+   	 * @param position the character position
+   	 * @return index of the first match starting at or after position, or the
+   	 * length of the list if there is none
+   	 */
+       public static int indexOfMatchAtOrAfter(int[] matchStarts, int position) {
+         int low = 0;
+         int high = matchStarts.length;
+         while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (matchStarts[mid] < position) {
+               low = mid + 1;
+            } 
+            else {
+               high = mid;
+            }
+         }
+         return low;
+      }
+   
+      // Scans [from, to) for at most limit matches lying wholly within it.  Each chunk
+   	// is read and matched under the document's read lock.  Returns null if the
+   	// search is disposed or the document changes part way through.
+       private int[] scan(int from, int to, int limit) {
+         if (find.length() == 0) {
+            return new int[0];
+         }
+         ChunkScanner scanner = new ChunkScanner(to, limit);
+         int startCount = changeCount;
+         for (int position = from; position < to && scanner.count < limit; position += SCAN_CHUNK_SIZE) {
+            if (disposed || changeCount != startCount) {
+               return null;
+            }
+            scanner.position = position;
+            document.render(scanner);
+            if (scanner.failed) {
+               return null;
+            }
+         }
+         int[] found = new int[scanner.count];
+         System.arraycopy(scanner.found, 0, found, 0, scanner.count);
+         return found;
+      }
+   
+      // Matches one chunk of the document, starting at position.  The text read extends
+   	// find.length()-1 past the chunk so a match straddling the boundary is seen, but
+   	// only matches beginning within the chunk are taken.
+       private class ChunkScanner implements Runnable {
+         private int to, limit;
+         private Segment text;
+         int position, resume, count;
+         int[] found;
+         boolean failed;
+      
+          ChunkScanner(int to, int limit) {
+            this.to = to;
+            this.limit = limit;
+            this.text = new Segment();
+            this.found = new int[16];
+            this.resume = 0;
+         }
+      
+          public void run() {
+            int chunkEnd = Math.min(to, position + SCAN_CHUNK_SIZE);
+            int windowEnd = Math.min(to, chunkEnd + find.length() - 1);
+            try {
+               document.getText(position, windowEnd - position, text);
+            } 
+                catch (BadLocationException e) {
+                  failed = true;
+                  return;
+               }
+            Matcher matcher = pattern.matcher(text);
+            if (!matcher.find(Math.max(0, resume - position))) {
+               return;
+            }
+            do {
+               int start = position + matcher.start();
+               if (start >= chunkEnd) {
+                  return;
+               }
+               if (count == found.length) {
+                  int[] grown = new int[count * 2];
+                  System.arraycopy(found, 0, grown, 0, count);
+                  found = grown;
+               }
+               found[count++] = start;
+               resume = position + matcher.end();
+            } while (count < limit && matcher.find());
+         }
+      }
+   }
@@ -0,0 +1,107 @@
+   package mars.venus.editors;
+   import java.awt.*;
+   import javax.swing.*;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Column of line numbers displayed beside the source code.  Only the numbers in
+ * the visible region are drawn, so the cost of displaying it does not grow with the
+ * length of the file.  Lines are spaced by the height of the component's font, which
+ * should have the same size as the editor's.
+ */
+
+    public class LineNumbersView extends JComponent {
+      private int lineCount;
+   
+       public LineNumbersView() {
+         setFont(UIManager.getFont("Label.font"));
+         setForeground(UIManager.getColor("Label.foreground"));
+         setOpaque(false);
+         lineCount = 0;
+      }
+   
+   	/**
+   	 * Set the number of lines to be numbered.  Does nothing if it is unchanged.
+   	 *
+   	 * @param count number of lines
+   	 */
+       public void setLineCount(int count) {
+         if (count != lineCount) {
+            lineCount = count;
+            revalidate();
+            repaint();
+         }
+      }
+   
+   	/**
+   	 * Get the number of lines being numbered.
+   	 *
+   	 * @return number of lines
+   	 */
+       public int getLineCount() {
+         return lineCount;
+      }
+   
+   	/**
+   	 * Wide enough for the largest line number followed by a space, and tall
+   	 * enough for one more line than there are lines.
+   	 */
+       public Dimension getPreferredSize() {
+         FontMetrics metrics = getFontMetrics(getFont());
+         int digits = Integer.toString(Math.max(lineCount, 1)).length();
+         Insets insets = getInsets();
+         return new Dimension(insets.left + insets.right + (digits + 1) * metrics.charWidth('0'),
+                              insets.top + insets.bottom + (lineCount + 1) * metrics.getHeight());
+      }
+   
+       protected void paintComponent(Graphics g) {
+         if (lineCount == 0) {
+            return;
+         }
+         ((Graphics2D)g).setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+         g.setFont(getFont());
+         g.setColor(getForeground());
+         FontMetrics metrics = g.getFontMetrics();
+         Insets insets = getInsets();
+         int lineHeight = metrics.getHeight();
+         int right = getWidth() - insets.right - metrics.charWidth(' ');
+         Rectangle clip = g.getClipBounds();
+         if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+         }
+         int first = Math.max(0, (clip.y - insets.top) / lineHeight);
+         int last = Math.min(lineCount - 1, (clip.y + clip.height - insets.top) / lineHeight);
+         for (int line = first; line <= last; line++) {
+            String number = Integer.toString(line + 1);
+            g.drawString(number, right - metrics.stringWidth(number),
+                         insets.top + line * lineHeight + metrics.getAscent());
+         }
+      }
+   }
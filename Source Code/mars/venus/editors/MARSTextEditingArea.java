@@ -44,6 +44,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       public static final int TEXT_FOUND = 1;
       public static final int TEXT_REPLACED_FOUND_NEXT = 2;
       public static final int TEXT_REPLACED_NOT_FOUND_NEXT = 3;
+   	// Background of matches shown by setMatchHighlights()
+      public static final Color MATCH_HIGHLIGHT_COLOR = new Color(255, 240, 130);
    
    
        public void copy();
@@ -51,6 +53,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        public int doFindText(String find, boolean caseSensitive);
        public int doReplace(String find, String replace, boolean caseSensitive); 
        public int doReplaceAll(String find, String replace, boolean caseSensitive);		 
+       public DocumentSearch getSearch(String find, boolean caseSensitive);
+       public void setMatchHighlights(int[] matchStarts, int matchLength);
        public int getCaretPosition();
        public Document getDocument();
        public String getSelectedText();
@@ -0,0 +1,786 @@
+   package mars.venus.editors;
+   import java.lang.ref.*;
+   import java.util.*;
+   import javax.swing.text.*;
+   import javax.swing.undo.*;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Document content stored as a piece table, for use in place of Swing's gap buffer.
+ * Text is never moved once stored.  Inserted text is appended to a block of
+ * characters, and the content is a list of pieces, each a run of characters in one of
+ * the blocks.  An insert or remove splices the piece list without copying text, and
+ * a large file is never held in one contiguous array that must be grown or shifted.
+ * The piece list is an array with the document offset of each piece, so an edit
+ * takes time in proportion to the number of pieces after the edit point.  A file
+ * as loaded by the editor has about one piece per megabyte, and inserting new text
+ * adds at most two.
+ * <p>
+ * The undoable edits returned by insertString() and remove() hold on to the pieces
+ * they take out of the document rather than to copies of the text.
+ * <p>
+ * Positions behave as they do for GapContent: a position at the point of an insert
+ * moves with the text following it, except at offset 0, and positions inside removed
+ * text collapse to the start of the removal.  As with GapContent's UndoPosRef, the
+ * positions in or at the ends of removed text are put back at their old offsets when
+ * the text is inserted again by an undo or redo.  A new position shares the first
+ * position already at its offset; where several positions have collapsed to one offset
+ * GapContent may share a different one, so such a position can be put back at another
+ * of their old offsets than GapContent would choose.  Positions are kept in order in
+ * blocks, each with an offset added to all its positions, so an edit adjusts the
+ * positions of one block and the offsets of the blocks after it rather than every
+ * position after it: time in proportion to the number of blocks, about one for
+ * every 512 to 1024 positions, such as the start of each line.
+ */
+
+    public class PieceTableContent implements AbstractDocument.Content {
+   
+      /** Minimum number of characters in a block of stored text. */
+      public static final int BLOCK_SIZE = 16384;
+   
+      private Piece[] pieces;
+      private int[] pieceOffsets;   // document offset of each piece
+      private int pieceCount;
+      private int length;
+   
+      private char[] block;         // block to which short inserts are appended
+      private int blockUsed;
+   
+      /** Number of positions a block of positions is filled to when they are regrouped. */
+      public static final int MARK_BLOCK_SIZE = 512;
+   
+      private MarkBlock[] markBlocks;   // in offset order, none empty
+      private int markBlockCount;
+      private Mark[] newMarks;      // created since the last edit, not yet merged into marks
+      private int newMarkCount;
+      private ReferenceQueue<StickyPosition> deadMarks;
+   
+   	/**
+   	 * Create content holding only the newline that every Document ends with.
+   	 */
+       public PieceTableContent() {
+         pieces = new Piece[16];
+         pieceOffsets = new int[16];
+         pieceCount = 0;
+         length = 0;
+         markBlocks = new MarkBlock[16];
+         markBlockCount = 0;
+         newMarks = new Mark[16];
+         newMarkCount = 0;
+         deadMarks = new ReferenceQueue<StickyPosition>();
+         insertPieces(0, new Piece[] { storeText("\n") });
+      }
+   
+   	/**
+   	 * Length of the content, including the final newline.
+   	 */
+       public int length() {
+         return length;
+      }
+   
+   	/**
+   	 * Insert a string into the content.
+   	 *
+   	 * @param where offset at which to insert
+   	 * @param str the text to insert
+   	 * @return an UndoableEdit that removes the text again
+   	 * @throws BadLocationException if where is not within the content
+   	 */
+       public synchronized UndoableEdit insertString(int where, String str) throws BadLocationException {
+         if (where < 0 || where >= length) {
+            throw new BadLocationException("Invalid insert", length);
+         }
+         if (str.length() == 0) {
+            return null;
+         }
+         insertPieces(where, new Piece[] { storeText(str) });
+         shiftMarksForInsert(where, str.length());
+         return new InsertUndo(where, str.length());
+      }
+   
+   	/**
+   	 * Remove part of the content.
+   	 *
+   	 * @param where offset of the first character to remove
+   	 * @param nitems number of characters to remove
+   	 * @return an UndoableEdit that puts the text back
+   	 * @throws BadLocationException if the range is not within the content
+   	 */
+       public synchronized UndoableEdit remove(int where, int nitems) throws BadLocationException {
+         if (where < 0 || nitems < 0 || where + nitems >= length) {
+            throw new BadLocationException("Invalid remove", length);
+         }
+         if (nitems == 0) {
+            return null;
+         }
+         MarkRecord removedMarks = recordMarks(where, nitems);
+         Piece[] removed = removePieces(where, nitems);
+         shiftMarksForRemove(where, nitems);
+         return new RemoveUndo(where, nitems, removed, removedMarks);
+      }
+   
+   	/**
+   	 * Fetch a String from part of the content.
+   	 */
+       public String getString(int where, int len) throws BadLocationException {
+         Segment s = new Segment();
+         getChars(where, len, s);
+         return new String(s.array, s.offset, s.count);
+      }
+   
+   	/**
+   	 * Fetch part of the content into a Segment.  If the characters all lie in one 
+   	 * piece, the Segment refers to the stored text and nothing is copied.  Otherwise
+   	 * they are copied into a new array, unless the Segment allows a partial return, in
+   	 * which case only the characters in the first piece are given.
+   	 */
+       public void getChars(int where, int len, Segment txt) throws BadLocationException {
+         if (where < 0 || len < 0 || where + len > length) {
+            throw new BadLocationException("Invalid location", length);
+         }
+         if (len == 0) {
+            txt.array = new char[0];
+            txt.offset = 0;
+            txt.count = 0;
+            return;
+         }
+         int i = findPiece(where);
+         Piece piece = pieces[i];
+         int local = where - pieceOffsets[i];
+         if (local + len <= piece.length || txt.isPartialReturn()) {
+            txt.array = piece.block;
+            txt.offset = piece.start + local;
+            txt.count = Math.min(len, piece.length - local);
+            return;
+         }
+         char[] copy = new char[len];
+         int copied = 0;
+         while (copied < len) {
+            piece = pieces[i];
+            int n = Math.min(piece.length - local, len - copied);
+            System.arraycopy(piece.block, piece.start + local, copy, copied, n);
+            copied += n;
+            local = 0;
+            i++;
+         }
+         txt.array = copy;
+         txt.offset = 0;
+         txt.count = len;
+      }
+   
+   	/**
+   	 * Create a position that tracks changes to the content.  Positions at the same
+   	 * offset are shared.  A new position is not put in order among the others until
+   	 * the next edit, so that the many created for the lines of a large insert cost
+   	 * one merge rather than a shift of all the marks after each.
+   	 */
+       public synchronized Position createPosition(int offset) throws BadLocationException {
+         if (offset < 0 || offset > length) {
+            throw new BadLocationException("Invalid position", offset);
+         }
+         purgeDeadMarks();
+         int b = findMarkBlock(offset);
+         if (b < markBlockCount) {
+            MarkBlock block = markBlocks[b];
+            for (int i = block.firstAtOrAfter(offset); i < block.count && block.marks[i].offset() == offset; i++) {
+               StickyPosition position = block.marks[i].get();
+               if (position != null) {
+                  return position;
+               }
+            }
+         }
+         if (newMarkCount > 0 && newMarks[newMarkCount - 1].base == offset) {
+            StickyPosition position = newMarks[newMarkCount - 1].get();
+            if (position != null) {
+               return position;
+            }
+         }
+         StickyPosition position = new StickyPosition();
+         Mark mark = new Mark(position, offset, deadMarks);
+         position.mark = mark;
+         if (newMarkCount == newMarks.length) {
+            newMarks = Arrays.copyOf(newMarks, newMarkCount * 2);
+         }
+         newMarks[newMarkCount++] = mark;
+         return position;
+      }
+   
+   ///////////////////////////////////////////////////////////////////////////
+   //  Piece list
+   ///////////////////////////////////////////////////////////////////////////
+   
+      // Store text where a piece can refer to it.  Short text goes into the current 
+      // block, long text into a block of its own.
+       private Piece storeText(String str) {
+         int n = str.length();
+         char[] target;
+         int start;
+         if (n >= BLOCK_SIZE) {
+            target = new char[n];
+            start = 0;
+         } 
+         else {
+            if (block == null || blockUsed + n > block.length) {
+               block = new char[BLOCK_SIZE];
+               blockUsed = 0;
+            }
+            target = block;
+            start = blockUsed;
+            blockUsed += n;
+         }
+         str.getChars(0, n, target, start);
+         return new Piece(target, start, n);
+      }
+   
+      // Index of the piece containing the given offset.
+       private int findPiece(int offset) {
+         int low = 0;
+         int high = pieceCount - 1;
+         while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (pieceOffsets[mid] <= offset) {
+               low = mid;
+            } 
+            else {
+               high = mid - 1;
+            }
+         }
+         return low;
+      }
+   
+      // Insert pieces at the given offset.  A single piece that continues the stored
+      // text of the piece before it is merged with that piece, so typing does not
+      // lengthen the piece list a character at a time.
+       private void insertPieces(int where, Piece[] inserted) {
+         int index;
+         if (pieceCount == 0 || where == length) {
+            index = pieceCount;
+         } 
+         else {
+            index = findPiece(where);
+            int local = where - pieceOffsets[index];
+            if (local > 0) {
+               Piece piece = pieces[index];
+               replacePieces(index, index + 1, new Piece[] { 
+                  new Piece(piece.block, piece.start, local),
+                  new Piece(piece.block, piece.start + local, piece.length - local) });
+               index++;
+            }
+         }
+         int added = 0;
+         for (int i = 0; i < inserted.length; i++) {
+            added += inserted[i].length;
+         }
+         if (inserted.length == 1 && index > 0 && pieces[index - 1].continuedBy(inserted[0])) {
+            Piece previous = pieces[index - 1];
+            pieces[index - 1] = new Piece(previous.block, previous.start, previous.length + added);
+            length += added;
+            updatePieceOffsets(index);
+         } 
+         else {
+            length += added;
+            replacePieces(index, index, inserted);
+         }
+      }
+   
+      // Remove a range of text from the piece list, returning the pieces that held it.
+       private Piece[] removePieces(int where, int len) {
+         int first = findPiece(where);
+         int firstLocal = where - pieceOffsets[first];
+         int last = findPiece(where + len - 1);
+         int lastEnd = where + len - pieceOffsets[last];
+         Piece[] removed = new Piece[last - first + 1];
+         for (int i = first; i <= last; i++) {
+            int from = (i == first) ? firstLocal : 0;
+            int to = (i == last) ? lastEnd : pieces[i].length;
+            removed[i - first] = pieces[i].part(from, to);
+         }
+         ArrayList<Piece> kept = new ArrayList<Piece>(2);
+         if (firstLocal > 0) {
+            kept.add(pieces[first].part(0, firstLocal));
+         }
+         if (lastEnd < pieces[last].length) {
+            kept.add(pieces[last].part(lastEnd, pieces[last].length));
+         }
+         length -= len;
+         replacePieces(first, last + 1, kept.toArray(new Piece[kept.size()]));
+         return removed;
+      }
+   
+      // Replace pieces from index up to but not including end with the given pieces.
+       private void replacePieces(int index, int end, Piece[] replacement) {
+         int newCount = pieceCount - (end - index) + replacement.length;
+         if (newCount > pieces.length) {
+            int capacity = Math.max(newCount, pieces.length * 2);
+            pieces = Arrays.copyOf(pieces, capacity);
+            pieceOffsets = Arrays.copyOf(pieceOffsets, capacity);
+         }
+         System.arraycopy(pieces, end, pieces, index + replacement.length, pieceCount - end);
+         System.arraycopy(replacement, 0, pieces, index, replacement.length);
+         for (int i = newCount; i < pieceCount; i++) {
+            pieces[i] = null;
+         }
+         pieceCount = newCount;
+         updatePieceOffsets(index);
+      }
+   
+       private void updatePieceOffsets(int from) {
+         int offset = (from == 0) ? 0 : pieceOffsets[from - 1] + pieces[from - 1].length;
+         for (int i = from; i < pieceCount; i++) {
+            pieceOffsets[i] = offset;
+            offset += pieces[i].length;
+         }
+      }
+   
+   ///////////////////////////////////////////////////////////////////////////
+   //  Positions
+   ///////////////////////////////////////////////////////////////////////////
+   
+      // Index of the first block holding a mark whose offset is not less than the
+      // given offset, or markBlockCount if there is none.
+       private int findMarkBlock(int offset) {
+         int low = 0;
+         int high = markBlockCount;
+         while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (markBlocks[mid].lastOffset() < offset) {
+               low = mid + 1;
+            } 
+            else {
+               high = mid;
+            }
+         }
+         return low;
+      }
+   
+      // Drop marks whose positions are no longer referenced.
+       private void purgeDeadMarks() {
+         if (deadMarks.poll() == null) {
+            return;
+         }
+         while (deadMarks.poll() != null) {
+         }
+         int kept = 0;
+         for (int b = 0; b < markBlockCount; b++) {
+            MarkBlock block = markBlocks[b];
+            block.count = dropDeadMarks(block.marks, block.count);
+            if (block.count > 0) {
+               markBlocks[kept++] = block;
+            }
+         }
+         Arrays.fill(markBlocks, kept, markBlockCount, null);
+         markBlockCount = kept;
+         newMarkCount = dropDeadMarks(newMarks, newMarkCount);
+      }
+   
+       private static int dropDeadMarks(Mark[] list, int count) {
+         int kept = 0;
+         for (int i = 0; i < count; i++) {
+            if (list[i].get() != null) {
+               list[kept++] = list[i];
+            }
+         }
+         for (int i = kept; i < count; i++) {
+            list[i] = null;
+         }
+         return kept;
+      }
+   
+      // Merge the marks created since the last edit into the blocks.  A few are put in
+      // their blocks one at a time.  Many, such as the marks for the lines of a large
+      // insert or of a file being loaded, are merged with the marks of the blocks from 
+      // the first one they fall in, and those blocks are built again.  They are usually
+      // created in ascending order, which the sort handles in one pass.
+       private void mergeNewMarks() {
+         if (newMarkCount == 0) {
+            return;
+         }
+         Arrays.sort(newMarks, 0, newMarkCount, MARK_ORDER);
+         int first = findMarkBlock(newMarks[0].base);
+         if (newMarkCount < markBlockCount - first) {
+            for (int j = 0; j < newMarkCount; j++) {
+               insertMark(newMarks[j]);
+            }
+         } 
+         else {
+            ArrayList<Mark> tail = new ArrayList<Mark>();
+            int j = 0;
+            for (int b = first; b < markBlockCount; b++) {
+               MarkBlock block = markBlocks[b];
+               for (int i = 0; i < block.count; i++) {
+                  Mark mark = block.marks[i];
+                  int offset = mark.offset();
+                  while (j < newMarkCount && newMarks[j].base < offset) {
+                     tail.add(newMarks[j++]);
+                  }
+                  mark.base = offset;
+                  mark.block = null;
+                  tail.add(mark);
+               }
+               markBlocks[b] = null;
+            }
+            while (j < newMarkCount) {
+               tail.add(newMarks[j++]);
+            }
+            markBlockCount = first;
+            for (int i = 0; i < tail.size(); i++) {
+               appendMark(tail.get(i));
+            }
+         }
+         Arrays.fill(newMarks, 0, newMarkCount, null);
+         newMarkCount = 0;
+      }
+   
+      // Put one new mark, holding its offset in base, after all the others, starting a
+      // new block if the last is filled to MARK_BLOCK_SIZE.
+       private void appendMark(Mark mark) {
+         MarkBlock block = (markBlockCount == 0) ? null : markBlocks[markBlockCount - 1];
+         if (block == null || block.count >= MARK_BLOCK_SIZE) {
+            block = new MarkBlock();
+            if (markBlockCount == markBlocks.length) {
+               markBlocks = Arrays.copyOf(markBlocks, markBlockCount * 2);
+            }
+            markBlocks[markBlockCount++] = block;
+         }
+         block.marks[block.count++] = mark;
+         mark.base -= block.delta;
+         mark.block = block;
+      }
+   
+      // Put one new mark, holding its offset in base, in its block, splitting the block
+      // if it is full.  There must be at least one block.
+       private void insertMark(Mark mark) {
+         int b = Math.min(findMarkBlock(mark.base), markBlockCount - 1);
+         MarkBlock block = markBlocks[b];
+         if (block.count == block.marks.length) {
+            MarkBlock upper = new MarkBlock();
+            upper.delta = block.delta;
+            upper.count = block.count / 2;
+            block.count -= upper.count;
+            System.arraycopy(block.marks, block.count, upper.marks, 0, upper.count);
+            Arrays.fill(block.marks, block.count, block.marks.length, null);
+            for (int i = 0; i < upper.count; i++) {
+               upper.marks[i].block = upper;
+            }
+            if (markBlockCount == markBlocks.length) {
+               markBlocks = Arrays.copyOf(markBlocks, markBlockCount * 2);
+            }
+            System.arraycopy(markBlocks, b + 1, markBlocks, b + 2, markBlockCount - b - 1);
+            markBlocks[b + 1] = upper;
+            markBlockCount++;
+            if (mark.base > block.lastOffset()) {
+               block = upper;
+            }
+         }
+         int i = block.firstAtOrAfter(mark.base);
+         System.arraycopy(block.marks, i, block.marks, i + 1, block.count - i);
+         block.marks[i] = mark;
+         block.count++;
+         mark.base -= block.delta;
+         mark.block = block;
+      }
+   
+       private void shiftMarksForInsert(int where, int len) {
+         mergeNewMarks();
+         int from = (where == 0) ? 1 : where;
+         int b = findMarkBlock(from);
+         if (b == markBlockCount) {
+            return;
+         }
+         MarkBlock block = markBlocks[b];
+         for (int i = block.firstAtOrAfter(from); i < block.count; i++) {
+            block.marks[i].base += len;
+         }
+         for (b++; b < markBlockCount; b++) {
+            markBlocks[b].delta += len;
+         }
+      }
+   
+       private void shiftMarksForRemove(int where, int len) {
+         mergeNewMarks();
+         int end = where + len;
+         for (int b = findMarkBlock(where); b < markBlockCount; b++) {
+            MarkBlock block = markBlocks[b];
+            if (block.marks[0].offset() > end) {
+               block.delta -= len;
+               continue;
+            }
+            for (int i = block.firstAtOrAfter(where); i < block.count; i++) {
+               Mark mark = block.marks[i];
+               int offset = mark.offset();
+               mark.base = ((offset <= end) ? where : offset - len) - block.delta;
+            }
+         }
+      }
+   
+      // The marks whose offsets lie in the given range, ends included, in order.
+       private ArrayList<Mark> marksInRange(int from, int to) {
+         ArrayList<Mark> found = new ArrayList<Mark>();
+         for (int b = findMarkBlock(from); b < markBlockCount; b++) {
+            MarkBlock block = markBlocks[b];
+            for (int i = block.firstAtOrAfter(from); i < block.count; i++) {
+               if (block.marks[i].offset() > to) {
+                  return found;
+               }
+               found.add(block.marks[i]);
+            }
+         }
+         return found;
+      }
+   
+      // Note the offsets of marks in a range about to be removed, or at either end of
+      // it, so that they can be put back if the text is inserted again, as GapContent
+      // does with UndoPosRefs.
+       private MarkRecord recordMarks(int where, int len) {
+         mergeNewMarks();
+         ArrayList<Mark> found = marksInRange(where, where + len);
+         if (found.isEmpty()) {
+            return null;
+         }
+         MarkRecord record = new MarkRecord(found.size());
+         for (int i = 0; i < record.marks.length; i++) {
+            record.marks[i] = found.get(i);
+            record.offsets[i] = record.marks[i].offset();
+         }
+         return record;
+      }
+   
+      // Put back marks recorded when a range was removed, now that the range has been
+      // inserted again, then sort the marks of the range back into order.  Those marks 
+      // were moved to the start of the range when it was removed, and by the insert to 
+      // its end, or left at 0 by an insert at 0.
+       private void restoreMarks(MarkRecord record, int where, int len) {
+         if (record == null) {
+            return;
+         }
+         mergeNewMarks();
+         ArrayList<Mark> range = marksInRange(where, where + len);
+         int firstBlock = findMarkBlock(where);
+         int firstSlot = (firstBlock < markBlockCount) ? markBlocks[firstBlock].firstAtOrAfter(where) : 0;
+         for (int i = 0; i < record.marks.length; i++) {
+            Mark mark = record.marks[i];
+            if (mark.get() != null && mark.block != null) {
+               int offset = mark.offset();
+               if (offset >= where && offset <= where + len) {
+                  mark.base = record.offsets[i] - mark.block.delta;
+               }
+            }
+         }
+         Mark[] sorted = range.toArray(new Mark[range.size()]);
+         int[] offsets = new int[sorted.length];
+         Arrays.sort(sorted, MARK_ORDER);
+         for (int i = 0; i < sorted.length; i++) {
+            offsets[i] = sorted[i].offset();
+         }
+         // Same marks, so the same slots, in sorted order.
+         int k = 0;
+         for (int b = firstBlock; k < sorted.length; b++) {
+            MarkBlock block = markBlocks[b];
+            for (int i = (b == firstBlock) ? firstSlot : 0; i < block.count && k < sorted.length; i++, k++) {
+               block.marks[i] = sorted[k];
+               sorted[k].block = block;
+               sorted[k].base = offsets[k] - block.delta;
+            }
+         }
+      }
+   
+       private static final Comparator<Mark> MARK_ORDER = 
+          new Comparator<Mark>() {
+             public int compare(Mark a, Mark b) {
+               int aOffset = a.offset();
+               int bOffset = b.offset();
+               return (aOffset < bOffset) ? -1 : ((aOffset == bOffset) ? 0 : 1);
+            }
+         };
+   
+   ///////////////////////////////////////////////////////////////////////////
+   //  Undo
+   ///////////////////////////////////////////////////////////////////////////
+   
+      // Undoes an insert by taking its pieces out of the document, and redoes it by
+      // splicing them back in.
+       private class InsertUndo extends AbstractUndoableEdit {
+         private int where, len;
+         private Piece[] removed;
+         private MarkRecord removedMarks;
+      
+          InsertUndo(int where, int len) {
+            this.where = where;
+            this.len = len;
+         }
+      
+          public void undo() throws CannotUndoException {
+            super.undo();
+            synchronized (PieceTableContent.this) {
+               removedMarks = recordMarks(where, len);
+               removed = removePieces(where, len);
+               shiftMarksForRemove(where, len);
+            }
+         }
+      
+          public void redo() throws CannotRedoException {
+            super.redo();
+            synchronized (PieceTableContent.this) {
+               insertPieces(where, removed);
+               shiftMarksForInsert(where, len);
+               restoreMarks(removedMarks, where, len);
+               removed = null;
+               removedMarks = null;
+            }
+         }
+      }
+   
+      // Undoes a remove by splicing the removed pieces back in.
+       private class RemoveUndo extends AbstractUndoableEdit {
+         private int where, len;
+         private Piece[] removed;
+         private MarkRecord removedMarks;
+      
+          RemoveUndo(int where, int len, Piece[] removed, MarkRecord removedMarks) {
+            this.where = where;
+            this.len = len;
+            this.removed = removed;
+            this.removedMarks = removedMarks;
+         }
+      
+          public void undo() throws CannotUndoException {
+            super.undo();
+            synchronized (PieceTableContent.this) {
+               insertPieces(where, removed);
+               shiftMarksForInsert(where, len);
+               restoreMarks(removedMarks, where, len);
+               removed = null;
+               removedMarks = null;
+            }
+         }
+      
+          public void redo() throws CannotRedoException {
+            super.redo();
+            synchronized (PieceTableContent.this) {
+               removedMarks = recordMarks(where, len);
+               removed = removePieces(where, len);
+               shiftMarksForRemove(where, len);
+            }
+         }
+      }
+   
+   ///////////////////////////////////////////////////////////////////////////
+   //  Helper classes
+   ///////////////////////////////////////////////////////////////////////////
+   
+      // A run of stored characters.  Pieces are never modified, so undo records can
+      // share them with the piece list.
+       private static final class Piece {
+         final char[] block;
+         final int start;
+         final int length;
+      
+          Piece(char[] block, int start, int length) {
+            this.block = block;
+            this.start = start;
+            this.length = length;
+         }
+      
+          Piece part(int from, int to) {
+            return new Piece(block, start + from, to - from);
+         }
+      
+          boolean continuedBy(Piece next) {
+            return next.block == block && next.start == start + length;
+         }
+      }
+   
+      // The offset of a position, held as an offset from that of its block.  Referenced
+      // weakly by the content so that positions no longer in use can be dropped.
+       private static final class Mark extends WeakReference<StickyPosition> {
+         int base;          // offset less block delta, or offset if not yet in a block
+         MarkBlock block;
+      
+          Mark(StickyPosition position, int offset, ReferenceQueue<StickyPosition> queue) {
+            super(position, queue);
+            this.base = offset;
+         }
+      
+          int offset() {
+            MarkBlock b = block;
+            return (b == null) ? base : base + b.delta;
+         }
+      }
+   
+      // Marks in offset order, whose offsets are all moved at once by changing delta.
+       private static final class MarkBlock {
+         final Mark[] marks = new Mark[2 * MARK_BLOCK_SIZE];
+         int count;
+         int delta;
+      
+          int lastOffset() {
+            return marks[count - 1].base + delta;
+         }
+      
+         // Index of the first mark whose offset is not less than the given offset.
+          int firstAtOrAfter(int offset) {
+            int low = 0;
+            int high = count;
+            offset -= delta;
+            while (low < high) {
+               int mid = (low + high) >>> 1;
+               if (marks[mid].base < offset) {
+                  low = mid + 1;
+               } 
+               else {
+                  high = mid;
+               }
+            }
+            return low;
+         }
+      }
+   
+       private static final class StickyPosition implements Position {
+         Mark mark;
+      
+          public int getOffset() {
+            return mark.offset();
+         }
+      
+          public String toString() {
+            return Integer.toString(getOffset());
+         }
+      }
+   
+       private static final class MarkRecord {
+         final Mark[] marks;
+         final int[] offsets;
+      
+          MarkRecord(int size) {
+            marks = new Mark[size];
+            offsets = new int[size];
+         }
+      }
+   }
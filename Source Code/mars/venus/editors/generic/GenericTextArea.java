@@ -3,9 +3,16 @@
    import mars.Globals;
    import mars.venus.EditPane;
    import mars.venus.editors.MARSTextEditingArea;
+   import mars.venus.editors.BoundedUndoManager;
+   import mars.venus.editors.DocumentSearch;
+   import mars.venus.editors.PieceTableContent;
    import java.awt.*;
    import javax.swing.*;
    import javax.swing.event.*;
+   import javax.swing.text.BadLocationException;
+   import javax.swing.text.Highlighter;
+   import javax.swing.text.JTextComponent;
+   import javax.swing.text.PlainDocument;
    import javax.swing.undo.*;
    import java.util.*;
 
@@ -41,15 +48,19 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     
    
       private EditPane editPane;
-      private UndoManager undoManager;
+      private BoundedUndoManager undoManager;
       private UndoableEditListener undoableEditListener;
       private JTextArea sourceCode;
       private JScrollPane editAreaScrollPane;
    
       private boolean isCompoundEdit = false;
       private CompoundEdit compoundEdit;
+      private int compoundEditSize;
+      private DocumentSearch search;
+      private Object matchHighlightTag;
      
        public GenericTextArea(EditPane editPain, JComponent lineNumbers) {
+         super(new PlainDocument(new PieceTableContent()));
          this.editPane = editPain;
          this.sourceCode = this;
          this.setFont(Globals.getSettings().getEditorFont());
@@ -66,7 +77,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          editAreaScrollPane.getVerticalScrollBar().setUnitIncrement(
                        sourceCode.getFontMetrics(this.sourceCode.getFont()).getHeight());
       
-         this.undoManager = new UndoManager();
+         this.undoManager = new BoundedUndoManager();
       
          this.getCaret().addChangeListener(
                 new ChangeListener() {
@@ -82,6 +93,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   //Remember the edit and update the menus.
                   if (isCompoundEdit) {
                      compoundEdit.addEdit(e.getEdit());
+                     compoundEditSize += BoundedUndoManager.sizeOf(e.getEdit());
                   } 
                   else {
                      undoManager.addEdit(e.getEdit());
@@ -236,8 +248,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
      */
        public int doFindText(String find, boolean caseSensitive) {
          int findPosn = sourceCode.getCaretPosition();
-         int nextPosn = 0;
-         nextPosn = nextIndex( sourceCode.getText(), find, findPosn, caseSensitive );
+         int nextPosn = getSearch(find, caseSensitive).findNext(findPosn);
          if ( nextPosn >= 0 ) {
             sourceCode.requestFocus(); // guarantees visibility of the blue highlight 
             sourceCode.setSelectionStart( nextPosn ); // position cursor at word start
@@ -250,37 +261,6 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          }
       }
    	 
-   /** Returns next posn of word in text - forward search.  If end of string is
-    *  reached during the search, will wrap around to the beginning one time.
-   * @return next indexed position of found text or -1 if not found
-   * @param input the string to search
-   * @param find the string to find
-   * @param start the character position to start the search
-   * @param caseSensitive true for case sensitive. false to ignore case
-   */
-       public int nextIndex(String input, String find, int start, boolean caseSensitive ) {
-         int textPosn = -1;
-         if ( input != null && find != null && start < input.length() ) {
-            if ( caseSensitive ) { // indexOf() returns -1 if not found
-               textPosn = input.indexOf( find, start );
-               // If not found from non-starting cursor position, wrap around
-               if (start > 0 && textPosn < 0) {
-                  textPosn = input.indexOf( find );
-               }
-            } 
-            else {
-               String lowerCaseText = input.toLowerCase();
-               textPosn = lowerCaseText.indexOf( find.toLowerCase(), start );
-                // If not found from non-starting cursor position, wrap around
-               if (start > 0 && textPosn < 0) {
-                  textPosn = lowerCaseText.indexOf( find.toLowerCase() );
-               }
-            }
-         }
-         return textPosn;
-      }
-   
-   
    /** Finds and replaces next occurrence of text in a string in a forward search.
    * If cursor is initially at end
    *  of matching selection, will immediately replace then find and select the
@@ -312,9 +292,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          sourceCode.setSelectionEnd( nextPosn + find.length() ); //select found text
          isCompoundEdit = true;
          compoundEdit = new CompoundEdit();
+         compoundEditSize = 0;
          sourceCode.replaceSelection(replace);
          compoundEdit.end();
-         undoManager.addEdit( compoundEdit );
+         undoManager.addEdit( compoundEdit, compoundEditSize );
          editPane.updateUndoState();
          editPane.updateRedoState();
          isCompoundEdit = false;
@@ -329,47 +310,118 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       
    /** Finds and replaces <B>ALL</B> occurrences of text in a string in a forward search.
    *  All replacements are bundled into one CompoundEdit, so one Undo operation will 
-   *  undo all of them.
+   *  undo all of them.  The document is changed once for each run of matches
+   *  rather than once per match, so replacing many matches costs about the same
+   *  as replacing one.  If the replacement fails part way, the part done is undone.
    * @param find the text to locate in the string
    * @param replace the text to replace the find text with - if the find text exists 
    * @param caseSensitive true for case sensitive. false to ignore case
-   * @return the number of occurrences that were matched and replaced.
+   * @return the number of occurrences that were matched and replaced, 0 if it failed.
    */
        public int doReplaceAll(String find, String replace, boolean caseSensitive) {
-         int nextPosn = 0;
-         int findPosn = 0; // *** begin at start of text
-         int replaceCount = 0;
-         compoundEdit = null; // new one will be created upon first replacement
+         DocumentSearch search = getSearch(find, caseSensitive);
+         int[] matches = search.findAll();
+         if (matches == null || matches.length == 0) {
+            return 0;
+         }
+         sourceCode.grabFocus();
+         compoundEdit = new CompoundEdit();
+         compoundEditSize = 0;
          isCompoundEdit = true; // undo manager's action listener needs this
-         while (nextPosn >= 0) {
-            nextPosn = nextIndex( sourceCode.getText(), find, findPosn, caseSensitive );
-            if ( nextPosn >= 0 ) {
-               // nextIndex() will wrap around, which causes infinite loop if
-            	// find string is a substring of replacement string.  This 
-            	// statement will prevent that.
-               if (nextPosn < findPosn) { 
-                  break;
-               }
-               sourceCode.grabFocus();
-               sourceCode.setSelectionStart( nextPosn ); // posn cursor at word start
-               sourceCode.setSelectionEnd( nextPosn + find.length() ); //select found text
-               if (compoundEdit == null) {
-                  compoundEdit = new CompoundEdit();
-               }
-               sourceCode.replaceSelection(replace);
-               findPosn = nextPosn + replace.length(); // set for next search
-               replaceCount++;
+         int replaced = matches.length;
+         try {
+            sourceCode.setCaretPosition(search.replaceAll(matches, replace));
+         } 
+             catch (BadLocationException e) {
+               replaced = 0;
             }
-         }
          isCompoundEdit = false;
-         // Will be true if any replacements were performed
-         if (compoundEdit != null) {
-            compoundEdit.end();
-            undoManager.addEdit( compoundEdit );
-            editPane.updateUndoState();
-            editPane.updateRedoState();
+         compoundEdit.end();
+         if (replaced > 0) {
+            undoManager.addEdit( compoundEdit, compoundEditSize );
+         } 
+         else if (compoundEdit.canUndo()) {
+            // Take back the runs replaced before the failure rather than leave part done.
+            compoundEdit.undo();
+         }
+         editPane.updateUndoState();
+         editPane.updateRedoState();
+         return replaced;
+      }
+   
+   /** Returns the search of this area's text for the given find text.  The previous
+   *  search is reused when it was for the same text, keeping its compiled pattern
+   *  and any list of matches it has found.
+   * @param find the text to locate
+   * @param caseSensitive true for case sensitive. false to ignore case
+   * @return the search
+   */
+       public DocumentSearch getSearch(String find, boolean caseSensitive) {
+         if (search == null || !search.isSearchFor(find, caseSensitive) 
+             || search.getDocument() != getDocument()) {
+            if (search != null) {
+               search.dispose();
+            }
+            search = new DocumentSearch(getDocument(), find, caseSensitive);
+         }
+         return search;
+      }
+   
+   /** Highlights the background of the given matches, as Find/Replace does for
+   *  every occurrence of its find text.
+   * @param matchStarts ascending positions of the matches, or null for none
+   * @param matchLength the length of each match
+   */
+       public void setMatchHighlights(int[] matchStarts, int matchLength) {
+         if (matchHighlightTag != null) {
+            getHighlighter().removeHighlight(matchHighlightTag);
+            matchHighlightTag = null;
+         }
+         if (matchStarts != null && matchStarts.length > 0) {
+            try {
+               matchHighlightTag = getHighlighter().addHighlight(0, getDocument().getLength(),
+                                      new MatchHighlightPainter(matchStarts, matchLength));
+            } 
+                catch (BadLocationException e) { // cannot happen for the whole document
+               }
+         }
+      }
+   
+      // One highlight covering the whole document paints every match, but only looks
+   	// at those within the clip.  A match that is selected is left in the selection color.
+       private class MatchHighlightPainter implements Highlighter.HighlightPainter {
+         private int[] matchStarts;
+         private int matchLength;
+      
+          MatchHighlightPainter(int[] matchStarts, int matchLength) {
+            this.matchStarts = matchStarts;
+            this.matchLength = matchLength;
+         }
+      
+          public void paint(Graphics g, int p0, int p1, Shape bounds, JTextComponent c) {
+            Rectangle clip = g.getClipBounds();
+            int first = viewToModel(new Point(0, clip.y));
+            int last = viewToModel(new Point(clip.x + clip.width, clip.y + clip.height));
+            int selectionStart = getSelectionStart();
+            int selectionEnd = getSelectionEnd();
+            g.setColor(MATCH_HIGHLIGHT_COLOR);
+            try {
+               for (int i = DocumentSearch.indexOfMatchAtOrAfter(matchStarts, first - matchLength + 1); 
+                    i < matchStarts.length && matchStarts[i] <= last; i++) {
+                  int start = matchStarts[i];
+                  int end = Math.min(start + matchLength, getDocument().getLength());
+                  if (selectionStart != selectionEnd && start < selectionEnd && end > selectionStart) {
+                     continue;
+                  }
+                  Rectangle r0 = modelToView(start);
+                  Rectangle r1 = modelToView(end);
+                  int x2 = (r1.y == r0.y) ? r1.x : getWidth();
+                  g.fillRect(r0.x, r0.y, x2 - r0.x, r0.height);
+               }
+            } 
+                catch (BadLocationException e) { // matches are cleared when the text changes
+               }
          }
-         return replaceCount;
       }
    // 
    /////////////////////////////  End Find/Replace methods //////////////////////////
@@ -2,9 +2,12 @@
 
    import mars.venus.editors.jeditsyntax.tokenmarker.*; 
    import mars.venus.editors.MARSTextEditingArea; 
+   import mars.venus.editors.BoundedUndoManager;
+   import mars.venus.editors.DocumentSearch;
    import mars.venus.EditPane;
    import mars.*;
    import java.awt.*;
+   import java.awt.event.MouseEvent;
    import javax.swing.event.*;
    import javax.swing.text.*;
    import javax.swing.undo.*;
@@ -25,11 +28,15 @@
     public class JEditBasedTextArea extends JEditTextArea implements MARSTextEditingArea, CaretListener {
      
       private EditPane editPane;
-      private UndoManager undoManager;
+      private BoundedUndoManager undoManager;
       private UndoableEditListener undoableEditListener;
       private boolean isCompoundEdit = false;
       private CompoundEdit compoundEdit;
+      private int compoundEditSize;
       private JEditBasedTextArea sourceCode;
+      private DocumentSearch search;
+      private int[] matchStarts;
+      private int matchLength;
      
        
     
@@ -37,7 +44,7 @@
        public JEditBasedTextArea(EditPane editPain, JComponent lineNumbers) {
          super(lineNumbers);
          this.editPane = editPain;
-         this.undoManager = new UndoManager();
+         this.undoManager = new BoundedUndoManager();
          this.compoundEdit = new CompoundEdit();
          this.sourceCode = this;
       	
@@ -48,6 +55,7 @@
                   //Remember the edit and update the menus.
                   if (isCompoundEdit) {
                      compoundEdit.addEdit(e.getEdit());
+                     compoundEditSize += BoundedUndoManager.sizeOf(e.getEdit());
                   } 
                   else { 
                      undoManager.addEdit(e.getEdit());
@@ -59,6 +67,7 @@
          this.getDocument().addUndoableEditListener(undoableEditListener); 
          this.setFont(Globals.getSettings().getEditorFont());
          this.setTokenMarker(new MIPSTokenMarker());
+         getPainter().addCustomHighlight(new MatchHighlight());
       	
          addCaretListener(this);
       }
@@ -239,8 +248,7 @@
      */
        public int doFindText(String find, boolean caseSensitive) {
          int findPosn = sourceCode.getCaretPosition();
-         int nextPosn = 0;
-         nextPosn = nextIndex( sourceCode.getText(), find, findPosn, caseSensitive );
+         int nextPosn = getSearch(find, caseSensitive).findNext(findPosn);
          if ( nextPosn >= 0 ) {
             sourceCode.requestFocus(); // guarantees visibility of the blue highlight 
             sourceCode.setSelectionStart( nextPosn ); // position cursor at word start
@@ -254,37 +262,6 @@
          }
       }
    	 
-   /** Returns next posn of word in text - forward search.  If end of string is
-    *  reached during the search, will wrap around to the beginning one time.
-   * @return next indexed position of found text or -1 if not found
-   * @param input the string to search
-   * @param find the string to find
-   * @param start the character position to start the search
-   * @param caseSensitive true for case sensitive. false to ignore case
-   */
-       public int nextIndex(String input, String find, int start, boolean caseSensitive ) {
-         int textPosn = -1;
-         if ( input != null && find != null && start < input.length() ) {
-            if ( caseSensitive ) { // indexOf() returns -1 if not found
-               textPosn = input.indexOf( find, start );
-               // If not found from non-starting cursor position, wrap around
-               if (start > 0 && textPosn < 0) {
-                  textPosn = input.indexOf( find );
-               }
-            } 
-            else {
-               String lowerCaseText = input.toLowerCase();
-               textPosn = lowerCaseText.indexOf( find.toLowerCase(), start );
-                // If not found from non-starting cursor position, wrap around
-               if (start > 0 && textPosn < 0) {
-                  textPosn = lowerCaseText.indexOf( find.toLowerCase() );
-               }
-            }
-         }
-         return textPosn;
-      }
-   
-   
    /** Finds and replaces next occurrence of text in a string in a forward search.
    * If cursor is initially at end
    *  of matching selection, will immediately replace then find and select the
@@ -318,9 +295,10 @@
          sourceCode.setSelectionStart( nextPosn );
          isCompoundEdit = true;
          compoundEdit = new CompoundEdit();
+         compoundEditSize = 0;
          sourceCode.replaceSelection(replace);
          compoundEdit.end();
-         undoManager.addEdit( compoundEdit );
+         undoManager.addEdit( compoundEdit, compoundEditSize );
          editPane.updateUndoState();
          editPane.updateRedoState();
          isCompoundEdit = false;
@@ -335,49 +313,112 @@
       
    /** Finds and replaces <B>ALL</B> occurrences of text in a string in a forward search.
    *  All replacements are bundled into one CompoundEdit, so one Undo operation will 
-   *  undo all of them.
+   *  undo all of them.  The document is changed once for each run of matches
+   *  rather than once per match, so replacing many matches costs about the same
+   *  as replacing one.  If the replacement fails part way, the part done is undone.
    * @param find the text to locate in the string
    * @param replace the text to replace the find text with - if the find text exists 
    * @param caseSensitive true for case sensitive. false to ignore case
-   * @return the number of occurrences that were matched and replaced.
+   * @return the number of occurrences that were matched and replaced, 0 if it failed.
    */
        public int doReplaceAll(String find, String replace, boolean caseSensitive) {
-         int nextPosn = 0;
-         int findPosn = 0; // *** begin at start of text
-         int replaceCount = 0;
-         compoundEdit = null; // new one will be created upon first replacement
+         DocumentSearch search = getSearch(find, caseSensitive);
+         int[] matches = search.findAll();
+         if (matches == null || matches.length == 0) {
+            return 0;
+         }
+         sourceCode.grabFocus();
+         compoundEdit = new CompoundEdit();
+         compoundEditSize = 0;
          isCompoundEdit = true; // undo manager's action listener needs this
-         while (nextPosn >= 0) {
-            nextPosn = nextIndex( sourceCode.getText(), find, findPosn, caseSensitive );
-            if ( nextPosn >= 0 ) {
-               // nextIndex() will wrap around, which causes infinite loop if
-            	// find string is a substring of replacement string.  This 
-            	// statement will prevent that.
-               if (nextPosn < findPosn) { 
-                  break;
-               }
-               sourceCode.grabFocus();
-               sourceCode.setSelectionStart( nextPosn ); // posn cursor at word start
-               sourceCode.setSelectionEnd( nextPosn + find.length() ); //select found text
-               // Need to repeat start due to quirk in JEditTextArea implementation of setSelectionStart.
-               sourceCode.setSelectionStart( nextPosn );
-               if (compoundEdit == null) {
-                  compoundEdit = new CompoundEdit();
+         int replaced = matches.length;
+         try {
+            sourceCode.setCaretPosition(search.replaceAll(matches, replace));
+         } 
+             catch (BadLocationException e) {
+               replaced = 0;
+            }
+         isCompoundEdit = false;
+         compoundEdit.end();
+         if (replaced > 0) {
+            undoManager.addEdit( compoundEdit, compoundEditSize );
+         } 
+         else if (compoundEdit.canUndo()) {
+            // Take back the runs replaced before the failure rather than leave part done.
+            compoundEdit.undo();
+         }
+         editPane.updateUndoState();
+         editPane.updateRedoState();
+         return replaced;
+      }
+   
+   /** Returns the search of this area's text for the given find text.  The previous
+   *  search is reused when it was for the same text, keeping its compiled pattern
+   *  and any list of matches it has found.
+   * @param find the text to locate
+   * @param caseSensitive true for case sensitive. false to ignore case
+   * @return the search
+   */
+       public DocumentSearch getSearch(String find, boolean caseSensitive) {
+         if (search == null || !search.isSearchFor(find, caseSensitive) 
+             || search.getDocument() != getDocument()) {
+            if (search != null) {
+               search.dispose();
+            }
+            search = new DocumentSearch(getDocument(), find, caseSensitive);
+         }
+         return search;
+      }
+   
+   /** Highlights the background of the given matches, as Find/Replace does for
+   *  every occurrence of its find text.
+   * @param matchStarts ascending positions of the matches, or null for none
+   * @param matchLength the length of each match
+   */
+       public void setMatchHighlights(int[] matchStarts, int matchLength) {
+         this.matchStarts = (matchStarts == null || matchStarts.length == 0) ? null : matchStarts;
+         this.matchLength = matchLength;
+         getPainter().repaint();
+      }
+   
+      // Paints the background of the matches set by setMatchHighlights() on one line.
+   	// A match that is selected is left in the selection color.
+       private class MatchHighlight implements TextAreaPainter.Highlight {
+         private TextAreaPainter.Highlight next;
+      
+          public void init(JEditTextArea textArea, TextAreaPainter.Highlight next) {
+            this.next = next;
+         }
+      
+          public void paintHighlight(Graphics gfx, int line, int y) {
+            if (matchStarts != null) {
+               FontMetrics fm = getPainter().getFontMetrics();
+               int top = y + fm.getLeading() + fm.getMaxDescent();
+               int lineStart = getLineStartOffset(line);
+               int lineEnd = lineStart + getLineLength(line);
+               int selectionStart = getSelectionStart();
+               int selectionEnd = getSelectionEnd();
+               gfx.setColor(MATCH_HIGHLIGHT_COLOR);
+               for (int i = DocumentSearch.indexOfMatchAtOrAfter(matchStarts, lineStart - matchLength + 1); 
+                    i < matchStarts.length && matchStarts[i] < lineEnd; i++) {
+                  int start = matchStarts[i];
+                  int end = start + matchLength;
+                  if (selectionStart != selectionEnd && start < selectionEnd && end > selectionStart) {
+                     continue;
+                  }
+                  int x1 = _offsetToX(line, Math.max(start, lineStart) - lineStart);
+                  int x2 = _offsetToX(line, Math.min(end, lineEnd) - lineStart);
+                  gfx.fillRect(x1, top, x2 - x1, fm.getHeight());
                }
-               sourceCode.replaceSelection(replace);
-               findPosn = nextPosn + replace.length(); // set for next search
-               replaceCount++;
+            }
+            if (next != null) {
+               next.paintHighlight(gfx, line, y);
             }
          }
-         isCompoundEdit = false;
-         // Will be true if any replacements were performed
-         if (compoundEdit != null) {
-            compoundEdit.end();
-            undoManager.addEdit( compoundEdit );
-            editPane.updateUndoState();
-            editPane.updateRedoState();
+      
+          public String getToolTipText(MouseEvent evt) {
+            return (next == null) ? null : next.getToolTipText(evt);
          }
-         return replaceCount;
       }
    // 
    /////////////////////////////  End Find/Replace methods //////////////////////////   	
@@ -77,13 +77,23 @@
       }
    
    /**
-    * Adds a key-value mapping.
+    * Adds a key-value mapping.  If the key is already present, its
+    * value is replaced.
     * @param keyword The key
     * @Param id The value
     */
        public void add(String keyword, byte id)
       {
          int key = getStringMapKey(keyword);
+         for(Keyword k = map[key]; k != null; k = k.next)
+         {
+            String existing = new String(k.keyword);
+            if(ignoreCase ? existing.equalsIgnoreCase(keyword) : existing.equals(keyword))
+            {
+               k.id = id;
+               return;
+            }
+         }
          map[key] = new Keyword(keyword.toCharArray(),id,map[key]);
       }
    
@@ -109,18 +119,23 @@
    // protected members
       protected int mapLength;
    
+   // Keys are hashed on all their characters.  Hashing only the first and
+   // last, as originally done, put many MIPS mnemonics in the same bucket.
        protected int getStringMapKey(String s)
       {
-         return (Character.toUpperCase(s.charAt(0)) +
-            Character.toUpperCase(s.charAt(s.length()-1)))
-            % mapLength;
+         int hash = 0;
+         for(int i = 0; i < s.length(); i++)
+            hash = 31 * hash + Character.toUpperCase(s.charAt(i));
+         return (hash & 0x7fffffff) % mapLength;
       }
    
        protected int getSegmentMapKey(Segment s, int off, int len)
       {
-         return (Character.toUpperCase(s.array[off]) +
-            Character.toUpperCase(s.array[off + len - 1]))
-            % mapLength;
+         char[] array = s.array;
+         int hash = 0;
+         for(int i = off; i < off + len; i++)
+            hash = 31 * hash + Character.toUpperCase(array[i]);
+         return (hash & 0x7fffffff) % mapLength;
       }
    
    // private members
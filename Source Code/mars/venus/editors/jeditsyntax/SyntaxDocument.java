@@ -23,6 +23,24 @@ import javax.swing.undo.UndoableEdit;
  */
 public class SyntaxDocument extends PlainDocument
 {
+	/**
+	 * Creates a new SyntaxDocument using Swing's default
+	 * gap buffer for its content.
+	 */
+	public SyntaxDocument()
+	{
+		super();
+	}
+
+	/**
+	 * Creates a new SyntaxDocument with the given content.
+	 * @param c The container for the document's text
+	 */
+	public SyntaxDocument(AbstractDocument.Content c)
+	{
+		super(c);
+	}
+
 	/**
 	 * Returns the token marker that is to be used to split lines
 	 * of this document up into tokens. May return null if this
@@ -71,6 +89,8 @@ public class SyntaxDocument extends PlainDocument
 		if(tokenMarker == null || !tokenMarker.supportsMultilineTokens())
 			return;
 
+		tokenMarker.invalidateLines(start,len);
+
 		Segment lineSegment = new Segment();
 		Element map = getDefaultRootElement();
 
@@ -138,6 +158,7 @@ public class SyntaxDocument extends PlainDocument
 					ch.getChildrenAdded().length -
 					ch.getChildrenRemoved().length);
 			}
+			invalidateChangedLines(evt,ch);
 		}
 
 		super.fireInsertUpdate(evt);
@@ -160,8 +181,29 @@ public class SyntaxDocument extends PlainDocument
 					ch.getChildrenRemoved().length -
 					ch.getChildrenAdded().length);
 			}
+			invalidateChangedLines(evt,ch);
 		}
 
 		super.fireRemoveUpdate(evt);
 	}
+
+	/**
+	 * Tells the token marker which existing lines an insert or remove
+	 * has changed, so their cached tokens are not reused.  Lines that
+	 * the change created are new to the token marker already.
+	 */
+	private void invalidateChangedLines(DocumentEvent evt,
+		DocumentEvent.ElementChange ch)
+	{
+		if(ch != null)
+		{
+			tokenMarker.invalidateLines(ch.getIndex(),
+				ch.getChildrenAdded().length);
+		}
+		else
+		{
+			tokenMarker.invalidateLines(getDefaultRootElement()
+				.getElementIndex(evt.getOffset()),1);
+		}
+	}
 }
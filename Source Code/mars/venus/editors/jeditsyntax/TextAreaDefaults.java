@@ -10,6 +10,7 @@
    package mars.venus.editors.jeditsyntax;
 
    import mars.Settings;
+   import mars.venus.editors.PieceTableContent;
    import javax.swing.JPopupMenu;
    import java.awt.Color;
 
@@ -80,7 +81,7 @@
          DEFAULTS.eolMarkerColor = new Color(0x009999);
          DEFAULTS.eolMarkers = false; // true;
          DEFAULTS.paintInvalid = false; //true;
-         DEFAULTS.document = new SyntaxDocument();
+         DEFAULTS.document = new SyntaxDocument(new PieceTableContent());
          return DEFAULTS;
       }
    }
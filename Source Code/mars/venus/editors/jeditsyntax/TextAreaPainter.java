@@ -359,8 +359,9 @@
       //             return highlights.getToolTipText(evt);
       //          else
       //             return null;
-         if (highlights != null)
-            return highlights.getToolTipText(evt);
+         String toolTip = (highlights == null) ? null : highlights.getToolTipText(evt);
+         if (toolTip != null)
+            return toolTip;
          else if (this.textArea.getTokenMarker()==null) 
             return null; 
          else 
@@ -476,7 +476,8 @@
       {
          if(cKeywords == null)
          {
-            cKeywords = new KeywordMap(false);
+            // About 350 distinct keywords; enough buckets that most hold one
+            cKeywords = new KeywordMap(false, KEYWORD_MAP_LENGTH);
          	// add Instruction mnemonics
             java.util.ArrayList instructionSet = mars.Globals.instructionSet.getInstructionList();
             for (int i=0; i< instructionSet.size(); i++) {
@@ -505,6 +506,7 @@
       }
    
    // private members
+      private static final int KEYWORD_MAP_LENGTH = 1021;
       private static KeywordMap cKeywords;
       private static String[] tokenLabels, tokenExamples;
       private KeywordMap keywords;
@@ -20,7 +20,15 @@
  * For performance reasons, the linked list of tokens is reused after each
  * line is tokenized. Therefore, the return value of <code>markTokens</code>
  * should only be used for immediate painting. Notably, it cannot be
- * cached.
+ * cached.<p>
+ *
+ * The tokens of each line are kept in compact form, along with the token
+ * type the line was started in, and are reused until the line is edited
+ * (see <code>invalidateLines()</code>) or the line before it ends in a
+ * different token type.  So after an edit only the edited line, and any
+ * following lines whose starting token type changes as a result, are
+ * tokenized again; painting and caret positioning otherwise reuse the
+ * cached tokens.
  *
  * @author Slava Pestov
  * @version $Id: TokenMarker.java,v 1.32 1999/12/13 03:40:30 sp Exp $
@@ -50,9 +58,21 @@
             prev = lineInfo[lineIndex - 1];
       
          byte oldToken = info.token;
-         byte token = markTokensImpl(prev == null ?
-            Token.NULL : prev.token,line,lineIndex);
-      
+         byte startToken = (prev == null) ? Token.NULL : prev.token;
+         byte token;
+         if(info.tokens != null && info.startToken == startToken)
+         {
+            int[] tokens = info.tokens;
+            for(int i = 0; i < tokens.length; i++)
+               addToken(tokens[i] >>> 8,(byte)tokens[i]);
+            token = oldToken;
+         }
+         else
+         {
+            token = markTokensImpl(startToken,line,lineIndex);
+            info.tokens = packTokens();
+            info.startToken = startToken;
+         }
          info.token = token;
       
       /*
@@ -167,6 +187,20 @@
             index,lineInfo.length - len);
       }
    
+   /**
+    * Informs the token marker that the text of lines has changed, so
+    * that they will be tokenized again rather than their cached tokens
+    * reused.
+    * @param index The first line number
+    * @param lines The number of lines
+    */
+       public void invalidateLines(int index, int lines)
+      {
+         int end = Math.min(index + lines, length);
+         for(int i = Math.max(index, 0); i < end; i++)
+            lineInfo[i].tokens = null;
+      }
+   
    /**
     * Returns the number of lines in this token marker.
     */
@@ -310,6 +344,30 @@
          }
       }
    
+   /**
+    * Copies the tokens added for the current line into an array, one
+    * int per token with the length in the upper 24 bits and the id in
+    * the low 8 bits.
+    */
+       private int[] packTokens()
+      {
+         int count = 0;
+         if(lastToken != null)
+         {
+            for(Token t = firstToken; t != lastToken; t = t.next)
+               count++;
+            count++;
+         }
+         int[] tokens = new int[count];
+         Token t = firstToken;
+         for(int i = 0; i < count; i++)
+         {
+            tokens[i] = (t.length << 8) | t.id;
+            t = t.next;
+         }
+         return tokens;
+      }
+   
    /**
     * Inner class for storing information about tokenized lines.
     */
@@ -334,6 +392,15 @@
        * The id of the last token of the line.
        */
          public byte token;
+      /**
+       * The line's tokens as last marked, packed by <code>packTokens()</code>,
+       * or null if the line must be tokenized again.
+       */
+         int[] tokens;
+      /**
+       * The token type the line started in when it was last marked.
+       */
+         byte startToken;
       
       /**
        * This is for use by the token marker implementations
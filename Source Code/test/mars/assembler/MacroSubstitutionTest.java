@@ -0,0 +1,178 @@
+   package mars.assembler;
+
+   import mars.*;
+   import mars.mips.hardware.*;
+   import mars.util.Binary;
+   import java.io.*;
+   import java.util.*;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Expands macro calls with signed arguments and checks that the tokens substituted
+ * into each body line are those of tokenizing the substituted text, where a sign
+ * after an identifier is a separate operator, that the line displayed for each is
+ * that text, and that the calls that assemble give the expected data.
+ * Run from the "Source Code" directory; exits with status 1 on any mismatch.
+ */
+
+    public class MacroSubstitutionTest {
+   
+      private static final String SOURCE =
+           ".macro two(%a, %b)\n"
+         + "        .word %a, %b\n"
+         + ".end_macro\n"
+         + ".macro after(%x)\n"
+         + "        .word foo, %x\n"
+         + ".end_macro\n"
+         + ".macro label(%x)\n"
+         + "here:   .word here, %x\n"
+         + ".end_macro\n"
+         + ".macro before(%x)\n"
+         + "        .word %x -1\n"
+         + ".end_macro\n"
+         + ".macro imm(%x)\n"
+         + "        addi $t0, $t0, %x\n"
+         + ".end_macro\n"
+         + ".macro prefix(%a, %ab)\n"
+         + "        .word %ab, %a   # %a\n"
+         + ".end_macro\n"
+         + ".data\n"
+         + "foo:    .word 7\n"
+         + "        two(5, -3)\n"
+         + "        two(-5, +3)\n"
+         + "        before(4)\n"
+         + "        prefix(1, 2)\n"
+         + ".text\n"
+         + "        imm(-8)\n";
+   
+      private static final String[] CALLS = {
+            "two(5, -3)", "two(-5, +3)", "two(foo, 3)", "after(-3)", "after(+3)", "after(3)",
+            "label(-4)", "before(4)", "before(foo)", "imm(-8)", "imm(foo)", "prefix(1, 2)" };
+   
+    // Calls and the text of their macro's first body line, where a token's first occurrence
+    // in the line is not the token itself.
+      private static final String[][] TEXTS = {
+            { "label(-4)", "here_M0:   .word here_M0, -4" },
+            { "prefix(1, 2)", "        .word 2, 1   # %a" } };
+   
+      private static final int[] DATA = { 7, 5, -3, -5, 3, 4, -1, 2, 1 };
+   
+      private static int failures = 0;
+   
+       public static void main(String[] args) throws Exception {
+         Globals.initialize(false);
+         File source = File.createTempFile("macro", ".asm");
+         source.deleteOnExit();
+         PrintStream out = new PrintStream(new FileOutputStream(source));
+         out.print(SOURCE);
+         out.close();
+      
+         Globals.memory.clear();
+         ArrayList files = new ArrayList();
+         files.add(source.getAbsolutePath());
+         MIPSprogram program = new MIPSprogram();
+         ArrayList programs = program.prepareFilesForAssembly(files, source.getAbsolutePath(), null);
+         program.assemble(programs, true);
+         for (int i = 0; i < DATA.length; i++) {
+            int address = Memory.dataBaseAddress + i * Memory.WORD_LENGTH_BYTES;
+            int word = Globals.memory.getWord(address);
+            if (word != DATA[i]) {
+               fail("data", "word at " + Binary.intToHexString(address) + " is " + word + ", expected " + DATA[i]);
+            }
+         }
+      
+         MIPSprogram assembled = (MIPSprogram) programs.get(0);
+         for (int i = 0; i < CALLS.length; i++) {
+            expand(assembled, CALLS[i]);
+         }
+         for (int i = 0; i < TEXTS.length; i++) {
+            TokenList call = callTokens(assembled, TEXTS[i][0]);
+            Macro macro = assembled.getLocalMacroPool().getMatchingMacro(call, 1);
+            String text = macro.getSubstitutedTokens(macro.getFromLine() + 1, call, 0, 
+                  assembled.getTokenizer(), new ErrorList()).getProcessedLine();
+            if (!text.equals(TEXTS[i][1])) {
+               fail(TEXTS[i][0], "processed line is \"" + text + "\", expected \"" + TEXTS[i][1] + "\"");
+            }
+         }
+         System.out.println((failures == 0) ? "OK" : failures + " failures");
+         System.exit((failures == 0) ? 0 : 1);
+      }
+   
+    // Compare each substituted body line of the call's macro with tokenizing its text,
+    // and with tokenizing the line to be displayed.
+       private static void expand(MIPSprogram program, String call) {
+         Tokenizer tokenizer = program.getTokenizer();
+         ErrorList errors = new ErrorList();
+         TokenList tokens = callTokens(program, call);
+         Macro macro = program.getLocalMacroPool().getMatchingMacro(tokens, 1);
+         if (macro == null) {
+            fail(call, "no matching macro");
+            return;
+         }
+         for (int line = macro.getFromLine() + 1; line < macro.getToLine(); line++) {
+            String text = macro.getSubstitutedLine(line, tokens, 0, errors);
+            String expected = describe(tokenizer.tokenizeLine(line, text, errors));
+            TokenList substituted = macro.getSubstitutedTokens(line, tokens, 0, tokenizer, errors);
+            String actual = describe(substituted);
+            if (!actual.equals(expected)) {
+               fail(call, "\"" + text.trim() + "\" gives " + actual + ", expected " + expected);
+            }
+            if (!substituted.getProcessedLine().equals(text)) {
+               fail(call, "processed line is \"" + substituted.getProcessedLine() + "\", expected \"" + text + "\"");
+            }
+            String displayed = describe(tokenizer.tokenizeLine(line, substituted.getProcessedLine(), errors));
+            if (!actual.equals(displayed)) {
+               fail(call, "processed line gives " + displayed + ", tokens are " + actual);
+            }
+         }
+      }
+   
+    // Tokens of a macro call as the assembler matches them: name and arguments, no parentheses.
+       private static TokenList callTokens(MIPSprogram program, String call) {
+         TokenList tokens = program.getTokenizer().tokenizeLine(1, call, new ErrorList());
+         tokens.remove(tokens.size() - 1);
+         tokens.remove(1);
+         return tokens;
+      }
+   
+       private static String describe(TokenList tokens) {
+         StringBuffer result = new StringBuffer();
+         for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            result.append(" " + token.getType() + ":" + token.getValue());
+         }
+         return result.toString();
+      }
+   
+       private static void fail(String name, String message) {
+         System.out.println(name + ": " + message);
+         failures++;
+      }
+   }
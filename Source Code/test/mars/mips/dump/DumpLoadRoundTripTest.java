@@ -0,0 +1,183 @@
+   package mars.mips.dump;
+
+   import mars.*;
+   import mars.mips.hardware.*;
+   import mars.util.Binary;
+   import java.io.*;
+   import java.util.ArrayList;
+   import java.util.Arrays;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Dumps an assembled program in each loadable format, loads it back and checks
+ * that memory and the decoded statements match.  The text segment holds every
+ * branch form, branching both forward and backward, and the data segment has
+ * unreferenced blocks in the middle and data more than 64K past its start.
+ * Also checks that malformed files, such as a short extended address record or
+ * a word with too many digits, are rejected with an IOException.
+ * Run from the "Source Code" directory; exits with status 1 on any mismatch.
+ */
+
+    public class DumpLoadRoundTripTest {
+   
+      private static final String SOURCE =
+           ".data\n"
+         + "first:  .word 1, -2, 0x7fffffff\n"
+         + "        .space 20000\n"
+         + "middle: .word 3\n"
+         + "        .space 70000\n"
+         + "last:   .word 0x12345678, -5\n"
+         + ".text\n"
+         + "back:   beq $t0, $t1, back\n"
+         + "        bne $t0, $t1, ahead\n"
+         + "        bgez $t0, back\n"
+         + "        bgezal $t0, ahead\n"
+         + "        bgtz $t0, back\n"
+         + "        blez $t0, ahead\n"
+         + "        bltz $t0, back\n"
+         + "        bltzal $t0, ahead\n"
+         + "        bc1t back\n"
+         + "        bc1t 1, ahead\n"
+         + "        bc1f back\n"
+         + "        bc1f 2, ahead\n"
+         + "        j back\n"
+         + "ahead:  nop\n";
+   
+      private static final String MIF_HEADER =
+           "DEPTH = 1;\nWIDTH = 32;\nADDRESS_RADIX = HEX;\nDATA_RADIX = HEX;\nCONTENT\nBEGIN\n";
+   
+      private static int failures = 0;
+   
+       public static void main(String[] args) throws Exception {
+         Globals.initialize(false);
+         File source = File.createTempFile("roundtrip", ".asm");
+         source.deleteOnExit();
+         PrintStream out = new PrintStream(new FileOutputStream(source));
+         out.print(SOURCE);
+         out.close();
+      
+         LoadableDumpFormat[] formats = { 
+               new BinaryDumpFormat(), new HexTextDumpFormat(), 
+               new IntelHexDumpFormat(), new MIFDumpFormat() };
+         for (int i = 0; i < formats.length; i++) {
+            roundTrip(source, formats[i], Memory.textBaseAddress, Memory.textLimitAddress);
+            roundTrip(source, formats[i], Memory.dataSegmentBaseAddress, Memory.dataSegmentLimitAddress);
+         }
+         rejects(new IntelHexDumpFormat(), ":00000002FE\n:0400000000000001FB\n");
+         rejects(new IntelHexDumpFormat(), ":0100000400FB\n:0400000000000001FB\n");
+         rejects(new HexTextDumpFormat(), "00000001\n123456789\n");
+         rejects(new HexTextDumpFormat(), "-1\n");
+         rejects(new MIFDumpFormat(), MIF_HEADER + "0 : 123456789;\nEND;\n");
+         rejects(new MIFDumpFormat(), MIF_HEADER + "0 : -1;\nEND;\n");
+         System.out.println((failures == 0) ? "OK" : failures + " failures");
+         System.exit((failures == 0) ? 0 : 1);
+      }
+   
+    // Assemble, dump the range, clear memory, load the dump and compare.
+       private static void roundTrip(File source, LoadableDumpFormat format, int base, int limit) throws Exception {
+         String name = format + " " + Binary.intToHexString(base);
+         assemble(source);
+         int high = Globals.memory.getAddressOfLastNonNull(base, limit);
+         if (high < base) {
+            fail(name, "nothing to dump");
+            return;
+         }
+         int words = (high - base) / Memory.WORD_LENGTH_BYTES + 1;
+         Integer[] expected = new Integer[words];
+         int[][] operands = new int[words][];
+         for (int i = 0; i < words; i++) {
+            int address = base + i * Memory.WORD_LENGTH_BYTES;
+            expected[i] = Globals.memory.getRawWordOrNull(address);
+            ProgramStatement statement = Memory.inTextSegment(address) ? Globals.memory.getStatementNoNotify(address) : null;
+            if (statement != null) {
+               operands[i] = statement.getOperands();
+            }
+         }
+         File dump = File.createTempFile("roundtrip", ".dump");
+         dump.deleteOnExit();
+         ((DumpFormat) format).dumpMemoryRange(dump, base, high);
+      
+         Globals.memory.clear();
+         format.loadMemoryRange(dump, base, limit);
+         for (int i = 0; i < words; i++) {
+            int address = base + i * Memory.WORD_LENGTH_BYTES;
+            Integer actual = Globals.memory.getRawWordOrNull(address);
+            int want = (expected[i] == null) ? 0 : expected[i].intValue();
+            int got = (actual == null) ? 0 : actual.intValue();
+            if (want != got) {
+               fail(name, "word at " + Binary.intToHexString(address) + " is " 
+                  + Binary.intToHexString(got) + ", expected " + Binary.intToHexString(want));
+            }
+            if (operands[i] != null) {
+               ProgramStatement statement = Globals.memory.getStatementNoNotify(address);
+               int[] loaded = statement.getOperands();
+               if (!Arrays.equals(operands[i], loaded)) {
+                  fail(name, "operands of " + statement.getPrintableBasicAssemblyStatement() + " at " 
+                     + Binary.intToHexString(address) + " are " + Arrays.toString(loaded)
+                     + ", expected " + Arrays.toString(operands[i]));
+               }
+            }
+         }
+      }
+   
+    // Loading the given file content must fail with an IOException.
+       private static void rejects(LoadableDumpFormat format, String content) throws Exception {
+         String name = format + " \"" + content.trim().replace('\n', ' ') + "\"";
+         File file = File.createTempFile("malformed", ".dump");
+         file.deleteOnExit();
+         PrintStream out = new PrintStream(new FileOutputStream(file));
+         out.print(content);
+         out.close();
+         Globals.memory.clear();
+         try {
+            format.loadMemoryRange(file, Memory.dataBaseAddress, Memory.dataSegmentLimitAddress);
+            fail(name, "loaded without error");
+         } 
+             catch (IOException e) {
+            } 
+             catch (RuntimeException e) {
+               fail(name, "threw " + e);
+            }
+      }
+   
+       private static void assemble(File source) throws ProcessingException {
+         Globals.memory.clear();
+         ArrayList files = new ArrayList();
+         files.add(source.getAbsolutePath());
+         MIPSprogram program = new MIPSprogram();
+         ArrayList programs = program.prepareFilesForAssembly(files, source.getAbsolutePath(), null);
+         program.assemble(programs, true);
+      }
+   
+       private static void fail(String name, String message) {
+         System.out.println(name + ": " + message);
+         failures++;
+      }
+   }
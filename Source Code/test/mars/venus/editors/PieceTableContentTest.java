@@ -0,0 +1,196 @@
+   package mars.venus.editors;
+
+   import java.util.*;
+   import javax.swing.text.*;
+   import javax.swing.undo.*;
+
+/*
+Copyright (c) 2003-2011,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Applies the same random inserts, removes, undos, redos and position creations to a
+ * PieceTableContent and to Swing's GapContent, and checks after each step that the
+ * text, partial reads and the offsets of all positions are the same.  Positions are
+ * created in bursts, so that there are enough of them to fill several mark blocks.
+ * A new position shares one already at its offset, so none is created where two or
+ * more different positions have been brought together by a removal: GapContent's
+ * choice of which of those to share is not specified.
+ * Run from the "Source Code" directory; exits with status 1 on any mismatch.
+ */
+
+    public class PieceTableContentTest {
+   
+      private static final int RUNS = 60;
+      private static final int STEPS = 300;
+   
+      private static Random random;
+      private static int failures = 0;
+   
+       public static void main(String[] args) throws Exception {
+         for (int run = 0; run < RUNS && failures == 0; run++) {
+            random = new Random(run);
+            compare(run);
+         }
+         System.out.println((failures == 0) ? "OK" : failures + " failures");
+         System.exit((failures == 0) ? 0 : 1);
+      }
+   
+    // One run of random steps on both contents, stopping at the first mismatch.
+       private static void compare(int run) throws Exception {
+         AbstractDocument.Content expected = new GapContent();
+         AbstractDocument.Content actual = new PieceTableContent();
+         ArrayList<Position> expectedPositions = new ArrayList<Position>();
+         ArrayList<Position> actualPositions = new ArrayList<Position>();
+         ArrayList<UndoableEdit[]> edits = new ArrayList<UndoableEdit[]>(); // { expected, actual }
+         int nextEdit = 0; // edits before this can be undone, the rest redone
+         for (int step = 0; step < STEPS; step++) {
+            int length = expected.length();
+            int choice = random.nextInt(20);
+            String operation;
+            if (choice < 7) {
+               int where = random.nextInt(length);
+               String text = randomText();
+               operation = "insert " + text.length() + " at " + where;
+               nextEdit = addEdit(edits, nextEdit, expected.insertString(where, text), actual.insertString(where, text));
+            } 
+            else if (choice < 11 && length > 1) {
+               int where = random.nextInt(length - 1);
+               int count = 1 + random.nextInt(Math.min(length - 1 - where, (random.nextInt(10) == 0) ? 5000 : 40));
+               operation = "remove " + count + " at " + where;
+               nextEdit = addEdit(edits, nextEdit, expected.remove(where, count), actual.remove(where, count));
+            } 
+            else if (choice < 13) {
+               int burst = 1 + random.nextInt(400);
+               operation = "create up to " + burst + " positions";
+               createPositions(burst, length, expected, actual, expectedPositions, actualPositions);
+            } 
+            else if (choice < 17 && nextEdit > 0) {
+               int undos = 1 + random.nextInt(Math.min(nextEdit, (random.nextInt(5) == 0) ? 20 : 1));
+               operation = "undo " + undos;
+               for (int i = 0; i < undos; i++) {
+                  nextEdit--;
+                  edits.get(nextEdit)[0].undo();
+                  edits.get(nextEdit)[1].undo();
+               }
+            } 
+            else if (nextEdit < edits.size()) {
+               int redos = 1 + random.nextInt(edits.size() - nextEdit);
+               operation = "redo " + redos;
+               for (int i = 0; i < redos; i++) {
+                  edits.get(nextEdit)[0].redo();
+                  edits.get(nextEdit)[1].redo();
+                  nextEdit++;
+               }
+            } 
+            else {
+               continue;
+            }
+            String where = "run " + run + " step " + step + " (" + operation + ")";
+            if (!check(where, expected, actual, expectedPositions, actualPositions)) {
+               return;
+            }
+         }
+      }
+   
+    // Record a new edit, discarding those that could have been redone.
+       private static int addEdit(ArrayList<UndoableEdit[]> edits, int nextEdit, UndoableEdit expected, UndoableEdit actual) {
+         while (edits.size() > nextEdit) {
+            edits.remove(edits.size() - 1);
+         }
+         edits.add(new UndoableEdit[] { expected, actual });
+         return nextEdit + 1;
+      }
+   
+    // Create positions at random offsets not holding two or more different positions.
+       private static void createPositions(int burst, int length, AbstractDocument.Content expected, 
+          AbstractDocument.Content actual, ArrayList<Position> expectedPositions, 
+          ArrayList<Position> actualPositions) throws BadLocationException {
+         HashMap<Integer,Position> single = new HashMap<Integer,Position>();
+         HashSet<Integer> shared = new HashSet<Integer>();
+         for (int i = 0; i < expectedPositions.size(); i++) {
+            Integer offset = Integer.valueOf(expectedPositions.get(i).getOffset());
+            Position other = single.put(offset, expectedPositions.get(i));
+            if (other != null && other != expectedPositions.get(i)) {
+               shared.add(offset);
+            }
+         }
+         for (int i = 0; i < burst; i++) {
+            Integer offset = Integer.valueOf(random.nextInt(length + 1));
+            if (!shared.contains(offset)) {
+               Position position = expected.createPosition(offset.intValue());
+               expectedPositions.add(position);
+               actualPositions.add(actual.createPosition(offset.intValue()));
+               single.put(offset, position);
+            }
+         }
+      }
+   
+       private static boolean check(String where, AbstractDocument.Content expected, AbstractDocument.Content actual, 
+          ArrayList<Position> expectedPositions, ArrayList<Position> actualPositions) throws BadLocationException {
+         int length = expected.length();
+         if (actual.length() != length || !actual.getString(0, length).equals(expected.getString(0, length))) {
+            fail(where, "text differs");
+            return false;
+         }
+         for (int i = 0; i < expectedPositions.size(); i++) {
+            int want = expectedPositions.get(i).getOffset();
+            int got = actualPositions.get(i).getOffset();
+            if (want != got) {
+               fail(where, "position " + i + " is at " + got + ", expected " + want);
+               return false;
+            }
+         }
+         int from = random.nextInt(length);
+         int count = random.nextInt(length - from + 1);
+         Segment segment = new Segment();
+         segment.setPartialReturn(random.nextBoolean());
+         actual.getChars(from, count, segment);
+         String read = segment.toString();
+         if (!expected.getString(from, count).startsWith(read) || (count > 0 && read.length() == 0) 
+             || (!segment.isPartialReturn() && read.length() != count)) {
+            fail(where, "reading " + count + " at " + from + " gave \"" + read + "\"");
+            return false;
+         }
+         return true;
+      }
+   
+    // Mostly short text with some line breaks, occasionally long.
+       private static String randomText() {
+         int length = 1 + random.nextInt((random.nextInt(10) == 0) ? 20000 : 8);
+         StringBuffer text = new StringBuffer(length);
+         for (int i = 0; i < length; i++) {
+            text.append((random.nextInt(6) == 0) ? '\n' : (char) ('a' + random.nextInt(26)));
+         }
+         return text.toString();
+      }
+   
+       private static void fail(String where, String message) {
+         System.out.println(where + ": " + message);
+         failures++;
+      }
+   }